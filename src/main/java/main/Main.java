@@ -2,9 +2,13 @@ package main;
 
 import model.Instance;
 import model.Solution;
+import model.SolutionReport;
 import solver.Solver;
 import solver.ClarkeWrightFirst;
+import solver.ClarkeWrightParameters;
 import solver.ClarkeWrightSecond;
+import utils.ArtifactCache;
+import utils.BinaryInstanceFile;
 import utils.FileManager;
 import utils.FileManagerException;
 
@@ -25,16 +29,27 @@ public class Main {
      * Programme principal. <br>
      * Projet console.
      * 
-     * @param args paramètres de la ligne de commandes (non utilisé)
+     * @param args paramètres de la ligne de commandes, "--convert" suivi de
+     * fichiers d'instances texte les convertit au format binaire, "--cache"
+     * suivi d'un répertoire conserve les données précalculées des instances
+     * entre deux exécutions
      */
     public static void main(String[] args)  {
+        if (args.length > 0 && args[0].equals("--convert")) {
+            convertInstances(args);
+            return;
+        }
+        ClarkeWrightParameters parameters = new ClarkeWrightParameters();
+        if (args.length > 1 && args[0].equals("--cache")) {
+            parameters.setArtifactCache(new ArtifactCache(args[1]));
+        }
         JFileChooser fileChooser = new JFileChooser();
         SimpleDateFormat sdf = new SimpleDateFormat("dd-MM-yy_HH-mm");
         String globalTimestamp = sdf.format(new Timestamp(System.currentTimeMillis()));
         fileChooser.setDialogTitle("Merci de choisir un fichier d'instance à lire");
         fileChooser.setCurrentDirectory(new File(System.getProperty("user.dir")));
         //filtre sur les fichiers texte
-        FileNameExtensionFilter filter = new FileNameExtensionFilter("TEXT FILES", "txt", "text");
+        FileNameExtensionFilter filter = new FileNameExtensionFilter("INSTANCE FILES", "txt", "text", "bin");
         fileChooser.setFileFilter(filter);
         //possibilité de selectionner plusieurs fichiers d'instances
         fileChooser.setMultiSelectionEnabled(true);
@@ -49,15 +64,15 @@ public class Main {
                     
                     //lecture fichier et construction de l'instance
                     FileManager fm = new FileManager(instanceFile);
-                    Instance instance = fm.readInstance();
+                    Instance instance = parameters.getArtifactCache() == null ? fm.readInstance() : fm.readInstance(parameters.getArtifactCache());
                     System.out.println(instance.toString());
                     
                     //instantiation d'un solveur
                     Solver solver = new Solver(instance, true);
                     //heuristique résolution second échelon
-                    ClarkeWrightSecond secondCK = new ClarkeWrightSecond(solver);
+                    ClarkeWrightSecond secondCK = new ClarkeWrightSecond(solver, parameters);
                     //heuristique résolution premier échelon
-                    ClarkeWrightFirst firstCK = new ClarkeWrightFirst(solver);
+                    ClarkeWrightFirst firstCK = new ClarkeWrightFirst(solver, parameters);
                     
                     //timer d'exécution
                     long startTime = System.nanoTime();
@@ -71,24 +86,45 @@ public class Main {
                     
                     System.out.println(solution);
                     System.out.println("Temps écoulé : " + elapsedTime + "ms");
-                    System.out.println("Fonction Obj : " + solver.evaluateSolution(solution));
-                    System.out.println("Contraintes capacités 1er niveau respectées : " + (solver.isFirstEchelonCapacitiesRespected(solution) ? "oui" : "non"));
-                    System.out.println("Contraintes véhicules 1er niveau respectées : " + (solver.isFirstEchelonVehiclesNumberRespected(solution) ? "oui" : "non"));
-                    System.out.println("Contraintes temporelles 2nd niveau respectées : " + (solver.isSecondEchelonTimeWindowsRespected(solution) ? "oui" : "non"));
-                    System.out.println("Contraintes capacités 2nd niveau respectées : " + (solver.isSecondEchelonCapacitiesRespected(solution) ? "oui" : "non"));
-                    System.out.println("Contraintes véhicules 2nd respectées : " + (solver.isSecondEchelonVehiclesNumberRespected(solution) ? "oui" : "non"));
-                    System.out.println("Contraintes clients livrées : " + (solver.areAllCustomersDelivered(solution) ? "oui" : "non"));
-                    System.out.println("Solution faisable : " + (solver.isSolutionDoable(solution) ? "oui" : "non"));
+                    SolutionReport report = solver.getSolutionReport(solution);
+                    System.out.println("Fonction Obj : " + report.getObjective());
+                    System.out.println("Coûts 1er niveau (trajets, manutention, véhicules) : " + report.getFirstEchelonTravelCost() + " ; " + report.getFirstEchelonHandlingCost() + " ; " + report.getFirstEchelonVehicleCost());
+                    System.out.println("Coûts 2nd niveau (trajets, manutention, véhicules) : " + report.getSecondEchelonTravelCost() + " ; " + report.getSecondEchelonHandlingCost() + " ; " + report.getSecondEchelonVehicleCost());
+                    System.out.println("Contraintes capacités 1er niveau respectées : " + (report.isFirstEchelonCapacitiesRespected() ? "oui" : "non"));
+                    System.out.println("Contraintes véhicules 1er niveau respectées : " + (report.isFirstEchelonVehiclesNumberRespected() ? "oui" : "non"));
+                    System.out.println("Contraintes temporelles 2nd niveau respectées : " + (report.isSecondEchelonTimeWindowsRespected() ? "oui" : "non"));
+                    System.out.println("Contraintes capacités 2nd niveau respectées : " + (report.isSecondEchelonCapacitiesRespected() ? "oui" : "non"));
+                    System.out.println("Contraintes véhicules 2nd respectées : " + (report.isSecondEchelonVehiclesNumberRespected() ? "oui" : "non"));
+                    System.out.println("Contraintes clients livrées : " + (report.areAllCustomersDelivered() ? "oui" : "non"));
+                    System.out.println("Solution faisable : " + (report.isSolutionDoable() ? "oui" : "non"));
                     
                     //solution détaillée pour le fichier
                     fm.writeSolution(solver, instanceFile + "-result.txt");
                     
                     //solution globale pour l'ensemble des fichiers
-                    fm.writeGlobalSolution(file.getName().replace(".txt", ""), elapsedTime, solver, file.getParent() + "\\Results-" + globalTimestamp + ".txt");
+                    fm.writeGlobalSolution(file.getName().replace(".txt", "").replace(".bin", ""), elapsedTime, solver, file.getParent() + "\\Results-" + globalTimestamp + ".txt");
                 } catch (FileManagerException ex) {
                     System.err.println(ex.toString());
                 } 
             }
         }
     }
+
+    /**
+     * Convertit les fichiers d'instances texte donnés en paramètre au format
+     * binaire, la matrice de distance est stockée dans le fichier.
+     *
+     * @param args "--convert" suivi des fichiers à convertir
+     */
+    private static void convertInstances(String[] args) {
+        for (int i = 1; i < args.length; i++) {
+            String binaryFile = args[i].replaceAll("\\.txt$", "") + BinaryInstanceFile.EXTENSION;
+            try {
+                BinaryInstanceFile.convert(args[i], binaryFile, true);
+                System.out.println("Fichier converti : " + binaryFile);
+            } catch (FileManagerException ex) {
+                System.err.println(ex.toString());
+            }
+        }
+    }
 }
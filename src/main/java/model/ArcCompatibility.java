@@ -0,0 +1,109 @@
+package model;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Compatibilité des arcs vis à vis des fenêtres de temps. <br>
+ * Un arc client i -&gt; client j est impossible si, en partant de i au plus tôt
+ * (début de sa fenêtre de temps plus son temps de service), le véhicule arrive
+ * en j après la fin de sa fenêtre de temps. <br>
+ * Un arc satellite s -&gt; client c est impossible si, en chargeant en s dès le
+ * début de la tournée, le véhicule arrive en c après la fin de sa fenêtre. <br>
+ * Les arcs sont stockés dans des bitsets, les clients et satellites sont
+ * repérés par leur indice dans les listes de l'instance (siteID - 1).
+ *
+ * @see model.Instance
+ * @author LASTENNET Dorian
+ */
+public class ArcCompatibility {
+
+    private final int customerNumber;
+    private final BitSet customerArcs; //bit i * customerNumber + j pour l'arc client i -> client j
+    private final BitSet satelliteArcs; //bit s * customerNumber + c pour l'arc satellite s -> client c
+
+    public ArcCompatibility(Instance instance) {
+        this(instance, instance.getSiteTable());
+    }
+
+    /**
+     * Calcule les arcs possibles à partir des fenêtres de temps d'une table
+     * des sites, par exemple la table aux fenêtres resserrées.
+     *
+     * @param instance l'instance du problème
+     * @param sites la table des sites dont on lit les fenêtres de temps
+     */
+    public ArcCompatibility(Instance instance, SiteTable sites) {
+        List<Customer> customers = instance.getCustomers();
+        List<Satellite> satellites = instance.getSatellites();
+        this.customerNumber = customers.size();
+        this.customerArcs = new BitSet(customerNumber * customerNumber);
+        this.satelliteArcs = new BitSet(satellites.size() * customerNumber);
+        for (int i = 0; i < customerNumber; i++) {
+            int from = customers.get(i).getGlobalSiteID();
+            //départ au plus tôt du client i
+            long departure = (long) sites.getTimeWindowStart(from) + sites.getServiceTime(from);
+            for (int j = 0; j < customerNumber; j++) {
+                if (i != j && isReachable(instance, sites, departure, from, customers.get(j).getGlobalSiteID())) {
+                    customerArcs.set(i * customerNumber + j);
+                }
+            }
+        }
+        for (int s = 0; s < satellites.size(); s++) {
+            int from = satellites.get(s).getGlobalSiteID();
+            //départ au plus tôt du satellite après chargement
+            long departure = sites.getServiceTime(from);
+            for (int c = 0; c < customerNumber; c++) {
+                if (isReachable(instance, sites, departure, from, customers.get(c).getGlobalSiteID())) {
+                    satelliteArcs.set(s * customerNumber + c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Indique si le site to peut être servi dans sa fenêtre de temps en partant
+     * du site from à la date departure. <br>
+     * En virgule fixe la comparaison est faite en entiers comme dans le solveur.
+     */
+    private static boolean isReachable(Instance instance, SiteTable sites, long departure, int from, int to) {
+        long timeWindowEnd = sites.getTimeWindowEnd(to);
+        if (instance.isFixedPoint()) {
+            long scale = FixedPointDistanceMatrix.SCALE;
+            return departure * scale + instance.getScaledDistance(from, to) <= timeWindowEnd * scale;
+        }
+        return departure + instance.getDistance(from, to) <= timeWindowEnd;
+    }
+
+    /**
+     * @param from l'indice du client de départ
+     * @param to l'indice du client d'arrivée
+     * @return vrai si le client to peut suivre directement le client from
+     */
+    public boolean isCustomerArcFeasible(int from, int to) {
+        return customerArcs.get(from * customerNumber + to);
+    }
+
+    /**
+     * @param satellite l'indice du satellite
+     * @param customer l'indice du client
+     * @return vrai si le client peut être livré depuis le satellite
+     */
+    public boolean isSatelliteArcFeasible(int satellite, int customer) {
+        return satelliteArcs.get(satellite * customerNumber + customer);
+    }
+
+    /**
+     * @return le nombre d'arcs client -&gt; client possibles
+     */
+    public int getFeasibleCustomerArcNumber() {
+        return customerArcs.cardinality();
+    }
+
+    /**
+     * @return le nombre d'arcs satellite -&gt; client possibles
+     */
+    public int getFeasibleSatelliteArcNumber() {
+        return satelliteArcs.cardinality();
+    }
+}
@@ -0,0 +1,36 @@
+package model;
+
+import java.nio.DoubleBuffer;
+
+/**
+ * Matrice de distance complète lue directement dans un tampon, par exemple un
+ * fichier d'instance binaire projeté en mémoire. <br>
+ * Les distances ne sont ni recalculées ni copiées sur le tas.
+ *
+ * @see model.DistanceMatrix
+ * @see utils.BinaryInstanceFile
+ * @author LASTENNET Dorian
+ */
+public class BufferDistanceMatrix implements DistanceMatrix {
+
+    private final int siteNumber;
+    private final DoubleBuffer distances; //matrice ligne par ligne indexée sur le globalSiteID de chaque site
+
+    public BufferDistanceMatrix(int siteNumber, DoubleBuffer distances) {
+        if (distances.remaining() < (long) siteNumber * siteNumber) {
+            throw new IllegalArgumentException("Tampon trop petit pour la matrice de distance.");
+        }
+        this.siteNumber = siteNumber;
+        this.distances = distances.slice();
+    }
+
+    @Override
+    public double getDistance(int startSiteID, int arrivalSiteID) {
+        return distances.get(startSiteID * siteNumber + arrivalSiteID);
+    }
+
+    @Override
+    public int getSiteNumber() {
+        return siteNumber;
+    }
+}
@@ -0,0 +1,59 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Interface des différentes représentations de la matrice de distance. <br>
+ * Les distances sont indexées sur le globalSiteID de chaque site. <br>
+ * La distance euclidienne étant symétrique, les représentations peuvent ne
+ * stocker qu'une moitié de la matrice ou la recalculer à la demande.
+ *
+ * @see model.Instance
+ * @author LASTENNET Dorian
+ */
+public interface DistanceMatrix {
+
+    /**
+     * Type de stockage de la matrice de distance.
+     */
+    public enum Type {
+        FULL, //matrice complète n x n
+        PACKED, //triangle supérieur, moitié de la mémoire
+        ON_DEMAND, //calcul depuis les coordonnées avec un cache des lignes récentes
+        FIXED_POINT //distances entières multipliées par un facteur d'échelle
+    }
+
+    /**
+     * Renvoie la distance entre deux sites.
+     *
+     * @param startSiteID le globalSiteID du site de départ
+     * @param arrivalSiteID le globalSiteID du site d'arrivée
+     * @return la distance entre les deux sites
+     */
+    public abstract double getDistance(int startSiteID, int arrivalSiteID);
+
+    /**
+     * @return le nombre de sites couverts par la matrice
+     */
+    public abstract int getSiteNumber();
+
+    /**
+     * Construit une matrice de distance du type demandé.
+     *
+     * @param type le type de stockage
+     * @param sites l'ensemble des sites de l'instance
+     * @return la matrice de distance
+     */
+    public static DistanceMatrix create(Type type, List<Site> sites) {
+        switch (type) {
+            case PACKED:
+                return new PackedDistanceMatrix(sites);
+            case ON_DEMAND:
+                return new OnDemandDistanceMatrix(sites);
+            case FIXED_POINT:
+                return new FixedPointDistanceMatrix(sites);
+            default:
+                return new FullDistanceMatrix(sites);
+        }
+    }
+}
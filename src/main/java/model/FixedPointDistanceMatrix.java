@@ -0,0 +1,57 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Matrice de distance complète en virgule fixe. <br>
+ * Chaque distance est multipliée par SCALE puis arrondie à l'entier le plus
+ * proche et stockée dans un tableau d'entiers, deux fois plus petit qu'un
+ * tableau de double. Les évaluations menées sur ces entiers sont exactes et
+ * reproductibles d'une machine à l'autre, la distance n'est reconvertie en
+ * double que pour l'affichage du coût.
+ *
+ * @see model.DistanceMatrix
+ * @author LASTENNET Dorian
+ */
+public class FixedPointDistanceMatrix implements DistanceMatrix {
+
+    public static final int SCALE = 100; //précision au centième
+
+    private final int siteNumber;
+    private final int[] scaledDistances; //matrice ligne par ligne indexée sur le globalSiteID de chaque site
+
+    public FixedPointDistanceMatrix(List<Site> sites) {
+        this.siteNumber = sites.size();
+        if ((long) siteNumber * siteNumber > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trop de sites pour une matrice de distance en virgule fixe, utiliser le stockage PACKED ou ON_DEMAND.");
+        }
+        this.scaledDistances = new int[siteNumber * siteNumber];
+        for (Site siteLigne : sites) {
+            int rowOffset = siteLigne.getGlobalSiteID() * siteNumber;
+            for (Site siteColonne : sites) {
+                scaledDistances[rowOffset + siteColonne.getGlobalSiteID()] = (int) Math.round(siteLigne.computeDistance(siteColonne) * SCALE);
+            }
+        }
+    }
+
+    /**
+     * Renvoie la distance en virgule fixe entre deux sites.
+     *
+     * @param startSiteID le globalSiteID du site de départ
+     * @param arrivalSiteID le globalSiteID du site d'arrivée
+     * @return la distance multipliée par SCALE et arrondie
+     */
+    public int getScaledDistance(int startSiteID, int arrivalSiteID) {
+        return scaledDistances[startSiteID * siteNumber + arrivalSiteID];
+    }
+
+    @Override
+    public double getDistance(int startSiteID, int arrivalSiteID) {
+        return (double) getScaledDistance(startSiteID, arrivalSiteID) / SCALE;
+    }
+
+    @Override
+    public int getSiteNumber() {
+        return siteNumber;
+    }
+}
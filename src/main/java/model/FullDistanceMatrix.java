@@ -0,0 +1,42 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Matrice de distance complète stockée ligne par ligne dans un tableau
+ * primitif. <br>
+ * Représentation la plus rapide en accès, à privilégier pour les instances de
+ * taille raisonnable.
+ *
+ * @see model.DistanceMatrix
+ * @author LASTENNET Dorian
+ */
+public class FullDistanceMatrix implements DistanceMatrix {
+
+    private final int siteNumber;
+    private final double[] distances; //matrice ligne par ligne indexée sur le globalSiteID de chaque site
+
+    public FullDistanceMatrix(List<Site> sites) {
+        this.siteNumber = sites.size();
+        if ((long) siteNumber * siteNumber > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trop de sites pour une matrice de distance complète, utiliser le stockage PACKED ou ON_DEMAND.");
+        }
+        this.distances = new double[siteNumber * siteNumber];
+        for (Site siteLigne : sites) {
+            int rowOffset = siteLigne.getGlobalSiteID() * siteNumber;
+            for (Site siteColonne : sites) {
+                distances[rowOffset + siteColonne.getGlobalSiteID()] = siteLigne.computeDistance(siteColonne);
+            }
+        }
+    }
+
+    @Override
+    public double getDistance(int startSiteID, int arrivalSiteID) {
+        return distances[startSiteID * siteNumber + arrivalSiteID];
+    }
+
+    @Override
+    public int getSiteNumber() {
+        return siteNumber;
+    }
+}
@@ -1,7 +1,11 @@
 package model;
 
+import java.nio.ByteBuffer;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.List;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -19,40 +23,131 @@ public class Instance {
     private final List<Customer> customers;
     private final Fleet firstEchelonFleet;
     private final Fleet secondEchelonFleet;
-    private final List<List<Double>> distanceMatrix; //indexé sur le globalSiteID de chaque site
+    private final SiteTable siteTable; //données des sites en colonnes indexées sur le globalSiteID
+    private String fingerprint; //empreinte du contenu, calculée à la première demande
+    private SiteTable tightenedSiteTable; //mêmes données avec les fenêtres de temps resserrées, calculées à la première demande
+    private final DistanceMatrix distanceMatrix; //indexé sur le globalSiteID de chaque site
+    private Neighbourhood neighbourhood; //listes de voisinage, calculées à la première demande
+    private ArcCompatibility arcCompatibility; //arcs compatibles avec les fenêtres de temps, calculés à la première demande
+    private SpatialIndex<Depot> depotSpatialIndex; //index spatiaux, construits à la première demande
+    private SpatialIndex<Satellite> satelliteSpatialIndex;
+    private SpatialIndex<Customer> customerSpatialIndex;
 
     public Instance(List<Depot> depots, List<Satellite> satellites, List<Customer> customers, Fleet firstEchelonFleet, Fleet secondEchlonFleet) {
-        this.depots = depots;
-        this.satellites = satellites;
-        this.customers = customers;
+        this(depots, satellites, customers, firstEchelonFleet, secondEchlonFleet, DistanceMatrix.Type.FULL);
+    }
+
+    public Instance(List<Depot> depots, List<Satellite> satellites, List<Customer> customers, Fleet firstEchelonFleet, Fleet secondEchlonFleet, DistanceMatrix.Type distanceMatrixType) {
+        this(depots, satellites, customers, firstEchelonFleet, secondEchlonFleet, DistanceMatrix.create(distanceMatrixType, allSites(depots, satellites, customers)));
+    }
+
+    /**
+     * Constructeur avec une matrice de distance déjà calculée, par exemple lue
+     * dans un fichier d'instance binaire.
+     *
+     * @param depots les dépôts
+     * @param satellites les satellites
+     * @param customers les clients
+     * @param firstEchelonFleet la flotte du premier niveau
+     * @param secondEchlonFleet la flotte du second niveau
+     * @param distanceMatrix la matrice de distance indexée sur le globalSiteID
+     */
+    public Instance(List<Depot> depots, List<Satellite> satellites, List<Customer> customers, Fleet firstEchelonFleet, Fleet secondEchlonFleet, DistanceMatrix distanceMatrix) {
+        this.depots = Collections.unmodifiableList(new ArrayList<>(depots));
+        this.satellites = Collections.unmodifiableList(new ArrayList<>(satellites));
+        this.customers = Collections.unmodifiableList(new ArrayList<>(customers));
         this.firstEchelonFleet = firstEchelonFleet;
         this.secondEchelonFleet = secondEchlonFleet;
-        this.distanceMatrix = new ArrayList<>();
+        this.siteTable = new SiteTable(depots, satellites, customers);
+        this.distanceMatrix = distanceMatrix;
+    }
 
-        //Calcul de la matrice de distance
-        List<Site> sites = Stream.of(customers, satellites, depots)
+    /**
+     * @return l'ensemble des sites dans l'ordre des globalSiteID : clients,
+     * satellites puis dépôts
+     */
+    private static List<Site> allSites(List<Depot> depots, List<Satellite> satellites, List<Customer> customers) {
+        return Stream.of(customers, satellites, depots)
                 .flatMap(x -> x.stream())
                 .collect(Collectors.toList());
-        for (Site siteLigne : sites) {
-            List<Double> distances = new ArrayList<>();
-            for (Site siteColonne : sites) {
-                distances.add(siteLigne.computeDistance(siteColonne));
+    }
+
+    /**
+     * Calcule l'empreinte du contenu d'une instance avant sa construction, par
+     * exemple pour chercher sa matrice de distance dans un cache.
+     *
+     * @see #getFingerprint()
+     * @param depots les dépôts
+     * @param satellites les satellites
+     * @param customers les clients
+     * @param firstEchelonFleet la flotte du premier niveau
+     * @param secondEchelonFleet la flotte du second niveau
+     * @return l'empreinte SHA-256 en hexadécimal
+     */
+    public static String computeFingerprint(List<Depot> depots, List<Satellite> satellites, List<Customer> customers, Fleet firstEchelonFleet, Fleet secondEchelonFleet) {
+        return computeFingerprint(new SiteTable(depots, satellites, customers), depots.size(), satellites.size(), customers.size(), firstEchelonFleet, secondEchelonFleet);
+    }
+
+    /**
+     * Hache le nombre de sites de chaque type, les flottes et toutes les
+     * colonnes de la table des sites.
+     */
+    private static String computeFingerprint(SiteTable sites, int depotNumber, int satelliteNumber, int customerNumber, Fleet firstEchelonFleet, Fleet secondEchelonFleet) {
+        int siteNumber = sites.getSiteNumber();
+        ByteBuffer content = ByteBuffer.allocate(Integer.BYTES * (9 + 7 * siteNumber));
+        content.putInt(depotNumber).putInt(satelliteNumber).putInt(customerNumber);
+        for (Fleet fleet : new Fleet[]{firstEchelonFleet, secondEchelonFleet}) {
+            content.putInt(fleet == null ? -1 : fleet.getVehiclesNumber());
+            content.putInt(fleet == null ? -1 : fleet.getVehiclesCapacity());
+            content.putInt(fleet == null ? -1 : fleet.getVehiclesCost());
+        }
+        for (int id = 0; id < siteNumber; id++) {
+            content.putInt(sites.getSiteID(id)).putInt(sites.getxCoordinate(id)).putInt(sites.getyCoordinate(id));
+            content.putInt(sites.getServiceTime(id)).putInt(sites.getTimeWindowStart(id)).putInt(sites.getTimeWindowEnd(id));
+            content.putInt(sites.getDemandSize(id));
+        }
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content.array());
+            StringBuilder sb = new StringBuilder(2 * digest.length);
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
             }
-            distanceMatrix.add(distances);
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            //SHA-256 est fourni par toute JVM
+            throw new IllegalStateException(e);
         }
     }
 
-    //Accesseurs
+    /**
+     * Renvoie l'empreinte du contenu de l'instance : deux instances ayant les
+     * mêmes sites et les mêmes flottes ont la même empreinte, quel que soit le
+     * stockage de leur matrice de distance.
+     *
+     * @return l'empreinte SHA-256 en hexadécimal
+     */
+    public synchronized String getFingerprint() {
+        if (fingerprint == null) {
+            fingerprint = computeFingerprint(siteTable, depots.size(), satellites.size(), customers.size(), firstEchelonFleet, secondEchelonFleet);
+        }
+        return fingerprint;
+    }
+
+    //Accesseurs, les listes renvoyées ne sont pas modifiables
     public List<Depot> getDepots() {
-        return new ArrayList<>(depots);
+        return depots;
     }
 
     public List<Satellite> getSatellites() {
-        return new ArrayList<>(satellites);
+        return satellites;
     }
 
     public List<Customer> getCustomers() {
-        return new ArrayList<>(customers);
+        return customers;
+    }
+
+    public SiteTable getSiteTable() {
+        return siteTable;
     }
 
     public Fleet getFirstEchelonFleet() {
@@ -63,8 +158,151 @@ public class Instance {
         return secondEchelonFleet;
     }
 
+    public int getSiteNumber() {
+        return distanceMatrix.getSiteNumber();
+    }
+
+    public DistanceMatrix getDistanceMatrix() {
+        return distanceMatrix;
+    }
+
     public double getDistance(Site startSite, Site arrivalSite) {
-        return distanceMatrix.get(startSite.getGlobalSiteID()).get(arrivalSite.getGlobalSiteID());
+        return getDistance(startSite.getGlobalSiteID(), arrivalSite.getGlobalSiteID());
+    }
+
+    /**
+     * @return vrai si les distances sont stockées en virgule fixe, les
+     * évaluations se font alors en arithmétique entière
+     */
+    public boolean isFixedPoint() {
+        return distanceMatrix instanceof FixedPointDistanceMatrix;
+    }
+
+    /**
+     * Renvoie la distance en virgule fixe entre deux sites. <br>
+     * A n'utiliser que si l'instance est en virgule fixe.
+     *
+     * @see #isFixedPoint()
+     * @param startSiteID le globalSiteID du site de départ
+     * @param arrivalSiteID le globalSiteID du site d'arrivée
+     * @return la distance multipliée par FixedPointDistanceMatrix.SCALE
+     */
+    public int getScaledDistance(int startSiteID, int arrivalSiteID) {
+        return ((FixedPointDistanceMatrix) distanceMatrix).getScaledDistance(startSiteID, arrivalSiteID);
+    }
+
+    /**
+     * Accès direct à la matrice de distance sans passer par les objets sites.
+     *
+     * @param startSiteID le globalSiteID du site de départ
+     * @param arrivalSiteID le globalSiteID du site d'arrivée
+     * @return la distance entre les deux sites
+     */
+    public double getDistance(int startSiteID, int arrivalSiteID) {
+        return distanceMatrix.getDistance(startSiteID, arrivalSiteID);
+    }
+
+    public synchronized SpatialIndex<Depot> getDepotSpatialIndex() {
+        if (depotSpatialIndex == null) {
+            depotSpatialIndex = new SpatialIndex<>(depots);
+        }
+        return depotSpatialIndex;
+    }
+
+    public synchronized SpatialIndex<Satellite> getSatelliteSpatialIndex() {
+        if (satelliteSpatialIndex == null) {
+            satelliteSpatialIndex = new SpatialIndex<>(satellites);
+        }
+        return satelliteSpatialIndex;
+    }
+
+    public synchronized SpatialIndex<Customer> getCustomerSpatialIndex() {
+        if (customerSpatialIndex == null) {
+            customerSpatialIndex = new SpatialIndex<>(customers);
+        }
+        return customerSpatialIndex;
+    }
+
+    /**
+     * Renvoie les listes de voisinage des clients. <br>
+     * Elles sont calculées une seule fois puis conservées tant que le nombre de
+     * voisins demandé ne change pas.
+     *
+     * @param size le nombre k de plus proches clients à conserver par client
+     * @return les listes de voisinage
+     */
+    public synchronized Neighbourhood getNeighbourhood(int size) {
+        int effectiveSize = Math.min(size, Math.max(customers.size() - 1, 0));
+        if (neighbourhood == null || neighbourhood.getSize() != effectiveSize) {
+            neighbourhood = new Neighbourhood(this, size);
+        }
+        return neighbourhood;
+    }
+
+    /**
+     * Remplace les listes de voisinage conservées, par exemple par des listes
+     * lues dans un cache.
+     *
+     * @param neighbourhood les listes de voisinage de l'instance
+     */
+    public synchronized void setNeighbourhood(Neighbourhood neighbourhood) {
+        this.neighbourhood = neighbourhood;
+    }
+
+    /**
+     * Renvoie la table des sites dont les fenêtres de temps des clients sont
+     * resserrées. <br>
+     * Un client ne peut être atteint avant d'avoir quitté un satellite : le
+     * début de sa fenêtre est relevé à l'arrivée au plus tôt depuis le
+     * satellite le plus proche (service au satellite compris). Par inégalité
+     * triangulaire aucun chemin passant par d'autres sites n'arrive plus tôt.
+     * <br>
+     * Le début retenu est le plus grand entier strictement inférieur à cette
+     * arrivée : sans temps d'attente, un service commençant exactement au
+     * début de la fenêtre compte comme une arrivée en avance, une arrivée au
+     * plus tôt entière serait alors rejetée alors que la fenêtre d'origine
+     * l'accepte. Le resserrement ne change donc pas la faisabilité. <br>
+     * Les tournées n'ayant pas d'horizon de retour, la fin des fenêtres ne
+     * peut pas être resserrée et reste inchangée.
+     *
+     * @return la table des sites avec les fenêtres resserrées
+     */
+    public synchronized SiteTable getTightenedSiteTable() {
+        if (tightenedSiteTable == null) {
+            int[] timeWindowStarts = new int[siteTable.getSiteNumber()];
+            int[] timeWindowEnds = new int[siteTable.getSiteNumber()];
+            for (int id = 0; id < siteTable.getSiteNumber(); id++) {
+                timeWindowStarts[id] = siteTable.getTimeWindowStart(id);
+                timeWindowEnds[id] = siteTable.getTimeWindowEnd(id);
+            }
+            for (Customer customer : customers) {
+                int c = customer.getGlobalSiteID();
+                double earliestArrival = Double.MAX_VALUE;
+                for (Satellite satellite : satellites) {
+                    int s = satellite.getGlobalSiteID();
+                    earliestArrival = Math.min(earliestArrival, siteTable.getServiceTime(s) + getDistance(s, c));
+                }
+                if (!satellites.isEmpty()) {
+                    timeWindowStarts[c] = Math.max(timeWindowStarts[c], (int) Math.ceil(earliestArrival) - 1);
+                }
+            }
+            tightenedSiteTable = siteTable.withTimeWindows(timeWindowStarts, timeWindowEnds);
+        }
+        return tightenedSiteTable;
+    }
+
+    /**
+     * Renvoie la compatibilité des arcs avec les fenêtres de temps. <br>
+     * Elle est calculée une seule fois à la première demande, sur les
+     * fenêtres resserrées.
+     *
+     * @return les arcs client -&gt; client et satellite -&gt; client possibles
+     */
+    public synchronized ArcCompatibility getArcCompatibility() {
+        if (arcCompatibility == null) {
+            arcCompatibility = new ArcCompatibility(this, getTightenedSiteTable());
+        }
+        return arcCompatibility;
     }
 
     /**
@@ -0,0 +1,129 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Listes de voisinage précalculées pour chaque client. <br>
+ * Pour chaque client on conserve ses k plus proches clients et l'ensemble des
+ * satellites triés par distance croissante. <br>
+ * Les clients et satellites sont repérés par leur indice dans les listes de
+ * l'instance (siteID - 1).
+ *
+ * @see model.SpatialIndex
+ * @see model.Instance
+ * @author LASTENNET Dorian
+ */
+public class Neighbourhood {
+
+    private final int size; //nombre k de voisins conservés par client
+    private final int[][] nearestCustomers; //k plus proches clients de chaque client
+    private final int[][] nearestSatellites; //satellites triés par distance pour chaque client
+    private final int[][] candidatePartners; //clients l > c formant une paire candidate avec c
+
+    public Neighbourhood(Instance instance, int size) {
+        List<Customer> customers = instance.getCustomers();
+        List<Satellite> satellites = instance.getSatellites();
+        int customerNumber = customers.size();
+        this.size = Math.min(size, Math.max(customerNumber - 1, 0));
+        this.nearestCustomers = new int[customerNumber][];
+        this.nearestSatellites = new int[customerNumber][];
+
+        //recherche des plus proches voisins par l'index spatial plutôt que par un parcours complet
+        SpatialIndex<Customer> customerIndex = instance.getCustomerSpatialIndex();
+        SpatialIndex<Satellite> satelliteIndex = instance.getSatelliteSpatialIndex();
+        for (int c = 0; c < customerNumber; c++) {
+            Customer customer = customers.get(c);
+            nearestCustomers[c] = customerIndex.nearest(customer.getxCoordinate(), customer.getyCoordinate(), this.size, customer.getGlobalSiteID());
+            nearestSatellites[c] = satelliteIndex.nearest(customer.getxCoordinate(), customer.getyCoordinate(), satellites.size(), -1);
+        }
+        this.candidatePartners = computeCandidatePartners(customerNumber);
+    }
+
+    /**
+     * Constructeur à partir de listes déjà calculées, par exemple lues dans un
+     * cache.
+     *
+     * @param size le nombre k de voisins conservés par client
+     * @param nearestCustomers les k plus proches clients de chaque client
+     * @param nearestSatellites les satellites triés par distance pour chaque client
+     */
+    public Neighbourhood(int size, int[][] nearestCustomers, int[][] nearestSatellites) {
+        this.size = size;
+        this.nearestCustomers = nearestCustomers;
+        this.nearestSatellites = nearestSatellites;
+        this.candidatePartners = computeCandidatePartners(nearestCustomers.length);
+    }
+
+    /**
+     * Calcule pour chaque client c les clients l &gt; c tels que l est voisin
+     * de c ou c est voisin de l, triés par indice croissant. <br>
+     * Chaque paire candidate n'apparait ainsi qu'une seule fois.
+     *
+     * @param customerNumber le nombre de clients
+     * @return les partenaires candidats de chaque client
+     */
+    private int[][] computeCandidatePartners(int customerNumber) {
+        int[] counts = new int[customerNumber];
+        for (int c = 0; c < customerNumber; c++) {
+            for (int l : nearestCustomers[c]) {
+                counts[Math.min(c, l)]++;
+            }
+        }
+        int[][] partners = new int[customerNumber][];
+        for (int c = 0; c < customerNumber; c++) {
+            partners[c] = new int[counts[c]];
+            counts[c] = 0;
+        }
+        for (int c = 0; c < customerNumber; c++) {
+            for (int l : nearestCustomers[c]) {
+                int low = Math.min(c, l);
+                partners[low][counts[low]++] = Math.max(c, l);
+            }
+        }
+        for (int c = 0; c < customerNumber; c++) {
+            Arrays.sort(partners[c]);
+            int distinct = 0;
+            for (int i = 0; i < partners[c].length; i++) {
+                if (i == 0 || partners[c][i] != partners[c][i - 1]) {
+                    partners[c][distinct++] = partners[c][i];
+                }
+            }
+            partners[c] = Arrays.copyOf(partners[c], distinct);
+        }
+        return partners;
+    }
+
+    /**
+     * Indique si le client other fait partie des k plus proches voisins du client.
+     *
+     * @param customer l'indice du client
+     * @param other l'indice de l'autre client
+     * @return vrai si other est voisin de customer
+     */
+    public boolean isNeighbour(int customer, int other) {
+        for (int neighbour : nearestCustomers[customer]) {
+            if (neighbour == other) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    //Accesseurs
+    public int getSize() {
+        return size;
+    }
+
+    public int[] getNearestCustomers(int customer) {
+        return nearestCustomers[customer];
+    }
+
+    public int[] getNearestSatellites(int customer) {
+        return nearestSatellites[customer];
+    }
+
+    public int[] getCandidatePartners(int customer) {
+        return candidatePartners[customer];
+    }
+}
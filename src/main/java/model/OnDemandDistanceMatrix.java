@@ -0,0 +1,136 @@
+package model;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Matrice de distance calculée à la demande depuis les coordonnées des sites. <br>
+ * Seules les coordonnées sont conservées, ce qui permet de traiter de très
+ * grandes instances. Une distance absente du cache est calculée seule. Les
+ * lignes des sites de départ utilisés de manière répétée sont gardées dans un
+ * petit cache associatif par ensembles, avec remplacement de la ligne la
+ * moins récemment utilisée, propre à chaque thread pour que l'instance reste
+ * partageable entre plusieurs résolutions simultanées. <br>
+ * La matrice étant symétrique, une distance est aussi lue dans la ligne du
+ * site d'arrivée si elle est en cache.
+ *
+ * @see model.DistanceMatrix
+ * @author LASTENNET Dorian
+ */
+public class OnDemandDistanceMatrix implements DistanceMatrix {
+
+    private static final int SETS = 4; //puissance de 2
+    private static final int WAYS = 4; //lignes par ensemble
+    private static final int RECENT_MISSES = 8; //puissance de 2
+
+    private final int siteNumber;
+    private final int[] xCoordinates; //indexé sur le globalSiteID de chaque site
+    private final int[] yCoordinates; //indexé sur le globalSiteID de chaque site
+    private final ThreadLocal<RowCache> rowCache;
+
+    public OnDemandDistanceMatrix(List<Site> sites) {
+        this.siteNumber = sites.size();
+        this.xCoordinates = new int[siteNumber];
+        this.yCoordinates = new int[siteNumber];
+        for (Site site : sites) {
+            xCoordinates[site.getGlobalSiteID()] = site.getxCoordinate();
+            yCoordinates[site.getGlobalSiteID()] = site.getyCoordinate();
+        }
+        this.rowCache = ThreadLocal.withInitial(RowCache::new);
+    }
+
+    @Override
+    public double getDistance(int startSiteID, int arrivalSiteID) {
+        return rowCache.get().getDistance(startSiteID, arrivalSiteID);
+    }
+
+    @Override
+    public int getSiteNumber() {
+        return siteNumber;
+    }
+
+    /**
+     * Cache associatif par ensembles des lignes de la matrice. <br>
+     * Une ligne n'est calculée que pour un site de départ déjà parmi les
+     * derniers défauts de cache : un accès isolé ne coûte qu'une distance.
+     */
+    private class RowCache {
+
+        private final int[] rowIDs = new int[SETS * WAYS];
+        private final long[] lastUses = new long[SETS * WAYS];
+        private final double[][] rows = new double[SETS * WAYS][]; //allouées à la première utilisation
+        private final int[] recentMisses = new int[RECENT_MISSES]; //derniers sites de départ absents du cache
+        private int nextMiss;
+        private long clock;
+
+        RowCache() {
+            Arrays.fill(rowIDs, -1);
+            Arrays.fill(recentMisses, -1);
+        }
+
+        double getDistance(int startSiteID, int arrivalSiteID) {
+            int slot = find(startSiteID);
+            if (slot >= 0) {
+                return rows[slot][arrivalSiteID];
+            }
+            slot = find(arrivalSiteID);
+            if (slot >= 0) {
+                return rows[slot][startSiteID];
+            }
+            for (int recentMiss : recentMisses) {
+                if (recentMiss == startSiteID) {
+                    return fill(startSiteID)[arrivalSiteID];
+                }
+            }
+            recentMisses[nextMiss] = startSiteID;
+            nextMiss = (nextMiss + 1) & (RECENT_MISSES - 1);
+            return Site.computeDistance(xCoordinates[startSiteID], yCoordinates[startSiteID], xCoordinates[arrivalSiteID], yCoordinates[arrivalSiteID]);
+        }
+
+        private int setOf(int siteID) {
+            //mélange des bits pour que des identifiants réguliers ne tombent pas dans le même ensemble
+            return ((siteID * 0x9E3779B9) >>> 16) & (SETS - 1);
+        }
+
+        /**
+         * @return l'emplacement de la ligne du site, -1 si elle n'est pas en
+         * cache
+         */
+        private int find(int siteID) {
+            int base = setOf(siteID) * WAYS;
+            for (int slot = base; slot < base + WAYS; slot++) {
+                if (rowIDs[slot] == siteID) {
+                    lastUses[slot] = ++clock;
+                    return slot;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Calcule la ligne d'un site à la place de la ligne la moins
+         * récemment utilisée de son ensemble.
+         */
+        private double[] fill(int siteID) {
+            int base = setOf(siteID) * WAYS;
+            int slot = base;
+            for (int way = base + 1; way < base + WAYS; way++) {
+                if (lastUses[way] < lastUses[slot]) {
+                    slot = way;
+                }
+            }
+            if (rows[slot] == null) {
+                rows[slot] = new double[siteNumber];
+            }
+            double[] row = rows[slot];
+            int x = xCoordinates[siteID];
+            int y = yCoordinates[siteID];
+            for (int i = 0; i < siteNumber; i++) {
+                row[i] = Site.computeDistance(x, y, xCoordinates[i], yCoordinates[i]);
+            }
+            rowIDs[slot] = siteID;
+            lastUses[slot] = ++clock;
+            return row;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Matrice de distance symétrique dont seul le triangle supérieur strict est
+ * stocké. <br>
+ * La diagonale étant nulle et la matrice symétrique, on divise par deux la
+ * mémoire nécessaire par rapport à la matrice complète.
+ *
+ * @see model.DistanceMatrix
+ * @author LASTENNET Dorian
+ */
+public class PackedDistanceMatrix implements DistanceMatrix {
+
+    private final int siteNumber;
+    private final double[] distances; //triangle supérieur ligne par ligne
+
+    public PackedDistanceMatrix(List<Site> sites) {
+        this.siteNumber = sites.size();
+        long cellNumber = (long) siteNumber * (siteNumber - 1) / 2;
+        if (cellNumber > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Trop de sites pour une matrice de distance compacte, utiliser le stockage ON_DEMAND.");
+        }
+        this.distances = new double[(int) cellNumber];
+        for (Site siteLigne : sites) {
+            for (Site siteColonne : sites) {
+                if (siteLigne.getGlobalSiteID() < siteColonne.getGlobalSiteID()) {
+                    distances[index(siteLigne.getGlobalSiteID(), siteColonne.getGlobalSiteID())] = siteLigne.computeDistance(siteColonne);
+                }
+            }
+        }
+    }
+
+    /**
+     * Position de la paire (i, j) avec i &lt; j dans le triangle supérieur.
+     *
+     * @param i le plus petit globalSiteID
+     * @param j le plus grand globalSiteID
+     * @return l'indice dans le tableau des distances
+     */
+    private int index(int i, int j) {
+        return (int) ((long) i * (2L * siteNumber - i - 1) / 2) + j - i - 1;
+    }
+
+    @Override
+    public double getDistance(int startSiteID, int arrivalSiteID) {
+        if (startSiteID < arrivalSiteID) {
+            return distances[index(startSiteID, arrivalSiteID)];
+        } else if (startSiteID > arrivalSiteID) {
+            return distances[index(arrivalSiteID, startSiteID)];
+        }
+        return 0.0;
+    }
+
+    @Override
+    public int getSiteNumber() {
+        return siteNumber;
+    }
+}
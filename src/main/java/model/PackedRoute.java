@@ -0,0 +1,244 @@
+package model;
+
+import java.util.Arrays;
+
+/**
+ * Route compacte stockée dans un tableau d'entiers extensible. <br>
+ * Les routes des deux niveaux ont la même structure : une affectation charge
+ * un site servi (client ou satellite) à son origine (satellite ou dépôt), un
+ * séquencement livre le site servi. Chaque élément tient dans un entier : <br>
+ * - séquencement : l'indice du site servi (positif) <br>
+ * - affectation : bit de signe, indice de l'origine sur les bits 20 à 30 et
+ * indice du site servi sur les bits 0 à 19 (négatif). <br>
+ * Les indices sont ceux des listes de l'instance (siteID - 1). Parcourir ou
+ * modifier la route n'alloue aucun objet.
+ *
+ * @see model.PackedRouteFirst
+ * @see model.PackedRouteSecond
+ * @author LASTENNET Dorian
+ */
+public abstract class PackedRoute {
+
+    public static final int MAX_SITES = 1 << 20; //nombre maximal de sites servis
+    public static final int MAX_ORIGINS = 1 << 11; //nombre maximal d'origines
+    private static final int LOAD_FLAG = 1 << 31;
+    private static final int ORIGIN_SHIFT = 20;
+    private static final int SITE_MASK = MAX_SITES - 1;
+    private static final int ORIGIN_MASK = MAX_ORIGINS - 1;
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] elements;
+    private int size;
+
+    protected PackedRoute() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    protected PackedRoute(int capacity) {
+        this.elements = new int[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    protected PackedRoute(PackedRoute route) {
+        this.elements = Arrays.copyOf(route.elements, Math.max(route.size, 1));
+        this.size = route.size;
+    }
+
+    /**
+     * @param site l'indice du site servi
+     * @return l'élément codant la livraison du site
+     */
+    public static int encodeDelivery(int site) {
+        if (site < 0 || site >= MAX_SITES) {
+            throw new IllegalArgumentException("Indice de site hors limites : " + site);
+        }
+        return site;
+    }
+
+    /**
+     * @param site l'indice du site servi
+     * @param origin l'indice de son origine
+     * @return l'élément codant l'affectation du site à son origine
+     */
+    public static int encodeLoad(int site, int origin) {
+        if (site < 0 || site >= MAX_SITES || origin < 0 || origin >= MAX_ORIGINS) {
+            throw new IllegalArgumentException("Indice de site ou d'origine hors limites : " + site + ", " + origin);
+        }
+        return LOAD_FLAG | (origin << ORIGIN_SHIFT) | site;
+    }
+
+    /**
+     * @param element un élément de route
+     * @return vrai si l'élément est une affectation
+     */
+    public static boolean isLoad(int element) {
+        return element < 0;
+    }
+
+    /**
+     * @param element un élément de route
+     * @return l'indice du site servi
+     */
+    public static int siteOf(int element) {
+        return element & SITE_MASK;
+    }
+
+    /**
+     * @param element un élément de route
+     * @return l'indice de l'origine, -1 pour un séquencement
+     */
+    public static int originOf(int element) {
+        return element < 0 ? (element >>> ORIGIN_SHIFT) & ORIGIN_MASK : -1;
+    }
+
+    //Accès aux éléments
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int get(int index) {
+        checkIndex(index, size);
+        return elements[index];
+    }
+
+    public boolean isLoadAt(int index) {
+        return isLoad(get(index));
+    }
+
+    public int siteAt(int index) {
+        return siteOf(get(index));
+    }
+
+    public int originAt(int index) {
+        return originOf(get(index));
+    }
+
+    /**
+     * @param element l'élément cherché
+     * @return la position de la première occurence de l'élément, -1 s'il est absent
+     */
+    public int indexOf(int element) {
+        for (int i = 0; i < size; i++) {
+            if (elements[i] == element) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    //Modifications
+    public void add(int element) {
+        ensureCapacity(size + 1);
+        elements[size++] = element;
+    }
+
+    public void add(int index, int element) {
+        checkIndex(index, size + 1);
+        ensureCapacity(size + 1);
+        System.arraycopy(elements, index, elements, index + 1, size - index);
+        elements[index] = element;
+        size++;
+    }
+
+    /**
+     * Ajoute en fin de route les éléments d'une autre route.
+     *
+     * @param route la route à ajouter
+     */
+    public void addAll(PackedRoute route) {
+        ensureCapacity(size + route.size);
+        System.arraycopy(route.elements, 0, elements, size, route.size);
+        size += route.size;
+    }
+
+    public void set(int index, int element) {
+        checkIndex(index, size);
+        elements[index] = element;
+    }
+
+    /**
+     * @param index la position de l'élément à retirer
+     * @return l'élément retiré
+     */
+    public int remove(int index) {
+        checkIndex(index, size);
+        int element = elements[index];
+        System.arraycopy(elements, index + 1, elements, index, size - index - 1);
+        size--;
+        return element;
+    }
+
+    /**
+     * Retire tous les éléments (affectation et séquencement) d'un site servi.
+     *
+     * @param site l'indice du site servi
+     */
+    public void removeSite(int site) {
+        int kept = 0;
+        for (int i = 0; i < size; i++) {
+            if (siteOf(elements[i]) != site) {
+                elements[kept++] = elements[i];
+            }
+        }
+        size = kept;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * @return une copie des éléments de la route
+     */
+    public int[] toArray() {
+        return Arrays.copyOf(elements, size);
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(capacity, 2 * elements.length));
+        }
+    }
+
+    private static void checkIndex(int index, int bound) {
+        if (index < 0 || index >= bound) {
+            throw new IndexOutOfBoundsException("Indice " + index + " hors de la route de taille " + bound);
+        }
+    }
+
+    /**
+     * Surchage opérateur d'égalité, deux routes sont égales si elles ont le
+     * même type et les mêmes éléments.
+     *
+     * @param o objet à comparer
+     * @return booléen indiquant si les objets sont identiques
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (o == this) {
+            return true;
+        }
+        if (o == null || o.getClass() != getClass()) {
+            return false;
+        }
+        PackedRoute route = (PackedRoute) o;
+        return Arrays.equals(elements, 0, size, route.elements, 0, route.size);
+    }
+
+    /**
+     * Surchage obligatoire si surchage de equals
+     * @return hash de l'objet
+     */
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        for (int i = 0; i < size; i++) {
+            hash = 79 * hash + elements[i];
+        }
+        return hash;
+    }
+}
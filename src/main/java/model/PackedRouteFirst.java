@@ -0,0 +1,158 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Route compacte du premier niveau. <br>
+ * Le site servi est un satellite et l'origine un dépôt : une affectation
+ * charge au dépôt d la marchandise du satellite s, un séquencement livre le
+ * satellite s. <br>
+ * Equivalent sans objet intermédiaire d'une permutation
+ * {@code List<AssignmentFirst>} de la solution.
+ *
+ * @see model.PackedRoute
+ * @see model.AssignmentFirst
+ * @author LASTENNET Dorian
+ */
+public class PackedRouteFirst extends PackedRoute {
+
+    public PackedRouteFirst() {
+        super();
+    }
+
+    public PackedRouteFirst(int capacity) {
+        super(capacity);
+    }
+
+    public PackedRouteFirst(PackedRouteFirst route) {
+        super(route);
+    }
+
+    /**
+     * Ajoute en fin de route le chargement au dépôt de la marchandise du
+     * satellite.
+     *
+     * @param satellite l'indice du satellite
+     * @param depot l'indice du dépôt
+     */
+    public void addLoad(int satellite, int depot) {
+        add(encodeLoad(satellite, depot));
+    }
+
+    /**
+     * Ajoute en fin de route la livraison du satellite.
+     *
+     * @param satellite l'indice du satellite
+     */
+    public void addDelivery(int satellite) {
+        add(encodeDelivery(satellite));
+    }
+
+    /**
+     * @param index la position dans la route
+     * @return l'indice du satellite de l'élément
+     */
+    public int getSatellite(int index) {
+        return siteAt(index);
+    }
+
+    /**
+     * @param index la position dans la route
+     * @return l'indice du dépôt de l'affectation, -1 pour un séquencement
+     */
+    public int getDepot(int index) {
+        return originAt(index);
+    }
+
+    /**
+     * Convertit une permutation de la solution en route compacte.
+     *
+     * @param route la permutation à convertir
+     * @return la route compacte
+     */
+    public static PackedRouteFirst fromAssignments(List<AssignmentFirst> route) {
+        PackedRouteFirst packedRoute = new PackedRouteFirst(route.size());
+        for (AssignmentFirst assign : route) {
+            int satellite = assign.getSatellite().getSiteID() - 1;
+            Optional<Depot> depot = assign.getDepot();
+            if (depot.isPresent()) {
+                packedRoute.addLoad(satellite, depot.get().getSiteID() - 1);
+            } else {
+                packedRoute.addDelivery(satellite);
+            }
+        }
+        return packedRoute;
+    }
+
+    /**
+     * Convertit la route compacte en permutation de la solution.
+     *
+     * @param instance l'instance contenant les satellites et dépôts
+     * @return la permutation
+     */
+    public List<AssignmentFirst> toAssignments(Instance instance) {
+        List<Satellite> satellites = instance.getSatellites();
+        List<Depot> depots = instance.getDepots();
+        List<AssignmentFirst> route = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            int element = get(i);
+            Satellite satellite = satellites.get(siteOf(element));
+            route.add(isLoad(element) ? new AssignmentFirst(satellite, depots.get(originOf(element))) : new AssignmentFirst(satellite));
+        }
+        return route;
+    }
+
+    /**
+     * Convertit les permutations du premier niveau d'une solution.
+     *
+     * @see Solution#getFirstEchelonPermutations()
+     * @param permutations les permutations à convertir
+     * @return les routes compactes dans le même ordre
+     */
+    public static List<PackedRouteFirst> fromPermutations(List<List<AssignmentFirst>> permutations) {
+        List<PackedRouteFirst> routes = new ArrayList<>(permutations.size());
+        for (List<AssignmentFirst> route : permutations) {
+            routes.add(fromAssignments(route));
+        }
+        return routes;
+    }
+
+    /**
+     * Convertit des routes compactes au format des permutations du premier
+     * niveau d'une solution.
+     *
+     * @param routes les routes compactes
+     * @param instance l'instance contenant les satellites et dépôts
+     * @return les permutations dans le même ordre
+     */
+    public static List<List<AssignmentFirst>> toPermutations(List<PackedRouteFirst> routes, Instance instance) {
+        List<List<AssignmentFirst>> permutations = new ArrayList<>(routes.size());
+        for (PackedRouteFirst route : routes) {
+            permutations.add(route.toAssignments(instance));
+        }
+        return permutations;
+    }
+
+    /**
+     * Représentation de l'objet en texte, au format des affectations.
+     *
+     * @return texte
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            int element = get(i);
+            if (i > 0) {
+                sb.append(", ");
+            }
+            if (isLoad(element)) {
+                sb.append("D").append(originOf(element) + 1).append("_");
+            }
+            sb.append("S").append(siteOf(element) + 1);
+        }
+        return sb.append("]").toString();
+    }
+}
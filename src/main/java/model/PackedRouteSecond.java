@@ -0,0 +1,156 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Route compacte du second niveau. <br>
+ * Le site servi est un client et l'origine un satellite : une affectation
+ * charge le client c au satellite s, un séquencement livre le client c. <br>
+ * Equivalent sans objet intermédiaire d'une permutation
+ * {@code List<AssignmentSecond>} de la solution.
+ *
+ * @see model.PackedRoute
+ * @see model.AssignmentSecond
+ * @author LASTENNET Dorian
+ */
+public class PackedRouteSecond extends PackedRoute {
+
+    public PackedRouteSecond() {
+        super();
+    }
+
+    public PackedRouteSecond(int capacity) {
+        super(capacity);
+    }
+
+    public PackedRouteSecond(PackedRouteSecond route) {
+        super(route);
+    }
+
+    /**
+     * Ajoute en fin de route le chargement du client au satellite.
+     *
+     * @param customer l'indice du client
+     * @param satellite l'indice du satellite
+     */
+    public void addLoad(int customer, int satellite) {
+        add(encodeLoad(customer, satellite));
+    }
+
+    /**
+     * Ajoute en fin de route la livraison du client.
+     *
+     * @param customer l'indice du client
+     */
+    public void addDelivery(int customer) {
+        add(encodeDelivery(customer));
+    }
+
+    /**
+     * @param index la position dans la route
+     * @return l'indice du client de l'élément
+     */
+    public int getCustomer(int index) {
+        return siteAt(index);
+    }
+
+    /**
+     * @param index la position dans la route
+     * @return l'indice du satellite de l'affectation, -1 pour un séquencement
+     */
+    public int getSatellite(int index) {
+        return originAt(index);
+    }
+
+    /**
+     * Convertit une permutation de la solution en route compacte.
+     *
+     * @param route la permutation à convertir
+     * @return la route compacte
+     */
+    public static PackedRouteSecond fromAssignments(List<AssignmentSecond> route) {
+        PackedRouteSecond packedRoute = new PackedRouteSecond(route.size());
+        for (AssignmentSecond assign : route) {
+            int customer = assign.getCustomer().getSiteID() - 1;
+            Optional<Satellite> satellite = assign.getSatellite();
+            if (satellite.isPresent()) {
+                packedRoute.addLoad(customer, satellite.get().getSiteID() - 1);
+            } else {
+                packedRoute.addDelivery(customer);
+            }
+        }
+        return packedRoute;
+    }
+
+    /**
+     * Convertit la route compacte en permutation de la solution.
+     *
+     * @param instance l'instance contenant les clients et satellites
+     * @return la permutation
+     */
+    public List<AssignmentSecond> toAssignments(Instance instance) {
+        List<Customer> customers = instance.getCustomers();
+        List<Satellite> satellites = instance.getSatellites();
+        List<AssignmentSecond> route = new ArrayList<>(size());
+        for (int i = 0; i < size(); i++) {
+            int element = get(i);
+            Customer customer = customers.get(siteOf(element));
+            route.add(isLoad(element) ? new AssignmentSecond(customer, satellites.get(originOf(element))) : new AssignmentSecond(customer));
+        }
+        return route;
+    }
+
+    /**
+     * Convertit les permutations du second niveau d'une solution.
+     *
+     * @see Solution#getSecondEchelonPermutations()
+     * @param permutations les permutations à convertir
+     * @return les routes compactes dans le même ordre
+     */
+    public static List<PackedRouteSecond> fromPermutations(List<List<AssignmentSecond>> permutations) {
+        List<PackedRouteSecond> routes = new ArrayList<>(permutations.size());
+        for (List<AssignmentSecond> route : permutations) {
+            routes.add(fromAssignments(route));
+        }
+        return routes;
+    }
+
+    /**
+     * Convertit des routes compactes au format des permutations du second
+     * niveau d'une solution.
+     *
+     * @param routes les routes compactes
+     * @param instance l'instance contenant les clients et satellites
+     * @return les permutations dans le même ordre
+     */
+    public static List<List<AssignmentSecond>> toPermutations(List<PackedRouteSecond> routes, Instance instance) {
+        List<List<AssignmentSecond>> permutations = new ArrayList<>(routes.size());
+        for (PackedRouteSecond route : routes) {
+            permutations.add(route.toAssignments(instance));
+        }
+        return permutations;
+    }
+
+    /**
+     * Représentation de l'objet en texte, au format des affectations.
+     *
+     * @return texte
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size(); i++) {
+            int element = get(i);
+            if (i > 0) {
+                sb.append(", ");
+            }
+            if (isLoad(element)) {
+                sb.append("S").append(originOf(element) + 1).append("_");
+            }
+            sb.append("C").append(siteOf(element) + 1);
+        }
+        return sb.append("]").toString();
+    }
+}
@@ -0,0 +1,54 @@
+package model;
+
+/**
+ * Évaluation d'une route de la solution : ses coûts, sa charge maximale et
+ * la violation de ses fenêtres de temps. <br>
+ * Elle est conservée par la solution tant que la route n'est pas modifiée,
+ * l'évaluation de la solution ne fait alors que sommer celles de ses routes.
+ *
+ * @see model.Solution
+ * @author LASTENNET Dorian
+ */
+public final class RouteEvaluation {
+
+    private final double travelCost; //coût de trajet, nul en virgule fixe
+    private final long scaledTravelCost; //coût de trajet multiplié par le facteur d'échelle, en virgule fixe
+    private final double handlingCost;
+    private final int peakLoad; //charge maximale du véhicule
+    private final double timeWindowsViolation; //nulle pour le premier niveau
+    private final int[] loads; //chargements de la route compacte, vide pour le premier niveau
+
+    public RouteEvaluation(double travelCost, long scaledTravelCost, double handlingCost, int peakLoad, double timeWindowsViolation, int[] loads) {
+        this.travelCost = travelCost;
+        this.scaledTravelCost = scaledTravelCost;
+        this.handlingCost = handlingCost;
+        this.peakLoad = peakLoad;
+        this.timeWindowsViolation = timeWindowsViolation;
+        this.loads = loads;
+    }
+
+    //Accesseurs
+    public double getTravelCost() {
+        return travelCost;
+    }
+
+    public long getScaledTravelCost() {
+        return scaledTravelCost;
+    }
+
+    public double getHandlingCost() {
+        return handlingCost;
+    }
+
+    public int getPeakLoad() {
+        return peakLoad;
+    }
+
+    public double getTimeWindowsViolation() {
+        return timeWindowsViolation;
+    }
+
+    public int[] getLoads() {
+        return loads;
+    }
+}
@@ -34,7 +34,21 @@ public abstract class Site {
      * @return double : la distance euclidienne entre les deux sommets
      */
     public final double computeDistance(Site site) {
-        return sqrt(pow((double) xCoordinate - site.getxCoordinate(), 2) + pow((double) yCoordinate - site.getyCoordinate(), 2));
+        return computeDistance(xCoordinate, yCoordinate, site.getxCoordinate(), site.getyCoordinate());
+    }
+
+    /**
+     * Calcule la distance euclidienne entre deux points à partir de leurs coordonnées. <br>
+     * Utilisée par les matrices de distance qui ne conservent pas les objets sites.
+     *
+     * @param x1 coordonnée en x du premier point
+     * @param y1 coordonnée en y du premier point
+     * @param x2 coordonnée en x du second point
+     * @param y2 coordonnée en y du second point
+     * @return double : la distance euclidienne entre les deux points
+     */
+    public static double computeDistance(int x1, int y1, int x2, int y2) {
+        return sqrt(pow((double) x1 - x2, 2) + pow((double) y1 - y2, 2));
     }
 
     //Accesseurs
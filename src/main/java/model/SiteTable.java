@@ -0,0 +1,117 @@
+package model;
+
+import java.util.List;
+
+/**
+ * Vue immuable des données des sites rangées en colonnes. <br>
+ * Chaque colonne est un tableau d'entiers indexé sur le globalSiteID des
+ * sites, ce qui permet aux fonctions d'évaluation de parcourir une mémoire
+ * contiguë plutôt que de suivre les références vers les objets sites. <br>
+ * Les satellites et dépôts ont une demande nulle et une fenêtre de temps
+ * ouverte [0, Integer.MAX_VALUE].
+ *
+ * @see model.Instance
+ * @author LASTENNET Dorian
+ */
+public final class SiteTable {
+
+    private final int[] siteIDs; //identifiant du site parmi les sites de même type
+    private final int[] xCoordinates;
+    private final int[] yCoordinates;
+    private final int[] serviceTimes;
+    private final int[] timeWindowStarts;
+    private final int[] timeWindowEnds;
+    private final int[] demandSizes;
+
+    public SiteTable(List<Depot> depots, List<Satellite> satellites, List<Customer> customers) {
+        int siteNumber = depots.size() + satellites.size() + customers.size();
+        this.siteIDs = new int[siteNumber];
+        this.xCoordinates = new int[siteNumber];
+        this.yCoordinates = new int[siteNumber];
+        this.serviceTimes = new int[siteNumber];
+        this.timeWindowStarts = new int[siteNumber];
+        this.timeWindowEnds = new int[siteNumber];
+        this.demandSizes = new int[siteNumber];
+        for (Site site : depots) {
+            setSite(site, 0, Integer.MAX_VALUE, 0);
+        }
+        for (Site site : satellites) {
+            setSite(site, 0, Integer.MAX_VALUE, 0);
+        }
+        for (Customer customer : customers) {
+            setSite(customer, customer.getTimeWindowStart(), customer.getTimeWindowEnd(), customer.getDemandSize());
+        }
+    }
+
+    /**
+     * Copie d'une table en remplaçant les fenêtres de temps, les autres
+     * colonnes sont partagées avec la table d'origine.
+     */
+    private SiteTable(SiteTable original, int[] timeWindowStarts, int[] timeWindowEnds) {
+        this.siteIDs = original.siteIDs;
+        this.xCoordinates = original.xCoordinates;
+        this.yCoordinates = original.yCoordinates;
+        this.serviceTimes = original.serviceTimes;
+        this.timeWindowStarts = timeWindowStarts;
+        this.timeWindowEnds = timeWindowEnds;
+        this.demandSizes = original.demandSizes;
+    }
+
+    /**
+     * Renvoie une table identique dont les fenêtres de temps sont remplacées.
+     *
+     * @param timeWindowStarts les débuts de fenêtre indexés sur le globalSiteID
+     * @param timeWindowEnds les fins de fenêtre indexées sur le globalSiteID
+     * @return la nouvelle table
+     */
+    public SiteTable withTimeWindows(int[] timeWindowStarts, int[] timeWindowEnds) {
+        if (timeWindowStarts.length != siteIDs.length || timeWindowEnds.length != siteIDs.length) {
+            throw new IllegalArgumentException("Nombre de fenêtres de temps incorrect.");
+        }
+        return new SiteTable(this, timeWindowStarts.clone(), timeWindowEnds.clone());
+    }
+
+    private void setSite(Site site, int timeWindowStart, int timeWindowEnd, int demandSize) {
+        int id = site.getGlobalSiteID();
+        siteIDs[id] = site.getSiteID();
+        xCoordinates[id] = site.getxCoordinate();
+        yCoordinates[id] = site.getyCoordinate();
+        serviceTimes[id] = site.getServiceTime();
+        timeWindowStarts[id] = timeWindowStart;
+        timeWindowEnds[id] = timeWindowEnd;
+        demandSizes[id] = demandSize;
+    }
+
+    //Accesseurs
+    public int getSiteNumber() {
+        return siteIDs.length;
+    }
+
+    public int getSiteID(int globalSiteID) {
+        return siteIDs[globalSiteID];
+    }
+
+    public int getxCoordinate(int globalSiteID) {
+        return xCoordinates[globalSiteID];
+    }
+
+    public int getyCoordinate(int globalSiteID) {
+        return yCoordinates[globalSiteID];
+    }
+
+    public int getServiceTime(int globalSiteID) {
+        return serviceTimes[globalSiteID];
+    }
+
+    public int getTimeWindowStart(int globalSiteID) {
+        return timeWindowStarts[globalSiteID];
+    }
+
+    public int getTimeWindowEnd(int globalSiteID) {
+        return timeWindowEnds[globalSiteID];
+    }
+
+    public int getDemandSize(int globalSiteID) {
+        return demandSizes[globalSiteID];
+    }
+}
@@ -2,13 +2,19 @@ package model;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
  * Classe qui contient la solution du problème. <br>
  * Une solution est un ensemble de permutations. <br>
- * Une permutation est un ensemble d'affectation. 
+ * Une permutation est un ensemble d'affectation. <br>
+ * La solution conserve l'évaluation de chacune de ses routes et son bilan.
+ * Une modification par les méthodes de la solution n'oublie que
+ * l'évaluation des routes touchées : la réévaluation de la solution ne
+ * recalcule que ces routes et somme les autres évaluations.
  *
  * @see AssignmentSecond
  * @author LASTENNET Dorian
@@ -19,6 +25,13 @@ public class Solution {
     private List<List<AssignmentSecond>> secondEchelonPermutations;
     //contient la demande des satellites une fois le second échelon résolu indexé par le siteID du satellite 
     private List<Integer> secondEchelonCapacity; 
+    private SolutionReport report; //bilan de la solution, null tant qu'il n'est pas calculé ou après une modification
+    //évaluations des routes dans l'ordre des permutations, null pour une route à réévaluer
+    private final List<RouteEvaluation> firstEchelonEvaluations = new ArrayList<>();
+    private final List<RouteEvaluation> secondEchelonEvaluations = new ArrayList<>();
+    private final Map<Integer, Integer> loadMultiplicity = new HashMap<>(); //nombre d'occurrences de chaque chargement des routes évaluées
+    private boolean waitingTimeAllowed; //options de vérification des fenêtres de temps des évaluations
+    private boolean tightenedTimeWindows;
 
     public Solution() {
         this.firstEchelonPermutations = new ArrayList<>();
@@ -30,6 +43,192 @@ public class Solution {
         this.firstEchelonPermutations = firstEchelonPermutation;
         this.secondEchelonPermutations = secondEchelonPermutation;
         this.secondEchelonCapacity  = new ArrayList<>();
+        resetFirstEchelonEvaluations();
+        resetSecondEchelonEvaluations();
+    }
+
+    /**
+     * Remplace une route du premier niveau.
+     *
+     * @param index la position de la route
+     * @param route la nouvelle route
+     */
+    public void setFirstEchelonRoute(int index, List<AssignmentFirst> route) {
+        firstEchelonPermutations.set(index, route);
+        invalidateFirstEchelonRoute(index);
+    }
+
+    /**
+     * Ajoute une route au premier niveau.
+     *
+     * @param route la route ajoutée
+     */
+    public void addFirstEchelonRoute(List<AssignmentFirst> route) {
+        synchronizeEvaluations();
+        firstEchelonPermutations.add(route);
+        firstEchelonEvaluations.add(null);
+        report = null;
+    }
+
+    /**
+     * Retire une route du premier niveau.
+     *
+     * @param index la position de la route
+     */
+    public void removeFirstEchelonRoute(int index) {
+        synchronizeEvaluations();
+        firstEchelonPermutations.remove(index);
+        firstEchelonEvaluations.remove(index);
+        report = null;
+    }
+
+    /**
+     * Remplace une route du second niveau. <br>
+     * La demande des satellites n'est pas recalculée.
+     *
+     * @param index la position de la route
+     * @param route la nouvelle route
+     */
+    public void setSecondEchelonRoute(int index, List<AssignmentSecond> route) {
+        secondEchelonPermutations.set(index, route);
+        invalidateSecondEchelonRoute(index);
+    }
+
+    /**
+     * Ajoute une route au second niveau. <br>
+     * La demande des satellites n'est pas recalculée.
+     *
+     * @param route la route ajoutée
+     */
+    public void addSecondEchelonRoute(List<AssignmentSecond> route) {
+        synchronizeEvaluations();
+        secondEchelonPermutations.add(route);
+        secondEchelonEvaluations.add(null);
+        report = null;
+    }
+
+    /**
+     * Retire une route du second niveau. <br>
+     * La demande des satellites n'est pas recalculée.
+     *
+     * @param index la position de la route
+     */
+    public void removeSecondEchelonRoute(int index) {
+        synchronizeEvaluations();
+        secondEchelonPermutations.remove(index);
+        forgetLoads(secondEchelonEvaluations.remove(index));
+        report = null;
+    }
+
+    /**
+     * Oublie l'évaluation d'une route du premier niveau modifiée directement
+     * dans la liste des permutations.
+     *
+     * @param index la position de la route
+     */
+    public void invalidateFirstEchelonRoute(int index) {
+        synchronizeEvaluations();
+        firstEchelonEvaluations.set(index, null);
+        report = null;
+    }
+
+    /**
+     * Oublie l'évaluation d'une route du second niveau modifiée directement
+     * dans la liste des permutations.
+     *
+     * @param index la position de la route
+     */
+    public void invalidateSecondEchelonRoute(int index) {
+        synchronizeEvaluations();
+        forgetLoads(secondEchelonEvaluations.set(index, null));
+        report = null;
+    }
+
+    /**
+     * Oublie les évaluations d'un niveau dont le nombre de routes a été
+     * modifié directement dans la liste des permutations.
+     */
+    public void synchronizeEvaluations() {
+        if (firstEchelonEvaluations.size() != firstEchelonPermutations.size()) {
+            resetFirstEchelonEvaluations();
+            report = null;
+        }
+        if (secondEchelonEvaluations.size() != secondEchelonPermutations.size()) {
+            resetSecondEchelonEvaluations();
+            report = null;
+        }
+    }
+
+    /**
+     * Fixe les options de vérification des fenêtres de temps des évaluations
+     * du second niveau, qui sont oubliées si elles changent.
+     *
+     * @param waitingTimeAllowed vrai si l'attente chez les clients est
+     * autorisée
+     * @param tightenedTimeWindows vrai si les fenêtres de temps resserrées
+     * sont vérifiées
+     */
+    public void useEvaluationOptions(boolean waitingTimeAllowed, boolean tightenedTimeWindows) {
+        if (this.waitingTimeAllowed != waitingTimeAllowed || this.tightenedTimeWindows != tightenedTimeWindows) {
+            this.waitingTimeAllowed = waitingTimeAllowed;
+            this.tightenedTimeWindows = tightenedTimeWindows;
+            resetSecondEchelonEvaluations();
+            report = null;
+        }
+    }
+
+    private void resetFirstEchelonEvaluations() {
+        firstEchelonEvaluations.clear();
+        firstEchelonEvaluations.addAll(Collections.nCopies(firstEchelonPermutations.size(), null));
+    }
+
+    private void resetSecondEchelonEvaluations() {
+        secondEchelonEvaluations.clear();
+        secondEchelonEvaluations.addAll(Collections.nCopies(secondEchelonPermutations.size(), null));
+        loadMultiplicity.clear();
+    }
+
+    private void forgetLoads(RouteEvaluation evaluation) {
+        if (evaluation != null) {
+            for (int load : evaluation.getLoads()) {
+                loadMultiplicity.computeIfPresent(load, (key, number) -> number == 1 ? null : number - 1);
+            }
+        }
+    }
+
+    /**
+     * @param index la position de la route
+     * @return l'évaluation de la route, null si elle est à réévaluer
+     */
+    public RouteEvaluation getFirstEchelonEvaluation(int index) {
+        return firstEchelonEvaluations.get(index);
+    }
+
+    public void setFirstEchelonEvaluation(int index, RouteEvaluation evaluation) {
+        firstEchelonEvaluations.set(index, evaluation);
+    }
+
+    /**
+     * @param index la position de la route
+     * @return l'évaluation de la route, null si elle est à réévaluer
+     */
+    public RouteEvaluation getSecondEchelonEvaluation(int index) {
+        return secondEchelonEvaluations.get(index);
+    }
+
+    public void setSecondEchelonEvaluation(int index, RouteEvaluation evaluation) {
+        forgetLoads(secondEchelonEvaluations.set(index, evaluation));
+        for (int load : evaluation.getLoads()) {
+            loadMultiplicity.merge(load, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * @return le nombre de chargements distincts des routes évaluées du
+     * second niveau
+     */
+    public int getDistinctLoadNumber() {
+        return loadMultiplicity.size();
     }
 
     //Accesseurs
@@ -40,6 +239,8 @@ public class Solution {
 
     public void setFirstEchelonPermutations(List<List<AssignmentFirst>> firstEchelonPermutations) {
         this.firstEchelonPermutations = firstEchelonPermutations;
+        this.report = null;
+        resetFirstEchelonEvaluations();
     }
 
     public List<List<AssignmentSecond>> getSecondEchelonPermutations() {
@@ -48,6 +249,8 @@ public class Solution {
 
     public void setSecondEchelonPermutations(List<List<AssignmentSecond>> secondEchelonPermutations) {
         this.secondEchelonPermutations = secondEchelonPermutations;
+        this.report = null;
+        resetSecondEchelonEvaluations();
     }
 
     public List<Integer> getSecondEchelonCapacity() {
@@ -56,6 +259,9 @@ public class Solution {
 
     public void setSecondEchelonCapacity(List<Integer> secondEchelonCapacity) {
         this.secondEchelonCapacity = secondEchelonCapacity;
+        this.report = null;
+        //la charge des routes du premier niveau dépend de la demande des satellites
+        resetFirstEchelonEvaluations();
     }
     
     /**
@@ -74,6 +280,33 @@ public class Solution {
             }
         }
         secondEchelonCapacity = list;
+        report = null;
+        resetFirstEchelonEvaluations();
+    }
+
+    /**
+     * Oublie le bilan de la solution et les évaluations de toutes ses routes.
+     * <br>
+     * Les méthodes de la solution oublient d'elles-mêmes ce qu'elles
+     * modifient, une modification directe des listes de la solution doit être
+     * suivie d'un appel à cette méthode ou à l'invalidation des routes
+     * modifiées.
+     */
+    public void invalidateReport() {
+        report = null;
+        resetFirstEchelonEvaluations();
+        resetSecondEchelonEvaluations();
+    }
+
+    /**
+     * @return le bilan de la solution, null s'il n'est pas calculé
+     */
+    public SolutionReport getReport() {
+        return report;
+    }
+
+    public void setReport(SolutionReport report) {
+        this.report = report;
     }
 
     /**
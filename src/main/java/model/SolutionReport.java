@@ -0,0 +1,187 @@
+package model;
+
+/**
+ * Bilan d'une solution calculé à partir des évaluations de ses routes : la
+ * fonction objectif détaillée en coûts de trajet, de manutention et de
+ * véhicules, et pour chaque contrainte l'ampleur de sa violation, nulle si
+ * elle est respectée. <br>
+ * Le bilan est conservé par la solution jusqu'à sa prochaine modification.
+ * <br>
+ * Tant que la demande des satellites n'est pas calculée, les coûts du premier
+ * niveau sont connus mais pas le dépassement de ses capacités : il vaut
+ * {@link #UNKNOWN_EXCESS} et la contrainte n'est pas considérée respectée.
+ *
+ * @see model.Solution
+ * @see model.RouteEvaluation
+ * @see solver.Solver#getSolutionReport(Solution)
+ * @author LASTENNET Dorian
+ */
+public final class SolutionReport {
+
+    public static final int UNKNOWN_EXCESS = -1; //dépassement non calculable
+
+    private final double firstEchelonTravelCost;
+    private final double firstEchelonHandlingCost;
+    private final double firstEchelonVehicleCost;
+    private final double secondEchelonTravelCost;
+    private final double secondEchelonHandlingCost;
+    private final double secondEchelonVehicleCost;
+    private final int firstEchelonCapacityExcess; //somme des dépassements de capacité des routes, UNKNOWN_EXCESS sans demande des satellites
+    private final int firstEchelonVehicleExcess; //nombre de véhicules au-delà de la flotte
+    private final double secondEchelonTimeWindowsViolation; //somme des retards, et des attentes si elles sont interdites
+    private final int secondEchelonCapacityExcess;
+    private final int secondEchelonVehicleExcess;
+    private final int undeliveredCustomerNumber; //négatif si des clients sont chargés à plusieurs satellites
+
+    public SolutionReport(double firstEchelonTravelCost, double firstEchelonHandlingCost, double firstEchelonVehicleCost,
+            double secondEchelonTravelCost, double secondEchelonHandlingCost, double secondEchelonVehicleCost,
+            int firstEchelonCapacityExcess, int firstEchelonVehicleExcess, double secondEchelonTimeWindowsViolation,
+            int secondEchelonCapacityExcess, int secondEchelonVehicleExcess, int undeliveredCustomerNumber) {
+        this.firstEchelonTravelCost = firstEchelonTravelCost;
+        this.firstEchelonHandlingCost = firstEchelonHandlingCost;
+        this.firstEchelonVehicleCost = firstEchelonVehicleCost;
+        this.secondEchelonTravelCost = secondEchelonTravelCost;
+        this.secondEchelonHandlingCost = secondEchelonHandlingCost;
+        this.secondEchelonVehicleCost = secondEchelonVehicleCost;
+        this.firstEchelonCapacityExcess = firstEchelonCapacityExcess;
+        this.firstEchelonVehicleExcess = firstEchelonVehicleExcess;
+        this.secondEchelonTimeWindowsViolation = secondEchelonTimeWindowsViolation;
+        this.secondEchelonCapacityExcess = secondEchelonCapacityExcess;
+        this.secondEchelonVehicleExcess = secondEchelonVehicleExcess;
+        this.undeliveredCustomerNumber = undeliveredCustomerNumber;
+    }
+
+    /**
+     * @return la valeur de la fonction objectif pour le premier niveau
+     */
+    public double getFirstEchelonCost() {
+        return firstEchelonTravelCost + firstEchelonHandlingCost + firstEchelonVehicleCost;
+    }
+
+    /**
+     * @return la valeur de la fonction objectif pour le second niveau
+     */
+    public double getSecondEchelonCost() {
+        return secondEchelonTravelCost + secondEchelonHandlingCost + secondEchelonVehicleCost;
+    }
+
+    /**
+     * @return la valeur de la fonction objectif
+     */
+    public double getObjective() {
+        return getFirstEchelonCost() + getSecondEchelonCost();
+    }
+
+    public boolean isFirstEchelonCapacitiesRespected() {
+        return firstEchelonCapacityExcess == 0;
+    }
+
+    /**
+     * @return vrai si la demande des satellites était connue et le
+     * dépassement des capacités du premier niveau calculé
+     */
+    public boolean isFirstEchelonCapacityExcessKnown() {
+        return firstEchelonCapacityExcess != UNKNOWN_EXCESS;
+    }
+
+    public boolean isFirstEchelonVehiclesNumberRespected() {
+        return firstEchelonVehicleExcess == 0;
+    }
+
+    public boolean isSecondEchelonTimeWindowsRespected() {
+        return secondEchelonTimeWindowsViolation == 0.0;
+    }
+
+    public boolean isSecondEchelonCapacitiesRespected() {
+        return secondEchelonCapacityExcess == 0;
+    }
+
+    public boolean isSecondEchelonVehiclesNumberRespected() {
+        return secondEchelonVehicleExcess == 0;
+    }
+
+    public boolean areAllCustomersDelivered() {
+        return undeliveredCustomerNumber == 0;
+    }
+
+    /**
+     * La livraison des clients ne fait pas partie de la faisabilité, comme
+     * pour {@link solver.Solver#isSolutionDoable(Solution)}.
+     *
+     * @return vrai si les contraintes de capacité, de véhicules et de
+     * fenêtres de temps sont respectées
+     */
+    public boolean isSolutionDoable() {
+        return isFirstEchelonCapacitiesRespected()
+                && isFirstEchelonVehiclesNumberRespected()
+                && isSecondEchelonCapacitiesRespected()
+                && isSecondEchelonTimeWindowsRespected()
+                && isSecondEchelonVehiclesNumberRespected();
+    }
+
+    //Accesseurs
+    public double getFirstEchelonTravelCost() {
+        return firstEchelonTravelCost;
+    }
+
+    public double getFirstEchelonHandlingCost() {
+        return firstEchelonHandlingCost;
+    }
+
+    public double getFirstEchelonVehicleCost() {
+        return firstEchelonVehicleCost;
+    }
+
+    public double getSecondEchelonTravelCost() {
+        return secondEchelonTravelCost;
+    }
+
+    public double getSecondEchelonHandlingCost() {
+        return secondEchelonHandlingCost;
+    }
+
+    public double getSecondEchelonVehicleCost() {
+        return secondEchelonVehicleCost;
+    }
+
+    public int getFirstEchelonCapacityExcess() {
+        return firstEchelonCapacityExcess;
+    }
+
+    public int getFirstEchelonVehicleExcess() {
+        return firstEchelonVehicleExcess;
+    }
+
+    public double getSecondEchelonTimeWindowsViolation() {
+        return secondEchelonTimeWindowsViolation;
+    }
+
+    public int getSecondEchelonCapacityExcess() {
+        return secondEchelonCapacityExcess;
+    }
+
+    public int getSecondEchelonVehicleExcess() {
+        return secondEchelonVehicleExcess;
+    }
+
+    public int getUndeliveredCustomerNumber() {
+        return undeliveredCustomerNumber;
+    }
+
+    /**
+     * Représentation de l'objet en texte.
+     *
+     * @return texte
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Bilan=[FO=").append(getObjective());
+        sb.append(", Trajets=").append(firstEchelonTravelCost).append('/').append(secondEchelonTravelCost);
+        sb.append(", Manutention=").append(firstEchelonHandlingCost).append('/').append(secondEchelonHandlingCost);
+        sb.append(", Véhicules=").append(firstEchelonVehicleCost).append('/').append(secondEchelonVehicleCost);
+        sb.append(", Faisable=").append(isSolutionDoable());
+        sb.append("]");
+        return sb.toString();
+    }
+}
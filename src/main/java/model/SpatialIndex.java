@@ -0,0 +1,244 @@
+package model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Index spatial sur les coordonnées d'un ensemble de sites. <br>
+ * Les sites sont répartis dans une grille uniforme couvrant leur rectangle
+ * englobant, environ deux sites par case. Les recherches par rayon et des k
+ * plus proches voisins ne parcourent que les cases utiles au lieu de tous les
+ * sites. <br>
+ * Les résultats sont donnés par indice dans la liste fournie à la construction,
+ * à distance égale le plus petit indice est prioritaire.
+ *
+ * @param <T> le type de site indexé
+ * @see model.Instance
+ * @author LASTENNET Dorian
+ */
+public class SpatialIndex<T extends Site> {
+
+    private static final int SITES_PER_CELL = 2;
+
+    private final List<T> sites;
+    private final int[] xCoordinates; //indexé sur la position du site dans la liste
+    private final int[] yCoordinates; //indexé sur la position du site dans la liste
+    private final int[] globalSiteIDs; //indexé sur la position du site dans la liste
+    private final int xMin;
+    private final int yMin;
+    private final double cellSize;
+    private final int columns;
+    private final int rows;
+    private final int[] cellStart; //début de chaque case dans cellSites, une case de plus en fin
+    private final int[] cellSites; //indices des sites rangés case par case
+
+    public SpatialIndex(List<T> sites) {
+        this.sites = new ArrayList<>(sites);
+        int siteNumber = sites.size();
+        this.xCoordinates = new int[siteNumber];
+        this.yCoordinates = new int[siteNumber];
+        this.globalSiteIDs = new int[siteNumber];
+        int minX = Integer.MAX_VALUE;
+        int minY = Integer.MAX_VALUE;
+        int maxX = Integer.MIN_VALUE;
+        int maxY = Integer.MIN_VALUE;
+        for (int i = 0; i < siteNumber; i++) {
+            xCoordinates[i] = sites.get(i).getxCoordinate();
+            yCoordinates[i] = sites.get(i).getyCoordinate();
+            globalSiteIDs[i] = sites.get(i).getGlobalSiteID();
+            minX = Math.min(minX, xCoordinates[i]);
+            minY = Math.min(minY, yCoordinates[i]);
+            maxX = Math.max(maxX, xCoordinates[i]);
+            maxY = Math.max(maxY, yCoordinates[i]);
+        }
+        if (siteNumber == 0) {
+            minX = 0;
+            minY = 0;
+            maxX = 0;
+            maxY = 0;
+        }
+        this.xMin = minX;
+        this.yMin = minY;
+        //grille carrée d'environ SITES_PER_CELL sites par case
+        int side = Math.max(1, (int) Math.ceil(Math.sqrt((double) siteNumber / SITES_PER_CELL)));
+        this.cellSize = Math.max(1.0, (double) Math.max(maxX - minX, maxY - minY) / side);
+        this.columns = (int) ((maxX - minX) / cellSize) + 1;
+        this.rows = (int) ((maxY - minY) / cellSize) + 1;
+
+        //rangement des sites case par case (tri par dénombrement)
+        this.cellStart = new int[columns * rows + 1];
+        this.cellSites = new int[siteNumber];
+        int[] siteCells = new int[siteNumber];
+        for (int i = 0; i < siteNumber; i++) {
+            siteCells[i] = cell(column(xCoordinates[i]), row(yCoordinates[i]));
+            cellStart[siteCells[i] + 1]++;
+        }
+        for (int c = 0; c < columns * rows; c++) {
+            cellStart[c + 1] += cellStart[c];
+        }
+        int[] fill = Arrays.copyOf(cellStart, columns * rows);
+        for (int i = 0; i < siteNumber; i++) {
+            cellSites[fill[siteCells[i]]++] = i;
+        }
+    }
+
+    private int column(int x) {
+        return Math.min(columns - 1, Math.max(0, (int) ((x - xMin) / cellSize)));
+    }
+
+    private int row(int y) {
+        return Math.min(rows - 1, Math.max(0, (int) ((y - yMin) / cellSize)));
+    }
+
+    private int cell(int column, int row) {
+        return row * columns + column;
+    }
+
+    /**
+     * Recherche les sites situés à une distance inférieure ou égale à un rayon
+     * autour d'un point.
+     *
+     * @param x coordonnée en x du centre
+     * @param y coordonnée en y du centre
+     * @param radius le rayon de recherche
+     * @return les indices des sites trouvés, par ordre croissant
+     */
+    public int[] rangeQuery(int x, int y, double radius) {
+        int[] found = new int[sites.size()];
+        int foundNumber = 0;
+        if (!sites.isEmpty() && radius >= 0) {
+            int firstColumn = column((int) Math.floor(x - radius));
+            int lastColumn = column((int) Math.ceil(x + radius));
+            int firstRow = row((int) Math.floor(y - radius));
+            int lastRow = row((int) Math.ceil(y + radius));
+            for (int r = firstRow; r <= lastRow; r++) {
+                for (int c = firstColumn; c <= lastColumn; c++) {
+                    int cell = cell(c, r);
+                    for (int p = cellStart[cell]; p < cellStart[cell + 1]; p++) {
+                        int i = cellSites[p];
+                        if (Site.computeDistance(x, y, xCoordinates[i], yCoordinates[i]) <= radius) {
+                            found[foundNumber++] = i;
+                        }
+                    }
+                }
+            }
+        }
+        int[] result = Arrays.copyOf(found, foundNumber);
+        Arrays.sort(result);
+        return result;
+    }
+
+    /**
+     * Recherche les sites situés dans un rayon autour d'un site.
+     *
+     * @param site le centre de la recherche
+     * @param radius le rayon de recherche
+     * @return les sites trouvés, dans l'ordre de la liste indexée
+     */
+    public List<T> rangeQuery(Site site, double radius) {
+        int[] found = rangeQuery(site.getxCoordinate(), site.getyCoordinate(), radius);
+        List<T> result = new ArrayList<>(found.length);
+        for (int i : found) {
+            result.add(sites.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Recherche les k sites les plus proches d'un point. <br>
+     * On parcourt les anneaux de cases autour du point jusqu'à ce que l'anneau
+     * suivant ne puisse plus contenir de site plus proche que le k-ième trouvé.
+     *
+     * @param x coordonnée en x du point
+     * @param y coordonnée en y du point
+     * @param k le nombre de sites à renvoyer
+     * @param excludedSiteID globalSiteID d'un site à ignorer (le site lui-même), -1 sinon
+     * @return les indices des sites par distance croissante
+     */
+    public int[] nearest(int x, int y, int k, int excludedSiteID) {
+        int size = Math.max(0, Math.min(k, sites.size()));
+        int[] best = new int[size];
+        double[] bestDistances = new double[size];
+        int found = 0;
+        if (size == 0) {
+            return best;
+        }
+        int centerColumn = column(x);
+        int centerRow = row(y);
+        int maxRing = Math.max(columns, rows);
+        for (int ring = 0; ring <= maxRing; ring++) {
+            //les cases de l'anneau sont au moins à (ring - 1) cases du point
+            if (found == size && (ring - 1) * cellSize > bestDistances[size - 1]) {
+                break;
+            }
+            for (int r = centerRow - ring; r <= centerRow + ring; r++) {
+                if (r < 0 || r >= rows) {
+                    continue;
+                }
+                boolean borderRow = r == centerRow - ring || r == centerRow + ring;
+                int step = borderRow ? 1 : Math.max(1, 2 * ring);
+                for (int c = centerColumn - ring; c <= centerColumn + ring; c += step) {
+                    if (c < 0 || c >= columns) {
+                        continue;
+                    }
+                    int cell = cell(c, r);
+                    for (int p = cellStart[cell]; p < cellStart[cell + 1]; p++) {
+                        int i = cellSites[p];
+                        if (globalSiteIDs[i] == excludedSiteID) {
+                            continue;
+                        }
+                        double distance = Site.computeDistance(x, y, xCoordinates[i], yCoordinates[i]);
+                        if (found < size || isCloser(distance, i, bestDistances[found - 1], best[found - 1])) {
+                            int position = found < size ? found++ : found - 1;
+                            while (position > 0 && isCloser(distance, i, bestDistances[position - 1], best[position - 1])) {
+                                best[position] = best[position - 1];
+                                bestDistances[position] = bestDistances[position - 1];
+                                position--;
+                            }
+                            best[position] = i;
+                            bestDistances[position] = distance;
+                        }
+                    }
+                }
+            }
+        }
+        return found < size ? Arrays.copyOf(best, found) : best;
+    }
+
+    private static boolean isCloser(double distance, int index, double otherDistance, int otherIndex) {
+        return distance < otherDistance || (distance == otherDistance && index < otherIndex);
+    }
+
+    /**
+     * Recherche les k sites les plus proches d'un site.
+     *
+     * @param site le site considéré
+     * @param k le nombre de sites à renvoyer
+     * @return les sites par distance croissante
+     */
+    public List<T> nearest(Site site, int k) {
+        int[] found = nearest(site.getxCoordinate(), site.getyCoordinate(), k, site.getGlobalSiteID());
+        List<T> result = new ArrayList<>(found.length);
+        for (int i : found) {
+            result.add(sites.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Recherche le site le plus proche d'un autre site.
+     *
+     * @param site le site considéré
+     * @return le site indexé le plus proche, null si l'index est vide
+     */
+    public T nearest(Site site) {
+        List<T> found = nearest(site, 1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    //Accesseurs
+    public int size() {
+        return sites.size();
+    }
+}
@@ -4,40 +4,55 @@ import model.Satellite;
 import model.Depot;
 import model.Solution;
 import model.Instance;
-import model.AssignmentFirst;
+import model.PackedRoute;
+import model.PackedRouteFirst;
+import model.SpatialIndex;
 
 import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Implémentation de l'algorithme de CW adapté au problème pour la résolution du premier niveau. <br>
  * On considère deux types de fusion pour des satellites i et j: <br>
  * soit les depots de routes à fusionner sont identiques alors on conserve la fusion classique : depI, i, j, depI <br>
- * soit ils sont différents et on obtient : depI,i,depJ,j,depI 
+ * soit ils sont différents et on obtient : depI,i,depJ,j,depI <br>
+ * Les routes sont manipulées sous forme compacte, les fusions et réparations
+ * n'allouent pas d'objet affectation.
  *
+ * @see model.PackedRouteFirst
  * @author LASTENNET Dorian
  */
 public class ClarkeWrightFirst implements Heuristic {
 
     private Solver solver;
+    private ClarkeWrightParameters parameters;
 
     public ClarkeWrightFirst(Solver solver) {
+        this(solver, new ClarkeWrightParameters());
+    }
+
+    public ClarkeWrightFirst(Solver solver, ClarkeWrightParameters parameters) {
         this.solver = solver;
+        this.parameters = parameters;
     }
 
     @Override
     public Solution solve() {
         //calcul de la liste des savings
-        List<Saving> savingsList = computeSavings(solver.getInstance());
+        SavingsList savingsList = computeSavings(solver.getInstance());
 
         //création de la solution initiale où tous les satellites sont reliés chacun des depots par un véhicule
-        List<List<AssignmentFirst>> routes = createInitialSolution(solver.getInstance());
+        RouteRegistry<RouteFirst> registry = new RouteRegistry<>(createInitialSolution(solver.getInstance()), RouteFirst::getRoute);
 
-        for (Saving saving : savingsList) {
+        for (int saving = 0; saving < savingsList.size(); saving++) {
             //Traitement du savings
-            savingsTreatment(saving, routes, solver);
+            savingsTreatment(savingsList, saving, registry, solver);
+        }
+        List<PackedRouteFirst> routes = new ArrayList<>(registry.size());
+        for (RouteFirst route : registry.getRoutes()) {
+            routes.add(route.getRoute());
         }
 
         //Suppression des routes restantes si le satellites est seul dans la tournée
@@ -47,7 +62,7 @@ public class ClarkeWrightFirst implements Heuristic {
         repairSolutionExceedingVehiclesNumber(routes, solver);
         
         //création de la solution et calcul de la charge des satellites
-        Solution solution = new Solution(routes, solver.getSolution().getSecondEchelonPermutations());
+        Solution solution = new Solution(PackedRouteFirst.toPermutations(routes, solver.getInstance()), solver.getSolution().getSecondEchelonPermutations());
         solution.setSolutionSatellitesDemand(solver.getInstance());
 
         return solution;
@@ -60,68 +75,103 @@ public class ClarkeWrightFirst implements Heuristic {
      * @return un ensemble de routes où une route est créé pour chaque satellite
      * vers chaque depot
      */
-    public List<List<AssignmentFirst>> createInitialSolution(Instance instance) {
-        List<Depot> depots = instance.getDepots();
-        List<Satellite> satellites = instance.getSatellites();
-        List<List<AssignmentFirst>> routes = new ArrayList<>(depots.size() * satellites.size());
-        for (Depot d : depots) {
-            for (Satellite s : satellites) {
-                List<AssignmentFirst> route = new ArrayList<>(2);
-                route.add(new AssignmentFirst(s, d));
-                route.add(new AssignmentFirst(s));
-                routes.add(route);
+    public List<RouteFirst> createInitialSolution(Instance instance) {
+        int depotNumber = instance.getDepots().size();
+        int satelliteNumber = instance.getSatellites().size();
+        List<RouteFirst> routes = new ArrayList<>(depotNumber * satelliteNumber);
+        for (int d = 0; d < depotNumber; d++) {
+            for (int s = 0; s < satelliteNumber; s++) {
+                PackedRouteFirst route = new PackedRouteFirst(2);
+                route.addLoad(s, d);
+                route.addDelivery(s);
+                routes.add(new RouteFirst(route, solver));
             }
         }
         return routes;
     }
 
     /**
-     * Fonction qui calcule la liste des savings pour l'instance du problème.
+     * Fonction qui calcule la liste des savings pour l'instance du problème. <br>
+     * Selon les paramètres, les savings négatifs ou nuls sont ignorés et seuls
+     * les meilleurs savings sont conservés. Les arcs créés par une fusion sont
+     * pondérés par le coefficient lambda, les valeurs peuvent être perturbées
+     * et les savings avec rechargement omis.
      *
      * @param instance L'instance du problème
      * @return liste des savings triée dans l'ordre décroisant
      */
-    public List<Saving> computeSavings(Instance instance) {
+    public SavingsList computeSavings(Instance instance) {
         List<Depot> depots = instance.getDepots();
         List<Satellite> satellites = instance.getSatellites();
-        List<Saving> savings = new ArrayList<>(depots.size() * depots.size() * satellites.size() * satellites.size() - depots.size() * depots.size() * satellites.size());
+        boolean positiveSavingsOnly = parameters.isPositiveSavingsOnly();
 
         //on crée les savings pour chaques paires depots i et j et de satellites k et l
-        for (int i = 0; i < depots.size(); i++) {
-            for (int j = 0; j < depots.size(); j++) {
-                for (int k = 0; k < satellites.size(); k++) {
-                    for (int l = k + 1; l < satellites.size(); l++) {
-                        double savingValue;
-                        if (depots.get(i).equals(depots.get(j))) {
-                            savingValue = instance.getDistance(depots.get(i), satellites.get(k)) + instance.getDistance(depots.get(i), satellites.get(l)) - instance.getDistance(satellites.get(k), satellites.get(l));
-                        } else {
-                            savingValue = instance.getDistance(depots.get(i), satellites.get(k)) + instance.getDistance(depots.get(j), satellites.get(l)) - instance.getDistance(satellites.get(k), depots.get(j)) - instance.getDistance(satellites.get(l), depots.get(i));
-                        }
-                        savings.add(new Saving(depots.get(i), depots.get(j), satellites.get(k), satellites.get(l), savingValue));
-                        savings.add(new Saving(depots.get(i), depots.get(j), satellites.get(l), satellites.get(k), savingValue));
-                    }
+        SavingsList savings = SavingsBuilder.build(depots.size(), satellites.size(), k -> satellites.size() - k - 1,
+                (long) depots.size() * depots.size() * satellites.size() * (satellites.size() - 1), parameters,
+                (i, j, kStart, kEnd, part) -> generateSavings(instance, i, j, kStart, kEnd, positiveSavingsOnly, part));
+        //on trie les savings dans l'ordre décroissant, en réutilisant l'ordre du cache s'il existe
+        if (parameters.getArtifactCache() != null) {
+            SavingsOrder.sortDescending(savings, instance, parameters.getArtifactCache(), parameters.getSavingsCacheKey("savings-first"));
+        } else {
+            savings.sortDescending(parameters.getParallelism());
+        }
+        return savings;
+    }
+
+    /**
+     * Génère les savings des depots i et j pour les satellites k d'un bloc.
+     *
+     * @param instance L'instance du problème
+     * @param i l'indice du depot de la route i
+     * @param j l'indice du depot de la route j
+     * @param kStart le premier satellite k du bloc
+     * @param kEnd le satellite k suivant le dernier satellite du bloc
+     * @param positiveSavingsOnly vrai pour ignorer les savings négatifs ou nuls
+     * @param savings la liste à remplir
+     */
+    private void generateSavings(Instance instance, int i, int j, int kStart, int kEnd, boolean positiveSavingsOnly, SavingsList savings) {
+        if (i != j && !parameters.isRefillAllowed()) {
+            return;
+        }
+        double routeShape = parameters.getRouteShape();
+        List<Depot> depots = instance.getDepots();
+        List<Satellite> satellites = instance.getSatellites();
+        int dI = depots.get(i).getGlobalSiteID();
+        int dJ = depots.get(j).getGlobalSiteID();
+        for (int k = kStart; k < kEnd; k++) {
+            int sK = satellites.get(k).getGlobalSiteID();
+            for (int l = k + 1; l < satellites.size(); l++) {
+                int sL = satellites.get(l).getGlobalSiteID();
+                double savingValue;
+                if (dI == dJ) {
+                    savingValue = instance.getDistance(dI, sK) + instance.getDistance(dI, sL) - routeShape * instance.getDistance(sK, sL);
+                } else {
+                    savingValue = instance.getDistance(dI, sK) + instance.getDistance(dJ, sL) - routeShape * instance.getDistance(sK, dJ) - routeShape * instance.getDistance(sL, dI);
+                }
+                if (positiveSavingsOnly && savingValue <= 0.0) {
+                    continue;
                 }
+                savings.add(i, j, k, l, parameters.perturb(savingValue, i, j, k, l));
+                savings.add(i, j, l, k, parameters.perturb(savingValue, i, j, l, k));
             }
         }
-        //on trie les savings dans l'ordre décroissant
-        Collections.sort(savings, Collections.reverseOrder());
-        return savings;
     }
 
     /**
      * Traite un saving en essayant de fusionner les routes concernées selon la
      * méthode classique de CK ou en utilisant un rechargement vers le depot.
      *
-     * @param saving le saving considéré
-     * @param routes la liste des routes
+     * @param savings la liste des savings
+     * @param saving l'indice du saving considéré
+     * @param routes le registre des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void savingsTreatment(Saving saving, List<List<AssignmentFirst>> routes, Solver solver) {
-        List<AssignmentFirst> iRoute = findRouteLast(saving.getiDepot(), saving.getiSatellite(), routes);
-        List<AssignmentFirst> jRoute = findRouteFirst(saving.getjDepot(), saving.getjSatellite(), routes);
-        if (!iRoute.equals(jRoute) && !iRoute.isEmpty() && !jRoute.isEmpty()) {
-            if (saving.getiDepot().equals(saving.getjDepot())) {
-                mergeRouteClassic(saving, iRoute, jRoute, routes, solver);
+    public void savingsTreatment(SavingsList savings, int saving, RouteRegistry<RouteFirst> routes, Solver solver) {
+        RouteFirst iRoute = findRouteLast(savings.getiOrigin(saving), savings.getiSite(saving), routes);
+        RouteFirst jRoute = findRouteFirst(savings.getjOrigin(saving), savings.getjSite(saving), routes);
+        if (iRoute != null && jRoute != null && iRoute != jRoute) {
+            if (savings.getiOrigin(saving) == savings.getjOrigin(saving)) {
+                mergeRouteClassic(savings.getiOrigin(saving), savings.getiSite(saving), iRoute, jRoute, routes, solver);
             } else {
                 mergeRouteWithRefill(iRoute, jRoute, routes, solver);
             }
@@ -131,134 +181,122 @@ public class ClarkeWrightFirst implements Heuristic {
     /**
      * Fonction de recherche de la route de la solution où le satellite s est en
      * première position. <br>
-     * Cette fonction compare la première route de la solution avec un 
-     * et retourne la route où c est en première position si elle existe.
+     * La route est retrouvée dans le registre par son affectation de tête.
      *
-     * @param d le depot où s est affecté
-     * @param s le satellite à chercher
-     * @param routes l'ensemble des routes
-     * @return la route ou c est en première position, un tableau vide sinon
+     * @param d l'indice du depot où s est affecté
+     * @param s l'indice du satellite à chercher
+     * @param routes le registre des routes
+     * @return la route ou s est en première position, null sinon
      */
-    public List<AssignmentFirst> findRouteFirst(Depot d, Satellite s, List<List<AssignmentFirst>> routes) {
-        //pour chaque route on compare le premier element avec c et s
-        for (List<AssignmentFirst> route : routes) {
-            Optional<Depot> assignDep = route.get(0).getDepot();
-            if (assignDep.isPresent()) {
-                if (route.get(0).getSatellite().equals(s) && assignDep.get().equals(d)) {
-                    return route;
-                }
-            }
-        }
-        return new ArrayList<>();
+    public RouteFirst findRouteFirst(int d, int s, RouteRegistry<RouteFirst> routes) {
+        return routes.findRouteFirst(PackedRoute.encodeLoad(s, d));
     }
 
     /**
      * Fonction de recherche de la route de la solution où le satellite s est en
-     * dernière position. <br>
-     * Cette fonction compare la dernière route de la solution avec un satellite s
-     * et retourne la route où s est en dernière position si elle existe.
+     * dernière position et affecté au depot d. <br>
+     * La route est retrouvée dans le registre par l'affectation de son
+     * dernier satellite.
      *
-     * @param d le depot où s est affecté
-     * @param s le satellite à chercher
-     * @param routes l'ensemble des routes
-     * @return la route ou s est en dernière position, un tableau vide sinon
+     * @param d l'indice du depot où s est affecté
+     * @param s l'indice du satellite à chercher
+     * @param routes le registre des routes
+     * @return la route ou s est en dernière position, null sinon
      */
-    public List<AssignmentFirst> findRouteLast(Depot d, Satellite s, List<List<AssignmentFirst>> routes) {
-        //pour chaque route on compare le dernier element avec s et on cherche si son affectation est au depot d
-        for (List<AssignmentFirst> route : routes) {
-            //on compare le dernier séquencement à s
-            if (route.get(route.size() - 1).getSatellite().equals(s)) {
-                //on parcours la permutation à l'envers jusqu'à l'affectation de s et on compare 
-                int index = route.size() - 2;
-                boolean sInRoute = true;
-                while (sInRoute) {
-                    AssignmentFirst assign = route.get(index);
-                    if (assign.getSatellite().equals(s)) {
-                        Optional<Depot> assignDep = assign.getDepot();
-                        if (assignDep.isPresent()) {
-                            if (assignDep.get().equals(d)) {
-                                return route;
-                            } else {
-                                sInRoute = false;
-                            }
-                        }
-                    }
-                    index--;
-                }
-            }
-        }
-        return new ArrayList<>();
+    public RouteFirst findRouteLast(int d, int s, RouteRegistry<RouteFirst> routes) {
+        return routes.findRouteLast(PackedRoute.encodeLoad(s, d));
     }
 
     /**
-     * Fusion classique de l'algorithme de CK avec respect des contraintes capacités.
+     * Fusion classique de l'algorithme de CK avec respect des contraintes capacités. <br>
+     * La charge maximale de la fusion est déduite en temps constant du résumé
+     * des routes, la route fusionnée n'est construite que si elle respecte la
+     * capacité des véhicules.
      *
-     * @param saving le saving considéré
+     * @param iDepot l'indice du depot commun aux deux routes
+     * @param iSatellite l'indice du dernier satellite de la route i
      * @param iRoute la route i a fusionner
      * @param jRoute la route j à fusionner
-     * @param routes la liste des routes
+     * @param routes le registre des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void mergeRouteClassic(Saving saving, List<AssignmentFirst> iRoute, List<AssignmentFirst> jRoute, List<List<AssignmentFirst>> routes, Solver solver) {
-        List<AssignmentFirst> mergedRoute = new ArrayList<>();
+    public void mergeRouteClassic(int iDepot, int iSatellite, RouteFirst iRoute, RouteFirst jRoute, RouteRegistry<RouteFirst> routes, Solver solver) {
+        if (iRoute.getClassicMergePeakLoad(jRoute) > solver.getInstance().getFirstEchelonFleet().getVehiclesCapacity()) {
+            return;
+        }
+        PackedRouteFirst iPackedRoute = iRoute.getRoute();
+        PackedRouteFirst jPackedRoute = jRoute.getRoute();
+        PackedRouteFirst mergedRoute = new PackedRouteFirst(iPackedRoute.size() + jPackedRoute.size());
         //On merge toute la route i
-        mergedRoute.addAll(iRoute);
+        mergedRoute.addAll(iPackedRoute);
         //index de l'affectation du depot i à dI dans la route i
-        int k = iRoute.indexOf(new AssignmentFirst(saving.getiSatellite(), saving.getiDepot())) + 1;
+        int k = iPackedRoute.indexOf(PackedRoute.encodeLoad(iSatellite, iDepot)) + 1;
         // on ajoute les affectations des satellites vers le depot dI de la route j à partir de l'indice k+1
-        for (AssignmentFirst a : jRoute) {
-            if (a.getDepot().isPresent()) {
-                mergedRoute.add(k, a);
+        for (int a = 0; a < jPackedRoute.size(); a++) {
+            if (jPackedRoute.isLoadAt(a)) {
+                mergedRoute.add(k, jPackedRoute.get(a));
                 k++;
             } else {
                 break;
             }
         }
         // le reste de la route j est ajoutée à la fin de la séquence
-        for (int i = mergedRoute.size() - iRoute.size(); i < jRoute.size(); i++) {
-            mergedRoute.add(jRoute.get(i));
+        for (int i = mergedRoute.size() - iPackedRoute.size(); i < jPackedRoute.size(); i++) {
+            mergedRoute.add(jPackedRoute.get(i));
         }
         boolean isCapacityDoable = solver.isFirstEchelonPermutationCapacitiesRespected(mergedRoute);
         if (isCapacityDoable) {
-            //suppresion route i
-            routes.remove(iRoute);
-            //suppresion route j
-            routes.remove(jRoute);
-            //suppresion de toutes les routes qui contiennent i et j et un depot différent de celui affectée
-            routes.removeIf(route -> !route.get(0).getDepot().get().equals(iRoute.get(0).getDepot().get()) && route.get(0).getSatellite().equals(iRoute.get(0).getSatellite()));
-            routes.removeIf(route -> !route.get(0).getDepot().get().equals(jRoute.get(0).getDepot().get()) && route.get(0).getSatellite().equals(jRoute.get(0).getSatellite()));
-            //ajout de la route fusionnée
-            routes.add(mergedRoute);
+            replaceMergedRoutes(iRoute, jRoute, new RouteFirst(mergedRoute, solver), routes);
         }
     }
 
     /**
      * Fusion autorisant un rechargment au depot avec respect des
-     * contraintes capacités.
+     * contraintes capacités. <br>
+     * La route fusionnée n'est construite que si la charge maximale déduite
+     * du résumé des routes respecte la capacité des véhicules.
      *
      * @param iRoute la route i a fusionner
      * @param jRoute la route j à fusionner
-     * @param routes la liste des routes
+     * @param routes le registre des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void mergeRouteWithRefill(List<AssignmentFirst> iRoute, List<AssignmentFirst> jRoute, List<List<AssignmentFirst>> routes, Solver solver) {
-        List<AssignmentFirst> mergedRoute = new ArrayList<>();
-        mergedRoute.addAll(iRoute);
-        mergedRoute.addAll(jRoute);
+    public void mergeRouteWithRefill(RouteFirst iRoute, RouteFirst jRoute, RouteRegistry<RouteFirst> routes, Solver solver) {
+        if (iRoute.getRefillMergePeakLoad(jRoute) > solver.getInstance().getFirstEchelonFleet().getVehiclesCapacity()) {
+            return;
+        }
+        PackedRouteFirst iPackedRoute = iRoute.getRoute();
+        PackedRouteFirst jPackedRoute = jRoute.getRoute();
+        PackedRouteFirst mergedRoute = new PackedRouteFirst(iPackedRoute.size() + jPackedRoute.size());
+        mergedRoute.addAll(iPackedRoute);
+        mergedRoute.addAll(jPackedRoute);
         boolean isCapacityDoable = solver.isFirstEchelonPermutationCapacitiesRespected(mergedRoute);
         if (isCapacityDoable) {
-            //suppresion route i
-            routes.remove(iRoute);
-            //suppresion route j
-            routes.remove(jRoute);
-            //suppresion de toutes les routes qui contiennent i et j et un depot différent de celui affectée
-            routes.removeIf(route -> !route.get(0).getDepot().get().equals(iRoute.get(0).getDepot().get()) && route.get(0).getSatellite().equals(iRoute.get(0).getSatellite()));
-            routes.removeIf(route -> !route.get(0).getDepot().get().equals(jRoute.get(0).getDepot().get()) && route.get(0).getSatellite().equals(jRoute.get(0).getSatellite()));
-            //ajout de la route fusionnée
-            routes.add(mergedRoute);
+            replaceMergedRoutes(iRoute, jRoute, new RouteFirst(mergedRoute, solver), routes);
         }
     }
 
+    /**
+     * Remplace les routes i et j par leur fusion.
+     *
+     * @param iRoute la route i fusionnée
+     * @param jRoute la route j fusionnée
+     * @param mergedRoute la route fusionnée
+     * @param routes le registre des routes
+     */
+    private void replaceMergedRoutes(RouteFirst iRoute, RouteFirst jRoute, RouteFirst mergedRoute, RouteRegistry<RouteFirst> routes) {
+        int depotNumber = solver.getInstance().getDepots().size();
+        //suppresion route i
+        routes.remove(iRoute);
+        //suppresion route j
+        routes.remove(jRoute);
+        //suppresion de toutes les routes qui contiennent i et j et un depot différent de celui affectée
+        routes.removeOtherOrigins(iRoute.getRoute().getSatellite(0), iRoute.getRoute().getDepot(0), depotNumber);
+        routes.removeOtherOrigins(jRoute.getRoute().getSatellite(0), jRoute.getRoute().getDepot(0), depotNumber);
+        //ajout de la route fusionnée
+        routes.add(mergedRoute);
+    }
+
     /**
      * Fonction appelée en fin d'algorithme chargée de réduire le nombre de
      * véhicules utilisés si celui-ci excède le nombre autorisé par l'instance. <br>
@@ -270,43 +308,44 @@ public class ClarkeWrightFirst implements Heuristic {
      * @param routes liste des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void repairSolutionExceedingVehiclesNumber(List<List<AssignmentFirst>> routes, Solver solver) {
+    public void repairSolutionExceedingVehiclesNumber(List<PackedRouteFirst> routes, Solver solver) {
         int exceedNumber = routes.size() - solver.getInstance().getSecondEchelonFleet().getVehiclesNumber();
         if (exceedNumber > 0) {
             //liste contenant les satellites à réaffecter 
-            List<AssignmentFirst> exceedingSatellites = new ArrayList<>(exceedNumber);
+            List<Integer> exceedingSatellites = new ArrayList<>(exceedNumber);
             //liste contenant les affectations des satelliets vers leur depots
-            List<AssignmentFirst> exceedingSatellitesAssignment = new ArrayList<>(exceedNumber);
+            List<Integer> exceedingSatellitesAssignment = new ArrayList<>(exceedNumber);
             //tri des routes dans l'ordre décroisant de leur taille
-            Collections.sort(routes, (List a1, List a2) -> a1.size() - a2.size());
+            Collections.sort(routes, (PackedRouteFirst a1, PackedRouteFirst a2) -> a1.size() - a2.size());
             //Extraction des k plus petites routes en surplus
             for (int k = 0; k < exceedNumber; k++) {
-                for (AssignmentFirst assign : routes.get(k)) {
-                    if (assign.getDepot().isEmpty()) {
-                        exceedingSatellites.add(assign);
+                PackedRouteFirst route = routes.get(k);
+                for (int a = 0; a < route.size(); a++) {
+                    if (route.isLoadAt(a)) {
+                        exceedingSatellitesAssignment.add(route.get(a));
                     } else {
-                        exceedingSatellitesAssignment.add(assign);
+                        exceedingSatellites.add(route.get(a));
                     }
                 }
             }
             //On retire les k plus petites routes de la solution
             routes.subList(0, exceedNumber).clear();
             //On trie les satelittes et leur affectations pour acceder aux elements avec le même indice
-            Collections.sort(exceedingSatellites, (AssignmentFirst a1, AssignmentFirst a2) -> Integer.compare(a1.getSatellite().getGlobalSiteID(), a2.getSatellite().getGlobalSiteID()));
-            Collections.sort(exceedingSatellitesAssignment, (AssignmentFirst a1, AssignmentFirst a2) -> Integer.compare(a1.getSatellite().getGlobalSiteID(), a2.getSatellite().getGlobalSiteID()));
+            Collections.sort(exceedingSatellites, Comparator.comparingInt(PackedRoute::siteOf));
+            Collections.sort(exceedingSatellitesAssignment, Comparator.comparingInt(PackedRoute::siteOf));
 
             for (int i = 0; i < exceedingSatellites.size(); i++) {
                 int j = 0;
                 boolean inserted = false;
                 while (j < routes.size() && !inserted) {
                     int k = 1;
-                    List<AssignmentFirst> route = routes.get(j);
+                    PackedRouteFirst route = routes.get(j);
                     while (k < route.size() && !inserted) {
-                        if (route.get(k).getDepot().isEmpty()) {
+                        if (!route.isLoadAt(k)) {
                             route.add(k, exceedingSatellites.get(i));
                             //On cherche la première position où on peut insérer une affectation
                             int assignmentIndex = k;
-                            while (route.get(assignmentIndex).getDepot().isEmpty()) {
+                            while (!route.isLoadAt(assignmentIndex)) {
                                 assignmentIndex--;
                             }
                             route.add(assignmentIndex + 1, exceedingSatellitesAssignment.get(i));
@@ -315,8 +354,7 @@ public class ClarkeWrightFirst implements Heuristic {
                                 inserted = true;
                             } //insertion échouée, on retire l'insertion et on passe à la prochaine position
                             else {
-                                Satellite c = exceedingSatellites.get(i).getSatellite();
-                                route.removeIf(assign -> assign.getSatellite().equals(c));
+                                route.removeSite(PackedRoute.siteOf(exceedingSatellites.get(i)));
                             }
                         }
                         k++;
@@ -338,12 +376,12 @@ public class ClarkeWrightFirst implements Heuristic {
      * @param routes liste des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void repairSolutionAloneSatellites(List<List<AssignmentFirst>> routes, Solver solver) {
-        List<Satellite> aloneSatellites = new ArrayList<>();
+    public void repairSolutionAloneSatellites(List<PackedRouteFirst> routes, Solver solver) {
+        List<Integer> aloneSatellites = new ArrayList<>();
         //Extraction des satellites seuls
-        for (List<AssignmentFirst> route : routes) {
+        for (PackedRouteFirst route : routes) {
             if (route.size() == 2) {
-                Satellite c = route.get(0).getSatellite();
+                int c = route.getSatellite(0);
                 if (!aloneSatellites.contains(c)) {
                     aloneSatellites.add(c);
                 }
@@ -353,96 +391,15 @@ public class ClarkeWrightFirst implements Heuristic {
             //On retire les routes où les satellites sont seuls
             routes.removeIf(route -> route.size() == 2);
             //On cherche le depot le plus proche des satellites seuls et on réinsère les satellites dans la solution
-            for (Satellite c : aloneSatellites) {
-                Depot closestDepot = solver.getInstance().getDepots().get(0);
-                for (Depot s : solver.getInstance().getDepots()) {
-                    if (solver.getInstance().getDistance(s, c) < solver.getInstance().getDistance(closestDepot, c)) {
-                        closestDepot = s;
-                    }
-                }
-                List<AssignmentFirst> route = new ArrayList<>();
-                route.add(new AssignmentFirst(c, closestDepot));
-                route.add(new AssignmentFirst(c));
+            List<Satellite> satellites = solver.getInstance().getSatellites();
+            SpatialIndex<Depot> depotIndex = solver.getInstance().getDepotSpatialIndex();
+            for (int c : aloneSatellites) {
+                Depot closestDepot = depotIndex.nearest(satellites.get(c));
+                PackedRouteFirst route = new PackedRouteFirst(2);
+                route.addLoad(c, closestDepot.getSiteID() - 1);
+                route.addDelivery(c);
                 routes.add(route);
             }
         }
     }
-
-    /**
-     * Classe imbriquée utilisée pour gérer les savings. <br>
-     * On veut conserver les informations des depots et des satellites
-     * impliqués dans la calcul du savings.
-     *
-     * @author LASTENNET Dorian
-     */
-    public class Saving implements Comparable {
-
-        private final Depot iDepot;
-        private final Depot jDepot;
-        private final Satellite iSatellite;
-        private final Satellite jSatellite;
-        private final double savingValue;
-
-        public Saving(Depot sI, Depot sJ, Satellite i, Satellite j, double saving) {
-            this.iDepot = sI;
-            this.jDepot = sJ;
-            this.iSatellite = i;
-            this.jSatellite = j;
-            this.savingValue = saving;
-        }
-
-        //Accesseurs
-        public Depot getiDepot() {
-            return iDepot;
-        }
-
-        public Depot getjDepot() {
-            return jDepot;
-        }
-
-        public Satellite getiSatellite() {
-            return iSatellite;
-        }
-
-        public Satellite getjSatellite() {
-            return jSatellite;
-        }
-
-        public double getSavingValue() {
-            return savingValue;
-        }
-
-        /**
-         * Représentation de l'objet en texte.
-         *
-         * @return texte
-         */
-        @Override
-        public String toString() {
-            StringBuilder sb = new StringBuilder();
-            sb.append("savings  =(");
-            sb.append("depot dI : ").append(getiDepot().toString());
-            sb.append(" satellite i : ").append(getiSatellite().toString());
-            sb.append(" depot dJ : ").append(getjDepot().toString());
-            sb.append(" satellite j : ").append(getjSatellite().toString());
-            sb.append(" Saving value : ").append(getSavingValue());
-            sb.append(")");
-            return sb.toString();
-        }
-
-        /**
-         * Surchage opérateur comparaison.
-         *
-         * @param o objet à comparer
-         * @return booléen indiquant si les objets sont identiques
-         */
-        @Override
-        public int compareTo(Object o) {
-            Saving saving = (Saving) o;
-            //comparaison
-            return Double.compare(this.getSavingValue(), saving.getSavingValue());
-        }
-
-    }
-
 }
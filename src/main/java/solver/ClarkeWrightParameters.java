@@ -0,0 +1,287 @@
+package solver;
+
+import utils.ArtifactCache;
+
+/**
+ * Classe regroupant les paramètres des heuristiques de Clarke &amp; Wright. <br>
+ * Les valeurs par défaut reproduisent l'algorithme d'origine, à la
+ * réduction du nombre de véhicules du second niveau près : les clients y sont
+ * réinsérés à leur meilleure position.
+ *
+ * @see solver.ClarkeWrightSecond
+ * @see solver.ClarkeWrightFirst
+ * @author LASTENNET Dorian
+ */
+public class ClarkeWrightParameters {
+
+    private int neighbourhoodSize; //nombre de plus proches voisins considérés par client, 0 pour tous
+    private ArtifactCache artifactCache; //cache disque de l'ordre des savings et des voisinages, null pour ne pas l'utiliser
+    private boolean positiveSavingsOnly; //vrai pour ignorer les savings négatifs ou nuls
+    private int maxSavingsNumber; //nombre de meilleurs savings conservés, 0 pour tous
+    private int parallelism; //nombre de fils d'exécution pour le calcul et le tri des savings
+    private int maxSavingsInMemory; //nombre de savings gardés en mémoire avant écriture sur disque, 0 pour toute la liste
+    private double routeShape; //coefficient lambda des arcs créés par une fusion dans la formule des savings
+    private double perturbation; //amplitude relative de la perturbation aléatoire des savings, 0 pour aucune
+    private long seed; //graine de la perturbation des savings
+    private boolean refillAllowed; //faux pour interdire les fusions avec rechargement entre deux origines
+    private int repairRegret; //nombre de routes comparées par le regret des réinsertions, 1 pour une réinsertion gloutonne
+
+    public ClarkeWrightParameters() {
+        this.neighbourhoodSize = 0;
+        this.artifactCache = null;
+        this.positiveSavingsOnly = false;
+        this.maxSavingsNumber = 0;
+        this.parallelism = 1;
+        this.maxSavingsInMemory = 0;
+        this.routeShape = 1.0;
+        this.perturbation = 0.0;
+        this.seed = 0;
+        this.refillAllowed = true;
+        this.repairRegret = 1;
+    }
+
+    /**
+     * Copie des paramètres.
+     *
+     * @param parameters les paramètres à copier
+     */
+    public ClarkeWrightParameters(ClarkeWrightParameters parameters) {
+        this.neighbourhoodSize = parameters.neighbourhoodSize;
+        this.artifactCache = parameters.artifactCache;
+        this.positiveSavingsOnly = parameters.positiveSavingsOnly;
+        this.maxSavingsNumber = parameters.maxSavingsNumber;
+        this.parallelism = parameters.parallelism;
+        this.maxSavingsInMemory = parameters.maxSavingsInMemory;
+        this.routeShape = parameters.routeShape;
+        this.perturbation = parameters.perturbation;
+        this.seed = parameters.seed;
+        this.refillAllowed = parameters.refillAllowed;
+        this.repairRegret = parameters.repairRegret;
+    }
+
+    /**
+     * @return vrai si les savings et les réparations sont limités aux plus
+     * proches voisins
+     */
+    public boolean isNeighbourhoodRestricted() {
+        return neighbourhoodSize > 0;
+    }
+
+    /**
+     * @return vrai si seuls les meilleurs savings sont conservés
+     */
+    public boolean isSavingsNumberBounded() {
+        return maxSavingsNumber > 0;
+    }
+
+    /**
+     * Les savings d'une liste bornée restent en mémoire, le nombre de savings
+     * conservés suffit à limiter la mémoire utilisée.
+     *
+     * @return vrai si les savings sont écrits sur disque en suites triées
+     */
+    public boolean isSavingsSpilled() {
+        return maxSavingsInMemory > 0 && !isSavingsNumberBounded();
+    }
+
+    /**
+     * Perturbe la valeur d'un saving. <br>
+     * La valeur est multipliée par 1 + perturbation * u, u étant tiré dans
+     * [-1, 1[ à partir de la graine et des indices du saving : la perturbation
+     * ne dépend pas de l'ordre de génération, elle est la même quel que soit
+     * le parallélisme.
+     *
+     * @param value la valeur du saving
+     * @param iOrigin l'indice de l'origine de la route i
+     * @param jOrigin l'indice de l'origine de la route j
+     * @param iSite l'indice du dernier site de la route i
+     * @param jSite l'indice du premier site de la route j
+     * @return la valeur perturbée, la valeur elle-même sans perturbation
+     */
+    double perturb(double value, int iOrigin, int jOrigin, int iSite, int jSite) {
+        if (perturbation == 0.0) {
+            return value;
+        }
+        long z = seed + 0x9E3779B97F4A7C15L * (((long) iOrigin << 51) ^ ((long) jOrigin << 40) ^ ((long) iSite << 20) ^ jSite);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        z = z ^ (z >>> 31);
+        double u = (z >>> 11) * 0x1.0p-52 - 1.0;
+        return value * (1.0 + perturbation * u);
+    }
+
+    /**
+     * Clé de cache de l'ordre des savings, qui dépend des paramètres de
+     * génération.
+     *
+     * @param prefix le nom de la liste de savings
+     * @return la clé de la liste pour ces paramètres
+     */
+    String getSavingsCacheKey(String prefix) {
+        StringBuilder sb = new StringBuilder(prefix);
+        if (positiveSavingsOnly) {
+            sb.append("-positive");
+        }
+        if (isSavingsNumberBounded()) {
+            sb.append("-n").append(maxSavingsNumber);
+        }
+        if (routeShape != 1.0) {
+            sb.append("-lambda").append(routeShape);
+        }
+        if (perturbation != 0.0) {
+            sb.append("-noise").append(perturbation).append("-seed").append(seed);
+        }
+        if (!refillAllowed) {
+            sb.append("-norefill");
+        }
+        return sb.toString();
+    }
+
+    //Accesseurs
+    public int getNeighbourhoodSize() {
+        return neighbourhoodSize;
+    }
+
+    public void setNeighbourhoodSize(int neighbourhoodSize) {
+        this.neighbourhoodSize = neighbourhoodSize;
+    }
+
+    public ArtifactCache getArtifactCache() {
+        return artifactCache;
+    }
+
+    public void setArtifactCache(ArtifactCache artifactCache) {
+        this.artifactCache = artifactCache;
+    }
+
+    public boolean isPositiveSavingsOnly() {
+        return positiveSavingsOnly;
+    }
+
+    public void setPositiveSavingsOnly(boolean positiveSavingsOnly) {
+        this.positiveSavingsOnly = positiveSavingsOnly;
+    }
+
+    public int getMaxSavingsNumber() {
+        return maxSavingsNumber;
+    }
+
+    public void setMaxSavingsNumber(int maxSavingsNumber) {
+        this.maxSavingsNumber = maxSavingsNumber;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    /**
+     * Le calcul parallèle des savings donne la même liste, dans le même ordre,
+     * que le calcul séquentiel.
+     *
+     * @param parallelism le nombre de fils d'exécution, 1 pour un calcul
+     * séquentiel
+     */
+    public void setParallelism(int parallelism) {
+        this.parallelism = parallelism;
+    }
+
+    public int getMaxSavingsInMemory() {
+        return maxSavingsInMemory;
+    }
+
+    /**
+     * Les savings sont alors parcourus dans le même ordre que la liste triée
+     * en mémoire ; l'ordre des savings n'est pas mis en cache.
+     *
+     * @param maxSavingsInMemory le nombre de savings gardés en mémoire avant
+     * l'écriture d'une suite triée sur disque, 0 pour garder toute la liste
+     */
+    public void setMaxSavingsInMemory(int maxSavingsInMemory) {
+        this.maxSavingsInMemory = maxSavingsInMemory;
+    }
+
+    public double getRouteShape() {
+        return routeShape;
+    }
+
+    /**
+     * Les arcs créés par une fusion sont multipliés par lambda dans la
+     * formule des savings : une valeur élevée favorise les fusions de clients
+     * proches entre eux, une valeur faible celles de clients éloignés de leur
+     * origine.
+     *
+     * @param routeShape le coefficient lambda, 1 pour la formule d'origine
+     */
+    public void setRouteShape(double routeShape) {
+        this.routeShape = routeShape;
+    }
+
+    public double getPerturbation() {
+        return perturbation;
+    }
+
+    /**
+     * @param perturbation l'amplitude relative de la perturbation aléatoire
+     * des savings, 0 pour aucune
+     */
+    public void setPerturbation(double perturbation) {
+        this.perturbation = perturbation;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    public boolean isRefillAllowed() {
+        return refillAllowed;
+    }
+
+    /**
+     * @param refillAllowed faux pour ne créer aucun saving entre deux
+     * origines différentes, les routes ne sont alors fusionnées que de façon
+     * classique
+     */
+    public void setRefillAllowed(boolean refillAllowed) {
+        this.refillAllowed = refillAllowed;
+    }
+
+    public int getRepairRegret() {
+        return repairRegret;
+    }
+
+    /**
+     * @param repairRegret le nombre de meilleures routes comparées pour
+     * choisir le client réinséré lors de la réduction du nombre de véhicules,
+     * 1 pour réinsérer d'abord le client le moins coûteux
+     * @see solver.InsertionRepair
+     */
+    public void setRepairRegret(int repairRegret) {
+        this.repairRegret = repairRegret;
+    }
+
+    /**
+     * Représentation de l'objet en texte.
+     * @return texte
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Paramètres CW=[Voisinage=").append(neighbourhoodSize);
+        sb.append(", Savings positifs=").append(positiveSavingsOnly ? "oui" : "non");
+        sb.append(", Savings max=").append(maxSavingsNumber);
+        sb.append(", Parallélisme=").append(parallelism);
+        sb.append(", Savings en mémoire=").append(maxSavingsInMemory);
+        sb.append(", Lambda=").append(routeShape);
+        sb.append(", Perturbation=").append(perturbation);
+        sb.append(", Graine=").append(seed);
+        sb.append(", Rechargement=").append(refillAllowed ? "oui" : "non");
+        sb.append(", Regret=").append(repairRegret);
+        sb.append(", Cache=").append(artifactCache == null ? "aucun" : artifactCache.getDirectory());
+        sb.append("]");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,171 @@
+package solver;
+
+import model.Instance;
+import model.Solution;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Portefeuille de variantes des heuristiques de Clarke &amp; Wright résolues
+ * en parallèle. <br>
+ * Chaque variante résout les deux niveaux avec ses propres paramètres : le
+ * coefficient lambda de la formule des savings, une petite perturbation
+ * aléatoire des savings et l'autorisation des fusions avec rechargement. La
+ * première variante reprend les paramètres donnés, le portefeuille ne fait
+ * donc jamais moins bien qu'une résolution simple. <br>
+ * Les variantes partagent l'instance, en lecture seule, et ont chacune leur
+ * solveur. La meilleure solution faisable selon
+ * {@link Solver#evaluateSolution(Solution)} est conservée, à défaut la
+ * meilleure solution ; à valeur égale la variante de plus petit numéro
+ * l'emporte, le résultat ne dépend donc pas du nombre de cœurs tant que le
+ * temps imparti suffit à résoudre toutes les variantes.
+ *
+ * @see solver.ClarkeWrightParameters
+ * @author LASTENNET Dorian
+ */
+public class ClarkeWrightPortfolio implements Heuristic {
+
+    private static final double MIN_ROUTE_SHAPE = 0.4; //bornes du coefficient lambda tiré
+    private static final double MAX_ROUTE_SHAPE = 2.0;
+    private static final double MAX_PERTURBATION = 0.05; //amplitude relative maximale de la perturbation tirée
+    private static final double REFILL_PROBABILITY = 0.75; //probabilité d'autoriser les fusions avec rechargement
+
+    private final Solver solver;
+    private final ClarkeWrightParameters parameters;
+    private final int variantNumber;
+    private final long timeBudget; //temps imparti en millisecondes, 0 pour aucune limite
+    private Solution bestSolution;
+    private double bestObjective;
+    private boolean bestDoable;
+    private int bestVariant;
+    private int solvedVariantNumber;
+
+    /**
+     * @param solver le solveur contenant l'instance du problème
+     * @param parameters les paramètres de la première variante ; la graine
+     * sert au tirage des autres variantes et le parallélisme donne le nombre
+     * de variantes résolues en même temps
+     * @param variantNumber le nombre de variantes, au moins une
+     * @param timeBudget le temps imparti en millisecondes, 0 pour aucune
+     * limite ; une variante commencée est résolue jusqu'au bout
+     */
+    public ClarkeWrightPortfolio(Solver solver, ClarkeWrightParameters parameters, int variantNumber, long timeBudget) {
+        if (variantNumber < 1) {
+            throw new IllegalArgumentException("Nombre de variantes invalide : " + variantNumber);
+        }
+        this.solver = solver;
+        this.parameters = parameters;
+        this.variantNumber = variantNumber;
+        this.timeBudget = timeBudget;
+    }
+
+    /**
+     * Tire les paramètres des variantes à partir de la graine des paramètres.
+     * <br>
+     * Les variantes sont résolues chacune sur un seul cœur. Seule la première
+     * variante utilise le cache disque, les savings des autres variantes ne
+     * servent qu'une fois.
+     *
+     * @param parameters les paramètres de la première variante
+     * @param variantNumber le nombre de variantes
+     * @return les paramètres des variantes
+     */
+    public static List<ClarkeWrightParameters> createVariants(ClarkeWrightParameters parameters, int variantNumber) {
+        Random random = new Random(parameters.getSeed());
+        List<ClarkeWrightParameters> variants = new ArrayList<>(variantNumber);
+        for (int v = 0; v < variantNumber; v++) {
+            ClarkeWrightParameters variant = new ClarkeWrightParameters(parameters);
+            variant.setParallelism(1);
+            if (v > 0) {
+                variant.setArtifactCache(null);
+                variant.setRouteShape(MIN_ROUTE_SHAPE + (MAX_ROUTE_SHAPE - MIN_ROUTE_SHAPE) * random.nextDouble());
+                variant.setPerturbation(MAX_PERTURBATION * random.nextDouble());
+                variant.setSeed(random.nextLong());
+                variant.setRefillAllowed(random.nextDouble() < REFILL_PROBABILITY);
+            }
+            variants.add(variant);
+        }
+        return variants;
+    }
+
+    @Override
+    public Solution solve() {
+        List<ClarkeWrightParameters> variants = createVariants(parameters, variantNumber);
+        long deadline = System.nanoTime() + timeBudget * 1000000;
+        bestSolution = null;
+        solvedVariantNumber = 0;
+        //les variantes sont distribuées dans l'ordre de leur numéro
+        AtomicInteger nextVariant = new AtomicInteger();
+        int threadNumber = Math.max(1, Math.min(parameters.getParallelism(), variantNumber));
+        ParallelTasks.run(threadNumber, threadNumber, thread -> {
+            int v = nextVariant.getAndIncrement();
+            while (v < variantNumber && (v == 0 || timeBudget <= 0 || System.nanoTime() < deadline)) {
+                solveVariant(v, variants.get(v));
+                v = nextVariant.getAndIncrement();
+            }
+        });
+        return bestSolution;
+    }
+
+    /**
+     * Résout les deux niveaux avec les paramètres d'une variante et conserve
+     * la solution si elle est la meilleure.
+     */
+    private void solveVariant(int variant, ClarkeWrightParameters variantParameters) {
+        Instance instance = solver.getInstance();
+        Solver variantSolver = new Solver(instance, solver.isWaitingTimeAllowed(), solver.isUsingTightenedTimeWindows());
+        variantSolver.solveInstance(new ClarkeWrightSecond(variantSolver, variantParameters));
+        variantSolver.solveInstance(new ClarkeWrightFirst(variantSolver, variantParameters));
+        Solution solution = variantSolver.getSolution();
+        double objective = variantSolver.evaluateSolution(solution);
+        boolean doable = variantSolver.isSolutionDoable(solution);
+        synchronized (this) {
+            solvedVariantNumber++;
+            if (bestSolution == null || isBetter(doable, objective, variant)) {
+                bestSolution = solution;
+                bestObjective = objective;
+                bestDoable = doable;
+                bestVariant = variant;
+            }
+        }
+    }
+
+    /**
+     * Une solution faisable est meilleure qu'une solution infaisable, puis la
+     * plus petite valeur l'emporte et enfin le plus petit numéro de variante.
+     */
+    private boolean isBetter(boolean doable, double objective, int variant) {
+        if (doable != bestDoable) {
+            return doable;
+        }
+        int comparison = Double.compare(objective, bestObjective);
+        return comparison < 0 || (comparison == 0 && variant < bestVariant);
+    }
+
+    //Accesseurs
+    public double getBestObjective() {
+        return bestObjective;
+    }
+
+    public boolean isBestDoable() {
+        return bestDoable;
+    }
+
+    /**
+     * @return le numéro de la variante de la meilleure solution, 0 pour les
+     * paramètres donnés
+     */
+    public int getBestVariant() {
+        return bestVariant;
+    }
+
+    /**
+     * @return le nombre de variantes résolues dans le temps imparti
+     */
+    public int getSolvedVariantNumber() {
+        return solvedVariantNumber;
+    }
+}
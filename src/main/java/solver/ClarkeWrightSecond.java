@@ -1,44 +1,69 @@
 package solver;
 
-import model.AssignmentSecond;
 import model.Customer;
 import model.Satellite;
 import model.Solution;
 import model.Instance;
+import model.ArcCompatibility;
+import model.Neighbourhood;
+import model.SpatialIndex;
+import model.PackedRoute;
+import model.PackedRouteSecond;
 
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
-import java.util.Optional;
 
 /**
  * Implémentation de l'algorithme de CW adapté au problème pour la résolution du second niveau. <br>
  * On considère deux types de fusion pour des clients i et j: <br>
  * soit les satellites de routes à fusionner sont identiques alors on conserve la fusion classique : satI,i,j,SatI <br>
- * soit ils sont différents et on obtient : satI,i,satJ,j,satI.
+ * soit ils sont différents et on obtient : satI,i,satJ,j,satI. <br>
+ * Les routes conservent les agrégats de leurs préfixes et suffixes : une
+ * fusion candidate est évaluée en temps constant et seules les fusions
+ * acceptées sont construites.
  *
+ * @see solver.RouteSecond
  * @author LASTENNET Dorian
  */
 public class ClarkeWrightSecond implements Heuristic {
 
     private Solver solver;
+    private ClarkeWrightParameters parameters;
 
     public ClarkeWrightSecond(Solver solver) {
+        this(solver, new ClarkeWrightParameters());
+    }
+
+    public ClarkeWrightSecond(Solver solver, ClarkeWrightParameters parameters) {
         this.solver = solver;
+        this.parameters = parameters;
     }
 
     @Override
     public Solution solve() {
-        //calcul de la liste des savings
-        List<Saving> savingsList = computeSavings(solver.getInstance());
+        RouteRegistry<RouteSecond> registry;
+        if (parameters.isSavingsSpilled()) {
+            //savings écrits sur disque en suites triées et parcourus par fusion
+            try ( SpilledSavings savings = spillSavings(solver.getInstance());  SpilledSavings.Cursor cursor = savings.cursor()) {
+                registry = new RouteRegistry<>(createInitialSolution(solver.getInstance()), RouteSecond::getRoute);
+                while (cursor.next()) {
+                    savingsTreatment(cursor.getiOrigin(), cursor.getjOrigin(), cursor.getiSite(), cursor.getjSite(), registry, solver);
+                }
+            }
+        } else {
+            //calcul de la liste des savings
+            SavingsList savingsList = computeSavings(solver.getInstance());
 
-        //création de la solution initiale où tous les clients sont reliés chacun des satellites par un véhicule
-        List<List<AssignmentSecond>> routes = createInitialSolution(solver.getInstance());
+            //création de la solution initiale où tous les clients sont reliés chacun des satellites par un véhicule
+            registry = new RouteRegistry<>(createInitialSolution(solver.getInstance()), RouteSecond::getRoute);
 
-        for (Saving saving : savingsList) {
-            //Traitement du savings
-            savingsTreatment(saving, routes, solver);
+            for (int saving = 0; saving < savingsList.size(); saving++) {
+                //Traitement du savings
+                savingsTreatment(savingsList, saving, registry, solver);
+            }
         }
+        List<RouteSecond> routes = registry.getRoutes();
 
         //Suppression des routes restantes si le client est seul dans la tournée
         repairSolutionAloneCustomers(routes, solver);
@@ -47,7 +72,11 @@ public class ClarkeWrightSecond implements Heuristic {
         repairSolutionExceedingVehiclesNumber(routes, solver);
         
         //création de la solution et calcul de la charge des satellites
-        Solution solution = new Solution(new ArrayList<>(0), routes);
+        List<PackedRouteSecond> packedRoutes = new ArrayList<>(routes.size());
+        for (RouteSecond route : routes) {
+            packedRoutes.add(route.getRoute());
+        }
+        Solution solution = new Solution(new ArrayList<>(0), PackedRouteSecond.toPermutations(packedRoutes, solver.getInstance()));
         solution.setSolutionSatellitesDemand(solver.getInstance());
 
         return solution;
@@ -60,52 +89,142 @@ public class ClarkeWrightSecond implements Heuristic {
      * @return un ensemble de routes où une route est créé pour chaque client
      * vers chaque satellite
      */
-    public List<List<AssignmentSecond>> createInitialSolution(Instance instance) {
-        List<Satellite> satellites = instance.getSatellites();
-        List<Customer> customers = instance.getCustomers();
-        List<List<AssignmentSecond>> routes = new ArrayList<>(satellites.size() * customers.size());
-        for (Satellite s : satellites) {
-            for (Customer c : customers) {
-                List<AssignmentSecond> route = new ArrayList<>(2);
-                route.add(new AssignmentSecond(c, s));
-                route.add(new AssignmentSecond(c));
-                routes.add(route);
+    public List<RouteSecond> createInitialSolution(Instance instance) {
+        int satelliteNumber = instance.getSatellites().size();
+        int customerNumber = instance.getCustomers().size();
+        List<RouteSecond> routes = new ArrayList<>(satelliteNumber * customerNumber);
+        for (int s = 0; s < satelliteNumber; s++) {
+            for (int c = 0; c < customerNumber; c++) {
+                PackedRouteSecond route = new PackedRouteSecond(2);
+                route.addLoad(c, s);
+                route.addDelivery(c);
+                routes.add(new RouteSecond(route, solver));
             }
         }
         return routes;
     }
 
     /**
-     * Fonction qui calcule la liste des savings pour l'instance du problème.
+     * Fonction qui calcule la liste des savings pour l'instance du problème. <br>
+     * Si le voisinage est restreint dans les paramètres, seules les paires de
+     * clients voisines sont considérées. <br>
+     * Aucun saving n'est créé pour une fusion qui enchaînerait des arcs
+     * incompatibles avec les fenêtres de temps. <br>
+     * Selon les paramètres, les savings négatifs ou nuls sont ignorés et seuls
+     * les meilleurs savings sont conservés. Les arcs créés par une fusion sont
+     * pondérés par le coefficient lambda, les valeurs peuvent être perturbées
+     * et les savings avec rechargement omis.
      *
      * @param instance L'instance du problème
      * @return liste des savings triée dans l'ordre décroisant
      */
-    public List<Saving> computeSavings(Instance instance) {
+    public SavingsList computeSavings(Instance instance) {
         List<Satellite> satellites = instance.getSatellites();
         List<Customer> customers = instance.getCustomers();
-        List<Saving> savings = new ArrayList<>(satellites.size() * satellites.size() * customers.size() * customers.size() - satellites.size() * satellites.size() * customers.size());
+        Neighbourhood neighbourhood = getNeighbourhood(instance);
+        ArcCompatibility arcs = instance.getArcCompatibility();
+        long pairNumber = (long) customers.size() * (customers.size() - 1) / 2;
+        if (neighbourhood != null) {
+            pairNumber = 0;
+            for (int k = 0; k < customers.size(); k++) {
+                pairNumber += neighbourhood.getCandidatePartners(k).length;
+            }
+        }
+        boolean positiveSavingsOnly = parameters.isPositiveSavingsOnly();
+        final Neighbourhood partnerLists = neighbourhood;
 
         //on crée les savings pour chaques paires satellites i et j et de clients k et l
-        for (int i = 0; i < satellites.size(); i++) {
-            for (int j = 0; j < satellites.size(); j++) {
-                for (int k = 0; k < customers.size(); k++) {
-                    for (int l = k + 1; l < customers.size(); l++) {
-                        double savingValue;
-                        if (satellites.get(i).equals(satellites.get(j))) {
-                            savingValue = instance.getDistance(satellites.get(i), customers.get(k)) + instance.getDistance(satellites.get(i), customers.get(l)) - instance.getDistance(customers.get(k), customers.get(l));
-                        } else {
-                            savingValue = instance.getDistance(satellites.get(i), customers.get(k)) + instance.getDistance(satellites.get(j), customers.get(l)) - instance.getDistance(customers.get(k), satellites.get(j)) - instance.getDistance(customers.get(l), satellites.get(i));
-                        }
-                        savings.add(new Saving(satellites.get(i), satellites.get(j), customers.get(k), customers.get(l), savingValue));
-                        savings.add(new Saving(satellites.get(i), satellites.get(j), customers.get(l), customers.get(k), savingValue));
-                    }
+        SavingsList savings = SavingsBuilder.build(satellites.size(), customers.size(),
+                k -> partnerLists == null ? customers.size() - k - 1 : partnerLists.getCandidatePartners(k).length,
+                2L * satellites.size() * satellites.size() * pairNumber, parameters,
+                (i, j, kStart, kEnd, part) -> generateSavings(instance, i, j, kStart, kEnd, partnerLists, arcs, positiveSavingsOnly, part));
+        //on trie les savings dans l'ordre décroissant, en réutilisant l'ordre du cache s'il existe
+        if (parameters.getArtifactCache() != null) {
+            SavingsOrder.sortDescending(savings, instance, parameters.getArtifactCache(), parameters.getSavingsCacheKey("savings-second-k" + parameters.getNeighbourhoodSize()));
+        } else {
+            savings.sortDescending(parameters.getParallelism());
+        }
+        return savings;
+    }
+
+    /**
+     * Fonction qui calcule les savings de l'instance du problème par morceaux
+     * triés écrits sur disque, pour les instances dont la liste des savings ne
+     * tient pas en mémoire. <br>
+     * Les savings sont les mêmes que ceux de {@link #computeSavings(Instance)}
+     * et sont parcourus dans le même ordre.
+     *
+     * @param instance L'instance du problème
+     * @return les savings écrits sur disque, à fermer après usage
+     */
+    public SpilledSavings spillSavings(Instance instance) {
+        Neighbourhood neighbourhood = getNeighbourhood(instance);
+        ArcCompatibility arcs = instance.getArcCompatibility();
+        boolean positiveSavingsOnly = parameters.isPositiveSavingsOnly();
+        return SavingsBuilder.spill(instance.getSatellites().size(), instance.getCustomers().size(), parameters,
+                (i, j, kStart, kEnd, part) -> generateSavings(instance, i, j, kStart, kEnd, neighbourhood, arcs, positiveSavingsOnly, part));
+    }
+
+    /**
+     * @param instance L'instance du problème
+     * @return les listes de voisinage des clients, null si le voisinage n'est
+     * pas restreint
+     */
+    private Neighbourhood getNeighbourhood(Instance instance) {
+        if (!parameters.isNeighbourhoodRestricted()) {
+            return null;
+        }
+        return parameters.getArtifactCache() == null ? instance.getNeighbourhood(parameters.getNeighbourhoodSize()) : parameters.getArtifactCache().getNeighbourhood(instance, parameters.getNeighbourhoodSize());
+    }
+
+    /**
+     * Génère les savings des satellites i et j pour les clients k d'un bloc.
+     *
+     * @param instance L'instance du problème
+     * @param i l'indice du satellite de la route i
+     * @param j l'indice du satellite de la route j
+     * @param kStart le premier client k du bloc
+     * @param kEnd le client k suivant le dernier client du bloc
+     * @param neighbourhood les listes de voisinage, null pour toutes les paires
+     * @param arcs les arcs compatibles avec les fenêtres de temps
+     * @param positiveSavingsOnly vrai pour ignorer les savings négatifs ou nuls
+     * @param savings la liste à remplir
+     */
+    private void generateSavings(Instance instance, int i, int j, int kStart, int kEnd, Neighbourhood neighbourhood, ArcCompatibility arcs, boolean positiveSavingsOnly, SavingsList savings) {
+        if (i != j && !parameters.isRefillAllowed()) {
+            return;
+        }
+        double routeShape = parameters.getRouteShape();
+        List<Satellite> satellites = instance.getSatellites();
+        List<Customer> customers = instance.getCustomers();
+        int sI = satellites.get(i).getGlobalSiteID();
+        int sJ = satellites.get(j).getGlobalSiteID();
+        for (int k = kStart; k < kEnd; k++) {
+            int cK = customers.get(k).getGlobalSiteID();
+            int[] partners = neighbourhood == null ? null : neighbourhood.getCandidatePartners(k);
+            int partnerNumber = partners == null ? customers.size() - k - 1 : partners.length;
+            for (int p = 0; p < partnerNumber; p++) {
+                int l = partners == null ? k + 1 + p : partners[p];
+                int cL = customers.get(l).getGlobalSiteID();
+                double savingValue;
+                if (sI == sJ) {
+                    savingValue = instance.getDistance(sI, cK) + instance.getDistance(sI, cL) - routeShape * instance.getDistance(cK, cL);
+                } else {
+                    //distances lues depuis les satellites, symétriques, pour ne pas dépendre de la ligne du client cL
+                    savingValue = instance.getDistance(sI, cK) + instance.getDistance(sJ, cL) - routeShape * instance.getDistance(sJ, cK) - routeShape * instance.getDistance(sI, cL);
+                }
+                if (positiveSavingsOnly && savingValue <= 0.0) {
+                    continue;
+                }
+                //route i servie depuis sI terminant par k, route j servie depuis sJ commençant par l
+                if (arcs.isSatelliteArcFeasible(i, k) && arcs.isSatelliteArcFeasible(j, l) && arcs.isCustomerArcFeasible(k, l)) {
+                    savings.add(i, j, k, l, parameters.perturb(savingValue, i, j, k, l));
+                }
+                if (arcs.isSatelliteArcFeasible(i, l) && arcs.isSatelliteArcFeasible(j, k) && arcs.isCustomerArcFeasible(l, k)) {
+                    savings.add(i, j, l, k, parameters.perturb(savingValue, i, j, l, k));
                 }
             }
         }
-        //on trie les savings dans l'ordre décroissant
-        Collections.sort(savings, Collections.reverseOrder());
-        return savings;
     }
 
     /**
@@ -113,220 +232,221 @@ public class ClarkeWrightSecond implements Heuristic {
      * méthode classique de CK ou en utilisant un rechargement vers le
      * satellite.
      *
-     * @param saving le saving considéré
-     * @param routes la liste des routes
+     * @param savings la liste des savings
+     * @param saving l'indice du saving considéré
+     * @param routes le registre des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void savingsTreatment(Saving saving, List<List<AssignmentSecond>> routes, Solver solver) {
-        List<AssignmentSecond> iRoute = findRouteLast(saving.getiSatellite(), saving.getiCustomer(), routes);
-        List<AssignmentSecond> jRoute = findRouteFirst(saving.getjSatellite(), saving.getjCustomer(), routes);
-        if (!iRoute.equals(jRoute) && !iRoute.isEmpty() && !jRoute.isEmpty()) {
-            if (saving.getiSatellite().equals(saving.getjSatellite())) {
-                mergeRouteClassic(saving, iRoute, jRoute, routes, solver);
+    public void savingsTreatment(SavingsList savings, int saving, RouteRegistry<RouteSecond> routes, Solver solver) {
+        savingsTreatment(savings.getiOrigin(saving), savings.getjOrigin(saving), savings.getiSite(saving), savings.getjSite(saving), routes, solver);
+    }
+
+    /**
+     * Traite un saving donné par ses indices, lu dans une liste ou sur
+     * disque.
+     *
+     * @param iOrigin l'indice du satellite de la route i
+     * @param jOrigin l'indice du satellite de la route j
+     * @param iSite l'indice du dernier client de la route i
+     * @param jSite l'indice du premier client de la route j
+     * @param routes le registre des routes
+     * @param solver le solveur contenant l'instance du problème
+     */
+    public void savingsTreatment(int iOrigin, int jOrigin, int iSite, int jSite, RouteRegistry<RouteSecond> routes, Solver solver) {
+        RouteSecond iRoute = findRouteLast(iOrigin, iSite, routes);
+        RouteSecond jRoute = findRouteFirst(jOrigin, jSite, routes);
+        if (iRoute != null && jRoute != null && iRoute != jRoute && isJunctionFeasible(iRoute.getRoute(), jRoute.getRoute(), solver)) {
+            if (iOrigin == jOrigin) {
+                mergeRouteClassic(iOrigin, iSite, iRoute, jRoute, routes, solver);
             } else {
                 mergeRouteWithRefill(iRoute, jRoute, routes, solver);
             }
         }
     }
 
+    /**
+     * Indique si la jonction entre la dernière livraison de la route i et la
+     * première livraison de la route j est compatible avec les fenêtres de
+     * temps. <br>
+     * Pour la fusion classique ces deux clients se suivent directement, avec
+     * rechargement le détour par le satellite ne fait qu'allonger le trajet
+     * (inégalité triangulaire) : dans les deux cas une jonction impossible
+     * ferait échouer la fusion.
+     *
+     * @param iRoute la route i a fusionner
+     * @param jRoute la route j à fusionner
+     * @param solver le solveur contenant l'instance du problème
+     * @return faux si la fusion est impossible quel que soit l'ordre de service
+     */
+    private boolean isJunctionFeasible(PackedRouteSecond iRoute, PackedRouteSecond jRoute, Solver solver) {
+        int k = 0;
+        while (jRoute.isLoadAt(k)) {
+            k++;
+        }
+        return solver.getInstance().getArcCompatibility().isCustomerArcFeasible(iRoute.getCustomer(iRoute.size() - 1), jRoute.getCustomer(k));
+    }
+
     /**
      * Fonction de recherche de la route de la solution où le client c est en
      * première position. <br>
-     * Cette fonction compare la première route de la solution avec un client c
-     * et retourne la route où c est en première position si elle existe.
+     * La route est retrouvée dans le registre par son affectation de tête.
      *
-     * @param s le satellite où c est affecté
-     * @param c le client à chercher
-     * @param routes l'ensemble des routes
-     * @return la route ou c est en première position, un tableau vide sinon
+     * @param s l'indice du satellite où c est affecté
+     * @param c l'indice du client à chercher
+     * @param routes le registre des routes
+     * @return la route ou c est en première position, null sinon
      */
-    public List<AssignmentSecond> findRouteFirst(Satellite s, Customer c, List<List<AssignmentSecond>> routes) {
-        //pour chaque route on compare le premier element avec c et s
-        for (List<AssignmentSecond> route : routes) {
-            Optional<Satellite> assignSat = route.get(0).getSatellite();
-            if (assignSat.isPresent()) {
-                if (route.get(0).getCustomer().equals(c) && assignSat.get().equals(s)) {
-                    return route;
-                }
-            }
-        }
-        return new ArrayList<>();
+    public RouteSecond findRouteFirst(int s, int c, RouteRegistry<RouteSecond> routes) {
+        return routes.findRouteFirst(PackedRoute.encodeLoad(c, s));
     }
 
     /**
      * Fonction de recherche de la route de la solution où le client c est en
-     * dernière solution. <br>
-     * Cette fonction compare la dernière route de la solution avec un client c
-     * et retourne la route où c est en dernière position si elle existe.
+     * dernière position et affecté au satellite s. <br>
+     * La route est retrouvée dans le registre par l'affectation de son
+     * dernier client.
      *
-     * @param s le satellite où c est affecté
-     * @param c le client à chercher
-     * @param routes l'ensemble des routes
-     * @return la route ou c est en dernière position, un tableau vide sinon
+     * @param s l'indice du satellite où c est affecté
+     * @param c l'indice du client à chercher
+     * @param routes le registre des routes
+     * @return la route ou c est en dernière position, null sinon
      */
-    public List<AssignmentSecond> findRouteLast(Satellite s, Customer c, List<List<AssignmentSecond>> routes) {
-        //pour chaque route on compare le dernier element avec c et on cherche si son affectation est a satellite s
-        for (List<AssignmentSecond> route : routes) {
-            //on compare le dernier séquencement à c
-            if (route.get(route.size() - 1).getCustomer().equals(c)) {
-                //on parcours la permutation à l'envers jusqu'à l'affectation de c et on compare 
-                int index = route.size() - 2;
-                boolean sInRoute = true;
-                while (sInRoute) {
-                    AssignmentSecond assign = route.get(index);
-                    if (assign.getCustomer().equals(c)) {
-                        Optional<Satellite> assignSat = assign.getSatellite();
-                        if (assignSat.isPresent()) {
-                            if (assignSat.get().equals(s)) {
-                                return route;
-                            } else {
-                                sInRoute = false;
-                            }
-                        }
-                    }
-                    index--;
-                }
-            }
-        }
-        return new ArrayList<>();
+    public RouteSecond findRouteLast(int s, int c, RouteRegistry<RouteSecond> routes) {
+        return routes.findRouteLast(PackedRoute.encodeLoad(c, s));
     }
 
     /**
      * Fusion classique de l'algorithme de CK avec respect des contraintes
-     * capacités et fenêtre de temps.
+     * capacités et fenêtre de temps. <br>
+     * La route fusionnée est la suite du début de la route i jusqu'à
+     * l'affectation du client i, des affectations de tête de la route j, de la
+     * fin de la route i puis de la fin de la route j : elle est évaluée sur
+     * les agrégats de ces quatre morceaux et n'est construite que si la fusion
+     * est acceptée.
      *
-     * @param saving le saving considéré
+     * @param iSatellite l'indice du satellite commun aux deux routes
+     * @param iCustomer l'indice du dernier client de la route i
      * @param iRoute la route i a fusionner
      * @param jRoute la route j à fusionner
-     * @param routes la liste des routes
+     * @param routes le registre des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void mergeRouteClassic(Saving saving, List<AssignmentSecond> iRoute, List<AssignmentSecond> jRoute, List<List<AssignmentSecond>> routes, Solver solver) {
-        List<AssignmentSecond> mergedRoute = new ArrayList<>();
-        //On merge toute la route i
-        mergedRoute.addAll(iRoute);
+    public void mergeRouteClassic(int iSatellite, int iCustomer, RouteSecond iRoute, RouteSecond jRoute, RouteRegistry<RouteSecond> routes, Solver solver) {
+        PackedRouteSecond iPackedRoute = iRoute.getRoute();
+        PackedRouteSecond jPackedRoute = jRoute.getRoute();
         //index de l'affectation du client i à sI dans la route i
-        int k = iRoute.indexOf(new AssignmentSecond(saving.getiCustomer(), saving.getiSatellite())) + 1;
+        int k = iPackedRoute.indexOf(PackedRoute.encodeLoad(iCustomer, iSatellite)) + 1;
+        //nombre d'affectations en tête de la route j
+        int m = 0;
+        while (jPackedRoute.isLoadAt(m)) {
+            m++;
+        }
+        RouteSegment merged = solver.concatenate(solver.concatenate(solver.concatenate(iRoute.getPrefix(k), jRoute.getPrefix(m)), iRoute.getSuffix(k)), jRoute.getSuffix(m));
+        if (!solver.isSecondEchelonSegmentCapacitiesRespected(merged) || (merged.isExact() && !merged.isTimeWindowsRespected())) {
+            return;
+        }
+        PackedRouteSecond mergedRoute = new PackedRouteSecond(iPackedRoute.size() + jPackedRoute.size());
+        //On merge toute la route i
+        mergedRoute.addAll(iPackedRoute);
         // on ajoute les affectations des clients vers le satellite sI de la route j à partir de l'indice k+1
-        for (AssignmentSecond a : jRoute) {
-            if (a.getSatellite().isPresent()) {
-                mergedRoute.add(k, a);
-                k++;
-            } else {
-                break;
-            }
+        for (int a = 0; a < m; a++) {
+            mergedRoute.add(k + a, jPackedRoute.get(a));
         }
         // le reste de la route j est ajoutée à la fin de la séquence
-        for (int i = mergedRoute.size() - iRoute.size(); i < jRoute.size(); i++) {
-            mergedRoute.add(jRoute.get(i));
+        for (int i = m; i < jPackedRoute.size(); i++) {
+            mergedRoute.add(jPackedRoute.get(i));
         }
-        boolean isTimeDoable = solver.isSecondEchelonPermutationTimeWindowsRespected(mergedRoute);
-        boolean isCapacityDoable = solver.isSecondEchelonPermutationCapacitiesRespected(mergedRoute);
-        if (isTimeDoable && isCapacityDoable) {
-            //suppresion route i
-            routes.remove(iRoute);
-            //suppresion route j
-            routes.remove(jRoute);
-            //suppresion de toutes les routes qui contiennent i et j et un satellite différent de celui affectée
-            routes.removeIf(route -> !route.get(0).getSatellite().get().equals(iRoute.get(0).getSatellite().get()) && route.get(0).getCustomer().equals(iRoute.get(0).getCustomer()));
-            routes.removeIf(route -> !route.get(0).getSatellite().get().equals(jRoute.get(0).getSatellite().get()) && route.get(0).getCustomer().equals(jRoute.get(0).getCustomer()));
-            //ajout de la route fusionnée
-            routes.add(mergedRoute);
+        if (merged.isExact() || solver.isSecondEchelonPermutationTimeWindowsRespected(mergedRoute)) {
+            replaceMergedRoutes(iRoute, jRoute, new RouteSecond(mergedRoute, solver), routes);
         }
     }
 
     /**
      * Fusion autorisant un rechargment au satellite avec respect des
-     * contraintes capacités et fenêtre de temps.
+     * contraintes capacités et fenêtre de temps. <br>
+     * La route fusionnée est évaluée sur les agrégats des deux routes et n'est
+     * construite que si la fusion est acceptée.
      *
      * @param iRoute la route i a fusionner
      * @param jRoute la route j à fusionner
-     * @param routes la liste des routes
+     * @param routes le registre des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void mergeRouteWithRefill(List<AssignmentSecond> iRoute, List<AssignmentSecond> jRoute, List<List<AssignmentSecond>> routes, Solver solver) {
-        List<AssignmentSecond> mergedRoute = new ArrayList<>();
-        mergedRoute.addAll(iRoute);
-        mergedRoute.addAll(jRoute);
-        boolean isTimeDoable = solver.isSecondEchelonPermutationTimeWindowsRespected(mergedRoute);
-        boolean isCapacityDoable = solver.isSecondEchelonPermutationCapacitiesRespected(mergedRoute);
-        if (isTimeDoable && isCapacityDoable) {
-            //suppresion route i
-            routes.remove(iRoute);
-            //suppresion route j
-            routes.remove(jRoute);
-            //suppresion de toutes les routes qui contiennent i et j et un satellite différent de celui affectée
-            routes.removeIf(route -> !route.get(0).getSatellite().get().equals(iRoute.get(0).getSatellite().get()) && route.get(0).getCustomer().equals(iRoute.get(0).getCustomer()));
-            routes.removeIf(route -> !route.get(0).getSatellite().get().equals(jRoute.get(0).getSatellite().get()) && route.get(0).getCustomer().equals(jRoute.get(0).getCustomer()));
-            //ajout de la route fusionnée
-            routes.add(mergedRoute);
+    public void mergeRouteWithRefill(RouteSecond iRoute, RouteSecond jRoute, RouteRegistry<RouteSecond> routes, Solver solver) {
+        RouteSegment merged = solver.concatenate(iRoute.getSegment(), jRoute.getSegment());
+        if (!solver.isSecondEchelonSegmentCapacitiesRespected(merged) || (merged.isExact() && !merged.isTimeWindowsRespected())) {
+            return;
         }
+        PackedRouteSecond mergedRoute = new PackedRouteSecond(iRoute.size() + jRoute.size());
+        mergedRoute.addAll(iRoute.getRoute());
+        mergedRoute.addAll(jRoute.getRoute());
+        if (merged.isExact() || solver.isSecondEchelonPermutationTimeWindowsRespected(mergedRoute)) {
+            replaceMergedRoutes(iRoute, jRoute, new RouteSecond(mergedRoute, solver), routes);
+        }
+    }
+
+    /**
+     * Remplace les routes i et j par leur fusion.
+     *
+     * @param iRoute la route i fusionnée
+     * @param jRoute la route j fusionnée
+     * @param mergedRoute la route fusionnée
+     * @param routes le registre des routes
+     */
+    private void replaceMergedRoutes(RouteSecond iRoute, RouteSecond jRoute, RouteSecond mergedRoute, RouteRegistry<RouteSecond> routes) {
+        PackedRouteSecond iPackedRoute = iRoute.getRoute();
+        PackedRouteSecond jPackedRoute = jRoute.getRoute();
+        int satelliteNumber = solver.getInstance().getSatellites().size();
+        //suppresion route i
+        routes.remove(iRoute);
+        //suppresion route j
+        routes.remove(jRoute);
+        //suppresion de toutes les routes qui contiennent i et j et un satellite différent de celui affectée
+        routes.removeOtherOrigins(iPackedRoute.getCustomer(0), iPackedRoute.getSatellite(0), satelliteNumber);
+        routes.removeOtherOrigins(jPackedRoute.getCustomer(0), jPackedRoute.getSatellite(0), satelliteNumber);
+        //ajout de la route fusionnée
+        routes.add(mergedRoute);
     }
 
     /**
      * Fonction appelée en fin d'algorithme chargée de réduire le nombre de
      * véhicules utilisés si celui-ci excède le nombre autorisé par l'instance.
      * <br>
-     * Si à la fin de l'algorithme la solution renvoyée possède n véhicules, que
-     * l'instance en autorise k alors on conserve les k plus grandes tournées et
-     * on réinsère les clients des n-k tournées à n'importe quelle position
-     * possible dans la solution.
+     * Les routes sont considérées de la plus petite à la plus grande : les
+     * clients d'une route sont réinsérés à leur meilleure position dans les
+     * autres routes et la route est supprimée si tous ont pu l'être, elle est
+     * conservée sinon. La réparation s'arrête dès que le nombre de véhicules
+     * est respecté.
      *
      * @param routes liste des routes
      * @param solver le solveur contenant l'instance du problème
+     * @see solver.InsertionRepair
      */
-    public void repairSolutionExceedingVehiclesNumber(List<List<AssignmentSecond>> routes, Solver solver) {
-        int exceedNumber = routes.size() - solver.getInstance().getSecondEchelonFleet().getVehiclesNumber();
-        if (exceedNumber > 0) {
-            //liste contenant les clients à réaffecter 
-            List<AssignmentSecond> exceedingClients = new ArrayList<>(exceedNumber);
-            //liste contenant les affectations des clients vers leur satellites
-            List<AssignmentSecond> exceedingClientsAssignment = new ArrayList<>(exceedNumber);
-            //tri des routes dans l'ordre décroisant de leur taille
-            Collections.sort(routes, (List a1, List a2) -> a1.size() - a2.size());
-            //Extraction des k plus petites routes en surplus
-            for (int k = 0; k < exceedNumber; k++) {
-                for (AssignmentSecond assign : routes.get(k)) {
-                    if (assign.getSatellite().isEmpty()) {
-                        exceedingClients.add(assign);
-                    } else {
-                        exceedingClientsAssignment.add(assign);
+    public void repairSolutionExceedingVehiclesNumber(List<RouteSecond> routes, Solver solver) {
+        int vehiclesNumber = solver.getInstance().getSecondEchelonFleet().getVehiclesNumber();
+        if (routes.size() > vehiclesNumber) {
+            //tri des routes dans l'ordre croissant de leur taille
+            Collections.sort(routes, (RouteSecond a1, RouteSecond a2) -> a1.size() - a2.size());
+            Neighbourhood neighbourhood = parameters.isNeighbourhoodRestricted() ? solver.getInstance().getNeighbourhood(parameters.getNeighbourhoodSize()) : null;
+            InsertionRepair repair = new InsertionRepair(solver, parameters.getRepairRegret(), neighbourhood);
+            int r = 0;
+            while (routes.size() > vehiclesNumber && r < routes.size()) {
+                PackedRouteSecond route = routes.get(r).getRoute();
+                int[] loads = new int[route.size() / 2];
+                int loadNumber = 0;
+                for (int a = 0; a < route.size(); a++) {
+                    if (route.isLoadAt(a)) {
+                        loads[loadNumber++] = route.get(a);
                     }
                 }
-            }
-            //On retire les k plus petites routes de la solution
-            routes.subList(0, exceedNumber).clear();
-            //On trie les clients et leur affectations pour acceder aux elements avec le même indice
-            Collections.sort(exceedingClients, (AssignmentSecond a1, AssignmentSecond a2) -> Integer.compare(a1.getCustomer().getGlobalSiteID(), a2.getCustomer().getGlobalSiteID()));
-            Collections.sort(exceedingClientsAssignment, (AssignmentSecond a1, AssignmentSecond a2) -> Integer.compare(a1.getCustomer().getGlobalSiteID(), a2.getCustomer().getGlobalSiteID()));
-
-            for (int i = 0; i < exceedingClients.size(); i++) {
-                int j = 0;
-                boolean inserted = false;
-                while (j < routes.size() && !inserted) {
-                    int k = 1;
-                    List<AssignmentSecond> route = routes.get(j);
-                    while (k < route.size() && !inserted) {
-                        if (route.get(k).getSatellite().isEmpty()) {
-                            route.add(k, exceedingClients.get(i));
-                            //On cherche la première position où on peut insérer une affectation
-                            int assignmentIndex = k;
-                            while (route.get(assignmentIndex).getSatellite().isEmpty()) {
-                                assignmentIndex--;
-                            }
-                            route.add(assignmentIndex + 1, exceedingClientsAssignment.get(i));
-                            //insertion réussie, on passe au prochain site
-                            if (solver.isSecondEchelonPermutationCapacitiesRespected(route) && solver.isSecondEchelonPermutationTimeWindowsRespected(route)) {
-                                inserted = true;
-                            } //insertion échouée, on retire l'insertion et on passe à la prochaine position
-                            else {
-                                Customer c = exceedingClients.get(i).getCustomer();
-                                route.removeIf(assign -> assign.getCustomer().equals(c));
-                            }
-                        }
-                        k++;
-                    }
-                    j++;
+                List<RouteSecond> otherRoutes = new ArrayList<>(routes);
+                otherRoutes.remove(r);
+                if (repair.insertAll(otherRoutes, loads)) {
+                    //la route suivante prend la place de la route supprimée
+                    routes.clear();
+                    routes.addAll(otherRoutes);
+                } else {
+                    r++;
                 }
             }
         }
@@ -343,12 +463,12 @@ public class ClarkeWrightSecond implements Heuristic {
      * @param routes liste des routes
      * @param solver le solveur contenant l'instance du problème
      */
-    public void repairSolutionAloneCustomers(List<List<AssignmentSecond>> routes, Solver solver) {
-        List<Customer> aloneCustomers = new ArrayList<>();
+    public void repairSolutionAloneCustomers(List<RouteSecond> routes, Solver solver) {
+        List<Integer> aloneCustomers = new ArrayList<>();
         //Extraction des clients seuls
-        for (List<AssignmentSecond> route : routes) {
+        for (RouteSecond route : routes) {
             if (route.size() == 2) {
-                Customer c = route.get(0).getCustomer();
+                int c = route.getRoute().getCustomer(0);
                 if (!aloneCustomers.contains(c)) {
                     aloneCustomers.add(c);
                 }
@@ -358,95 +478,15 @@ public class ClarkeWrightSecond implements Heuristic {
             //On retire les routes où les clients sont seuls
             routes.removeIf(route -> route.size() == 2);
             //On cherche le satellite le plus proche des clients seuls et on réinsère les clients dans la solution
-            for (Customer c : aloneCustomers) {
-                Satellite closestSatellite = solver.getInstance().getSatellites().get(0);
-                for (Satellite s : solver.getInstance().getSatellites()) {
-                    if (solver.getInstance().getDistance(s, c) < solver.getInstance().getDistance(closestSatellite, c)) {
-                        closestSatellite = s;
-                    }
-                }
-                List<AssignmentSecond> route = new ArrayList<>();
-                route.add(new AssignmentSecond(c, closestSatellite));
-                route.add(new AssignmentSecond(c));
-                routes.add(route);
+            List<Customer> customers = solver.getInstance().getCustomers();
+            SpatialIndex<Satellite> satelliteIndex = solver.getInstance().getSatelliteSpatialIndex();
+            for (int c : aloneCustomers) {
+                Satellite closestSatellite = satelliteIndex.nearest(customers.get(c));
+                PackedRouteSecond route = new PackedRouteSecond(2);
+                route.addLoad(c, closestSatellite.getSiteID() - 1);
+                route.addDelivery(c);
+                routes.add(new RouteSecond(route, solver));
             }
         }
     }
-
-    /**
-     * Classe imbriquée pour la gestion les savings. <br>
-     * On veut conserver les informations des clients et des satellites
-     * impliqués dans la calcul du savings.
-     *
-     * @author LASTENNET Dorian
-     */
-    public class Saving implements Comparable {
-
-        private final Satellite iSatellite;
-        private final Satellite jSatellite;
-        private final Customer iCustomer;
-        private final Customer jCustomer;
-        private final double savingValue;
-
-        public Saving(Satellite sI, Satellite sJ, Customer i, Customer j, double saving) {
-            this.iSatellite = sI;
-            this.jSatellite = sJ;
-            this.iCustomer = i;
-            this.jCustomer = j;
-            this.savingValue = saving;
-        }
-
-        //Accesseurs
-        public Satellite getiSatellite() {
-            return iSatellite;
-        }
-
-        public Satellite getjSatellite() {
-            return jSatellite;
-        }
-
-        public Customer getiCustomer() {
-            return iCustomer;
-        }
-
-        public Customer getjCustomer() {
-            return jCustomer;
-        }
-
-        public double getSavingValue() {
-            return savingValue;
-        }
-
-        /**
-         * Représentation de l'objet en texte.
-         *
-         * @return texte
-         */
-        @Override
-        public String toString() {
-            StringBuilder sb = new StringBuilder();
-            sb.append("savings  =(");
-            sb.append("satellite sI : ").append(getiSatellite().toString());
-            sb.append(" customer i : ").append(getiCustomer().toString());
-            sb.append(" satellite sJ : ").append(getjSatellite().toString());
-            sb.append(" customer j : ").append(getjCustomer().toString());
-            sb.append(" Saving value : ").append(getSavingValue());
-            sb.append(")");
-            return sb.toString();
-        }
-
-        /**
-         * Surchage opérateur comparaison.
-         *
-         * @param o objet à comparer
-         * @return booléen indiquant si les objets sont identiques
-         */
-        @Override
-        public int compareTo(Object o) {
-            Saving saving = (Saving) o;
-            //comparaison
-            return Double.compare(this.getSavingValue(), saving.getSavingValue());
-        }
-    }
-
 }
@@ -0,0 +1,277 @@
+package solver;
+
+import model.Neighbourhood;
+import model.PackedRoute;
+import model.PackedRouteSecond;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Réinsertion de clients dans les routes du second niveau à la meilleure
+ * position. <br>
+ * Un client est inséré dans une tournée d'une route : sa livraison prend
+ * place parmi les livraisons de la tournée et son chargement s'ajoute à la
+ * fin des chargements de la tournée, au satellite de celle-ci. Il peut aussi
+ * être servi par une nouvelle tournée depuis son satellite, insérée entre
+ * deux tournées de la route. Chaque position est évaluée en temps constant
+ * sur les agrégats de la route. <br>
+ * Le coût de la meilleure insertion faisable de chaque client dans chaque
+ * route est conservé, seule la colonne de la route modifiée par une insertion
+ * est recalculée. Le client inséré est choisi de façon gloutonne, le moins
+ * coûteux d'abord, ou selon son regret : la somme des écarts entre sa
+ * meilleure insertion et ses k - 1 suivantes, les clients ayant le moins de
+ * routes possibles passant en premier.
+ *
+ * @see solver.RouteSecond
+ * @see solver.ClarkeWrightSecond
+ * @author LASTENNET Dorian
+ */
+public class InsertionRepair {
+
+    private static final int NO_POSITION = -1;
+    private static final int NEW_TOUR = 1; //bit de poids faible d'une position : insertion dans une nouvelle tournée
+
+    private final Solver solver;
+    private final int regret; //nombre de routes comparées par le regret, 1 pour une insertion gloutonne
+    private final Neighbourhood neighbourhood; //null pour considérer toutes les routes
+
+    /**
+     * @param solver le solveur contenant l'instance du problème
+     * @param regret le nombre de meilleures routes comparées par le regret,
+     * 1 pour une insertion gloutonne
+     * @param neighbourhood les listes de voisinage, seules les routes
+     * contenant un voisin du client sont alors considérées ; null pour toutes
+     * les routes
+     */
+    public InsertionRepair(Solver solver, int regret, Neighbourhood neighbourhood) {
+        if (regret < 1) {
+            throw new IllegalArgumentException("Regret invalide : " + regret);
+        }
+        this.solver = solver;
+        this.regret = regret;
+        this.neighbourhood = neighbourhood;
+    }
+
+    /**
+     * Insère tous les clients dans les routes. <br>
+     * Les routes ne sont modifiées que si tous les clients ont été insérés.
+     *
+     * @param routes les routes, les routes modifiées sont remplacées dans la
+     * liste
+     * @param loads les affectations des clients à insérer, leur satellite
+     * sert aux nouvelles tournées
+     * @return vrai si tous les clients ont été insérés
+     */
+    public boolean insertAll(List<RouteSecond> routes, int[] loads) {
+        List<RouteSecond> candidateRoutes = new ArrayList<>(routes);
+        int routeNumber = candidateRoutes.size();
+        double[][] costs = new double[loads.length][routeNumber];
+        int[][] positions = new int[loads.length][routeNumber];
+        for (int r = 0; r < routeNumber; r++) {
+            for (int c = 0; c < loads.length; c++) {
+                evaluate(loads[c], candidateRoutes.get(r), c, r, costs, positions);
+            }
+        }
+        boolean[] inserted = new boolean[loads.length];
+        for (int insertion = 0; insertion < loads.length; insertion++) {
+            int best = -1;
+            int bestOptions = 0;
+            double bestRegret = 0.0;
+            double bestCost = 0.0;
+            for (int c = 0; c < loads.length; c++) {
+                if (inserted[c]) {
+                    continue;
+                }
+                double[] bestCosts = bestCosts(costs[c]);
+                int options = 0;
+                while (options < regret && bestCosts[options] != Double.POSITIVE_INFINITY) {
+                    options++;
+                }
+                //un client qui ne peut plus être inséré fait échouer la réparation
+                if (options == 0) {
+                    return false;
+                }
+                double customerRegret = 0.0;
+                for (int h = 1; h < options; h++) {
+                    customerRegret += bestCosts[h] - bestCosts[0];
+                }
+                if (best < 0 || options < bestOptions || (options == bestOptions && (customerRegret > bestRegret || (customerRegret == bestRegret && bestCosts[0] < bestCost)))) {
+                    best = c;
+                    bestOptions = options;
+                    bestRegret = customerRegret;
+                    bestCost = bestCosts[0];
+                }
+            }
+            //insertion dans la route la moins coûteuse, puis mise à jour de sa colonne
+            int bestRoute = 0;
+            for (int r = 1; r < routeNumber; r++) {
+                if (costs[best][r] < costs[best][bestRoute]) {
+                    bestRoute = r;
+                }
+            }
+            RouteSecond route = insert(candidateRoutes.get(bestRoute), loads[best], positions[best][bestRoute]);
+            candidateRoutes.set(bestRoute, route);
+            inserted[best] = true;
+            for (int c = 0; c < loads.length; c++) {
+                if (!inserted[c]) {
+                    evaluate(loads[c], route, c, bestRoute, costs, positions);
+                }
+            }
+        }
+        for (int r = 0; r < routeNumber; r++) {
+            routes.set(r, candidateRoutes.get(r));
+        }
+        return true;
+    }
+
+    /**
+     * @return les regret plus petits coûts de la ligne, dans l'ordre croissant
+     */
+    private double[] bestCosts(double[] routeCosts) {
+        double[] bestCosts = new double[regret];
+        Arrays.fill(bestCosts, Double.POSITIVE_INFINITY);
+        for (double cost : routeCosts) {
+            if (cost < bestCosts[regret - 1]) {
+                int h = regret - 1;
+                while (h > 0 && bestCosts[h - 1] > cost) {
+                    bestCosts[h] = bestCosts[h - 1];
+                    h--;
+                }
+                bestCosts[h] = cost;
+            }
+        }
+        return bestCosts;
+    }
+
+    /**
+     * Calcule la meilleure insertion faisable d'un client dans une route et
+     * la range dans le cache. <br>
+     * Le client est inséré dans une tournée existante, chargé au satellite de
+     * celle-ci, ou dans une nouvelle tournée depuis son satellite placée
+     * avant une tournée ou en fin de route.
+     */
+    private void evaluate(int load, RouteSecond route, int c, int r, double[][] costs, int[][] positions) {
+        costs[c][r] = Double.POSITIVE_INFINITY;
+        positions[c][r] = NO_POSITION;
+        PackedRouteSecond packedRoute = route.getRoute();
+        int customer = PackedRoute.siteOf(load);
+        if (neighbourhood != null && !isCandidateRoute(packedRoute, customer)) {
+            return;
+        }
+        double routeCost = solver.evaluateSecondEchelonSegment(route.getSegment());
+        RouteSegment delivery = solver.getSecondEchelonSegment(PackedRoute.encodeDelivery(customer));
+        RouteSegment newTour = solver.concatenate(solver.getSecondEchelonSegment(load), delivery);
+        int size = packedRoute.size();
+        int k = 0;
+        while (k < size) {
+            //tournée : chargements de k à loadEnd exclu puis livraisons jusqu'à la tournée suivante
+            int loadEnd = k;
+            while (loadEnd < size && packedRoute.isLoadAt(loadEnd)) {
+                loadEnd++;
+            }
+            int tourEnd = loadEnd;
+            while (tourEnd < size && !packedRoute.isLoadAt(tourEnd)) {
+                tourEnd++;
+            }
+            int tourLoad = PackedRoute.encodeLoad(customer, packedRoute.getSatellite(loadEnd - 1));
+            RouteSegment head = solver.concatenate(route.getPrefix(loadEnd), solver.getSecondEchelonSegment(tourLoad));
+            for (int position = loadEnd; position <= tourEnd; position++) {
+                if (position > loadEnd) {
+                    head = solver.concatenate(head, solver.getSecondEchelonSegment(packedRoute.get(position - 1)));
+                }
+                RouteSegment segment = solver.concatenate(head, delivery);
+                if (position < size) {
+                    segment = solver.concatenate(segment, route.getSuffix(position));
+                }
+                keepIfBetter(load, packedRoute, segment, routeCost, 2 * position, c, r, costs, positions);
+            }
+            //nouvelle tournée à la suite de la tournée
+            RouteSegment segment = solver.concatenate(route.getPrefix(tourEnd), newTour);
+            if (tourEnd < size) {
+                segment = solver.concatenate(segment, route.getSuffix(tourEnd));
+            }
+            keepIfBetter(load, packedRoute, segment, routeCost, 2 * tourEnd + NEW_TOUR, c, r, costs, positions);
+            k = tourEnd;
+        }
+    }
+
+    /**
+     * Conserve l'insertion si elle est faisable et moins coûteuse que la
+     * meilleure insertion connue.
+     */
+    private void keepIfBetter(int load, PackedRouteSecond route, RouteSegment segment, double routeCost, int position, int c, int r, double[][] costs, int[][] positions) {
+        double cost = solver.evaluateSecondEchelonSegment(segment) - routeCost;
+        if (cost < costs[c][r] && solver.isSecondEchelonSegmentCapacitiesRespected(segment)
+                && (segment.isExact() ? segment.isTimeWindowsRespected() : isFeasible(insert(route, load, position)))) {
+            costs[c][r] = cost;
+            positions[c][r] = position;
+        }
+    }
+
+    private boolean isFeasible(PackedRouteSecond route) {
+        return solver.isSecondEchelonPermutationCapacitiesRespected(route) && solver.isSecondEchelonPermutationTimeWindowsRespected(route);
+    }
+
+    /**
+     * @return la route avec le client inséré à la position donnée
+     */
+    private RouteSecond insert(RouteSecond route, int load, int position) {
+        return new RouteSecond(insert(route.getRoute(), load, position), solver);
+    }
+
+    /**
+     * Copie la route en insérant le client. <br>
+     * Dans une tournée existante, la livraison est insérée à la position
+     * donnée et le chargement, au satellite de la tournée, à la fin des
+     * chargements de celle-ci. Une nouvelle tournée est insérée à la position
+     * donnée.
+     *
+     * @param position la position d'insertion, multipliée par deux, plus un
+     * pour une nouvelle tournée
+     */
+    private static PackedRouteSecond insert(PackedRouteSecond route, int load, int position) {
+        int customer = PackedRoute.siteOf(load);
+        int deliveryIndex = position / 2;
+        int loadIndex = deliveryIndex;
+        int tourLoad = load;
+        if ((position & NEW_TOUR) == 0) {
+            while (!route.isLoadAt(loadIndex - 1)) {
+                loadIndex--;
+            }
+            tourLoad = PackedRoute.encodeLoad(customer, route.getSatellite(loadIndex - 1));
+        }
+        PackedRouteSecond insertedRoute = new PackedRouteSecond(route.size() + 2);
+        for (int a = 0; a <= route.size(); a++) {
+            if (a == loadIndex) {
+                insertedRoute.add(tourLoad);
+            }
+            if (a == deliveryIndex) {
+                insertedRoute.addDelivery(customer);
+            }
+            if (a < route.size()) {
+                insertedRoute.add(route.get(a));
+            }
+        }
+        return insertedRoute;
+    }
+
+    /**
+     * Indique si une route contient au moins un client voisin du client à
+     * réinsérer.
+     *
+     * @param route la route considérée
+     * @param customer l'indice du client à réinsérer
+     * @return vrai si la route contient un voisin du client
+     */
+    private boolean isCandidateRoute(PackedRouteSecond route, int customer) {
+        for (int a = 0; a < route.size(); a++) {
+            int other = route.getCustomer(a);
+            if (!route.isLoadAt(a) && (neighbourhood.isNeighbour(customer, other) || neighbourhood.isNeighbour(other, customer))) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,53 @@
+package solver;
+
+/**
+ * Résultat de l'évaluation d'un mouvement sur les routes du second niveau,
+ * sans l'appliquer : la variation de la fonction objectif et la faisabilité
+ * des routes modifiées.
+ *
+ * @see solver.Solver#evaluateRelocate(RouteSecond, int, RouteSecond, int)
+ * @author LASTENNET Dorian
+ */
+public final class MoveDelta {
+
+    private final double costDelta;
+    private final boolean feasible;
+
+    /**
+     * @param costDelta la variation de la fonction objectif, négative pour
+     * une amélioration
+     * @param feasible vrai si les routes modifiées respectent les capacités et
+     * les fenêtres de temps
+     */
+    public MoveDelta(double costDelta, boolean feasible) {
+        this.costDelta = costDelta;
+        this.feasible = feasible;
+    }
+
+    /**
+     * @return vrai si le mouvement est faisable et diminue la fonction
+     * objectif
+     */
+    public boolean isImproving() {
+        return feasible && costDelta < 0.0;
+    }
+
+    //Accesseurs
+    public double getCostDelta() {
+        return costDelta;
+    }
+
+    public boolean isFeasible() {
+        return feasible;
+    }
+
+    /**
+     * Représentation de l'objet en texte.
+     *
+     * @return texte
+     */
+    @Override
+    public String toString() {
+        return "Mouvement=[Delta=" + costDelta + ", Faisable=" + feasible + "]";
+    }
+}
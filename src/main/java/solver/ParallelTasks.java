@@ -0,0 +1,51 @@
+package solver;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Exécution de tâches indépendantes numérotées sur un nombre de cœurs donné.
+ * <br>
+ * Chaque tâche écrit dans ses propres données : le résultat ne dépend pas de
+ * l'ordre d'exécution.
+ *
+ * @author LASTENNET Dorian
+ */
+final class ParallelTasks {
+
+    private ParallelTasks() {
+    }
+
+    /**
+     * Exécute les tâches 0 à taskNumber - 1 et attend leur fin.
+     *
+     * @param parallelism le nombre de fils d'exécution, 1 ou moins pour une
+     * exécution séquentielle dans l'ordre des numéros
+     * @param taskNumber le nombre de tâches
+     * @param task la tâche à exécuter pour chaque numéro
+     */
+    static void run(int parallelism, int taskNumber, IntConsumer task) {
+        if (parallelism <= 1 || taskNumber <= 1) {
+            for (int t = 0; t < taskNumber; t++) {
+                task.accept(t);
+            }
+            return;
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            pool.submit(() -> IntStream.range(0, taskNumber).parallel().forEach(task)).get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Calcul parallèle interrompu.", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) ex.getCause();
+            }
+            throw new IllegalStateException("Echec du calcul parallèle.", ex.getCause());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
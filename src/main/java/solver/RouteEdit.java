@@ -0,0 +1,180 @@
+package solver;
+
+import model.PackedRouteSecond;
+
+import java.util.Arrays;
+
+/**
+ * Modifications d'une route du second niveau, évaluées sans construire la
+ * route modifiée. <br>
+ * Les positions des modifications désignent les éléments de la route
+ * d'origine. Les insertions à une même position sont conservées dans leur
+ * ordre et précèdent l'élément d'origine. La fin de la route peut être
+ * remplacée par un suffixe d'une autre route. <br>
+ * Les parties inchangées sont reprises des agrégats de la route : un préfixe
+ * ou un suffixe en temps constant, une partie intermédiaire élément par
+ * élément.
+ *
+ * @see solver.RouteSecond
+ * @author LASTENNET Dorian
+ */
+final class RouteEdit {
+
+    private static final int INSERT = 0;
+    private static final int REPLACE = 1;
+    private static final int REMOVE = 2;
+
+    private final RouteSecond route;
+    private int[] positions = new int[4];
+    private int[] kinds = new int[4];
+    private int[] elements = new int[4];
+    private int editNumber;
+    private int end; //position à partir de laquelle la route d'origine est remplacée par la queue
+    private RouteSecond tail; //route dont le suffixe termine la route modifiée, null pour aucune
+    private int tailFrom;
+
+    RouteEdit(RouteSecond route) {
+        this.route = route;
+        this.end = route.size();
+    }
+
+    /**
+     * Insère un élément avant l'élément d'origine à la position donnée, ou en
+     * fin de route pour la taille de la route.
+     */
+    void insert(int position, int element) {
+        add(position, INSERT, element);
+    }
+
+    void replace(int position, int element) {
+        add(position, REPLACE, element);
+    }
+
+    void remove(int position) {
+        add(position, REMOVE, 0);
+    }
+
+    /**
+     * Remplace les éléments d'origine à partir de la position donnée par les
+     * éléments de l'autre route à partir de sa position from.
+     */
+    void replaceTail(int position, RouteSecond other, int from) {
+        end = position;
+        tail = other;
+        tailFrom = from;
+    }
+
+    private void add(int position, int kind, int element) {
+        if (editNumber == positions.length) {
+            positions = Arrays.copyOf(positions, 2 * editNumber);
+            kinds = Arrays.copyOf(kinds, 2 * editNumber);
+            elements = Arrays.copyOf(elements, 2 * editNumber);
+        }
+        positions[editNumber] = position;
+        kinds[editNumber] = kind;
+        elements[editNumber] = element;
+        editNumber++;
+    }
+
+    /**
+     * @return les indices des modifications triés par position, les
+     * insertions d'abord puis dans leur ordre d'ajout
+     */
+    private int[] sortedEdits() {
+        int[] order = new int[editNumber];
+        for (int e = 0; e < editNumber; e++) {
+            int k = e;
+            while (k > 0 && isBefore(e, order[k - 1])) {
+                order[k] = order[k - 1];
+                k--;
+            }
+            order[k] = e;
+        }
+        return order;
+    }
+
+    private boolean isBefore(int e, int f) {
+        return positions[e] < positions[f] || (positions[e] == positions[f] && kinds[e] == INSERT && kinds[f] != INSERT);
+    }
+
+    /**
+     * @return les agrégats de la route modifiée, null si elle est vide
+     */
+    RouteSegment evaluate(Solver solver) {
+        RouteSegment segment = null;
+        int cursor = 0;
+        for (int e : sortedEdits()) {
+            segment = append(solver, segment, cursor, positions[e]);
+            cursor = Math.max(cursor, positions[e]);
+            if (kinds[e] != REMOVE) {
+                segment = append(solver, segment, solver.getSecondEchelonSegment(elements[e]));
+            }
+            if (kinds[e] != INSERT) {
+                cursor = positions[e] + 1;
+            }
+        }
+        segment = append(solver, segment, cursor, end);
+        if (tail != null && tailFrom < tail.size()) {
+            segment = append(solver, segment, tail.getSuffix(tailFrom));
+        }
+        return segment;
+    }
+
+    /**
+     * Ajoute les éléments d'origine de from à to exclu.
+     */
+    private RouteSegment append(Solver solver, RouteSegment segment, int from, int to) {
+        if (from >= to) {
+            return segment;
+        }
+        if (from == 0 && segment == null) {
+            return route.getPrefix(to);
+        }
+        if (to == route.size()) {
+            return append(solver, segment, route.getSuffix(from));
+        }
+        PackedRouteSecond packedRoute = route.getRoute();
+        for (int k = from; k < to; k++) {
+            segment = append(solver, segment, solver.getSecondEchelonSegment(packedRoute.get(k)));
+        }
+        return segment;
+    }
+
+    private static RouteSegment append(Solver solver, RouteSegment segment, RouteSegment next) {
+        return segment == null ? next : solver.concatenate(segment, next);
+    }
+
+    /**
+     * @return la route modifiée construite en temps linéaire
+     */
+    PackedRouteSecond apply() {
+        PackedRouteSecond packedRoute = route.getRoute();
+        PackedRouteSecond editedRoute = new PackedRouteSecond(packedRoute.size() + editNumber);
+        int cursor = 0;
+        for (int e : sortedEdits()) {
+            for (int k = cursor; k < positions[e]; k++) {
+                editedRoute.add(packedRoute.get(k));
+            }
+            cursor = Math.max(cursor, positions[e]);
+            if (kinds[e] != REMOVE) {
+                editedRoute.add(elements[e]);
+            }
+            if (kinds[e] != INSERT) {
+                cursor = positions[e] + 1;
+            }
+        }
+        for (int k = cursor; k < end; k++) {
+            editedRoute.add(packedRoute.get(k));
+        }
+        if (tail != null) {
+            for (int k = tailFrom; k < tail.size(); k++) {
+                editedRoute.add(tail.getRoute().get(k));
+            }
+        }
+        return editedRoute;
+    }
+
+    RouteSecond getRoute() {
+        return route;
+    }
+}
@@ -0,0 +1,121 @@
+package solver;
+
+import model.PackedRouteFirst;
+
+import java.util.List;
+
+/**
+ * Route compacte du premier niveau accompagnée du résumé de ses charges. <br>
+ * Une route du premier niveau est une suite de tournées depuis un dépôt :
+ * les marchandises des satellites de la tournée sont chargées au dépôt puis
+ * livrées. La charge du véhicule est maximale à la fin de chaque chargement,
+ * la route respecte la capacité si la plus grande de ces charges la
+ * respecte. <br>
+ * Le résumé est calculé une fois en temps linéaire à la construction : la
+ * charge maximale d'une fusion s'en déduit en temps constant, sans construire
+ * la route fusionnée. La route compacte ne doit pas être modifiée, une route
+ * modifiée doit être encapsulée dans un nouvel objet.
+ *
+ * @see solver.ClarkeWrightFirst
+ * @see model.PackedRouteFirst
+ * @author LASTENNET Dorian
+ */
+public class RouteFirst {
+
+    private final PackedRouteFirst route;
+    private final int demand; //quantité totale livrée aux satellites
+    private final int peakLoad; //charge maximale du véhicule
+    private final int firstLoad; //charge emportée lors de la première tournée
+    private final int lastLoad; //charge emportée lors de la dernière tournée
+
+    /**
+     * @param route la route compacte
+     * @param solver le solveur contenant la demande des satellites
+     */
+    public RouteFirst(PackedRouteFirst route, Solver solver) {
+        this.route = route;
+        List<Integer> satellitesDemand = solver.getSolution().getSecondEchelonCapacity();
+        int totalDemand = 0;
+        int peak = 0;
+        int first = -1;
+        int load = 0;
+        int tourLoad = 0;
+        for (int k = 0; k < route.size(); k++) {
+            int satelliteDemand = satellitesDemand.get(route.siteAt(k));
+            if (route.isLoadAt(k)) {
+                //un chargement après une livraison commence une nouvelle tournée
+                if (k > 0 && !route.isLoadAt(k - 1)) {
+                    first = first < 0 ? tourLoad : first;
+                    tourLoad = 0;
+                }
+                load += satelliteDemand;
+                tourLoad += satelliteDemand;
+                totalDemand += satelliteDemand;
+                peak = Math.max(peak, load);
+            } else {
+                load -= satelliteDemand;
+            }
+        }
+        this.demand = totalDemand;
+        this.peakLoad = peak;
+        this.firstLoad = first < 0 ? tourLoad : first;
+        this.lastLoad = tourLoad;
+    }
+
+    /**
+     * Charge maximale de la fusion classique : les chargements de la première
+     * tournée de j rejoignent ceux de la dernière tournée de i.
+     *
+     * @param jRoute la route j fusionnée à la suite de cette route
+     * @return la charge maximale de la route fusionnée
+     */
+    public int getClassicMergePeakLoad(RouteFirst jRoute) {
+        return Math.max(Math.max(peakLoad, jRoute.peakLoad), lastLoad + jRoute.firstLoad);
+    }
+
+    /**
+     * Charge maximale de la fusion avec rechargement : le véhicule revient
+     * vide au dépôt de j.
+     *
+     * @param jRoute la route j fusionnée à la suite de cette route
+     * @return la charge maximale de la route fusionnée
+     */
+    public int getRefillMergePeakLoad(RouteFirst jRoute) {
+        return Math.max(peakLoad, jRoute.peakLoad);
+    }
+
+    //Accesseurs
+    public PackedRouteFirst getRoute() {
+        return route;
+    }
+
+    public int getDemand() {
+        return demand;
+    }
+
+    public int getPeakLoad() {
+        return peakLoad;
+    }
+
+    public int getFirstLoad() {
+        return firstLoad;
+    }
+
+    public int getLastLoad() {
+        return lastLoad;
+    }
+
+    public int size() {
+        return route.size();
+    }
+
+    /**
+     * Représentation de l'objet en texte.
+     *
+     * @return texte
+     */
+    @Override
+    public String toString() {
+        return route.toString();
+    }
+}
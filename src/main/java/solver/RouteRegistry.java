@@ -0,0 +1,127 @@
+package solver;
+
+import model.PackedRoute;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Registre des routes vivantes des heuristiques de Clarke &amp; Wright indexé
+ * par leurs extrémités. <br>
+ * Pendant la fusion des routes, l'affectation par laquelle commence une route
+ * et l'affectation du site livré en dernier n'appartiennent qu'à une seule
+ * route : chacune sert de clé pour retrouver, retirer ou élaguer une route en
+ * temps constant au lieu de parcourir la liste des routes. <br>
+ * L'ordre d'insertion est conservé, les routes sont restituées dans l'ordre
+ * qu'aurait la liste des routes.
+ *
+ * @param <R> le type des routes, accédées sous forme compacte
+ * @see solver.ClarkeWrightSecond
+ * @see solver.ClarkeWrightFirst
+ * @author LASTENNET Dorian
+ */
+public class RouteRegistry<R> {
+
+    private final Function<R, PackedRoute> packedRoute;
+    private final Map<Integer, R> routesByFirst; //première affectation -> route, dans l'ordre d'insertion
+    private final Map<Integer, R> routesByLast; //affectation du dernier site livré -> route
+
+    public RouteRegistry(Function<R, PackedRoute> packedRoute) {
+        this.packedRoute = packedRoute;
+        this.routesByFirst = new LinkedHashMap<>();
+        this.routesByLast = new HashMap<>();
+    }
+
+    public RouteRegistry(List<R> routes, Function<R, PackedRoute> packedRoute) {
+        this(packedRoute);
+        for (R route : routes) {
+            add(route);
+        }
+    }
+
+    /**
+     * Ajoute une route en fin de registre.
+     *
+     * @param route la route à ajouter
+     */
+    public void add(R route) {
+        PackedRoute packed = packedRoute.apply(route);
+        routesByFirst.put(packed.get(0), route);
+        routesByLast.put(lastKey(packed), route);
+    }
+
+    /**
+     * Retire une route du registre.
+     *
+     * @param route la route à retirer
+     */
+    public void remove(R route) {
+        PackedRoute packed = packedRoute.apply(route);
+        routesByFirst.remove(packed.get(0), route);
+        routesByLast.remove(lastKey(packed), route);
+    }
+
+    /**
+     * @param load l'affectation cherchée
+     * @return la route qui commence par l'affectation, null si aucune
+     */
+    public R findRouteFirst(int load) {
+        return routesByFirst.get(load);
+    }
+
+    /**
+     * @param load l'affectation cherchée
+     * @return la route dont le dernier site livré a cette affectation, null
+     * si aucune
+     */
+    public R findRouteLast(int load) {
+        return routesByLast.get(load);
+    }
+
+    /**
+     * Retire les routes commençant par l'affectation du site à une autre
+     * origine que celle donnée.
+     *
+     * @param site l'indice du site servi
+     * @param origin l'indice de l'origine à conserver
+     * @param originNumber le nombre d'origines de l'instance
+     */
+    public void removeOtherOrigins(int site, int origin, int originNumber) {
+        for (int o = 0; o < originNumber; o++) {
+            if (o != origin) {
+                R route = routesByFirst.get(PackedRoute.encodeLoad(site, o));
+                if (route != null) {
+                    remove(route);
+                }
+            }
+        }
+    }
+
+    /**
+     * @return les routes vivantes dans l'ordre d'insertion
+     */
+    public List<R> getRoutes() {
+        return new ArrayList<>(routesByFirst.values());
+    }
+
+    public int size() {
+        return routesByFirst.size();
+    }
+
+    /**
+     * @param packed une route compacte
+     * @return l'affectation du dernier site livré de la route
+     */
+    private static int lastKey(PackedRoute packed) {
+        int site = packed.siteAt(packed.size() - 1);
+        int index = packed.size() - 2;
+        while (index >= 0 && !(packed.isLoadAt(index) && packed.siteAt(index) == site)) {
+            index--;
+        }
+        return index < 0 ? packed.get(packed.size() - 1) : packed.get(index);
+    }
+}
@@ -0,0 +1,84 @@
+package solver;
+
+import model.PackedRouteSecond;
+
+/**
+ * Route compacte du second niveau accompagnée des agrégats de tous ses
+ * préfixes et suffixes. <br>
+ * Les agrégats sont calculés une fois en temps linéaire à la construction :
+ * la route obtenue en recollant des préfixes et suffixes de routes existantes
+ * est ensuite évaluée en temps constant, sans être construite. <br>
+ * La route compacte ne doit pas être modifiée, une route modifiée doit être
+ * encapsulée dans un nouvel objet.
+ *
+ * @see solver.RouteSegment
+ * @see model.PackedRouteSecond
+ * @author LASTENNET Dorian
+ */
+public class RouteSecond {
+
+    private final PackedRouteSecond route;
+    private final RouteSegment[] prefixes; //prefixes[k] agrège les éléments 0 à k
+    private final RouteSegment[] suffixes; //suffixes[k] agrège les éléments k à la fin
+
+    public RouteSecond(PackedRouteSecond route, Solver solver) {
+        this.route = route;
+        int size = route.size();
+        this.prefixes = new RouteSegment[size];
+        this.suffixes = new RouteSegment[size];
+        for (int k = 0; k < size; k++) {
+            RouteSegment element = solver.getSecondEchelonSegment(route.get(k));
+            prefixes[k] = k == 0 ? element : solver.concatenate(prefixes[k - 1], element);
+        }
+        for (int k = size - 1; k >= 0; k--) {
+            RouteSegment element = solver.getSecondEchelonSegment(route.get(k));
+            suffixes[k] = k == size - 1 ? element : solver.concatenate(element, suffixes[k + 1]);
+        }
+    }
+
+    /**
+     * @param length le nombre d'éléments du préfixe, au moins un
+     * @return les agrégats des length premiers éléments
+     */
+    public RouteSegment getPrefix(int length) {
+        return prefixes[length - 1];
+    }
+
+    /**
+     * @param from la position du premier élément du suffixe
+     * @return les agrégats des éléments de from à la fin de la route
+     */
+    public RouteSegment getSuffix(int from) {
+        return suffixes[from];
+    }
+
+    /**
+     * @return les agrégats de la route entière
+     */
+    public RouteSegment getSegment() {
+        return prefixes[prefixes.length - 1];
+    }
+
+    //Accesseurs
+    public PackedRouteSecond getRoute() {
+        return route;
+    }
+
+    public int size() {
+        return route.size();
+    }
+
+    public boolean isEmpty() {
+        return route.isEmpty();
+    }
+
+    /**
+     * Représentation de l'objet en texte.
+     *
+     * @return texte
+     */
+    @Override
+    public String toString() {
+        return route.toString();
+    }
+}
@@ -0,0 +1,115 @@
+package solver;
+
+/**
+ * Agrégats d'une sous-séquence d'une route du second niveau. <br>
+ * Une sous-séquence est résumée par ses éléments extrêmes, les grandeurs des
+ * opérateurs de concaténation des fenêtres de temps (date de début au plus
+ * tôt, date de début au plus tard, durée incompressible), sa variation et son
+ * pic de charge ainsi que ses coûts de trajet et de manutention. <br>
+ * La concaténation de deux sous-séquences se fait en temps constant, elle est
+ * réalisée par le solveur qui connaît les distances et les fenêtres de temps.
+ *
+ * @see solver.Solver#concatenate(RouteSegment, RouteSegment)
+ * @see solver.RouteSecond
+ * @author LASTENNET Dorian
+ */
+public final class RouteSegment {
+
+    private final int firstElement; //premier élément de la route compacte
+    private final int lastElement; //dernier élément de la route compacte
+    private final double earliestStart; //début au plus tôt, une arrivée plus tôt attend
+    private final double latestStart; //début au plus tard sans violer de fenêtre de temps
+    private final double duration; //durée sans attente de la sous-séquence
+    private final boolean timeWindowsRespected;
+    private final boolean exact; //faux si une jonction est trop serrée pour conclure sans vérification complète
+    private final int netLoad; //charge chargée moins charge livrée
+    private final int peakLoad; //charge maximale atteinte depuis le début de la sous-séquence
+    private final double travelCost; //dans l'unité de temps du solveur, mise à l'échelle en virgule fixe
+    private final double handlingCost;
+
+    RouteSegment(int firstElement, int lastElement, double earliestStart, double latestStart, double duration, boolean timeWindowsRespected, boolean exact, int netLoad, int peakLoad, double travelCost, double handlingCost) {
+        this.firstElement = firstElement;
+        this.lastElement = lastElement;
+        this.earliestStart = earliestStart;
+        this.latestStart = latestStart;
+        this.duration = duration;
+        this.timeWindowsRespected = timeWindowsRespected;
+        this.exact = exact;
+        this.netLoad = netLoad;
+        this.peakLoad = peakLoad;
+        this.travelCost = travelCost;
+        this.handlingCost = handlingCost;
+    }
+
+    /**
+     * Indique si les agrégats suffisent à décider des fenêtres de temps. <br>
+     * Ce n'est pas le cas sans temps d'attente, ni lorsqu'une jonction est à
+     * la limite de sa fenêtre : les arrondis des sommes calculées dans un
+     * autre ordre que la vérification complète pourraient alors en changer le
+     * résultat.
+     *
+     * @return vrai si {@link #isTimeWindowsRespected()} est le résultat de la
+     * vérification complète de la sous-séquence
+     */
+    public boolean isExact() {
+        return exact;
+    }
+
+    //Accesseurs
+    public int getFirstElement() {
+        return firstElement;
+    }
+
+    public int getLastElement() {
+        return lastElement;
+    }
+
+    public double getEarliestStart() {
+        return earliestStart;
+    }
+
+    public double getLatestStart() {
+        return latestStart;
+    }
+
+    public double getDuration() {
+        return duration;
+    }
+
+    public boolean isTimeWindowsRespected() {
+        return timeWindowsRespected;
+    }
+
+    public int getNetLoad() {
+        return netLoad;
+    }
+
+    public int getPeakLoad() {
+        return peakLoad;
+    }
+
+    public double getTravelCost() {
+        return travelCost;
+    }
+
+    public double getHandlingCost() {
+        return handlingCost;
+    }
+
+    /**
+     * Représentation de l'objet en texte.
+     *
+     * @return texte
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("Segment=[E=").append(earliestStart);
+        sb.append(", L=").append(latestStart);
+        sb.append(", D=").append(duration);
+        sb.append(", Fenêtres=").append(timeWindowsRespected);
+        sb.append(", Pic=").append(peakLoad);
+        sb.append("]");
+        return sb.toString();
+    }
+}
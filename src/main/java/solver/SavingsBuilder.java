@@ -0,0 +1,153 @@
+package solver;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * Génération des savings des heuristiques de Clarke &amp; Wright par blocs,
+ * éventuellement en parallèle. <br>
+ * Les savings sont générés pour chaque paire d'origines i et j puis pour
+ * chaque site k. L'espace (i, j, k) est découpé en blocs de sites consécutifs
+ * de charges équivalentes, chaque bloc remplit sa propre liste et les listes
+ * sont concaténées dans l'ordre des blocs : la liste obtenue est identique à
+ * celle de la génération séquentielle, quel que soit le nombre de cœurs.
+ *
+ * @see solver.SavingsList
+ * @author LASTENNET Dorian
+ */
+final class SavingsBuilder {
+
+    private static final int BLOCKS_PER_THREAD = 4; //blocs par fil d'exécution pour équilibrer la charge
+
+    /**
+     * Génération des savings d'une paire d'origines pour un bloc de sites.
+     */
+    interface BlockGenerator {
+
+        /**
+         * @param i l'indice de l'origine de la route i
+         * @param j l'indice de l'origine de la route j
+         * @param kStart le premier site k du bloc
+         * @param kEnd le site k suivant le dernier site du bloc
+         * @param savings la liste à remplir
+         */
+        void generate(int i, int j, int kStart, int kEnd, SavingsList savings);
+    }
+
+    private SavingsBuilder() {
+    }
+
+    /**
+     * Génère la liste des savings.
+     *
+     * @param originNumber le nombre d'origines
+     * @param siteNumber le nombre de sites
+     * @param siteWork la charge de génération de chaque site k, par exemple
+     * son nombre de partenaires
+     * @param expectedSize le nombre de savings attendu
+     * @param parameters les paramètres de l'heuristique
+     * @param generator la génération d'un bloc
+     * @return la liste des savings dans l'ordre de génération séquentiel
+     */
+    static SavingsList build(int originNumber, int siteNumber, IntUnaryOperator siteWork, long expectedSize, ClarkeWrightParameters parameters, BlockGenerator generator) {
+        int parallelism = parameters.getParallelism();
+        int maxSize = parameters.getMaxSavingsNumber();
+        if (parallelism <= 1) {
+            SavingsList savings = new SavingsList(expectedSize, maxSize);
+            for (int i = 0; i < originNumber; i++) {
+                for (int j = 0; j < originNumber; j++) {
+                    generator.generate(i, j, 0, siteNumber, savings);
+                }
+            }
+            return savings;
+        }
+        //découpage des sites en blocs de charges équivalentes
+        int pairNumber = originNumber * originNumber;
+        int blockNumber = Math.max(1, Math.min(siteNumber, (BLOCKS_PER_THREAD * parallelism + pairNumber - 1) / pairNumber));
+        int[] blockStarts = splitSites(siteNumber, siteWork, blockNumber);
+        int taskNumber = pairNumber * blockNumber;
+        long expectedTaskSize = expectedSize / taskNumber + 1;
+        SavingsList[] parts = new SavingsList[taskNumber];
+        ParallelTasks.run(parallelism, taskNumber, task -> {
+            int pair = task / blockNumber;
+            int block = task % blockNumber;
+            SavingsList part = new SavingsList(expectedTaskSize, maxSize);
+            generator.generate(pair / originNumber, pair % originNumber, blockStarts[block], blockStarts[block + 1], part);
+            parts[task] = part;
+        });
+        List<SavingsList> orderedParts = new ArrayList<>(taskNumber);
+        for (SavingsList part : parts) {
+            orderedParts.add(part);
+        }
+        return SavingsList.concatenate(orderedParts, maxSize);
+    }
+
+    /**
+     * Génère les savings par morceaux écrits sur disque en suites triées. <br>
+     * Un morceau est écrit dès qu'il atteint le nombre de savings gardés en
+     * mémoire, au plus les savings d'un site près. La génération reste
+     * séquentielle pour que les suites soient dans l'ordre de génération,
+     * seul le tri de chaque morceau utilise plusieurs cœurs.
+     *
+     * @param originNumber le nombre d'origines
+     * @param siteNumber le nombre de sites
+     * @param parameters les paramètres de l'heuristique
+     * @param generator la génération d'un bloc
+     * @return les savings écrits sur disque, à fermer après usage
+     */
+    static SpilledSavings spill(int originNumber, int siteNumber, ClarkeWrightParameters parameters, BlockGenerator generator) {
+        int chunkSize = parameters.getMaxSavingsInMemory();
+        SpilledSavings spilled = new SpilledSavings();
+        try {
+            SavingsList chunk = new SavingsList(chunkSize);
+            for (int i = 0; i < originNumber; i++) {
+                for (int j = 0; j < originNumber; j++) {
+                    for (int k = 0; k < siteNumber; k++) {
+                        generator.generate(i, j, k, k + 1, chunk);
+                        if (chunk.size() >= chunkSize) {
+                            spilled.addRun(chunk, parameters.getParallelism());
+                            chunk = new SavingsList(chunkSize);
+                        }
+                    }
+                }
+            }
+            spilled.addRun(chunk, parameters.getParallelism());
+        } catch (RuntimeException e) {
+            //l'erreur de génération ou d'écriture reste celle signalée
+            try {
+                spilled.close();
+            } catch (RuntimeException closeError) {
+                e.addSuppressed(closeError);
+            }
+            throw e;
+        }
+        return spilled;
+    }
+
+    /**
+     * Découpe les sites en blocs consécutifs de charges proches.
+     *
+     * @return les débuts des blocs suivis du nombre de sites
+     */
+    private static int[] splitSites(int siteNumber, IntUnaryOperator siteWork, int blockNumber) {
+        long totalWork = 0;
+        for (int k = 0; k < siteNumber; k++) {
+            totalWork += siteWork.applyAsInt(k) + 1;
+        }
+        int[] starts = new int[blockNumber + 1];
+        int block = 1;
+        long work = 0;
+        for (int k = 0; k < siteNumber && block < blockNumber; k++) {
+            work += siteWork.applyAsInt(k) + 1;
+            if (work * blockNumber >= totalWork * block) {
+                starts[block++] = k + 1;
+            }
+        }
+        //les blocs restants sont vides si la charge est concentrée sur les premiers sites
+        for (int b = block; b <= blockNumber; b++) {
+            starts[b] = siteNumber;
+        }
+        return starts;
+    }
+}
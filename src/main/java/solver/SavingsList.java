@@ -0,0 +1,499 @@
+package solver;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Liste de savings stockée dans des tableaux de types primitifs. <br>
+ * Un saving relie la route i, servie depuis l'origine i et terminant par le
+ * site i, à la route j, servie depuis l'origine j et commençant par le site j.
+ * Les quatre indices (ceux des listes de l'instance) sont regroupés dans un
+ * entier long et la valeur du saving est rangée dans un tableau parallèle :
+ * un saving occupe 16 octets et aucun objet n'est créé. <br>
+ * Pour le second niveau les origines sont les satellites et les sites les
+ * clients, pour le premier niveau les origines sont les dépôts et les sites
+ * les satellites. <br>
+ * Une liste bornée ne conserve que les meilleurs savings ajoutés, dans un tas
+ * dont la racine est le moins bon saving retenu ; à valeur égale le saving
+ * ajouté le premier est le meilleur, comme dans la liste triée.
+ *
+ * @see solver.ClarkeWrightSecond
+ * @see solver.ClarkeWrightFirst
+ * @author LASTENNET Dorian
+ */
+public final class SavingsList {
+
+    public static final int MAX_SITES = 1 << 20; //nombre maximal de sites
+    public static final int MAX_ORIGINS = 1 << 11; //nombre maximal d'origines
+    private static final int MAX_SIZE = Integer.MAX_VALUE - 8;
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final int PARALLEL_SORT_THRESHOLD = 1 << 16; //taille en deçà de laquelle le tri reste séquentiel
+    private static final int SITE_BITS = 20;
+    private static final int ORIGIN_BITS = 11;
+    private static final long SITE_MASK = MAX_SITES - 1;
+    private static final long ORIGIN_MASK = MAX_ORIGINS - 1;
+
+    private long[] keys; //origine i, origine j, site i et site j des savings
+    private double[] values;
+    private int size;
+    private final int maxSize; //nombre de savings conservés, 0 pour tous
+    private long[] additions; //rang d'ajout des savings du tas d'une liste bornée
+    private long addedNumber;
+    private boolean heapOrdered; //vrai tant que les savings d'une liste bornée sont rangés en tas
+
+    public SavingsList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param expectedSize le nombre de savings attendu, la liste s'agrandit
+     * au besoin
+     */
+    public SavingsList(long expectedSize) {
+        this(expectedSize, 0);
+    }
+
+    /**
+     * @param expectedSize le nombre de savings attendu, la liste s'agrandit
+     * au besoin
+     * @param maxSize le nombre maximal de savings conservés, 0 pour tous
+     */
+    public SavingsList(long expectedSize, int maxSize) {
+        if (maxSize < 0) {
+            throw new IllegalArgumentException("Nombre maximal de savings négatif : " + maxSize);
+        }
+        this.maxSize = maxSize;
+        long capacityLimit = maxSize > 0 ? maxSize : MAX_SIZE;
+        int capacity = (int) Math.max(1, Math.min(expectedSize, capacityLimit));
+        this.keys = new long[capacity];
+        this.values = new double[capacity];
+        this.size = 0;
+        this.additions = maxSize > 0 ? new long[capacity] : null;
+        this.addedNumber = 0;
+        this.heapOrdered = maxSize > 0;
+    }
+
+    /**
+     * Ajoute un saving en fin de liste. <br>
+     * Si la liste est bornée et pleine, le saving remplace le moins bon saving
+     * conservé s'il est meilleur, il est ignoré sinon. Les savings d'une liste
+     * bornée doivent tous être ajoutés avant d'être lus.
+     *
+     * @param iOrigin l'indice de l'origine de la route i
+     * @param jOrigin l'indice de l'origine de la route j
+     * @param iSite l'indice du dernier site de la route i
+     * @param jSite l'indice du premier site de la route j
+     * @param value la valeur du saving
+     */
+    public void add(int iOrigin, int jOrigin, int iSite, int jSite, double value) {
+        if (iOrigin < 0 || iOrigin >= MAX_ORIGINS || jOrigin < 0 || jOrigin >= MAX_ORIGINS || iSite < 0 || iSite >= MAX_SITES || jSite < 0 || jSite >= MAX_SITES) {
+            throw new IllegalArgumentException("Indice de site ou d'origine hors limites : " + iOrigin + ", " + jOrigin + ", " + iSite + ", " + jSite);
+        }
+        long key = ((long) iOrigin << (ORIGIN_BITS + 2 * SITE_BITS)) | ((long) jOrigin << (2 * SITE_BITS)) | ((long) iSite << SITE_BITS) | jSite;
+        if (maxSize > 0) {
+            offer(key, value);
+            return;
+        }
+        if (size == keys.length) {
+            grow();
+        }
+        keys[size] = key;
+        values[size] = value;
+        size++;
+    }
+
+    /**
+     * Ajout dans le tas d'une liste bornée.
+     */
+    private void offer(long key, double value) {
+        if (!heapOrdered) {
+            throw new IllegalStateException("Ajout dans une liste bornée déjà lue.");
+        }
+        long addition = addedNumber++;
+        if (size < maxSize) {
+            if (size == keys.length) {
+                grow();
+            }
+            int position = size++;
+            //remontée tant que le parent est meilleur
+            while (position > 0) {
+                int parent = (position - 1) / 2;
+                if (!isWorse(value, addition, values[parent], additions[parent])) {
+                    break;
+                }
+                setHeapElement(position, keys[parent], values[parent], additions[parent]);
+                position = parent;
+            }
+            setHeapElement(position, key, value, addition);
+        } else if (Double.compare(value, values[0]) > 0) {
+            //le saving ajouté en dernier n'est meilleur qu'à valeur strictement supérieure
+            int position = 0;
+            while (2 * position + 1 < size) {
+                int child = 2 * position + 1;
+                if (child + 1 < size && isWorse(values[child + 1], additions[child + 1], values[child], additions[child])) {
+                    child++;
+                }
+                if (!isWorse(values[child], additions[child], value, addition)) {
+                    break;
+                }
+                setHeapElement(position, keys[child], values[child], additions[child]);
+                position = child;
+            }
+            setHeapElement(position, key, value, addition);
+        }
+    }
+
+    private static boolean isWorse(double value, long addition, double otherValue, long otherAddition) {
+        int comparison = Double.compare(value, otherValue);
+        return comparison < 0 || (comparison == 0 && addition > otherAddition);
+    }
+
+    private void setHeapElement(int position, long key, double value, long addition) {
+        keys[position] = key;
+        values[position] = value;
+        additions[position] = addition;
+    }
+
+    /**
+     * Remet les savings d'une liste bornée dans leur ordre d'ajout avant leur
+     * première lecture.
+     */
+    private void leaveHeapOrder() {
+        if (heapOrdered) {
+            heapOrdered = false;
+            long[] sortKeys = Arrays.copyOf(additions, size);
+            long[] indexes = new long[size];
+            for (int i = 0; i < size; i++) {
+                indexes[i] = i;
+            }
+            radixSort(sortKeys, indexes);
+            int[] order = new int[size];
+            for (int i = 0; i < size; i++) {
+                order[i] = (int) indexes[i];
+            }
+            reorder(order);
+            additions = null;
+        }
+    }
+
+    /**
+     * @return le nombre de savings proposés à la liste, conservés ou non
+     */
+    public long getAddedNumber() {
+        return maxSize > 0 ? addedNumber : size;
+    }
+
+    //Accès aux savings
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getiOrigin(int index) {
+        return iOriginOf(key(index));
+    }
+
+    public int getjOrigin(int index) {
+        return jOriginOf(key(index));
+    }
+
+    public int getiSite(int index) {
+        return iSiteOf(key(index));
+    }
+
+    public int getjSite(int index) {
+        return jSiteOf(key(index));
+    }
+
+    public double getValue(int index) {
+        leaveHeapOrder();
+        checkIndex(index);
+        return values[index];
+    }
+
+    /**
+     * Trie les savings dans l'ordre décroissant de leur valeur. <br>
+     * Le tri est stable : à valeur égale les savings restent dans l'ordre
+     * d'ajout, comme avec {@code Collections.sort(savings, Collections.reverseOrder())}.
+     */
+    public void sortDescending() {
+        leaveHeapOrder();
+        long[] sortKeys = descendingSortKeys();
+        long[] sortedKeys = Arrays.copyOf(keys, size);
+        radixSort(sortKeys, sortedKeys);
+        keys = sortedKeys;
+        values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = valueOf(sortKeys[i]);
+        }
+    }
+
+    /**
+     * Trie les savings dans l'ordre décroissant de leur valeur sur plusieurs
+     * cœurs. <br>
+     * La liste est découpée en suites triées en parallèle puis fusionnées deux
+     * à deux ; les tris et les fusions sont stables, l'ordre obtenu est celui
+     * de {@link #sortDescending()}.
+     *
+     * @param parallelism le nombre de fils d'exécution
+     */
+    public void sortDescending(int parallelism) {
+        if (parallelism <= 1 || size < PARALLEL_SORT_THRESHOLD) {
+            sortDescending();
+            return;
+        }
+        leaveHeapOrder();
+        long[] sortKeys = descendingSortKeys();
+        long[] sortedKeys = Arrays.copyOf(keys, size);
+        //découpage en suites de tailles égales, triées indépendamment
+        int runNumber = Math.min(parallelism, size / (PARALLEL_SORT_THRESHOLD / 2));
+        int[] runStarts = new int[runNumber + 1];
+        for (int r = 0; r <= runNumber; r++) {
+            runStarts[r] = (int) ((long) size * r / runNumber);
+        }
+        ParallelTasks.run(parallelism, runNumber, r -> radixSort(sortKeys, sortedKeys, runStarts[r], runStarts[r + 1]));
+        //fusions deux à deux des suites voisines
+        long[] keySource = sortKeys;
+        long[] dataSource = sortedKeys;
+        long[] keyTarget = new long[size];
+        long[] dataTarget = new long[size];
+        for (int width = 1; width < runNumber; width *= 2) {
+            final int step = width;
+            final long[] mergeKeys = keySource;
+            final long[] mergeData = dataSource;
+            final long[] targetKeys = keyTarget;
+            final long[] targetData = dataTarget;
+            int mergeNumber = (runNumber + 2 * step - 1) / (2 * step);
+            ParallelTasks.run(parallelism, mergeNumber, m -> {
+                int from = runStarts[2 * step * m];
+                int middle = runStarts[Math.min(2 * step * m + step, runNumber)];
+                int to = runStarts[Math.min(2 * step * (m + 1), runNumber)];
+                merge(mergeKeys, mergeData, targetKeys, targetData, from, middle, to);
+            });
+            keyTarget = keySource;
+            dataTarget = dataSource;
+            keySource = targetKeys;
+            dataSource = targetData;
+        }
+        keys = dataSource;
+        values = new double[size];
+        for (int i = 0; i < size; i++) {
+            values[i] = valueOf(keySource[i]);
+        }
+    }
+
+    /**
+     * Concatène des listes de savings dans l'ordre donné.
+     *
+     * @param parts les listes à concaténer
+     * @param maxSize le nombre maximal de savings conservés, 0 pour tous
+     * @return la liste concaténée, qui ne conserve que les meilleurs savings
+     * si elle est bornée
+     */
+    public static SavingsList concatenate(List<SavingsList> parts, int maxSize) {
+        long totalSize = 0;
+        for (SavingsList part : parts) {
+            part.leaveHeapOrder();
+            totalSize += part.size;
+        }
+        SavingsList savings = new SavingsList(totalSize, maxSize);
+        for (SavingsList part : parts) {
+            if (maxSize > 0) {
+                for (int i = 0; i < part.size; i++) {
+                    savings.offer(part.keys[i], part.values[i]);
+                }
+            } else {
+                if (savings.size + part.size > savings.keys.length) {
+                    throw new IllegalStateException("Nombre de savings trop grand : " + totalSize);
+                }
+                System.arraycopy(part.keys, 0, savings.keys, savings.size, part.size);
+                System.arraycopy(part.values, 0, savings.values, savings.size, part.size);
+                savings.size += part.size;
+            }
+        }
+        return savings;
+    }
+
+    /**
+     * Calcule sans modifier la liste l'ordre obtenu par
+     * {@link #sortDescending()}.
+     *
+     * @return les indices des savings dans l'ordre décroissant
+     */
+    public int[] descendingOrder() {
+        leaveHeapOrder();
+        long[] sortKeys = descendingSortKeys();
+        long[] indexes = new long[size];
+        for (int i = 0; i < size; i++) {
+            indexes[i] = i;
+        }
+        radixSort(sortKeys, indexes);
+        int[] order = new int[size];
+        for (int i = 0; i < size; i++) {
+            order[i] = (int) indexes[i];
+        }
+        return order;
+    }
+
+    /**
+     * Réordonne les savings.
+     *
+     * @param order les indices des savings dans le nouvel ordre, une
+     * permutation des indices de la liste
+     */
+    public void reorder(int[] order) {
+        leaveHeapOrder();
+        if (order.length != size) {
+            throw new IllegalArgumentException("Ordre de taille " + order.length + " pour " + size + " savings.");
+        }
+        long[] orderedKeys = new long[size];
+        double[] orderedValues = new double[size];
+        for (int i = 0; i < size; i++) {
+            orderedKeys[i] = keys[order[i]];
+            orderedValues[i] = values[order[i]];
+        }
+        keys = orderedKeys;
+        values = orderedValues;
+    }
+
+    /**
+     * Clés de tri croissantes pour un ordre décroissant des valeurs : les bits
+     * de la valeur sont transformés pour que l'ordre des entiers non signés
+     * soit celui de {@link Double#compare(double, double)}, puis inversés.
+     */
+    private long[] descendingSortKeys() {
+        long[] sortKeys = new long[size];
+        for (int i = 0; i < size; i++) {
+            long bits = Double.doubleToLongBits(values[i]);
+            sortKeys[i] = ~(bits ^ ((bits >> 63) | Long.MIN_VALUE));
+        }
+        return sortKeys;
+    }
+
+    private static double valueOf(long sortKey) {
+        long ascendingKey = ~sortKey;
+        return Double.longBitsToDouble(ascendingKey < 0 ? ascendingKey ^ Long.MIN_VALUE : ~ascendingKey);
+    }
+
+    /**
+     * Tri par base stable, octet par octet, des clés non signées. Les données
+     * associées suivent leur clé ; les passes où toutes les clés ont le même
+     * octet sont sautées.
+     */
+    private static void radixSort(long[] sortKeys, long[] data) {
+        radixSort(sortKeys, data, 0, sortKeys.length);
+    }
+
+    /**
+     * Tri par base stable des clés d'indices from (inclus) à to (exclu).
+     */
+    private static void radixSort(long[] sortKeys, long[] data, int from, int to) {
+        int n = to - from;
+        long[] keyBuffer = new long[n];
+        long[] dataBuffer = new long[n];
+        long[] keySource = sortKeys;
+        long[] dataSource = data;
+        int sourceOffset = from;
+        int bufferOffset = 0;
+        int[] counts = new int[256];
+        for (int shift = 0; shift < 64; shift += 8) {
+            Arrays.fill(counts, 0);
+            for (int i = sourceOffset; i < sourceOffset + n; i++) {
+                counts[(int) (keySource[i] >>> shift) & 0xFF]++;
+            }
+            if (n == 0 || counts[(int) (keySource[sourceOffset] >>> shift) & 0xFF] == n) {
+                continue;
+            }
+            int position = bufferOffset;
+            for (int b = 0; b < 256; b++) {
+                int count = counts[b];
+                counts[b] = position;
+                position += count;
+            }
+            for (int i = sourceOffset; i < sourceOffset + n; i++) {
+                int target = counts[(int) (keySource[i] >>> shift) & 0xFF]++;
+                keyBuffer[target] = keySource[i];
+                dataBuffer[target] = dataSource[i];
+            }
+            long[] swap = keySource;
+            keySource = keyBuffer;
+            keyBuffer = swap;
+            swap = dataSource;
+            dataSource = dataBuffer;
+            dataBuffer = swap;
+            int swapOffset = sourceOffset;
+            sourceOffset = bufferOffset;
+            bufferOffset = swapOffset;
+        }
+        if (keySource != sortKeys) {
+            System.arraycopy(keySource, sourceOffset, sortKeys, from, n);
+            System.arraycopy(dataSource, sourceOffset, data, from, n);
+        }
+    }
+
+    /**
+     * Fusion stable de deux suites triées consécutives : à clé égale
+     * l'élément de la première suite passe en premier.
+     */
+    private static void merge(long[] sortKeys, long[] data, long[] keyTarget, long[] dataTarget, int from, int middle, int to) {
+        int left = from;
+        int right = middle;
+        for (int i = from; i < to; i++) {
+            if (right >= to || (left < middle && Long.compareUnsigned(sortKeys[left], sortKeys[right]) <= 0)) {
+                keyTarget[i] = sortKeys[left];
+                dataTarget[i] = data[left++];
+            } else {
+                keyTarget[i] = sortKeys[right];
+                dataTarget[i] = data[right++];
+            }
+        }
+    }
+
+    /**
+     * @param index l'indice du saving
+     * @return les indices regroupés du saving
+     */
+    long key(int index) {
+        leaveHeapOrder();
+        checkIndex(index);
+        return keys[index];
+    }
+
+    //Décodage des indices regroupés
+    static int iOriginOf(long key) {
+        return (int) ((key >>> (ORIGIN_BITS + 2 * SITE_BITS)) & ORIGIN_MASK);
+    }
+
+    static int jOriginOf(long key) {
+        return (int) ((key >>> (2 * SITE_BITS)) & ORIGIN_MASK);
+    }
+
+    static int iSiteOf(long key) {
+        return (int) ((key >>> SITE_BITS) & SITE_MASK);
+    }
+
+    static int jSiteOf(long key) {
+        return (int) (key & SITE_MASK);
+    }
+
+    private void grow() {
+        if (size == MAX_SIZE) {
+            throw new IllegalStateException("Nombre de savings trop grand : " + size);
+        }
+        int capacity = (int) Math.min((long) size + (size >> 1) + 1, maxSize > 0 ? maxSize : MAX_SIZE);
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        if (additions != null) {
+            additions = Arrays.copyOf(additions, capacity);
+        }
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Indice " + index + " hors de la liste de taille " + size);
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package solver;
+
+import model.Instance;
+import utils.ArtifactCache;
+
+import java.util.BitSet;
+
+/**
+ * Tri des listes de savings s'appuyant sur le cache disque. <br>
+ * La génération des savings est déterministe pour une instance et des
+ * paramètres donnés : seul l'ordre trié est conservé dans le cache, sous la
+ * forme des indices des savings dans l'ordre de génération. <br>
+ * L'empreinte de l'instance ne décrit pas le stockage des distances : les
+ * distances en virgule fixe donnant d'autres valeurs de savings, leur ordre
+ * est conservé sous une clé distincte.
+ *
+ * @see utils.ArtifactCache
+ * @author LASTENNET Dorian
+ */
+final class SavingsOrder {
+
+    private SavingsOrder() {
+    }
+
+    /**
+     * Trie une liste de savings dans l'ordre décroissant de leur valeur. <br>
+     * Le tri est stable comme celui des heuristiques sans cache, l'ordre
+     * obtenu est donc identique.
+     *
+     * @param savings les savings dans l'ordre de génération, triés en place
+     * @param instance l'instance du problème
+     * @param cache le cache des données précalculées
+     * @param key la clé de la liste et de ses paramètres
+     */
+    static void sortDescending(SavingsList savings, Instance instance, ArtifactCache cache, String key) {
+        String orderKey = instance.isFixedPoint() ? key + "-fixed" : key;
+        int[] order = cache.loadInts(instance.getFingerprint(), orderKey);
+        if (order == null || !isPermutation(order, savings.size())) {
+            order = savings.descendingOrder();
+            cache.storeInts(instance.getFingerprint(), orderKey, order);
+        }
+        savings.reorder(order);
+    }
+
+    /**
+     * Une entrée corrompue ou périmée ne doit pas dupliquer ou perdre de
+     * savings : chaque indice doit apparaître exactement une fois.
+     */
+    private static boolean isPermutation(int[] order, int size) {
+        if (order.length != size) {
+            return false;
+        }
+        BitSet seen = new BitSet(size);
+        for (int index : order) {
+            if (index < 0 || index >= size || seen.get(index)) {
+                return false;
+            }
+            seen.set(index);
+        }
+        return true;
+    }
+}
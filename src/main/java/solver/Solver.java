@@ -1,15 +1,21 @@
 package solver;
 
 import model.AssignmentSecond;
-import model.Customer;
-import model.Satellite;
 import model.Instance;
 import model.Solution;
+import model.RouteEvaluation;
+import model.Fleet;
+import model.SolutionReport;
+import model.SiteTable;
+import model.FixedPointDistanceMatrix;
+import model.PackedRoute;
+import model.PackedRouteFirst;
+import model.PackedRouteSecond;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Optional;
 import model.AssignmentFirst;
-import model.Depot;
 
 /**
  * Classe solveur chargé de gérer la résolution de l'instance lue.
@@ -21,17 +27,26 @@ public class Solver {
     private final Instance instance;
     private Solution solution;
     private boolean allowWaitingTime;
+    private boolean useTightenedTimeWindows; //vérification des fenêtres de temps sur les fenêtres resserrées de l'instance
+    private static final double SEGMENT_TOLERANCE = 1e-9; //écart relatif en deçà duquel les agrégats ne concluent pas
 
     public Solver(Instance instance, boolean allowWaitingTime) {
-        this.instance = instance;
-        this.solution = new Solution();
-        this.allowWaitingTime = allowWaitingTime;
+        this(instance, new Solution(), allowWaitingTime, false);
+    }
+
+    public Solver(Instance instance, boolean allowWaitingTime, boolean useTightenedTimeWindows) {
+        this(instance, new Solution(), allowWaitingTime, useTightenedTimeWindows);
     }
 
     public Solver(Instance instance, Solution solution, boolean allowWaitingTime) {
+        this(instance, solution, allowWaitingTime, false);
+    }
+
+    public Solver(Instance instance, Solution solution, boolean allowWaitingTime, boolean useTightenedTimeWindows) {
         this.instance = instance;
         this.solution = solution;
         this.allowWaitingTime = allowWaitingTime;
+        this.useTightenedTimeWindows = useTightenedTimeWindows;
     }
 
     /**
@@ -49,128 +64,258 @@ public class Solver {
      * @return la valeur de la fonction objectif pour la solution
      */
     public double evaluateSolution(Solution solution) {
-        return evaluateFirstEchelon(solution) + evaluateSecondEchelon(solution);
+        return getSolutionReport(solution).getObjective();
     }
 
     /**
-     * Fonction d'évaluation du premier niveau.
+     * Bilan de la solution : fonction objectif détaillée et violation de
+     * chaque contrainte. <br>
+     * Le bilan est conservé par la solution jusqu'à sa prochaine modification.
+     * Il est calculé à partir des évaluations des routes conservées par la
+     * solution : seules les routes modifiées depuis le dernier bilan sont
+     * réévaluées, chacune convertie une fois en route compacte.
+     *
+     * @param solution la solution à évaluer
+     * @return le bilan de la solution
+     */
+    public SolutionReport getSolutionReport(Solution solution) {
+        solution.useEvaluationOptions(allowWaitingTime, useTightenedTimeWindows);
+        SolutionReport report = solution.getReport();
+        if (report == null) {
+            report = computeSolutionReport(solution);
+            solution.setReport(report);
+        }
+        return report;
+    }
+
+    private SolutionReport computeSolutionReport(Solution solution) {
+        solution.synchronizeEvaluations();
+        //premier niveau : la charge des routes dépend de la demande des satellites, les coûts n'en dépendent pas
+        List<List<AssignmentFirst>> firstEchelonPermutations = solution.getFirstEchelonPermutations();
+        List<Integer> satellitesDemand = solution.getSecondEchelonCapacity();
+        boolean demandKnown = firstEchelonPermutations.isEmpty() || satellitesDemand.size() == instance.getSatellites().size();
+        List<RouteEvaluation> firstEchelonEvaluations = new ArrayList<>(firstEchelonPermutations.size());
+        int firstEchelonCapacity = instance.getFirstEchelonFleet().getVehiclesCapacity();
+        int firstEchelonCapacityExcess = 0;
+        for (int iRoute = 0; iRoute < firstEchelonPermutations.size(); iRoute++) {
+            RouteEvaluation evaluation = solution.getFirstEchelonEvaluation(iRoute);
+            if (evaluation == null) {
+                evaluation = evaluateFirstEchelonRoute(PackedRouteFirst.fromAssignments(firstEchelonPermutations.get(iRoute)), demandKnown ? satellitesDemand : null);
+                solution.setFirstEchelonEvaluation(iRoute, evaluation);
+            }
+            firstEchelonEvaluations.add(evaluation);
+            firstEchelonCapacityExcess += Math.max(evaluation.getPeakLoad() - firstEchelonCapacity, 0);
+        }
+        if (!demandKnown) {
+            firstEchelonCapacityExcess = SolutionReport.UNKNOWN_EXCESS;
+        }
+        //second niveau : la solution compte aussi les chargements distincts de ses routes
+        List<List<AssignmentSecond>> secondEchelonPermutations = solution.getSecondEchelonPermutations();
+        List<RouteEvaluation> secondEchelonEvaluations = new ArrayList<>(secondEchelonPermutations.size());
+        int secondEchelonCapacity = instance.getSecondEchelonFleet().getVehiclesCapacity();
+        int secondEchelonCapacityExcess = 0;
+        double timeWindowsViolation = 0.0;
+        for (int iRoute = 0; iRoute < secondEchelonPermutations.size(); iRoute++) {
+            RouteEvaluation evaluation = solution.getSecondEchelonEvaluation(iRoute);
+            if (evaluation == null) {
+                evaluation = evaluateSecondEchelonRoute(PackedRouteSecond.fromAssignments(secondEchelonPermutations.get(iRoute)));
+                solution.setSecondEchelonEvaluation(iRoute, evaluation);
+            }
+            secondEchelonEvaluations.add(evaluation);
+            secondEchelonCapacityExcess += Math.max(evaluation.getPeakLoad() - secondEchelonCapacity, 0);
+            timeWindowsViolation += evaluation.getTimeWindowsViolation();
+        }
+        Fleet firstEchelonFleet = instance.getFirstEchelonFleet();
+        Fleet secondEchelonFleet = instance.getSecondEchelonFleet();
+        return new SolutionReport(getTravelCost(firstEchelonEvaluations), getHandlingCost(firstEchelonEvaluations), (double) firstEchelonEvaluations.size() * firstEchelonFleet.getVehiclesCost(),
+                getTravelCost(secondEchelonEvaluations), getHandlingCost(secondEchelonEvaluations), (double) secondEchelonEvaluations.size() * secondEchelonFleet.getVehiclesCost(),
+                firstEchelonCapacityExcess, Math.max(firstEchelonEvaluations.size() - firstEchelonFleet.getVehiclesNumber(), 0), timeWindowsViolation,
+                secondEchelonCapacityExcess, Math.max(secondEchelonEvaluations.size() - secondEchelonFleet.getVehiclesNumber(), 0),
+                instance.getCustomers().size() - solution.getDistinctLoadNumber());
+    }
+
+    /**
+     * Somme les coûts de trajet des routes, en entiers puis convertis une
+     * seule fois en virgule fixe.
+     */
+    private double getTravelCost(List<RouteEvaluation> evaluations) {
+        if (instance.isFixedPoint()) {
+            long scaledTravelCostSum = 0;
+            for (RouteEvaluation evaluation : evaluations) {
+                scaledTravelCostSum += evaluation.getScaledTravelCost();
+            }
+            return (double) scaledTravelCostSum / FixedPointDistanceMatrix.SCALE;
+        }
+        double travelCostSum = 0.0;
+        for (RouteEvaluation evaluation : evaluations) {
+            travelCostSum += evaluation.getTravelCost();
+        }
+        return travelCostSum;
+    }
+
+    private static double getHandlingCost(List<RouteEvaluation> evaluations) {
+        double handlingCostSum = 0.0;
+        for (RouteEvaluation evaluation : evaluations) {
+            handlingCostSum += evaluation.getHandlingCost();
+        }
+        return handlingCostSum;
+    }
+
+    /**
+     * Fonction d'évaluation du premier niveau. <br>
+     * Seules les routes modifiées depuis la dernière évaluation de la solution
+     * sont recalculées.
      *
      * @param solution la solution à évaluer
      * @return la valeur de la fonction objectif pour le premier niveau de la
      * solution
      */
     public double evaluateFirstEchelon(Solution solution) {
-        double firstEchelonTravelCostSum = 0.0;
-        double firstEchelonHandlingCostSum = 0.0;
-
-        int firstEchelonVehicleCost = instance.getFirstEchelonFleet().getVehiclesCost();
-        double firstEchelonVehicleUsageCostSum = (double) solution.getFirstEchelonPermutations().size() * firstEchelonVehicleCost;
-
-        for (List<AssignmentFirst> route : solution.getFirstEchelonPermutations()) {
-            int routeSize = route.size();
-            for (int iAssignment = 0; iAssignment < routeSize; iAssignment++) {
-                //Assignation courante
-                Satellite currentSatellite = route.get(iAssignment).getSatellite();
-                Optional<Depot> currentDepot = route.get(iAssignment).getDepot();
-                //Permutation suivante
-                Satellite nextSatellite;
-                Optional<Depot> nextDepot;
-                //Si on atteint la fin de la route alors le véhicule doit retourner à son point d'origine
-                if (iAssignment == routeSize - 1) {
-                    nextSatellite = route.get(0).getSatellite();
-                    nextDepot = route.get(0).getDepot();
-                } else {
-                    nextSatellite = route.get(iAssignment + 1).getSatellite();
-                    nextDepot = route.get(iAssignment + 1).getDepot();
-                }
-                /**
-                 * Si aucun depot dans la route alors on viens d'un
-                 * satellite on calcule le cout de trajet du satellite dans la
-                 * route i au depot dans la route i ou au satellite
-                 * i+1 et le cout de déchargement du véhicule
-                 *
-                 */
-                if (currentDepot.isEmpty()) {
-                    firstEchelonTravelCostSum += nextDepot.isEmpty() ? instance.getDistance(currentSatellite, nextSatellite) : instance.getDistance(currentSatellite, nextDepot.get());
-                    firstEchelonHandlingCostSum += currentSatellite.getServiceTime();
-                } /**
-                 * Si il y a un depot dans la route il représente
-                 * l'affectation d'un satellite au depot on calcule le cout de
-                 * trajet du satellite dans la route i au depot dans la
-                 * route i ou au satellite i+1 et le cout de chargement du
-                 * véhicule
-                 *
-                 */
-                else {
-                    firstEchelonTravelCostSum += nextDepot.isEmpty() ? instance.getDistance(currentDepot.get(), nextSatellite) : instance.getDistance(currentDepot.get(), nextDepot.get());
-                    if(nextDepot.isEmpty()){firstEchelonHandlingCostSum += currentDepot.get().getServiceTime();}
-                    if(nextDepot.isPresent()){
-                        if(!currentDepot.get().equals(nextDepot.get())){firstEchelonHandlingCostSum += currentDepot.get().getServiceTime();}
-                    }
+        return getSolutionReport(solution).getFirstEchelonCost();
+    }
+
+    /**
+     * Fonction d'évaluation du premier niveau pour des routes compactes. <br>
+     * Les coûts sont cumulés dans le même ordre que pour les permutations de
+     * la solution, la valeur obtenue est donc identique.
+     *
+     * @param routes les routes du premier niveau
+     * @return la valeur de la fonction objectif pour le premier niveau
+     */
+    public double evaluateFirstEchelon(List<PackedRouteFirst> routes) {
+        List<RouteEvaluation> evaluations = new ArrayList<>(routes.size());
+        for (PackedRouteFirst route : routes) {
+            evaluations.add(evaluateFirstEchelonRoute(route, null));
+        }
+        return getTravelCost(evaluations) + getHandlingCost(evaluations) + (double) routes.size() * instance.getFirstEchelonFleet().getVehiclesCost();
+    }
+
+    /**
+     * Evaluation d'une route compacte du premier niveau : coûts de trajet et
+     * de manutention, retour au point d'origine compris, et charge maximale.
+     *
+     * @param route la route à évaluer
+     * @param satellitesDemand la demande des satellites, null pour ne pas
+     * calculer la charge
+     * @return l'évaluation de la route
+     */
+    private RouteEvaluation evaluateFirstEchelonRoute(PackedRouteFirst route, List<Integer> satellitesDemand) {
+        SiteTable sites = instance.getSiteTable();
+        //globalSiteID des satellites puis des dépôts à partir de leur indice
+        int satelliteOffset = instance.getCustomers().size();
+        int depotOffset = satelliteOffset + instance.getSatellites().size();
+        //en virgule fixe les trajets sont sommés en entiers puis convertis une seule fois
+        boolean fixedPoint = instance.isFixedPoint();
+        double travelCost = 0.0;
+        long scaledTravelCost = 0;
+        double handlingCost = 0.0;
+        int fleetLoad = 0;
+        int peakLoad = 0;
+        int routeSize = route.size();
+        for (int iAssignment = 0; iAssignment < routeSize; iAssignment++) {
+            int currentAssignment = route.get(iAssignment);
+            //Si on atteint la fin de la route alors le véhicule doit retourner à son point d'origine
+            int nextAssignment = route.get(iAssignment == routeSize - 1 ? 0 : iAssignment + 1);
+            //site atteint ensuite : le dépôt d'une affectation ou le satellite d'un séquencement
+            int nextSite = PackedRoute.isLoad(nextAssignment) ? depotOffset + PackedRoute.originOf(nextAssignment) : satelliteOffset + PackedRoute.siteOf(nextAssignment);
+            int currentSite = PackedRoute.isLoad(currentAssignment) ? depotOffset + PackedRoute.originOf(currentAssignment) : satelliteOffset + PackedRoute.siteOf(currentAssignment);
+            if (fixedPoint) {
+                scaledTravelCost += instance.getScaledDistance(currentSite, nextSite);
+            } else {
+                travelCost += instance.getDistance(currentSite, nextSite);
+            }
+            int satelliteDemand = satellitesDemand == null ? 0 : satellitesDemand.get(PackedRoute.siteOf(currentAssignment));
+            //chargement au dépôt si on le quitte, déchargement au satellite
+            if (PackedRoute.isLoad(currentAssignment)) {
+                if (nextSite != currentSite) {
+                    handlingCost += sites.getServiceTime(currentSite);
                 }
+                fleetLoad += satelliteDemand;
+            } else {
+                handlingCost += sites.getServiceTime(currentSite);
+                fleetLoad -= satelliteDemand;
             }
+            peakLoad = Math.max(peakLoad, fleetLoad);
         }
-        return firstEchelonTravelCostSum + firstEchelonHandlingCostSum + firstEchelonVehicleUsageCostSum;
+        return new RouteEvaluation(travelCost, scaledTravelCost, handlingCost, peakLoad, 0.0, new int[0]);
     }
 
     /**
-     * Fonction d'évaluation du second niveau.
+     * Fonction d'évaluation du second niveau. <br>
+     * Seules les routes modifiées depuis la dernière évaluation de la solution
+     * sont recalculées.
      *
      * @param solution la solution à évaluer
      * @return la valeur de la fonction objectif pour le second niveau de la solution
      */
     public double evaluateSecondEchelon(Solution solution) {
-        double secondEchelonTravelCostSum = 0.0;
-        double secondEchelonHandlingCostSum = 0.0;
-
-        int secondEchelonVehicleCost = instance.getSecondEchelonFleet().getVehiclesCost();
-        double secondEchelonVehicleUsageCostSum = (double) solution.getSecondEchelonPermutations().size() * secondEchelonVehicleCost;
-
-        for (List<AssignmentSecond> route : solution.getSecondEchelonPermutations()) {
-            int routeSize = route.size();
-            for (int iAssignment = 0; iAssignment < routeSize; iAssignment++) {
-                //Assignation courante
-                Customer currentCustomer = route.get(iAssignment).getCustomer();
-                Optional<Satellite> currentSatellite = route.get(iAssignment).getSatellite();
-                //Permutation suivante
-                Customer nextCustomer;
-                Optional<Satellite> nextSatellite;
-                //Si on atteint la fin de la route alors le véhicule doit retourner à son point d'origine
-                if (iAssignment == routeSize - 1) {
-                    nextCustomer = route.get(0).getCustomer();
-                    nextSatellite = route.get(0).getSatellite();
-                } else {
-                    nextCustomer = route.get(iAssignment + 1).getCustomer();
-                    nextSatellite = route.get(iAssignment + 1).getSatellite();
-                }
-                /**
-                 * Si aucun satellite dans la route alors on viens d'un
-                 * client on calcule le cout de trajet du client dans la
-                 * route i au satellite dans la route i ou au client
-                 * i+1 et le cout de déchargement du véhicule
-                 *
-                 */
-                if (currentSatellite.isEmpty()) {
-                    secondEchelonTravelCostSum += nextSatellite.isEmpty() ? instance.getDistance(currentCustomer, nextCustomer) : instance.getDistance(currentCustomer, nextSatellite.get());
-                    secondEchelonHandlingCostSum += currentCustomer.getServiceTime();
-                } /**
-                 * Si il y a un satellite dans la route il représente
-                 * l'affectation d'un client au satellite on calcule le cout de
-                 * trajet du client dans la route i au satellite dans la
-                 * route i ou au client i+1 et le cout de chargement du
-                 * véhicule
-                 *
-                 */
-                else {
-                    secondEchelonTravelCostSum += nextSatellite.isEmpty() ? instance.getDistance(currentSatellite.get(), nextCustomer) : instance.getDistance(currentSatellite.get(), nextSatellite.get());
-                    if(nextSatellite.isEmpty()){secondEchelonHandlingCostSum += currentSatellite.get().getServiceTime();}
-                    if(nextSatellite.isPresent()){
-                        if(!currentSatellite.get().equals(nextSatellite.get())){secondEchelonHandlingCostSum += currentSatellite.get().getServiceTime();}
-                    }
+        return getSolutionReport(solution).getSecondEchelonCost();
+    }
+
+    /**
+     * Fonction d'évaluation du second niveau pour des routes compactes. <br>
+     * Les coûts sont cumulés dans le même ordre que pour les permutations de
+     * la solution, la valeur obtenue est donc identique.
+     *
+     * @param routes les routes du second niveau
+     * @return la valeur de la fonction objectif pour le second niveau
+     */
+    public double evaluateSecondEchelon(List<PackedRouteSecond> routes) {
+        List<RouteEvaluation> evaluations = new ArrayList<>(routes.size());
+        for (PackedRouteSecond route : routes) {
+            evaluations.add(evaluateSecondEchelonRoute(route));
+        }
+        return getTravelCost(evaluations) + getHandlingCost(evaluations) + (double) routes.size() * instance.getSecondEchelonFleet().getVehiclesCost();
+    }
+
+    /**
+     * Evaluation d'une route compacte du second niveau : coûts de trajet et
+     * de manutention, retour au point d'origine compris, charge maximale,
+     * violation des fenêtres de temps et chargements.
+     *
+     * @param route la route à évaluer
+     * @return l'évaluation de la route
+     */
+    private RouteEvaluation evaluateSecondEchelonRoute(PackedRouteSecond route) {
+        SiteTable sites = instance.getSiteTable();
+        int customerNumber = instance.getCustomers().size();
+        //en virgule fixe les trajets sont sommés en entiers puis convertis une seule fois
+        boolean fixedPoint = instance.isFixedPoint();
+        double travelCost = 0.0;
+        long scaledTravelCost = 0;
+        double handlingCost = 0.0;
+        int fleetLoad = 0;
+        int peakLoad = 0;
+        int routeSize = route.size();
+        int[] loads = new int[routeSize];
+        int loadNumber = 0;
+        for (int iAssignment = 0; iAssignment < routeSize; iAssignment++) {
+            int currentAssignment = route.get(iAssignment);
+            //Si on atteint la fin de la route alors le véhicule doit retourner à son point d'origine
+            int nextAssignment = route.get(iAssignment == routeSize - 1 ? 0 : iAssignment + 1);
+            //site atteint ensuite : le satellite d'une affectation ou le client d'un séquencement
+            int nextSite = PackedRoute.isLoad(nextAssignment) ? customerNumber + PackedRoute.originOf(nextAssignment) : PackedRoute.siteOf(nextAssignment);
+            int currentSite = PackedRoute.isLoad(currentAssignment) ? customerNumber + PackedRoute.originOf(currentAssignment) : PackedRoute.siteOf(currentAssignment);
+            if (fixedPoint) {
+                scaledTravelCost += instance.getScaledDistance(currentSite, nextSite);
+            } else {
+                travelCost += instance.getDistance(currentSite, nextSite);
+            }
+            int customerDemand = sites.getDemandSize(PackedRoute.siteOf(currentAssignment));
+            //chargement au satellite si on le quitte, déchargement chez le client
+            if (PackedRoute.isLoad(currentAssignment)) {
+                if (nextSite != currentSite) {
+                    handlingCost += sites.getServiceTime(currentSite);
                 }
+                fleetLoad += customerDemand;
+                loads[loadNumber++] = currentAssignment;
+            } else {
+                handlingCost += sites.getServiceTime(currentSite);
+                fleetLoad -= customerDemand;
             }
+            peakLoad = Math.max(peakLoad, fleetLoad);
         }
-        return secondEchelonTravelCostSum + secondEchelonHandlingCostSum + secondEchelonVehicleUsageCostSum;
+        return new RouteEvaluation(travelCost, scaledTravelCost, handlingCost, peakLoad, getSecondEchelonTimeWindowsViolation(route, false), Arrays.copyOf(loads, loadNumber));
     }
 
     /**
@@ -180,11 +325,7 @@ public class Solver {
      * @return booléen indiquant la faisabilité de la solution
      */
     public boolean isSolutionDoable(Solution solution) {
-        return isFirstEchelonCapacitiesRespected(solution)
-                && isFirstEchelonVehiclesNumberRespected(solution)
-                && isSecondEchelonCapacitiesRespected(solution)
-                && isSecondEchelonTimeWindowsRespected(solution)
-                && isSecondEchelonVehiclesNumberRespected(solution);
+        return getSolutionReport(solution).isSolutionDoable();
     }
 
     /**
@@ -210,26 +351,38 @@ public class Solver {
      * @return booléen indiquant si la route est faisable
      */
     public boolean isFirstEchelonPermutationCapacitiesRespected(List<AssignmentFirst> route) {
+        return isFirstEchelonPermutationCapacitiesRespected(PackedRouteFirst.fromAssignments(route));
+    }
+
+    /**
+     * Fonction d'évaluation de la faisabilité des capacités d'une route
+     * compacte, sans allocation.
+     *
+     * @param route la route à évaluer
+     * @return booléen indiquant si la route est faisable
+     */
+    public boolean isFirstEchelonPermutationCapacitiesRespected(PackedRouteFirst route) {
+        List<Integer> satellitesDemand = solution.getSecondEchelonCapacity();
+        int vehiclesCapacity = instance.getFirstEchelonFleet().getVehiclesCapacity();
         boolean isDoable = true;
         int routeSize = route.size();
         int fleetLoad = 0;
         int iAssignment = 0;
         while (isDoable && iAssignment < routeSize) {
             //Permutation courante
-            Satellite satellite = route.get(iAssignment).getSatellite();
-            Optional<Depot> currentDepot = route.get(iAssignment).getDepot();
+            int currentAssignment = route.get(iAssignment);
+            int satellite = PackedRoute.siteOf(currentAssignment);
             //Il s'agit de l'affectation d'un satellite donc on charge le camion
-            if (currentDepot.isPresent()) {
-                fleetLoad += solution.getSecondEchelonCapacity().get(satellite.getSiteID()-1);
+            if (PackedRoute.isLoad(currentAssignment)) {
+                fleetLoad += satellitesDemand.get(satellite);
             } else {
-                fleetLoad -= solution.getSecondEchelonCapacity().get(satellite.getSiteID()-1);
+                fleetLoad -= satellitesDemand.get(satellite);
             }
-            isDoable = fleetLoad <= instance.getFirstEchelonFleet().getVehiclesCapacity();
+            isDoable = fleetLoad <= vehiclesCapacity;
             iAssignment++;
         }
         return isDoable;
     }
-    
 
     /**
      * Fonction d'évaluation du respect de la contrainte de nombre de véhicules pour le premier niveau.
@@ -281,22 +434,34 @@ public class Solver {
      * @return booléen indiquant si la route est faisable
      */
     public boolean isSecondEchelonPermutationCapacitiesRespected(List<AssignmentSecond> route) {
+        return isSecondEchelonPermutationCapacitiesRespected(PackedRouteSecond.fromAssignments(route));
+    }
+
+    /**
+     * Fonction d'évaluation de la faisabilité des capacités d'une route
+     * compacte, sans allocation.
+     *
+     * @param route la route à évaluer
+     * @return booléen indiquant si la route est faisable
+     */
+    public boolean isSecondEchelonPermutationCapacitiesRespected(PackedRouteSecond route) {
+        SiteTable sites = instance.getSiteTable();
+        int vehiclesCapacity = instance.getSecondEchelonFleet().getVehiclesCapacity();
         boolean isDoable = true;
         int routeSize = route.size();
         int fleetLoad = 0;
         int iAssignment = 0;
         while (isDoable && iAssignment < routeSize) {
-            //Permutation courante
-            Customer currentCustomer = route.get(iAssignment).getCustomer();
-            Optional<Satellite> currentSatellite = route.get(iAssignment).getSatellite();
+            //Permutation courante, l'indice d'un client est aussi son globalSiteID
+            int currentAssignment = route.get(iAssignment);
+            int currentCustomer = PackedRoute.siteOf(currentAssignment);
             //Il s'agit de l'affectation d'un client donc on charge le camion
-            if (currentSatellite.isPresent()) {
-                fleetLoad += currentCustomer.getDemandSize();
-                
+            if (PackedRoute.isLoad(currentAssignment)) {
+                fleetLoad += sites.getDemandSize(currentCustomer);
             } else {
-                fleetLoad -= currentCustomer.getDemandSize();
+                fleetLoad -= sites.getDemandSize(currentCustomer);
             }
-            isDoable = fleetLoad <= instance.getSecondEchelonFleet().getVehiclesCapacity();
+            isDoable = fleetLoad <= vehiclesCapacity;
             iAssignment++;
         }
         return isDoable;
@@ -326,60 +491,566 @@ public class Solver {
      * @return booléen indiquant si la route est faisable
      */
     public boolean isSecondEchelonPermutationTimeWindowsRespected(List<AssignmentSecond> route) {
+        return isSecondEchelonPermutationTimeWindowsRespected(PackedRouteSecond.fromAssignments(route));
+    }
+
+    /**
+     * Fonction d'évaluation de la faisabilité des fenêtres de temps d'une route
+     * compacte, sans allocation.
+     *
+     * @param route la route à évaluer
+     * @return booléen indiquant si la route est faisable
+     */
+    public boolean isSecondEchelonPermutationTimeWindowsRespected(PackedRouteSecond route) {
+        return getSecondEchelonTimeWindowsViolation(route, true) == 0.0;
+    }
+
+    /**
+     * Ampleur de la violation des fenêtres de temps d'une route compacte : la
+     * somme des retards chez les clients, plus la pénalité d'avance si
+     * l'attente est interdite. Elle est nulle si et seulement si la route est
+     * faisable.
+     *
+     * @param route la route à évaluer
+     * @param stopAtFirstViolation vrai pour s'arrêter à la première violation,
+     * la valeur est alors partielle
+     * @return l'ampleur de la violation
+     */
+    private double getSecondEchelonTimeWindowsViolation(PackedRouteSecond route, boolean stopAtFirstViolation) {
+        if (instance.isFixedPoint()) {
+            return (double) getSecondEchelonTimeWindowsViolationFixedPoint(route, stopAtFirstViolation) / FixedPointDistanceMatrix.SCALE;
+        }
+        SiteTable sites = getTimeWindowsTable();
+        //le globalSiteID d'un client est son indice, celui d'un satellite est décalé du nombre de clients
+        int customerNumber = instance.getCustomers().size();
         boolean isDoable = true;
         int routeSize = route.size();
         double currentTime = 0.0;
         double earlyPenalty = 0.0;
+        double lateness = 0.0;
         int iAssignment = 0;
-        while (isDoable && iAssignment < routeSize - 1) {
+        while ((isDoable || !stopAtFirstViolation) && iAssignment < routeSize - 1) {
             boolean isTimeWindowRespected = true;
             //Permutation courante
-            Customer currentCustomer = route.get(iAssignment).getCustomer();
-            Optional<Satellite> currentSatellite = route.get(iAssignment).getSatellite();
+            int currentAssignment = route.get(iAssignment);
+            int currentCustomer = PackedRoute.siteOf(currentAssignment);
             //Permutatiotn suivante
-            Customer nextCustomer = route.get(iAssignment + 1).getCustomer();
-            Optional<Satellite> nextSatellite = route.get(iAssignment + 1).getSatellite();
+            int nextAssignment = route.get(iAssignment + 1);
+            int nextCustomer = PackedRoute.siteOf(nextAssignment);
             //Si aucun satellite dans la route alors on viens d'un client
-            if (currentSatellite.isEmpty()) {
+            if (!PackedRoute.isLoad(currentAssignment)) {
                 //trajet client->client
-                if (nextSatellite.isEmpty()) {
+                if (!PackedRoute.isLoad(nextAssignment)) {
                     //arrivée au plus tôt du camion au client
-                    double startServiceTime = Math.max(nextCustomer.getTimeWindowStart(), currentTime + instance.getDistance(currentCustomer, nextCustomer));
+                    double startServiceTime = Math.max(sites.getTimeWindowStart(nextCustomer), currentTime + instance.getDistance(currentCustomer, nextCustomer));
                     //on ajoute une pénalité si le véhicule est en avance
-                    earlyPenalty += (startServiceTime == nextCustomer.getTimeWindowStart()) ? nextCustomer.getTimeWindowStart() - currentTime : 0.0;
-                    isTimeWindowRespected = startServiceTime <= nextCustomer.getTimeWindowEnd();
-                    currentTime = startServiceTime + nextCustomer.getServiceTime();
+                    earlyPenalty += (startServiceTime == sites.getTimeWindowStart(nextCustomer)) ? sites.getTimeWindowStart(nextCustomer) - currentTime : 0.0;
+                    isTimeWindowRespected = startServiceTime <= sites.getTimeWindowEnd(nextCustomer);
+                    lateness += Math.max(startServiceTime - sites.getTimeWindowEnd(nextCustomer), 0.0);
+                    currentTime = startServiceTime + sites.getServiceTime(nextCustomer);
                 } //trajet client->satellite
                 else {
-                    currentTime += instance.getDistance(currentCustomer, nextSatellite.get());
+                    currentTime += instance.getDistance(currentCustomer, customerNumber + PackedRoute.originOf(nextAssignment));
                 }
             }
             //Si satellite dans la route alors on viens d'un satellite
             else {
+                int currentSatelliteID = customerNumber + PackedRoute.originOf(currentAssignment);
                 //trajet satellite->client
-                if (nextSatellite.isEmpty()) {
+                if (!PackedRoute.isLoad(nextAssignment)) {
                     //On ajoute le temps de chargement de la marchandise satellite
-                    currentTime += currentSatellite.get().getServiceTime();
+                    currentTime += sites.getServiceTime(currentSatelliteID);
                     //arrivée au plus tôt du camion au client
-                    double startServiceTime = Math.max(nextCustomer.getTimeWindowStart(), currentTime + instance.getDistance(currentSatellite.get(), nextCustomer));
+                    double startServiceTime = Math.max(sites.getTimeWindowStart(nextCustomer), currentTime + instance.getDistance(currentSatelliteID, nextCustomer));
                     //on ajoute une pénalité si le véhicule est en avance et qu'on ne se trouve pas en début de tournée
-                    earlyPenalty += (startServiceTime == nextCustomer.getTimeWindowStart()) ? nextCustomer.getTimeWindowStart() - currentTime : 0.0;
+                    earlyPenalty += (startServiceTime == sites.getTimeWindowStart(nextCustomer)) ? sites.getTimeWindowStart(nextCustomer) - currentTime : 0.0;
                     //on vérifie la contrainte
-                    isTimeWindowRespected = startServiceTime <= nextCustomer.getTimeWindowEnd();
+                    isTimeWindowRespected = startServiceTime <= sites.getTimeWindowEnd(nextCustomer);
+                    lateness += Math.max(startServiceTime - sites.getTimeWindowEnd(nextCustomer), 0.0);
                     //date départ au plus tot
-                    currentTime = startServiceTime + nextCustomer.getServiceTime();
+                    currentTime = startServiceTime + sites.getServiceTime(nextCustomer);
                 } //trajet satellite->satellite
                 else {
+                    int nextSatelliteID = customerNumber + PackedRoute.originOf(nextAssignment);
                     //on ajoute la distance satellite depot et le cout de chargement
-                    currentTime += currentSatellite.get().equals(nextSatellite.get()) ? instance.getDistance(currentSatellite.get(), nextSatellite.get()) : instance.getDistance(currentSatellite.get(), nextSatellite.get()) + currentSatellite.get().getServiceTime();
+                    currentTime += currentSatelliteID == nextSatelliteID ? instance.getDistance(currentSatelliteID, nextSatelliteID) : instance.getDistance(currentSatelliteID, nextSatelliteID) + sites.getServiceTime(currentSatelliteID);
                 }
             }
             //vérification sans temps d'attente entre clients
             if(!allowWaitingTime){isTimeWindowRespected = isTimeWindowRespected && earlyPenalty==0.0;}
-            isDoable = isTimeWindowRespected;
+            isDoable = isDoable && isTimeWindowRespected;
             iAssignment++;
         }
-        return isDoable;
+        return allowWaitingTime ? lateness : lateness + earlyPenalty;
+    }
+
+    /**
+     * @return la table des sites dont les fenêtres de temps sont utilisées pour
+     * la vérification, resserrées ou d'origine
+     */
+    private SiteTable getTimeWindowsTable() {
+        return useTightenedTimeWindows ? instance.getTightenedSiteTable() : instance.getSiteTable();
+    }
+
+    /**
+     * Ampleur de la violation des fenêtres de temps d'une route en
+     * arithmétique entière, pour les instances en virgule fixe. <br>
+     * Toutes les dates sont multipliées par le facteur d'échelle des distances,
+     * les comparaisons sont donc exactes.
+     *
+     * @param route la route à évaluer
+     * @param stopAtFirstViolation vrai pour s'arrêter à la première violation
+     * @return l'ampleur de la violation, multipliée par le facteur d'échelle
+     */
+    private long getSecondEchelonTimeWindowsViolationFixedPoint(PackedRouteSecond route, boolean stopAtFirstViolation) {
+        SiteTable sites = getTimeWindowsTable();
+        final long scale = FixedPointDistanceMatrix.SCALE;
+        int customerNumber = instance.getCustomers().size();
+        boolean isDoable = true;
+        int routeSize = route.size();
+        long currentTime = 0;
+        long earlyPenalty = 0;
+        long lateness = 0;
+        int iAssignment = 0;
+        while ((isDoable || !stopAtFirstViolation) && iAssignment < routeSize - 1) {
+            boolean isTimeWindowRespected = true;
+            //Permutation courante
+            int currentAssignment = route.get(iAssignment);
+            int currentCustomer = PackedRoute.siteOf(currentAssignment);
+            //Permutatiotn suivante
+            int nextAssignment = route.get(iAssignment + 1);
+            int nextCustomer = PackedRoute.siteOf(nextAssignment);
+            long nextTimeWindowStart = scale * sites.getTimeWindowStart(nextCustomer);
+            long nextTimeWindowEnd = scale * sites.getTimeWindowEnd(nextCustomer);
+            //Si aucun satellite dans la route alors on viens d'un client
+            if (!PackedRoute.isLoad(currentAssignment)) {
+                //trajet client->client
+                if (!PackedRoute.isLoad(nextAssignment)) {
+                    long startServiceTime = Math.max(nextTimeWindowStart, currentTime + instance.getScaledDistance(currentCustomer, nextCustomer));
+                    earlyPenalty += (startServiceTime == nextTimeWindowStart) ? nextTimeWindowStart - currentTime : 0;
+                    isTimeWindowRespected = startServiceTime <= nextTimeWindowEnd;
+                    lateness += Math.max(startServiceTime - nextTimeWindowEnd, 0);
+                    currentTime = startServiceTime + scale * sites.getServiceTime(nextCustomer);
+                } //trajet client->satellite
+                else {
+                    currentTime += instance.getScaledDistance(currentCustomer, customerNumber + PackedRoute.originOf(nextAssignment));
+                }
+            }
+            //Si satellite dans la route alors on viens d'un satellite
+            else {
+                int currentSatelliteID = customerNumber + PackedRoute.originOf(currentAssignment);
+                //trajet satellite->client
+                if (!PackedRoute.isLoad(nextAssignment)) {
+                    currentTime += scale * sites.getServiceTime(currentSatelliteID);
+                    long startServiceTime = Math.max(nextTimeWindowStart, currentTime + instance.getScaledDistance(currentSatelliteID, nextCustomer));
+                    earlyPenalty += (startServiceTime == nextTimeWindowStart) ? nextTimeWindowStart - currentTime : 0;
+                    isTimeWindowRespected = startServiceTime <= nextTimeWindowEnd;
+                    lateness += Math.max(startServiceTime - nextTimeWindowEnd, 0);
+                    currentTime = startServiceTime + scale * sites.getServiceTime(nextCustomer);
+                } //trajet satellite->satellite
+                else {
+                    int nextSatelliteID = customerNumber + PackedRoute.originOf(nextAssignment);
+                    currentTime += instance.getScaledDistance(currentSatelliteID, nextSatelliteID);
+                    if (currentSatelliteID != nextSatelliteID) {
+                        currentTime += scale * sites.getServiceTime(currentSatelliteID);
+                    }
+                }
+            }
+            //vérification sans temps d'attente entre clients
+            if(!allowWaitingTime){isTimeWindowRespected = isTimeWindowRespected && earlyPenalty==0;}
+            isDoable = isDoable && isTimeWindowRespected;
+            iAssignment++;
+        }
+        return allowWaitingTime ? lateness : lateness + earlyPenalty;
+    }
+
+    /**
+     * Agrégats d'un élément seul d'une route compacte du second niveau. <br>
+     * Une affectation n'a pas de fenêtre de temps et charge le client, une
+     * livraison a la fenêtre et le temps de service du client et le
+     * décharge. Le temps de chargement au satellite est compté sur la jonction
+     * suivante, comme dans la vérification complète.
+     *
+     * @param element l'élément de la route compacte
+     * @return les agrégats de l'élément
+     */
+    public RouteSegment getSecondEchelonSegment(int element) {
+        SiteTable sites = getTimeWindowsTable();
+        double scale = instance.isFixedPoint() ? FixedPointDistanceMatrix.SCALE : 1.0;
+        int customer = PackedRoute.siteOf(element);
+        int demand = sites.getDemandSize(customer);
+        if (PackedRoute.isLoad(element)) {
+            return new RouteSegment(element, element, 0.0, Double.POSITIVE_INFINITY, 0.0, true, allowWaitingTime, demand, demand, 0.0, 0.0);
+        }
+        return new RouteSegment(element, element, scale * sites.getTimeWindowStart(customer), scale * sites.getTimeWindowEnd(customer),
+                scale * sites.getServiceTime(customer), true, allowWaitingTime, -demand, -demand, 0.0, sites.getServiceTime(customer));
+    }
+
+    /**
+     * Concatène en temps constant deux sous-séquences de routes du second
+     * niveau. <br>
+     * La seconde sous-séquence peut commencer si le véhicule y arrive avant
+     * sa date de début au plus tard en partant au plus tôt de la première ;
+     * une arrivée avant sa date de début au plus tôt est une attente. Ces
+     * opérateurs ne décrivent que le cas où l'attente est autorisée, sinon le
+     * résultat n'est pas exact.
+     *
+     * @param first la première sous-séquence
+     * @param second la sous-séquence qui la suit directement
+     * @return les agrégats de la concaténation
+     */
+    public RouteSegment concatenate(RouteSegment first, RouteSegment second) {
+        SiteTable sites = getTimeWindowsTable();
+        boolean fixedPoint = instance.isFixedPoint();
+        double scale = fixedPoint ? FixedPointDistanceMatrix.SCALE : 1.0;
+        int customerNumber = instance.getCustomers().size();
+        int from = first.getLastElement();
+        int to = second.getFirstElement();
+        //site atteint : le satellite d'une affectation ou le client d'une livraison
+        int toSite = PackedRoute.isLoad(to) ? customerNumber + PackedRoute.originOf(to) : PackedRoute.siteOf(to);
+        int fromSite = PackedRoute.isLoad(from) ? customerNumber + PackedRoute.originOf(from) : PackedRoute.siteOf(from);
+        double travel = fixedPoint ? instance.getScaledDistance(fromSite, toSite) : instance.getDistance(fromSite, toSite);
+        //chargement au satellite si on le quitte
+        double handling = PackedRoute.isLoad(from) && fromSite != toSite ? sites.getServiceTime(fromSite) : 0.0;
+        double junction = travel + scale * handling;
+
+        double arrival = first.getEarliestStart() + first.getDuration() + junction;
+        boolean timeWindowsRespected = first.isTimeWindowsRespected() && second.isTimeWindowsRespected() && arrival <= second.getLatestStart();
+        boolean exact = first.isExact() && second.isExact() && (fixedPoint || Math.abs(second.getLatestStart() - arrival) > SEGMENT_TOLERANCE * Math.max(1.0, Math.abs(arrival)));
+        double waitingTime = Math.max(second.getEarliestStart() - first.getDuration() - junction - first.getLatestStart(), 0.0);
+        double duration = first.getDuration() + junction + second.getDuration() + waitingTime;
+        double earliestStart = Math.max(second.getEarliestStart() - first.getDuration() - junction, first.getEarliestStart()) - waitingTime;
+        double latestStart = Math.min(second.getLatestStart() - first.getDuration() - junction, first.getLatestStart());
+        int netLoad = first.getNetLoad() + second.getNetLoad();
+        int peakLoad = Math.max(first.getPeakLoad(), first.getNetLoad() + second.getPeakLoad());
+        return new RouteSegment(first.getFirstElement(), second.getLastElement(), earliestStart, latestStart, duration, timeWindowsRespected, exact,
+                netLoad, peakLoad, first.getTravelCost() + travel + second.getTravelCost(), first.getHandlingCost() + handling + second.getHandlingCost());
+    }
+
+    /**
+     * Fonction d'évaluation de la faisabilité des capacités d'une route
+     * décrite par ses agrégats.
+     *
+     * @param segment les agrégats de la route
+     * @return booléen indiquant si la route est faisable
+     */
+    public boolean isSecondEchelonSegmentCapacitiesRespected(RouteSegment segment) {
+        return segment.getPeakLoad() <= instance.getSecondEchelonFleet().getVehiclesCapacity();
+    }
+
+    /**
+     * Coût de trajet et de manutention d'une route décrite par ses agrégats,
+     * retour au satellite de départ compris et hors coût du véhicule.
+     *
+     * @param segment les agrégats de la route
+     * @return le coût de la route
+     */
+    public double evaluateSecondEchelonSegment(RouteSegment segment) {
+        RouteSegment closedRoute = concatenate(segment, getSecondEchelonSegment(segment.getFirstElement()));
+        //le premier élément compté deux fois n'ajoute rien : une affectation n'a pas de coût propre
+        double travelCost = closedRoute.getTravelCost();
+        double handlingCost = closedRoute.getHandlingCost();
+        if (!PackedRoute.isLoad(segment.getFirstElement())) {
+            handlingCost -= instance.getSiteTable().getServiceTime(PackedRoute.siteOf(segment.getFirstElement()));
+        }
+        if (instance.isFixedPoint()) {
+            travelCost /= FixedPointDistanceMatrix.SCALE;
+        }
+        return travelCost + handlingCost;
+    }
+
+    /**
+     * Variation de la fonction objectif et faisabilité du déplacement d'un
+     * client, sans l'appliquer. <br>
+     * La livraison du client est insérée avant la position donnée, parmi les
+     * livraisons d'une tournée, et son chargement s'ajoute à la fin des
+     * chargements de cette tournée, au satellite de son dernier chargement.
+     * Les deux routes peuvent être identiques. <br>
+     * Les routes sont évaluées sur leurs agrégats, en temps linéaire sur la
+     * partie comprise entre les positions modifiées.
+     *
+     * @param from la route contenant le client
+     * @param delivery la position de la livraison du client
+     * @param to la route recevant le client
+     * @param position la position d'insertion de la livraison dans la route
+     * d'origine, au plus la taille de la route
+     * @return la variation et la faisabilité
+     */
+    public MoveDelta evaluateRelocate(RouteSecond from, int delivery, RouteSecond to, int position) {
+        checkDelivery(from, delivery);
+        checkDeliveryPosition(to, position);
+        PackedRouteSecond packedRoute = from.getRoute();
+        int customer = packedRoute.getCustomer(delivery);
+        RouteEdit fromEdit = new RouteEdit(from);
+        RouteEdit toEdit = from == to ? fromEdit : new RouteEdit(to);
+        fromEdit.remove(getLoadIndex(packedRoute, delivery));
+        fromEdit.remove(delivery);
+        int loadEnd = getLoadEnd(to.getRoute(), position);
+        toEdit.insert(loadEnd, PackedRoute.encodeLoad(customer, to.getRoute().getSatellite(loadEnd - 1)));
+        toEdit.insert(position, PackedRoute.encodeDelivery(customer));
+        return from == to ? evaluateEdits(fromEdit) : evaluateEdits(fromEdit, toEdit);
+    }
+
+    /**
+     * Variation de la fonction objectif et faisabilité de l'échange de deux
+     * clients, sans l'appliquer. <br>
+     * Chaque client prend la livraison et le chargement de l'autre, au
+     * satellite de ce chargement. Les deux routes peuvent être identiques.
+     *
+     * @param first la route du premier client
+     * @param firstDelivery la position de la livraison du premier client
+     * @param second la route du second client
+     * @param secondDelivery la position de la livraison du second client
+     * @return la variation et la faisabilité
+     */
+    public MoveDelta evaluateSwap(RouteSecond first, int firstDelivery, RouteSecond second, int secondDelivery) {
+        checkDelivery(first, firstDelivery);
+        checkDelivery(second, secondDelivery);
+        PackedRouteSecond firstRoute = first.getRoute();
+        PackedRouteSecond secondRoute = second.getRoute();
+        int firstCustomer = firstRoute.getCustomer(firstDelivery);
+        int secondCustomer = secondRoute.getCustomer(secondDelivery);
+        int firstLoad = getLoadIndex(firstRoute, firstDelivery);
+        int secondLoad = getLoadIndex(secondRoute, secondDelivery);
+        RouteEdit firstEdit = new RouteEdit(first);
+        RouteEdit secondEdit = first == second ? firstEdit : new RouteEdit(second);
+        firstEdit.replace(firstLoad, PackedRoute.encodeLoad(secondCustomer, firstRoute.getSatellite(firstLoad)));
+        firstEdit.replace(firstDelivery, PackedRoute.encodeDelivery(secondCustomer));
+        secondEdit.replace(secondLoad, PackedRoute.encodeLoad(firstCustomer, secondRoute.getSatellite(secondLoad)));
+        secondEdit.replace(secondDelivery, PackedRoute.encodeDelivery(firstCustomer));
+        return first == second ? evaluateEdits(firstEdit) : evaluateEdits(firstEdit, secondEdit);
+    }
+
+    /**
+     * Variation de la fonction objectif et faisabilité de l'inversion d'une
+     * suite de livraisons d'une tournée (2-opt), sans l'appliquer. <br>
+     * Les chargements de la tournée sont inchangés.
+     *
+     * @param route la route considérée
+     * @param from la position de la première livraison inversée
+     * @param to la position de la dernière livraison inversée, dans la même
+     * tournée
+     * @return la variation et la faisabilité
+     */
+    public MoveDelta evaluateTwoOpt(RouteSecond route, int from, int to) {
+        checkDelivery(route, from);
+        if (to < from || to >= getTourEnd(route.getRoute(), from)) {
+            throw new IllegalArgumentException("Livraisons hors de la tournée : " + from + " à " + to);
+        }
+        RouteEdit edit = new RouteEdit(route);
+        for (int k = from; k <= to; k++) {
+            edit.replace(k, route.getRoute().get(from + to - k));
+        }
+        return evaluateEdits(edit);
+    }
+
+    /**
+     * Variation de la fonction objectif et faisabilité de l'échange des fins
+     * de deux routes (2-opt*), sans l'appliquer. <br>
+     * Chaque route garde ses livraisons jusqu'à la coupure puis reprend
+     * celles de l'autre route. Les clients livrés après la coupure dans la
+     * tournée coupée changent de tournée : leur chargement rejoint ceux de la
+     * tournée qui les reçoit, au satellite de son dernier chargement.
+     *
+     * @param first la première route
+     * @param firstCut la position de coupure de la première route, parmi les
+     * livraisons d'une tournée ou à sa fin
+     * @param second la seconde route, distincte de la première
+     * @param secondCut la position de coupure de la seconde route
+     * @return la variation et la faisabilité
+     */
+    public MoveDelta evaluateTwoOptStar(RouteSecond first, int firstCut, RouteSecond second, int secondCut) {
+        checkDistinctRoutes(first, second);
+        checkDeliveryPosition(first, firstCut);
+        checkDeliveryPosition(second, secondCut);
+        RouteEdit firstEdit = new RouteEdit(first);
+        RouteEdit secondEdit = new RouteEdit(second);
+        exchangeTourCustomers(firstEdit, firstCut, getTourEnd(first.getRoute(), firstCut), second.getRoute(), secondCut, getTourEnd(second.getRoute(), secondCut));
+        exchangeTourCustomers(secondEdit, secondCut, getTourEnd(second.getRoute(), secondCut), first.getRoute(), firstCut, getTourEnd(first.getRoute(), firstCut));
+        firstEdit.replaceTail(firstCut, second, secondCut);
+        secondEdit.replaceTail(secondCut, first, firstCut);
+        return evaluateEdits(firstEdit, secondEdit);
+    }
+
+    /**
+     * Variation de la fonction objectif et faisabilité de l'échange de deux
+     * suites de livraisons entre deux routes (cross-exchange), sans
+     * l'appliquer. <br>
+     * Chaque suite prend la place de l'autre, dans son ordre ; le chargement
+     * des clients déplacés rejoint ceux de la tournée qui les reçoit, au
+     * satellite de son dernier chargement. Une suite vide déplace l'autre
+     * suite sans contrepartie.
+     *
+     * @param first la première route
+     * @param firstFrom la position de la première livraison de la première
+     * suite
+     * @param firstTo la position suivant la dernière livraison de la première
+     * suite, dans la même tournée
+     * @param second la seconde route, distincte de la première
+     * @param secondFrom la position de la première livraison de la seconde
+     * suite
+     * @param secondTo la position suivant la dernière livraison de la seconde
+     * suite, dans la même tournée
+     * @return la variation et la faisabilité
+     */
+    public MoveDelta evaluateCrossExchange(RouteSecond first, int firstFrom, int firstTo, RouteSecond second, int secondFrom, int secondTo) {
+        checkDistinctRoutes(first, second);
+        checkDeliverySequence(first, firstFrom, firstTo);
+        checkDeliverySequence(second, secondFrom, secondTo);
+        RouteEdit firstEdit = new RouteEdit(first);
+        RouteEdit secondEdit = new RouteEdit(second);
+        exchangeTourCustomers(firstEdit, firstFrom, firstTo, second.getRoute(), secondFrom, secondTo);
+        exchangeTourCustomers(secondEdit, secondFrom, secondTo, first.getRoute(), firstFrom, firstTo);
+        for (int k = firstFrom; k < firstTo; k++) {
+            firstEdit.remove(k);
+        }
+        for (int k = secondFrom; k < secondTo; k++) {
+            secondEdit.remove(k);
+        }
+        for (int k = secondFrom; k < secondTo; k++) {
+            firstEdit.insert(firstFrom, second.getRoute().get(k));
+        }
+        for (int k = firstFrom; k < firstTo; k++) {
+            secondEdit.insert(secondFrom, first.getRoute().get(k));
+        }
+        return evaluateEdits(firstEdit, secondEdit);
+    }
+
+    /**
+     * Variation de la fonction objectif et faisabilité du changement du
+     * satellite où est chargé un client, sans l'appliquer. <br>
+     * Le chargement garde sa position dans la tournée. La demande des
+     * satellites servis par le premier niveau change : sa faisabilité n'est
+     * pas vérifiée ici.
+     *
+     * @param route la route contenant le client
+     * @param delivery la position de la livraison du client
+     * @param satellite l'indice du nouveau satellite
+     * @return la variation et la faisabilité
+     */
+    public MoveDelta evaluateSatelliteChange(RouteSecond route, int delivery, int satellite) {
+        checkDelivery(route, delivery);
+        if (satellite < 0 || satellite >= instance.getSatellites().size()) {
+            throw new IllegalArgumentException("Satellite invalide : " + satellite);
+        }
+        RouteEdit edit = new RouteEdit(route);
+        edit.replace(getLoadIndex(route.getRoute(), delivery), PackedRoute.encodeLoad(route.getRoute().getCustomer(delivery), satellite));
+        return evaluateEdits(edit);
+    }
+
+    /**
+     * Retire de la tournée les chargements des clients livrés de from à to
+     * exclu et y ajoute, au satellite de son dernier chargement, ceux des
+     * clients de l'autre route livrés de otherFrom à otherTo exclu.
+     */
+    private void exchangeTourCustomers(RouteEdit edit, int from, int to, PackedRouteSecond other, int otherFrom, int otherTo) {
+        PackedRouteSecond route = edit.getRoute().getRoute();
+        int loadEnd = getLoadEnd(route, from);
+        int[] leaving = new int[to - from];
+        for (int k = from; k < to; k++) {
+            leaving[k - from] = route.getCustomer(k);
+        }
+        Arrays.sort(leaving);
+        int loadStart = loadEnd;
+        while (loadStart > 0 && route.isLoadAt(loadStart - 1)) {
+            loadStart--;
+        }
+        for (int k = loadStart; k < loadEnd; k++) {
+            if (Arrays.binarySearch(leaving, route.getCustomer(k)) >= 0) {
+                edit.remove(k);
+            }
+        }
+        int satellite = route.getSatellite(loadEnd - 1);
+        for (int k = otherFrom; k < otherTo; k++) {
+            edit.insert(loadEnd, PackedRoute.encodeLoad(other.getCustomer(k), satellite));
+        }
+    }
+
+    /**
+     * Somme les variations des routes modifiées ; une route vidée libère son
+     * véhicule. Une route dont les agrégats ne concluent pas sur les fenêtres
+     * de temps est construite et vérifiée entièrement.
+     */
+    private MoveDelta evaluateEdits(RouteEdit... edits) {
+        int vehicleCost = instance.getSecondEchelonFleet().getVehiclesCost();
+        double costDelta = 0.0;
+        boolean feasible = true;
+        for (RouteEdit edit : edits) {
+            costDelta -= evaluateSecondEchelonSegment(edit.getRoute().getSegment()) + vehicleCost;
+            RouteSegment segment = edit.evaluate(this);
+            if (segment != null) {
+                costDelta += evaluateSecondEchelonSegment(segment) + vehicleCost;
+                feasible = feasible && isSecondEchelonSegmentCapacitiesRespected(segment)
+                        && (segment.isExact() ? segment.isTimeWindowsRespected() : isSecondEchelonPermutationTimeWindowsRespected(edit.apply()));
+            }
+        }
+        return new MoveDelta(costDelta, feasible);
+    }
+
+    /**
+     * @return la position du chargement du client livré à la position donnée
+     */
+    private static int getLoadIndex(PackedRouteSecond route, int delivery) {
+        int customer = route.getCustomer(delivery);
+        int k = delivery - 1;
+        while (!route.isLoadAt(k) || route.getCustomer(k) != customer) {
+            k--;
+        }
+        return k;
+    }
+
+    /**
+     * @return la position suivant le dernier chargement de la tournée dont
+     * les livraisons contiennent la position donnée
+     */
+    private static int getLoadEnd(PackedRouteSecond route, int position) {
+        int k = position;
+        while (!route.isLoadAt(k - 1)) {
+            k--;
+        }
+        return k;
+    }
+
+    /**
+     * @return la position suivant la dernière livraison de la tournée dont
+     * les livraisons contiennent la position donnée
+     */
+    private static int getTourEnd(PackedRouteSecond route, int position) {
+        int k = position;
+        while (k < route.size() && !route.isLoadAt(k)) {
+            k++;
+        }
+        return k;
+    }
+
+    private static void checkDelivery(RouteSecond route, int delivery) {
+        if (delivery < 0 || delivery >= route.size() || route.getRoute().isLoadAt(delivery)) {
+            throw new IllegalArgumentException("Position de livraison invalide : " + delivery);
+        }
+    }
+
+    /**
+     * Une position d'insertion se trouve parmi les livraisons d'une tournée
+     * ou à sa fin, pas entre deux chargements.
+     */
+    private static void checkDeliveryPosition(RouteSecond route, int position) {
+        PackedRouteSecond packedRoute = route.getRoute();
+        if (position <= 0 || position > route.size() || (position < route.size() && packedRoute.isLoadAt(position) && packedRoute.isLoadAt(position - 1))) {
+            throw new IllegalArgumentException("Position d'insertion invalide : " + position);
+        }
+    }
+
+    private static void checkDeliverySequence(RouteSecond route, int from, int to) {
+        checkDeliveryPosition(route, from);
+        if (to < from || to > getTourEnd(route.getRoute(), from)) {
+            throw new IllegalArgumentException("Livraisons hors de la tournée : " + from + " à " + to);
+        }
+    }
+
+    private static void checkDistinctRoutes(RouteSecond first, RouteSecond second) {
+        if (first == second) {
+            throw new IllegalArgumentException("Le mouvement porte sur deux routes distinctes");
+        }
     }
 
     /**
@@ -402,6 +1073,14 @@ public class Solver {
         return solution;
     }
 
+    public boolean isWaitingTimeAllowed() {
+        return allowWaitingTime;
+    }
+
+    public boolean isUsingTightenedTimeWindows() {
+        return useTightenedTimeWindows;
+    }
+
     public void setSolution(Solution solution) {
         this.solution = solution;
     }
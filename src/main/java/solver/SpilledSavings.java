@@ -0,0 +1,294 @@
+package solver;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Savings écrits sur disque en suites triées, pour les instances dont la
+ * liste des savings ne tient pas en mémoire. <br>
+ * Les savings sont générés par morceaux, chaque morceau est trié dans l'ordre
+ * décroissant puis écrit dans un fichier temporaire. Les suites sont relues
+ * ensemble par une fusion à k voies : à valeur égale la suite écrite la
+ * première passe en premier, les savings sont donc parcourus dans l'ordre de
+ * {@link SavingsList#sortDescending()} appliqué à la liste entière, sans que
+ * celle-ci soit jamais construite. <br>
+ * Un saving occupe 16 octets sur disque ; la fermeture supprime les fichiers.
+ *
+ * @see solver.SavingsList
+ * @author LASTENNET Dorian
+ */
+public final class SpilledSavings implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 1 << 16; //taille des tampons de lecture et d'écriture d'une suite
+
+    private final Path directory;
+    private final List<Path> runs;
+    private final List<Long> runSizes;
+    private long size;
+
+    /**
+     * Crée un répertoire temporaire pour les suites.
+     */
+    public SpilledSavings() {
+        try {
+            this.directory = Files.createTempDirectory("savings");
+        } catch (IOException e) {
+            throw new IllegalStateException("Impossible de créer le répertoire des savings : " + e.getMessage(), e);
+        }
+        this.runs = new ArrayList<>();
+        this.runSizes = new ArrayList<>();
+        this.size = 0;
+    }
+
+    /**
+     * Trie un morceau de savings dans l'ordre décroissant et l'écrit en fin
+     * des suites. Le morceau est ensuite libre d'être abandonné.
+     *
+     * @param savings les savings du morceau, dans leur ordre de génération
+     * @param parallelism le nombre de fils d'exécution du tri
+     */
+    public void addRun(SavingsList savings, int parallelism) {
+        if (savings.isEmpty()) {
+            return;
+        }
+        savings.sortDescending(parallelism);
+        Path run = directory.resolve("run" + runs.size() + ".bin");
+        try ( DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(run), BUFFER_SIZE))) {
+            for (int i = 0; i < savings.size(); i++) {
+                out.writeLong(savings.key(i));
+                out.writeDouble(savings.getValue(i));
+            }
+        } catch (IOException e) {
+            //la suite incomplète n'est pas enregistrée, elle est supprimée tout de suite
+            IllegalStateException failure = new IllegalStateException("Erreur d'écriture des savings : " + e.getMessage(), e);
+            try {
+                Files.deleteIfExists(run);
+            } catch (IOException deleteError) {
+                failure.addSuppressed(deleteError);
+            }
+            throw failure;
+        }
+        runs.add(run);
+        runSizes.add((long) savings.size());
+        size += savings.size();
+    }
+
+    /**
+     * Ouvre un parcours des savings dans l'ordre décroissant.
+     *
+     * @return le parcours, à fermer après usage
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Supprime les fichiers du répertoire temporaire puis le répertoire. <br>
+     * Tous les fichiers sont parcourus, y compris une suite dont l'écriture
+     * aurait échoué, et la suppression continue après une erreur.
+     */
+    @Override
+    public void close() {
+        IllegalStateException failure = null;
+        try ( DirectoryStream<Path> files = Files.newDirectoryStream(directory)) {
+            for (Path file : files) {
+                try {
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    failure = addFailure(failure, e);
+                }
+            }
+        } catch (IOException e) {
+            failure = addFailure(failure, e);
+        }
+        try {
+            Files.deleteIfExists(directory);
+        } catch (IOException e) {
+            failure = addFailure(failure, e);
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private static IllegalStateException addFailure(IllegalStateException failure, IOException e) {
+        if (failure == null) {
+            return new IllegalStateException("Erreur de suppression des savings : " + e.getMessage(), e);
+        }
+        failure.addSuppressed(e);
+        return failure;
+    }
+
+    //Accesseurs
+    public long size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getRunNumber() {
+        return runs.size();
+    }
+
+    /**
+     * Parcours des savings par fusion à k voies des suites. <br>
+     * Les suites sont rangées dans un tas selon leur saving courant, seul un
+     * tampon par suite est gardé en mémoire.
+     */
+    public final class Cursor implements AutoCloseable {
+
+        private final DataInputStream[] inputs;
+        private final long[] remaining; //savings non lus de chaque suite
+        private final long[] keys; //saving courant de chaque suite
+        private final double[] values;
+        private final int[] heap; //suites non épuisées, la meilleure à la racine
+        private int heapSize;
+        private long key;
+        private double value;
+
+        private Cursor() {
+            int runNumber = runs.size();
+            this.inputs = new DataInputStream[runNumber];
+            this.remaining = new long[runNumber];
+            this.keys = new long[runNumber];
+            this.values = new double[runNumber];
+            this.heap = new int[runNumber];
+            this.heapSize = 0;
+            try {
+                for (int r = 0; r < runNumber; r++) {
+                    inputs[r] = new DataInputStream(new BufferedInputStream(Files.newInputStream(runs.get(r)), BUFFER_SIZE));
+                    remaining[r] = runSizes.get(r);
+                    if (read(r)) {
+                        push(r);
+                    }
+                }
+            } catch (IOException e) {
+                close();
+                throw new IllegalStateException("Erreur de lecture des savings : " + e.getMessage(), e);
+            }
+        }
+
+        /**
+         * Passe au saving suivant.
+         *
+         * @return faux si tous les savings ont été parcourus
+         */
+        public boolean next() {
+            if (heapSize == 0) {
+                return false;
+            }
+            int run = heap[0];
+            key = keys[run];
+            value = values[run];
+            try {
+                if (read(run)) {
+                    siftDown(0);
+                } else {
+                    heap[0] = heap[--heapSize];
+                    siftDown(0);
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Erreur de lecture des savings : " + e.getMessage(), e);
+            }
+            return true;
+        }
+
+        /**
+         * Lit le saving suivant d'une suite.
+         *
+         * @return faux si la suite est épuisée
+         */
+        private boolean read(int run) throws IOException {
+            if (remaining[run] == 0) {
+                return false;
+            }
+            remaining[run]--;
+            keys[run] = inputs[run].readLong();
+            values[run] = inputs[run].readDouble();
+            return true;
+        }
+
+        /**
+         * A valeur égale la suite écrite la première est la meilleure.
+         */
+        private boolean isBetter(int run, int otherRun) {
+            int comparison = Double.compare(values[run], values[otherRun]);
+            return comparison > 0 || (comparison == 0 && run < otherRun);
+        }
+
+        private void push(int run) {
+            int position = heapSize++;
+            while (position > 0 && isBetter(run, heap[(position - 1) / 2])) {
+                heap[position] = heap[(position - 1) / 2];
+                position = (position - 1) / 2;
+            }
+            heap[position] = run;
+        }
+
+        private void siftDown(int position) {
+            if (heapSize == 0) {
+                return;
+            }
+            int run = heap[position];
+            while (2 * position + 1 < heapSize) {
+                int child = 2 * position + 1;
+                if (child + 1 < heapSize && isBetter(heap[child + 1], heap[child])) {
+                    child++;
+                }
+                if (!isBetter(heap[child], run)) {
+                    break;
+                }
+                heap[position] = heap[child];
+                position = child;
+            }
+            heap[position] = run;
+        }
+
+        //Accès au saving courant
+        public int getiOrigin() {
+            return SavingsList.iOriginOf(key);
+        }
+
+        public int getjOrigin() {
+            return SavingsList.jOriginOf(key);
+        }
+
+        public int getiSite() {
+            return SavingsList.iSiteOf(key);
+        }
+
+        public int getjSite() {
+            return SavingsList.jSiteOf(key);
+        }
+
+        public double getValue() {
+            return value;
+        }
+
+        /**
+         * Ferme les fichiers des suites.
+         */
+        @Override
+        public void close() {
+            for (DataInputStream input : inputs) {
+                if (input != null) {
+                    try {
+                        input.close();
+                    } catch (IOException e) {
+                        //la lecture est terminée, l'erreur de fermeture est sans conséquence
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,380 @@
+package utils;
+
+import model.BufferDistanceMatrix;
+import model.DistanceMatrix;
+import model.Instance;
+import model.Neighbourhood;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Cache disque des données précalculées d'une instance. <br>
+ * Chaque entrée est un fichier binaire (petit-boutiste) nommé d'après
+ * l'empreinte de l'instance et une clé décrivant la donnée et ses paramètres
+ * (matrice de distance, ordre des savings, listes de voisinage...). <br>
+ * L'empreinte est recopiée dans l'en-tête du fichier et vérifiée à la lecture :
+ * une entrée dont l'empreinte ne correspond pas est ignorée. <br>
+ * La taille totale du répertoire est bornée, les entrées les moins récemment
+ * utilisées sont supprimées en premier. <br>
+ * Le cache ne fait qu'accélérer les exécutions répétées : une entrée absente,
+ * illisible ou impossible à écrire n'empêche pas la résolution.
+ *
+ * @see model.Instance#getFingerprint()
+ * @author LASTENNET Dorian
+ */
+public class ArtifactCache {
+
+    public static final String DEFAULT_DIRECTORY = "cache";
+    public static final long DEFAULT_MAX_SIZE = 512L * 1024 * 1024; //512 Mo
+    private static final String EXTENSION = ".cache";
+    private static final int MAGIC = 0x32454341; //"2ECA"
+    private static final int VERSION = 1;
+    private static final int KIND_DOUBLES = 1;
+    private static final int KIND_INTS = 2;
+    private static final int KIND_INT_ROWS = 3;
+    private static final int FINGERPRINT_BYTES = 64; //empreinte SHA-256 en hexadécimal
+    private static final int HEADER_BYTES = 3 * Integer.BYTES + FINGERPRINT_BYTES + 2 * Integer.BYTES; //multiple de 8 pour aligner les doubles
+
+    private final Path directory;
+    private final long maxSize;
+
+    public ArtifactCache() {
+        this(DEFAULT_DIRECTORY, DEFAULT_MAX_SIZE);
+    }
+
+    public ArtifactCache(String directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    public ArtifactCache(String directory, long maxSize) {
+        this.directory = Paths.get(directory);
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Charge la matrice de distance complète d'une instance. <br>
+     * Le fichier est projeté en mémoire, la matrice n'est pas copiée sur le tas.
+     *
+     * @param fingerprint l'empreinte de l'instance
+     * @param siteNumber le nombre de sites de l'instance
+     * @return la matrice de distance, null si elle n'est pas dans le cache
+     */
+    public DistanceMatrix loadDistanceMatrix(String fingerprint, int siteNumber) {
+        ByteBuffer content = load(fingerprint, "distances", KIND_DOUBLES);
+        if (content == null || content.remaining() != (long) Double.BYTES * siteNumber * siteNumber) {
+            return null;
+        }
+        return new BufferDistanceMatrix(siteNumber, content.asDoubleBuffer());
+    }
+
+    /**
+     * Enregistre la matrice de distance d'une instance. <br>
+     * Les lignes sont écrites une à une, la matrice n'est pas copiée sur le
+     * tas. Une matrice dépassant la taille maximale du cache n'est pas
+     * enregistrée.
+     *
+     * @param instance l'instance dont on enregistre la matrice
+     */
+    public void storeDistanceMatrix(Instance instance) {
+        int siteNumber = instance.getSiteNumber();
+        long contentBytes = (long) Double.BYTES * siteNumber * siteNumber;
+        store(instance.getFingerprint(), "distances", KIND_DOUBLES, contentBytes / Double.BYTES, contentBytes, channel -> {
+            ByteBuffer row = allocate(Double.BYTES * siteNumber);
+            for (int i = 0; i < siteNumber; i++) {
+                row.clear();
+                for (int j = 0; j < siteNumber; j++) {
+                    row.putDouble(instance.getDistance(i, j));
+                }
+                row.flip();
+                write(channel, row);
+            }
+        });
+    }
+
+    /**
+     * Charge un tableau d'entiers, par exemple l'ordre trié d'une liste de
+     * savings.
+     *
+     * @param fingerprint l'empreinte de l'instance
+     * @param key la clé de la donnée et de ses paramètres
+     * @return le tableau, null s'il n'est pas dans le cache
+     */
+    public int[] loadInts(String fingerprint, String key) {
+        ByteBuffer content = load(fingerprint, key, KIND_INTS);
+        if (content == null) {
+            return null;
+        }
+        int[] values = new int[content.remaining() / Integer.BYTES];
+        content.asIntBuffer().get(values);
+        return values;
+    }
+
+    /**
+     * Enregistre un tableau d'entiers.
+     *
+     * @param fingerprint l'empreinte de l'instance
+     * @param key la clé de la donnée et de ses paramètres
+     * @param values le tableau à enregistrer
+     */
+    public void storeInts(String fingerprint, String key, int[] values) {
+        ByteBuffer content = allocate(Integer.BYTES * values.length);
+        content.asIntBuffer().put(values);
+        store(fingerprint, key, KIND_INTS, values.length, content);
+    }
+
+    /**
+     * Charge un tableau de lignes d'entiers de longueurs variables.
+     *
+     * @param fingerprint l'empreinte de l'instance
+     * @param key la clé de la donnée et de ses paramètres
+     * @return les lignes, null si elles ne sont pas dans le cache
+     */
+    public int[][] loadIntRows(String fingerprint, String key) {
+        ByteBuffer content = load(fingerprint, key, KIND_INT_ROWS);
+        if (content == null) {
+            return null;
+        }
+        IntBuffer ints = content.asIntBuffer();
+        int rowNumber = ints.get();
+        if (rowNumber < 0 || rowNumber > ints.remaining()) {
+            return null;
+        }
+        int[][] rows = new int[rowNumber][];
+        for (int r = 0; r < rowNumber; r++) {
+            rows[r] = new int[ints.get(1 + r)];
+        }
+        ints.position(1 + rowNumber);
+        for (int[] row : rows) {
+            if (row.length > ints.remaining()) {
+                return null;
+            }
+            ints.get(row);
+        }
+        return rows;
+    }
+
+    /**
+     * Enregistre un tableau de lignes d'entiers de longueurs variables : le
+     * nombre de lignes, la longueur de chaque ligne puis leurs valeurs.
+     *
+     * @param fingerprint l'empreinte de l'instance
+     * @param key la clé de la donnée et de ses paramètres
+     * @param rows les lignes à enregistrer
+     */
+    public void storeIntRows(String fingerprint, String key, int[][] rows) {
+        int size = 1 + rows.length;
+        for (int[] row : rows) {
+            size += row.length;
+        }
+        ByteBuffer content = allocate(Integer.BYTES * size);
+        IntBuffer ints = content.asIntBuffer();
+        ints.put(rows.length);
+        for (int[] row : rows) {
+            ints.put(row.length);
+        }
+        for (int[] row : rows) {
+            ints.put(row);
+        }
+        store(fingerprint, key, KIND_INT_ROWS, size, content);
+    }
+
+    /**
+     * Renvoie les listes de voisinage d'une instance en les lisant dans le
+     * cache si possible, sinon en les calculant puis en les enregistrant. <br>
+     * Les listes obtenues sont conservées par l'instance.
+     *
+     * @param instance l'instance du problème
+     * @param size le nombre k de plus proches clients à conserver par client
+     * @return les listes de voisinage
+     */
+    public Neighbourhood getNeighbourhood(Instance instance, int size) {
+        int customerNumber = instance.getCustomers().size();
+        int effectiveSize = Math.min(size, Math.max(customerNumber - 1, 0));
+        String key = "neighbourhood-k" + effectiveSize;
+        int[][] rows = loadIntRows(instance.getFingerprint(), key);
+        if (rows != null && rows.length == 2 * customerNumber) {
+            int[][] nearestCustomers = new int[customerNumber][];
+            int[][] nearestSatellites = new int[customerNumber][];
+            System.arraycopy(rows, 0, nearestCustomers, 0, customerNumber);
+            System.arraycopy(rows, customerNumber, nearestSatellites, 0, customerNumber);
+            Neighbourhood neighbourhood = new Neighbourhood(effectiveSize, nearestCustomers, nearestSatellites);
+            instance.setNeighbourhood(neighbourhood);
+            return neighbourhood;
+        }
+        Neighbourhood neighbourhood = instance.getNeighbourhood(size);
+        rows = new int[2 * customerNumber][];
+        for (int c = 0; c < customerNumber; c++) {
+            rows[c] = neighbourhood.getNearestCustomers(c);
+            rows[customerNumber + c] = neighbourhood.getNearestSatellites(c);
+        }
+        storeIntRows(instance.getFingerprint(), key, rows);
+        return neighbourhood;
+    }
+
+    private static ByteBuffer allocate(int size) {
+        return ByteBuffer.allocate(size).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static void write(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    private Path entryPath(String fingerprint, String key) {
+        return directory.resolve(fingerprint + "-" + key + EXTENSION);
+    }
+
+    /**
+     * Lit une entrée du cache et vérifie son en-tête. <br>
+     * La date de modification du fichier est mise à jour pour l'éviction LRU.
+     *
+     * @return le contenu de l'entrée, null si elle est absente ou non conforme
+     */
+    private ByteBuffer load(String fingerprint, String key, int kind) {
+        Path path = entryPath(fingerprint, key);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try ( FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < HEADER_BYTES || fileSize > Integer.MAX_VALUE) {
+                return null;
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            byte[] storedFingerprint = new byte[FINGERPRINT_BYTES];
+            int magic = buffer.getInt();
+            int version = buffer.getInt();
+            int storedKind = buffer.getInt();
+            buffer.get(storedFingerprint);
+            int contentBytes = buffer.getInt();
+            buffer.getInt(); //nombre de valeurs, informatif
+            if (magic != MAGIC || version != VERSION || storedKind != kind
+                    || !new String(storedFingerprint, StandardCharsets.US_ASCII).equals(fingerprint)
+                    || contentBytes != fileSize - HEADER_BYTES) {
+                return null;
+            }
+            Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+            return buffer.slice().order(ByteOrder.LITTLE_ENDIAN);
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void store(String fingerprint, String key, int kind, int valueNumber, ByteBuffer content) {
+        store(fingerprint, key, kind, valueNumber, content.capacity(), channel -> {
+            content.clear();
+            write(channel, content);
+        });
+    }
+
+    /**
+     * Ecrit une entrée du cache dans un fichier temporaire renommé ensuite,
+     * pour qu'une lecture concurrente ne voie jamais une entrée incomplète,
+     * puis applique l'éviction. <br>
+     * Une entrée plus grande que la taille maximale, ou que ce qu'un fichier
+     * projeté en mémoire peut contenir, n'est pas écrite. Le fichier
+     * temporaire est supprimé si l'écriture ou le renommage échoue.
+     *
+     * @param contentBytes la taille du contenu en octets
+     * @param writer l'écriture du contenu après l'en-tête
+     */
+    private void store(String fingerprint, String key, int kind, long valueNumber, long contentBytes, ContentWriter writer) {
+        if (fingerprint.length() != FINGERPRINT_BYTES || contentBytes > Integer.MAX_VALUE - HEADER_BYTES || HEADER_BYTES + contentBytes > maxSize) {
+            return;
+        }
+        Path path = entryPath(fingerprint, key);
+        Path temporary = null;
+        try {
+            Files.createDirectories(directory);
+            temporary = Files.createTempFile(directory, fingerprint, ".tmp");
+            try ( FileChannel channel = FileChannel.open(temporary, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                ByteBuffer header = allocate(HEADER_BYTES);
+                header.putInt(MAGIC).putInt(VERSION).putInt(kind);
+                header.put(fingerprint.getBytes(StandardCharsets.US_ASCII));
+                header.putInt((int) contentBytes).putInt((int) valueNumber);
+                header.flip();
+                write(channel, header);
+                writer.write(channel);
+            }
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            temporary = null;
+            evict();
+        } catch (IOException e) {
+            //le cache est facultatif, la donnée sera recalculée à la prochaine exécution
+        } finally {
+            if (temporary != null) {
+                try {
+                    Files.deleteIfExists(temporary);
+                } catch (IOException e) {
+                    //le fichier temporaire n'a pas pu être supprimé
+                }
+            }
+        }
+    }
+
+    /**
+     * Ecriture du contenu d'une entrée dans son fichier.
+     */
+    private interface ContentWriter {
+
+        void write(FileChannel channel) throws IOException;
+    }
+
+    /**
+     * Supprime les entrées les moins récemment utilisées tant que la taille du
+     * répertoire dépasse la taille maximale.
+     */
+    private void evict() throws IOException {
+        List<Path> entries = new ArrayList<>();
+        long totalSize = 0;
+        try ( DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + EXTENSION)) {
+            for (Path entry : stream) {
+                entries.add(entry);
+                totalSize += Files.size(entry);
+            }
+        }
+        if (totalSize <= maxSize) {
+            return;
+        }
+        entries.sort(Comparator.comparing(entry -> {
+            try {
+                return Files.getLastModifiedTime(entry);
+            } catch (IOException e) {
+                return FileTime.fromMillis(0);
+            }
+        }));
+        for (int i = 0; i < entries.size() && totalSize > maxSize; i++) {
+            long entrySize = Files.size(entries.get(i));
+            if (Files.deleteIfExists(entries.get(i))) {
+                totalSize -= entrySize;
+            }
+        }
+    }
+
+    //Accesseurs
+    public Path getDirectory() {
+        return directory;
+    }
+
+    public long getMaxSize() {
+        return maxSize;
+    }
+}
@@ -0,0 +1,209 @@
+package utils;
+
+import model.BufferDistanceMatrix;
+import model.Customer;
+import model.Depot;
+import model.DistanceMatrix;
+import model.Fleet;
+import model.Instance;
+import model.Satellite;
+import model.SiteTable;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe de gestion du format binaire des fichiers d'instances. <br>
+ * Le fichier est projeté en mémoire à la lecture, les colonnes des sites sont
+ * lues sans analyse de texte et la matrice de distance, si elle est stockée,
+ * est utilisée directement depuis le fichier sans être recalculée. <br>
+ * Format (petit-boutiste) : <br>
+ * - en-tête : signature, version, nombre de dépôts, de satellites, de clients,
+ * indicateurs (bit 0 : matrice de distance présente) <br>
+ * - flottes : pour chaque niveau le nombre de véhicules, leur capacité et leur coût <br>
+ * - colonnes des sites indexées sur le globalSiteID : x, y, temps de service,
+ * début et fin de fenêtre de temps, demande <br>
+ * - optionnellement la matrice de distance complète en double, ligne par ligne.
+ * <br>
+ * Un fichier projeté en mémoire ne dépasse pas {@link Integer#MAX_VALUE}
+ * octets : au-delà d'environ 16 000 sites l'instance doit être convertie sans
+ * la matrice de distance.
+ *
+ * @see utils.FileManager
+ * @author LASTENNET Dorian
+ */
+public class BinaryInstanceFile {
+
+    public static final String EXTENSION = ".bin";
+    private static final int MAGIC = 0x32455652; //"2EVR"
+    private static final int VERSION = 1;
+    private static final int FLAG_DISTANCES = 1;
+    private static final int HEADER_INTS = 12; //en-tête et flottes, multiple de 2 pour aligner la matrice
+    private static final int COLUMNS = 6;
+    private static final String TOO_LARGE_MESSAGE = "Fichier binaire trop volumineux, convertir l'instance sans la matrice de distance.";
+
+    private BinaryInstanceFile() {
+    }
+
+    /**
+     * Convertit un fichier d'instance texte au format binaire.
+     *
+     * @param textFilename le fichier d'instance texte
+     * @param binaryFilename le fichier binaire à écrire
+     * @param withDistances vrai pour stocker la matrice de distance
+     * @throws FileManagerException si une erreur de lecture ou d'écriture se produit
+     */
+    public static void convert(String textFilename, String binaryFilename, boolean withDistances) throws FileManagerException {
+        write(new FileManager(textFilename).readInstance(), binaryFilename, withDistances);
+    }
+
+    /**
+     * Ecrit une instance au format binaire.
+     *
+     * @param instance l'instance à écrire
+     * @param filename le fichier binaire à écrire
+     * @param withDistances vrai pour stocker la matrice de distance
+     * @throws FileManagerException si une erreur d'écriture se produit
+     */
+    public static void write(Instance instance, String filename, boolean withDistances) throws FileManagerException {
+        int siteNumber = instance.getSiteNumber();
+        if (getFileSize(siteNumber, withDistances) > Integer.MAX_VALUE) {
+            throw new FileManagerException(TOO_LARGE_MESSAGE);
+        }
+        SiteTable sites = instance.getSiteTable();
+        try ( FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(Integer.BYTES * (HEADER_INTS + COLUMNS * siteNumber)).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION);
+            header.putInt(instance.getDepots().size()).putInt(instance.getSatellites().size()).putInt(instance.getCustomers().size());
+            header.putInt(withDistances ? FLAG_DISTANCES : 0);
+            for (Fleet fleet : new Fleet[]{instance.getFirstEchelonFleet(), instance.getSecondEchelonFleet()}) {
+                header.putInt(fleet.getVehiclesNumber()).putInt(fleet.getVehiclesCapacity()).putInt(fleet.getVehiclesCost());
+            }
+            for (int i = 0; i < siteNumber; i++) {
+                header.putInt(sites.getxCoordinate(i));
+            }
+            for (int i = 0; i < siteNumber; i++) {
+                header.putInt(sites.getyCoordinate(i));
+            }
+            for (int i = 0; i < siteNumber; i++) {
+                header.putInt(sites.getServiceTime(i));
+            }
+            for (int i = 0; i < siteNumber; i++) {
+                header.putInt(sites.getTimeWindowStart(i));
+            }
+            for (int i = 0; i < siteNumber; i++) {
+                header.putInt(sites.getTimeWindowEnd(i));
+            }
+            for (int i = 0; i < siteNumber; i++) {
+                header.putInt(sites.getDemandSize(i));
+            }
+            header.flip();
+            writeFully(channel, header);
+            if (withDistances) {
+                //écriture ligne par ligne pour ne pas allouer la matrice entière
+                ByteBuffer row = ByteBuffer.allocate(Double.BYTES * siteNumber).order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < siteNumber; i++) {
+                    row.clear();
+                    for (int j = 0; j < siteNumber; j++) {
+                        row.putDouble(instance.getDistance(i, j));
+                    }
+                    row.flip();
+                    writeFully(channel, row);
+                }
+            }
+        } catch (IOException e) {
+            throw new FileManagerException("Erreur d'écriture.", e);
+        }
+    }
+
+    /**
+     * @return la taille en octets du fichier d'une instance
+     */
+    private static long getFileSize(int siteNumber, boolean withDistances) {
+        return (long) Integer.BYTES * (HEADER_INTS + (long) COLUMNS * siteNumber)
+                + (withDistances ? (long) Double.BYTES * siteNumber * siteNumber : 0L);
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * Lit une instance au format binaire en projetant le fichier en mémoire.
+     *
+     * @param filename le fichier binaire à lire
+     * @return l'instance lue
+     * @throws FileManagerException si le fichier est introuvable, illisible ou non conforme
+     */
+    public static Instance read(String filename) throws FileManagerException {
+        try ( FileChannel channel = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long fileSize = channel.size();
+            if (fileSize < Integer.BYTES * HEADER_INTS) {
+                throw new FileManagerException("Format binaire non conforme.");
+            }
+            if (fileSize > Integer.MAX_VALUE) {
+                throw new FileManagerException(TOO_LARGE_MESSAGE);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            IntBuffer ints = buffer.asIntBuffer();
+            if (ints.get(0) != MAGIC || ints.get(1) != VERSION) {
+                throw new FileManagerException("Format binaire non conforme.");
+            }
+            int depotNumber = ints.get(2);
+            int satelliteNumber = ints.get(3);
+            int customerNumber = ints.get(4);
+            boolean withDistances = (ints.get(5) & FLAG_DISTANCES) != 0;
+            int siteNumber = depotNumber + satelliteNumber + customerNumber;
+            long expectedSize = getFileSize(siteNumber, withDistances);
+            if (depotNumber < 0 || satelliteNumber < 0 || customerNumber < 0 || fileSize != expectedSize) {
+                throw new FileManagerException("Format binaire non conforme.");
+            }
+            Fleet firstEchelonFleet = new Fleet(1, ints.get(6), ints.get(7), ints.get(8));
+            Fleet secondEchelonFleet = new Fleet(2, ints.get(9), ints.get(10), ints.get(11));
+
+            //colonnes des sites indexées sur le globalSiteID : clients, satellites puis dépôts
+            int x = HEADER_INTS;
+            int y = x + siteNumber;
+            int service = y + siteNumber;
+            int start = service + siteNumber;
+            int end = start + siteNumber;
+            int demand = end + siteNumber;
+            List<Customer> customers = new ArrayList<>(customerNumber);
+            List<Satellite> satellites = new ArrayList<>(satelliteNumber);
+            List<Depot> depots = new ArrayList<>(depotNumber);
+            int globalID = 0;
+            for (int i = 0; i < customerNumber; i++, globalID++) {
+                customers.add(new Customer(i + 1, globalID, ints.get(x + globalID), ints.get(y + globalID), ints.get(service + globalID), ints.get(start + globalID), ints.get(end + globalID), ints.get(demand + globalID)));
+            }
+            for (int i = 0; i < satelliteNumber; i++, globalID++) {
+                satellites.add(new Satellite(i + 1, globalID, ints.get(x + globalID), ints.get(y + globalID), ints.get(service + globalID)));
+            }
+            for (int i = 0; i < depotNumber; i++, globalID++) {
+                depots.add(new Depot(i + 1, globalID, ints.get(x + globalID), ints.get(y + globalID), ints.get(service + globalID)));
+            }
+
+            if (withDistances) {
+                buffer.position(Integer.BYTES * (HEADER_INTS + COLUMNS * siteNumber));
+                DistanceMatrix distanceMatrix = new BufferDistanceMatrix(siteNumber, buffer.slice().order(ByteOrder.LITTLE_ENDIAN).asDoubleBuffer());
+                return new Instance(depots, satellites, customers, firstEchelonFleet, secondEchelonFleet, distanceMatrix);
+            }
+            return new Instance(depots, satellites, customers, firstEchelonFleet, secondEchelonFleet);
+        } catch (NoSuchFileException e) {
+            throw new FileManagerException("Fichier introuvable.", e);
+        } catch (IOException e) {
+            throw new FileManagerException("Erreur de lecture.", e);
+        }
+    }
+}
@@ -3,17 +3,21 @@ package utils;
 import model.Depot;
 import model.Satellite;
 import model.Customer;
+import model.DistanceMatrix;
 import model.Fleet;
 import model.Instance;
 import model.Solution;
+import model.SolutionReport;
 import solver.Solver;
 
 import java.io.BufferedReader;
 import java.io.BufferedWriter;
 import java.io.PrintWriter;
 import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
+import java.io.InputStream;
 import java.io.FileWriter;
 import java.io.IOException;
 import java.util.ArrayList;
@@ -29,6 +33,8 @@ import java.util.regex.Pattern;
  */
 public class FileManager {
 
+    private static final int MAX_LINE_VALUES = 6; //nombre maximal de valeurs par ligne (clients)
+
     private String instanceFilename;
     private String resultFilename;
 
@@ -49,27 +55,74 @@ public class FileManager {
      * des véhicules et le coût d'un véhicule <br>
      * une ligne pour la flotte de second niveau contenant : le nombre de véhicules, la capacité des véhicules et
      * le coût d'un véhicule  <br>
-     * Toutes les valeurs doivent être entières. 
+     * Toutes les valeurs doivent être entières. <br>
+     * Les fichiers d'extension .bin sont lus au format binaire.
      *
+     * @see utils.BinaryInstanceFile
      * @return une instance de la classe Instance contenant les valeurs lues
      * dans le fichier
      * @throws FileManagerException si une erreur se produit pendant la lecture
      */
     public Instance readInstance() throws FileManagerException {
+        if (instanceFilename.endsWith(BinaryInstanceFile.EXTENSION)) {
+            return BinaryInstanceFile.read(instanceFilename);
+        }
+        return readInstance(DistanceMatrix.Type.FULL);
+    }
+
+    /**
+     * Fonction de lecture des fichiers d'instances en choisissant le stockage de
+     * la matrice de distance. <br>
+     * Le stockage compact ou à la demande permet de charger de très grandes instances.
+     *
+     * @see #readInstance()
+     * @param distanceMatrixType le type de stockage de la matrice de distance
+     * @return une instance de la classe Instance contenant les valeurs lues
+     * dans le fichier
+     * @throws FileManagerException si une erreur se produit pendant la lecture
+     */
+    public Instance readInstance(DistanceMatrix.Type distanceMatrixType) throws FileManagerException {
+        return readTextInstance(distanceMatrixType, null);
+    }
+
+    /**
+     * Fonction de lecture des fichiers d'instances utilisant un cache disque.
+     * <br>
+     * Pour un fichier texte, la matrice de distance complète est lue dans le
+     * cache si l'empreinte de l'instance y figure, sinon elle est calculée puis
+     * enregistrée. Les fichiers binaires sont lus directement.
+     *
+     * @see #readInstance()
+     * @param cache le cache des données précalculées
+     * @return une instance de la classe Instance contenant les valeurs lues
+     * dans le fichier
+     * @throws FileManagerException si une erreur se produit pendant la lecture
+     */
+    public Instance readInstance(ArtifactCache cache) throws FileManagerException {
+        if (instanceFilename.endsWith(BinaryInstanceFile.EXTENSION)) {
+            return BinaryInstanceFile.read(instanceFilename);
+        }
+        return readTextInstance(DistanceMatrix.Type.FULL, cache);
+    }
+
+    /**
+     * Lecture d'un fichier d'instance texte.
+     *
+     * @param distanceMatrixType le type de stockage de la matrice de distance
+     * @param cache le cache des matrices complètes, null pour ne pas l'utiliser
+     * @return l'instance lue
+     * @throws FileManagerException si une erreur se produit pendant la lecture
+     */
+    private Instance readTextInstance(DistanceMatrix.Type distanceMatrixType, ArtifactCache cache) throws FileManagerException {
         int depotNumber;
         int satelliteNumber;
         int customerNumber;
         ArrayList<Depot> depots = new ArrayList<>();
         ArrayList<Satellite> satellites = new ArrayList<>();
         ArrayList<Customer> customers = new ArrayList<>();
-        Fleet firstEchelonFleet = new Fleet(0, 0, 0, 0);
-        Fleet secondEchelonFleet = new Fleet(0, 0, 0, 0);
         //Pattern pour match le nombre de chacun des sites dans le nom du fichier (ex: 6,25,55) :
         //(1 chiffre ou plus) et (1 caractère ',') et (1 chiffre ou plus) et (1 caractère ',') et (1 chiffre ou plus)
         final Pattern FILENAMEPATERN = Pattern.compile("\\d+,\\d+,\\d+");
-        //Pattern pour match chaque élément d'une ligne du fichier  :
-        // (0 ou 1 caractère '-') et (1 chiffre ou plus)
-        final Pattern LINEPATERN = Pattern.compile("-?\\d+");
 
         Matcher filepathMatcher = FILENAMEPATERN.matcher(instanceFilename);
         if ((int) filepathMatcher.results().count() != 1) {
@@ -80,93 +133,200 @@ public class FileManager {
         depotNumber = Integer.parseInt(match[0]);
         satelliteNumber = Integer.parseInt(match[1]);
         customerNumber = Integer.parseInt(match[2]);
-        try ( BufferedReader reader = new BufferedReader(new FileReader(instanceFilename))) {
-            int lines = countLines(instanceFilename);
-            if (lines != depotNumber + satelliteNumber + customerNumber + 2) {
-                throw new FileManagerException("Nombre entités invalide.");
-            }
 
-            String line;
-            int globalID = 0;
+        //lecture du fichier en une seule passe, les valeurs de chaque ligne sont rangées dans values
+        int[] values;
+        try ( InputStream input = new FileInputStream(instanceFilename)) {
+            values = parseInstanceValues(input, depotNumber, satelliteNumber, customerNumber);
+        } catch (FileNotFoundException e) {
+            throw new FileManagerException("Fichier introuvable.", e);
+        } catch (IOException e) {
+            throw new FileManagerException("Erreur de lecture.", e);
+        }
 
-            //lecture des clients
-            for (int i = 0; i < customerNumber; i++) {
-                ArrayList<Integer> allMatches = new ArrayList<>();
-                line = reader.readLine();
+        int line = 0;
+        int globalID = 0;
+        //lecture des clients
+        for (int i = 0; i < customerNumber; i++, line++) {
+            int v = line * MAX_LINE_VALUES;
+            customers.add(new Customer(i + 1, globalID, values[v], values[v + 1], values[v + 5], values[v + 2], values[v + 3], values[v + 4]));
+            globalID++;
+        }
+        //lecture des satellites
+        for (int i = 0; i < satelliteNumber; i++, line++) {
+            int v = line * MAX_LINE_VALUES;
+            satellites.add(new Satellite(i + 1, globalID, values[v], values[v + 1], values[v + 2]));
+            globalID++;
+        }
+        //lecture des dépôts
+        for (int i = 0; i < depotNumber; i++, line++) {
+            int v = line * MAX_LINE_VALUES;
+            depots.add(new Depot(i + 1, globalID, values[v], values[v + 1], values[v + 2]));
+            globalID++;
+        }
+        //lecture des flottes
+        int v = line * MAX_LINE_VALUES;
+        Fleet firstEchelonFleet = new Fleet(1, values[v], values[v + 1], values[v + 2]);
+        v += MAX_LINE_VALUES;
+        Fleet secondEchelonFleet = new Fleet(2, values[v], values[v + 1], values[v + 2]);
+        if (cache != null && distanceMatrixType == DistanceMatrix.Type.FULL) {
+            String fingerprint = Instance.computeFingerprint(depots, satellites, customers, firstEchelonFleet, secondEchelonFleet);
+            DistanceMatrix distanceMatrix = cache.loadDistanceMatrix(fingerprint, depotNumber + satelliteNumber + customerNumber);
+            if (distanceMatrix != null) {
+                return new Instance(depots, satellites, customers, firstEchelonFleet, secondEchelonFleet, distanceMatrix);
+            }
+            Instance instance = new Instance(depots, satellites, customers, firstEchelonFleet, secondEchelonFleet, distanceMatrixType);
+            cache.storeDistanceMatrix(instance);
+            return instance;
+        }
+        return new Instance(depots, satellites, customers, firstEchelonFleet, secondEchelonFleet, distanceMatrixType);
+    }
 
-                Matcher lineMatcher = LINEPATERN.matcher(line);
-                if ((int) lineMatcher.results().count() != 6) {
-                    throw new FileManagerException("Mauvais nombre de paramètres pour les clients.");
-                }
-                lineMatcher.reset(line);
-                while (lineMatcher.find()) {
-                    allMatches.add(Integer.parseInt(lineMatcher.group()));
-                }
-                Customer customer = new Customer(i + 1, globalID, allMatches.get(0), allMatches.get(1), allMatches.get(5), allMatches.get(2), allMatches.get(3), allMatches.get(4));
-                customers.add(customer);
-                globalID++;
+    /**
+     * Analyse le contenu d'un fichier d'instance texte en une seule passe. <br>
+     * Les octets sont lus par blocs et les entiers (un '-' facultatif suivi de
+     * chiffres) sont convertis sur place, tout autre caractère sert de
+     * séparateur. Les lignes ne contenant que des espaces sont ignorées en fin
+     * de fichier, mais refusées entre deux lignes de données comme une ligne
+     * sans paramètres. <br>
+     * Le nombre de valeurs de chaque ligne est vérifié au fil de la lecture,
+     * mais l'erreur n'est levée qu'en fin de fichier pour signaler en priorité
+     * un nombre de lignes invalide, comme auparavant.
+     *
+     * @param input le flux du fichier
+     * @param depotNumber le nombre de dépôts attendu
+     * @param satelliteNumber le nombre de satellites attendu
+     * @param customerNumber le nombre de clients attendu
+     * @return les valeurs lues, MAX_LINE_VALUES cases par ligne
+     * @throws IOException si le fichier ne peut pas être lu
+     * @throws FileManagerException si le contenu n'est pas conforme
+     */
+    private int[] parseInstanceValues(InputStream input, int depotNumber, int satelliteNumber, int customerNumber) throws IOException, FileManagerException {
+        InstanceTokenizer tokenizer = new InstanceTokenizer(depotNumber, satelliteNumber, customerNumber);
+        byte[] buffer = new byte[1 << 16];
+        int read = input.read(buffer);
+        while (read >= 0) {
+            for (int i = 0; i < read; i++) {
+                tokenizer.accept(buffer[i]);
             }
+            read = input.read(buffer);
+        }
+        //fin de la dernière ligne si le fichier ne se termine pas par un retour à la ligne
+        tokenizer.accept('\n');
 
-            //lecture des satellites
-            for (int i = 0; i < satelliteNumber; i++) {
-                ArrayList<Integer> allMatches = new ArrayList<>();
-                line = reader.readLine();
+        if (tokenizer.lines != tokenizer.expectedLines) {
+            throw new FileManagerException("Nombre entités invalide.");
+        }
+        if (tokenizer.lineError != null) {
+            throw new FileManagerException(tokenizer.lineError);
+        }
+        return tokenizer.values;
+    }
 
-                Matcher lineMatcher = LINEPATERN.matcher(line);
-                if ((int) lineMatcher.results().count() != 3) {
-                    throw new FileManagerException("Mauvais nombre de paramètres pour les satellites.");
-                }
-                lineMatcher.reset(line);
-                while (lineMatcher.find()) {
-                    allMatches.add(Integer.parseInt(lineMatcher.group()));
-                }
-                Satellite satellite = new Satellite(i + 1, globalID, allMatches.get(0), allMatches.get(1), allMatches.get(2));
-                satellites.add(satellite);
-                globalID++;
-            }
+    /**
+     * Automate de lecture des fichiers d'instances texte, octet par octet.
+     */
+    private static class InstanceTokenizer {
 
-            //lecture des dépôts
-            for (int i = 0; i < depotNumber; i++) {
-                ArrayList<Integer> allMatches = new ArrayList<>();
-                line = reader.readLine();
+        private final int depotNumber;
+        private final int satelliteNumber;
+        private final int customerNumber;
+        private final int expectedLines;
+        private final int[] values; //MAX_LINE_VALUES cases par ligne attendue
+        private String lineError; //première erreur de nombre de paramètres rencontrée
+        private int lines; //nombre de lignes non vides terminées
+        private int lineValues; //nombre de valeurs de la ligne courante
+        private boolean lineBlank = true;
+        private boolean blankLinePending; //ligne vide rencontrée depuis la dernière ligne non vide
+        private boolean inNumber;
+        private boolean negative; //un '-' précède immédiatement le nombre courant
+        private boolean previousCarriageReturn;
+        private long number;
+
+        InstanceTokenizer(int depotNumber, int satelliteNumber, int customerNumber) {
+            this.depotNumber = depotNumber;
+            this.satelliteNumber = satelliteNumber;
+            this.customerNumber = customerNumber;
+            this.expectedLines = depotNumber + satelliteNumber + customerNumber + 2;
+            this.values = new int[expectedLines * MAX_LINE_VALUES];
+        }
 
-                Matcher lineMatcher = LINEPATERN.matcher(line);
-                if ((int) lineMatcher.results().count() != 3) {
-                    throw new FileManagerException("Mauvais nombre de paramètres pour les dépots.");
+        void accept(int b) throws FileManagerException {
+            if (b >= '0' && b <= '9') {
+                if (!inNumber) {
+                    inNumber = true;
+                    number = 0;
                 }
-                lineMatcher.reset(line);
-                while (lineMatcher.find()) {
-                    allMatches.add(Integer.parseInt(lineMatcher.group()));
+                number = number * 10 + (b - '0');
+                if (number > (long) Integer.MAX_VALUE + 1) {
+                    throw new FileManagerException("Erreur de lecture.");
                 }
-                Depot depot = new Depot(i + 1, globalID, allMatches.get(0), allMatches.get(1), allMatches.get(2));
-                depots.add(depot);
-                globalID++;
+                lineBlank = false;
+                previousCarriageReturn = false;
+                return;
             }
+            if (inNumber) {
+                endNumber();
+            }
+            negative = b == '-';
+            //une fin de ligne est "\n", "\r" ou "\r\n"
+            if (b == '\n' || b == '\r') {
+                if (!(b == '\n' && previousCarriageReturn)) {
+                    endLine();
+                }
+                negative = false;
+            } else if (lineBlank && (b < 0 || !Character.isWhitespace((char) b))) {
+                lineBlank = false;
+            }
+            previousCarriageReturn = b == '\r';
+        }
 
-            for (int i = 1; i < 3; i++) {
-                ArrayList<Integer> allMatches = new ArrayList<>();
-                line = reader.readLine();
+        private void endNumber() throws FileManagerException {
+            long value = negative ? -number : number;
+            if (value > Integer.MAX_VALUE) {
+                throw new FileManagerException("Erreur de lecture.");
+            }
+            if (lines < expectedLines && lineValues < MAX_LINE_VALUES) {
+                values[lines * MAX_LINE_VALUES + lineValues] = (int) value;
+            }
+            lineValues++;
+            inNumber = false;
+        }
 
-                Matcher lineMatcher = LINEPATERN.matcher(line);
-                if ((int) lineMatcher.results().count() != 3) {
-                    throw new FileManagerException("Mauvais nombre de paramètres pour les véhicules.");
-                }
-                lineMatcher.reset(line);
-                while (lineMatcher.find()) {
-                    allMatches.add(Integer.parseInt(lineMatcher.group()));
-                }
-                if (i == 1) {
-                    firstEchelonFleet = new Fleet(1, allMatches.get(0), allMatches.get(1), allMatches.get(2));
-                } else {
-                    secondEchelonFleet = new Fleet(2, allMatches.get(0), allMatches.get(1), allMatches.get(2));
+        private void endLine() {
+            if (lineBlank) {
+                blankLinePending = true;
+            } else {
+                //une ligne vide suivie de données occupe la place de l'entité suivante, sans paramètres
+                if (blankLinePending) {
+                    checkLineValues(0);
+                    blankLinePending = false;
                 }
+                checkLineValues(lineValues);
+                lines++;
+            }
+            lineValues = 0;
+            lineBlank = true;
+        }
+
+        /**
+         * Vérifie le nombre de valeurs selon le type d'entité décrit par la
+         * ligne courante, seule la première erreur est conservée.
+         */
+        private void checkLineValues(int valueNumber) {
+            if (lineError != null) {
+                return;
+            }
+            if (lines < customerNumber) {
+                lineError = valueNumber != 6 ? "Mauvais nombre de paramètres pour les clients." : null;
+            } else if (lines < customerNumber + satelliteNumber) {
+                lineError = valueNumber != 3 ? "Mauvais nombre de paramètres pour les satellites." : null;
+            } else if (lines < customerNumber + satelliteNumber + depotNumber) {
+                lineError = valueNumber != 3 ? "Mauvais nombre de paramètres pour les dépots." : null;
+            } else if (lines < expectedLines) {
+                lineError = valueNumber != 3 ? "Mauvais nombre de paramètres pour les véhicules." : null;
             }
-        } catch (FileNotFoundException e) {
-            throw new FileManagerException("Fichier introuvable.", e);
-        } catch (IOException e) {
-            throw new FileManagerException("Erreur de lecture.", e);
         }
-        return new Instance(depots, satellites, customers, firstEchelonFleet, secondEchelonFleet);
     }
 
     /**
@@ -181,14 +341,17 @@ public class FileManager {
         try ( PrintWriter writer = new PrintWriter(new File(filepath))) {
             Solution solution = solver.getSolution();
             writer.println("Solution : " + solution.toString());
-            writer.println("Fonction Obj : " + solver.evaluateSolution(solution));
-            writer.println("Contraintes capacités 1er niveau respectées : " + (solver.isFirstEchelonCapacitiesRespected(solution) ? "oui" : "non"));
-            writer.println("Contraintes véhicules 1er niveau respectées : " + (solver.isFirstEchelonVehiclesNumberRespected(solution) ? "oui" : "non"));
-            writer.println("Contraintes temporelles 2nd niveau respectées : " + (solver.isSecondEchelonTimeWindowsRespected(solution) ? "oui" : "non"));
-            writer.println("Contraintes capacités 2nd niveau respectées : " + (solver.isSecondEchelonCapacitiesRespected(solution) ? "oui" : "non"));
-            writer.println("Contraintes véhicules 2nd respectées : " + (solver.isSecondEchelonVehiclesNumberRespected(solution) ? "oui" : "non"));
-            writer.println("Contraintes clients livrées : " + (solver.areAllCustomersDelivered(solution) ? "oui" : "non"));
-            writer.println("Solution faisable : " + (solver.isSolutionDoable(solution) ? "oui" : "non"));
+            SolutionReport report = solver.getSolutionReport(solution);
+            writer.println("Fonction Obj : " + report.getObjective());
+            writer.println("Coûts 1er niveau (trajets, manutention, véhicules) : " + report.getFirstEchelonTravelCost() + " ; " + report.getFirstEchelonHandlingCost() + " ; " + report.getFirstEchelonVehicleCost());
+            writer.println("Coûts 2nd niveau (trajets, manutention, véhicules) : " + report.getSecondEchelonTravelCost() + " ; " + report.getSecondEchelonHandlingCost() + " ; " + report.getSecondEchelonVehicleCost());
+            writer.println("Contraintes capacités 1er niveau respectées : " + (report.isFirstEchelonCapacitiesRespected() ? "oui" : "non"));
+            writer.println("Contraintes véhicules 1er niveau respectées : " + (report.isFirstEchelonVehiclesNumberRespected() ? "oui" : "non"));
+            writer.println("Contraintes temporelles 2nd niveau respectées : " + (report.isSecondEchelonTimeWindowsRespected() ? "oui" : "non"));
+            writer.println("Contraintes capacités 2nd niveau respectées : " + (report.isSecondEchelonCapacitiesRespected() ? "oui" : "non"));
+            writer.println("Contraintes véhicules 2nd respectées : " + (report.isSecondEchelonVehiclesNumberRespected() ? "oui" : "non"));
+            writer.println("Contraintes clients livrées : " + (report.areAllCustomersDelivered() ? "oui" : "non"));
+            writer.println("Solution faisable : " + (report.isSolutionDoable() ? "oui" : "non"));
         } catch (IOException e) {
             throw new FileManagerException("Erreur d'écriture.", e);
         }
@@ -219,14 +382,15 @@ public class FileManager {
         try ( PrintWriter writer = new PrintWriter(new BufferedWriter(new FileWriter(filepath, true)))) {
             Solution solution = solver.getSolution();
             writer.print(instanceName + ";");
-            writer.print(solver.evaluateSolution(solution) + ";");
-            writer.print((solver.isFirstEchelonCapacitiesRespected(solution) ? "oui;" : "non;"));
-            writer.print((solver.isFirstEchelonVehiclesNumberRespected(solution) ? "oui;" : "non;"));
-            writer.print((solver.isSecondEchelonTimeWindowsRespected(solution) ? "oui;" : "non;"));
-            writer.print((solver.isSecondEchelonCapacitiesRespected(solution) ? "oui;" : "non;"));
-            writer.print((solver.isSecondEchelonVehiclesNumberRespected(solution) ? "oui;" : "non;"));
-            writer.print((solver.areAllCustomersDelivered(solution) ? "oui;" : "non;"));
-            writer.print((solver.isSolutionDoable(solution) ? "oui;" : "non;"));
+            SolutionReport report = solver.getSolutionReport(solution);
+            writer.print(report.getObjective() + ";");
+            writer.print((report.isFirstEchelonCapacitiesRespected() ? "oui;" : "non;"));
+            writer.print((report.isFirstEchelonVehiclesNumberRespected() ? "oui;" : "non;"));
+            writer.print((report.isSecondEchelonTimeWindowsRespected() ? "oui;" : "non;"));
+            writer.print((report.isSecondEchelonCapacitiesRespected() ? "oui;" : "non;"));
+            writer.print((report.isSecondEchelonVehiclesNumberRespected() ? "oui;" : "non;"));
+            writer.print((report.areAllCustomersDelivered() ? "oui;" : "non;"));
+            writer.print((report.isSolutionDoable() ? "oui;" : "non;"));
             writer.print(solveTime);
             writer.println();
         } catch (IOException e) {
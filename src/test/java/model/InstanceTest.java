@@ -3,8 +3,14 @@ package model;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.EnumSource;
 
+import java.nio.DoubleBuffer;
 import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
 import static java.lang.Math.sqrt;
 
 /**
@@ -18,6 +24,10 @@ class InstanceTest {
 
     @BeforeEach
     void setUp() {
+        instance = createInstance(DistanceMatrix.Type.FULL);
+    }
+
+    Instance createInstance(DistanceMatrix.Type distanceMatrixType) {
         ArrayList<Customer> customers = new ArrayList<>(3);
         customers.add(new Customer(1, 0, 5, 10, 10, 15, 25, 10));
         customers.add(new Customer(2, 1, 10, 10, 10, 0, 25, 10));
@@ -30,7 +40,7 @@ class InstanceTest {
         depots.add(new Depot(1, 4, 8, 30, 10));
         depots.add(new Depot(2, 5, 13, 30, 10));
 
-        instance = new Instance(depots, satellites, customers, null, null);
+        return new Instance(depots, satellites, customers, null, null, distanceMatrixType);
     }
 
     @Test
@@ -90,4 +100,158 @@ class InstanceTest {
         expectedDistance = sqrt(109);
         assertEquals(expectedDistance, computedDistance);
     }
+
+    @Test
+    void TestDistanceMatrixAccessByGlobalSiteID() {
+        Depot depot = instance.getDepots().get(0);
+        Customer customer = instance.getCustomers().get(1);
+
+        double computedDistance = instance.getDistance(depot.getGlobalSiteID(), customer.getGlobalSiteID());
+        double expectedDistance = instance.getDistance(depot, customer);
+        assertEquals(expectedDistance, computedDistance);
+        assertEquals(6, instance.getSiteNumber());
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = DistanceMatrix.Type.class, names = "FIXED_POINT", mode = EnumSource.Mode.EXCLUDE)
+    void TestDistanceMatrixTypesGiveSameDistances(DistanceMatrix.Type distanceMatrixType) {
+        Instance otherInstance = createInstance(distanceMatrixType);
+        for (int i = 0; i < instance.getSiteNumber(); i++) {
+            for (int j = 0; j < instance.getSiteNumber(); j++) {
+                assertEquals(instance.getDistance(i, j), otherInstance.getDistance(i, j));
+            }
+        }
+    }
+
+    @Test
+    void TestOnDemandDistancesUnderMixedAccesses() {
+        Random random = new Random(5);
+        List<Site> sites = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            sites.add(new Customer(i + 1, i, random.nextInt(1001) - 500, random.nextInt(1001) - 500, 10, 0, 100, 10));
+        }
+        DistanceMatrix full = DistanceMatrix.create(DistanceMatrix.Type.FULL, sites);
+        DistanceMatrix onDemand = DistanceMatrix.create(DistanceMatrix.Type.ON_DEMAND, sites);
+        for (int k = 0; k < 20000; k++) {
+            //accès aléatoires isolés puis lignes parcourues, qui sont mises en cache
+            int i = k % 3 == 0 ? random.nextInt(300) : (k / 50) % 40;
+            int j = random.nextInt(300);
+            assertEquals(full.getDistance(i, j), onDemand.getDistance(i, j));
+            assertEquals(full.getDistance(j, i), onDemand.getDistance(j, i));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"FULL, 46341", "FIXED_POINT, 46341", "PACKED, 65537"})
+    void TestTooManySitesForStoredMatrixShouldThrowException(DistanceMatrix.Type distanceMatrixType, int siteNumber) {
+        //le nombre de cases dépasse la taille maximale d'un tableau, l'erreur précède toute allocation
+        List<Site> sites = new ArrayList<>(siteNumber);
+        for (int i = 0; i < siteNumber; i++) {
+            sites.add(new Satellite(i + 1, i, i, 0, 0));
+        }
+        Exception exception = assertThrows(IllegalArgumentException.class, () -> DistanceMatrix.create(distanceMatrixType, sites));
+        assertTrue(exception.getMessage().contains("ON_DEMAND"));
+    }
+
+    @Test
+    void TestBufferDistanceMatrixRejectsTooSmallBuffer() {
+        DoubleBuffer distances = DoubleBuffer.allocate(16);
+        assertEquals(4, new BufferDistanceMatrix(4, distances).getSiteNumber());
+        assertThrows(IllegalArgumentException.class, () -> new BufferDistanceMatrix(5, distances));
+        //le carré de 65536 déborde en entier à zéro
+        assertThrows(IllegalArgumentException.class, () -> new BufferDistanceMatrix(65536, distances));
+    }
+
+    @Test
+    void TestFixedPointDistancesAreRounded() {
+        Instance fixedPointInstance = createInstance(DistanceMatrix.Type.FIXED_POINT);
+        assertTrue(fixedPointInstance.isFixedPoint());
+        assertFalse(instance.isFixedPoint());
+        Depot depot = fixedPointInstance.getDepots().get(0);
+        Satellite satellite = fixedPointInstance.getSatellites().get(0);
+        Customer customer = fixedPointInstance.getCustomers().get(0);
+        //sqrt(100) = 10 est exact, sqrt(109) = 10.4403... est arrondi au centième
+        assertEquals(1000, fixedPointInstance.getScaledDistance(depot.getGlobalSiteID(), satellite.getGlobalSiteID()));
+        assertEquals(1044, fixedPointInstance.getScaledDistance(satellite.getGlobalSiteID(), customer.getGlobalSiteID()));
+        assertEquals(10.44, fixedPointInstance.getDistance(satellite, customer));
+        for (int i = 0; i < instance.getSiteNumber(); i++) {
+            for (int j = 0; j < instance.getSiteNumber(); j++) {
+                assertEquals(instance.getDistance(i, j), fixedPointInstance.getDistance(i, j), 0.5 / FixedPointDistanceMatrix.SCALE);
+            }
+        }
+    }
+
+    @Test
+    void TestNeighbourhoodSortedByDistance() {
+        Neighbourhood neighbourhood = instance.getNeighbourhood(5);
+        assertEquals(1, neighbourhood.getSize());
+        assertArrayEquals(new int[]{1}, neighbourhood.getNearestCustomers(0));
+        assertArrayEquals(new int[]{0}, neighbourhood.getNearestCustomers(1));
+        assertArrayEquals(new int[]{0, 1}, neighbourhood.getNearestSatellites(0));
+        assertArrayEquals(new int[]{0, 1}, neighbourhood.getNearestSatellites(1));
+        assertArrayEquals(new int[]{1}, neighbourhood.getCandidatePartners(0));
+        assertArrayEquals(new int[]{}, neighbourhood.getCandidatePartners(1));
+        assertSame(neighbourhood, instance.getNeighbourhood(5));
+    }
+
+    @Test
+    void TestArcCompatibilityEliminatesLateArrivals() {
+        ArcCompatibility arcs = new ArcCompatibility(instance);
+        //départ au plus tôt de 0 : 15 + 10, arrivée en 1 : 30 > 25
+        assertFalse(arcs.isCustomerArcFeasible(0, 1));
+        //départ au plus tôt de 1 : 0 + 10, arrivée en 0 : 15 <= 25
+        assertTrue(arcs.isCustomerArcFeasible(1, 0));
+        assertFalse(arcs.isCustomerArcFeasible(0, 0));
+        assertEquals(1, arcs.getFeasibleCustomerArcNumber());
+        assertTrue(arcs.isSatelliteArcFeasible(1, 0));
+        assertEquals(4, arcs.getFeasibleSatelliteArcNumber());
+        //sur les fenêtres resserrées le départ de 1 est 20 + 10, arrivée en 0 : 35 > 25
+        ArcCompatibility tightenedArcs = instance.getArcCompatibility();
+        assertFalse(tightenedArcs.isCustomerArcFeasible(1, 0));
+        assertEquals(0, tightenedArcs.getFeasibleCustomerArcNumber());
+        assertSame(tightenedArcs, instance.getArcCompatibility());
+    }
+
+    @Test
+    void TestTightenedTimeWindowsStartAtEarliestArrival() {
+        SiteTable tightened = instance.getTightenedSiteTable();
+        Customer customer0 = instance.getCustomers().get(0);
+        Customer customer1 = instance.getCustomers().get(1);
+        //arrivée au plus tôt : 10 de service au satellite 1 + 10.44 et 10.19 de trajet
+        assertEquals(20, tightened.getTimeWindowStart(customer0.getGlobalSiteID()));
+        assertEquals(20, tightened.getTimeWindowStart(customer1.getGlobalSiteID()));
+        assertEquals(customer0.getTimeWindowEnd(), tightened.getTimeWindowEnd(customer0.getGlobalSiteID()));
+        assertEquals(customer0.getDemandSize(), tightened.getDemandSize(customer0.getGlobalSiteID()));
+        //les fenêtres d'origine sont conservées
+        assertEquals(15, instance.getSiteTable().getTimeWindowStart(customer0.getGlobalSiteID()));
+        assertEquals(0, instance.getSiteTable().getTimeWindowStart(customer1.getGlobalSiteID()));
+        assertSame(tightened, instance.getTightenedSiteTable());
+    }
+
+    @Test
+    void TestFingerprintDependsOnContentOnly() {
+        Instance otherInstance = createInstance(DistanceMatrix.Type.PACKED);
+        assertEquals(64, instance.getFingerprint().length());
+        assertEquals(instance.getFingerprint(), otherInstance.getFingerprint());
+        assertEquals(instance.getFingerprint(), Instance.computeFingerprint(instance.getDepots(), instance.getSatellites(), instance.getCustomers(), null, null));
+        Instance movedInstance = new Instance(instance.getDepots(), instance.getSatellites(), List.of(instance.getCustomers().get(0), new Customer(2, 1, 11, 10, 10, 0, 25, 10)), null, null);
+        assertNotEquals(instance.getFingerprint(), movedInstance.getFingerprint());
+    }
+
+    @Test
+    void TestSiteTableColumnsMatchSites() {
+        SiteTable table = instance.getSiteTable();
+        Customer customer = instance.getCustomers().get(0);
+        assertEquals(customer.getTimeWindowStart(), table.getTimeWindowStart(customer.getGlobalSiteID()));
+        assertEquals(customer.getTimeWindowEnd(), table.getTimeWindowEnd(customer.getGlobalSiteID()));
+        assertEquals(customer.getDemandSize(), table.getDemandSize(customer.getGlobalSiteID()));
+        assertEquals(customer.getServiceTime(), table.getServiceTime(customer.getGlobalSiteID()));
+
+        Satellite satellite = instance.getSatellites().get(1);
+        assertEquals(satellite.getxCoordinate(), table.getxCoordinate(satellite.getGlobalSiteID()));
+        assertEquals(satellite.getSiteID(), table.getSiteID(satellite.getGlobalSiteID()));
+        assertEquals(0, table.getDemandSize(satellite.getGlobalSiteID()));
+        assertEquals(6, table.getSiteNumber());
+        assertThrows(UnsupportedOperationException.class, () -> instance.getCustomers().clear());
+    }
 }
@@ -0,0 +1,104 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Classe de test JUnit pour les routes compactes.
+ *
+ * @author LASTENNET Dorian
+ */
+class PackedRouteTest {
+
+    private Instance instance;
+
+    @BeforeEach
+    void setUp() {
+        ArrayList<Customer> customers = new ArrayList<>(3);
+        customers.add(new Customer(1, 0, 5, 10, 10, 15, 25, 10));
+        customers.add(new Customer(2, 1, 10, 10, 10, 0, 25, 10));
+
+        ArrayList<Satellite> satellites = new ArrayList<>(2);
+        satellites.add(new Satellite(1, 2, 8, 20, 10));
+        satellites.add(new Satellite(2, 3, 13, 20, 10));
+
+        ArrayList<Depot> depots = new ArrayList<>(2);
+        depots.add(new Depot(1, 4, 8, 30, 10));
+        depots.add(new Depot(2, 5, 13, 30, 10));
+
+        instance = new Instance(depots, satellites, customers, null, null);
+    }
+
+    @Test
+    void TestEncodingKeepsIndexes() {
+        int load = PackedRoute.encodeLoad(PackedRoute.MAX_SITES - 1, PackedRoute.MAX_ORIGINS - 1);
+        assertTrue(PackedRoute.isLoad(load));
+        assertEquals(PackedRoute.MAX_SITES - 1, PackedRoute.siteOf(load));
+        assertEquals(PackedRoute.MAX_ORIGINS - 1, PackedRoute.originOf(load));
+        int delivery = PackedRoute.encodeDelivery(42);
+        assertFalse(PackedRoute.isLoad(delivery));
+        assertEquals(42, PackedRoute.siteOf(delivery));
+        assertEquals(-1, PackedRoute.originOf(delivery));
+        assertThrows(IllegalArgumentException.class, () -> PackedRoute.encodeLoad(0, PackedRoute.MAX_ORIGINS));
+        assertThrows(IllegalArgumentException.class, () -> PackedRoute.encodeDelivery(-1));
+    }
+
+    @Test
+    void TestSecondEchelonConversionRoundTrip() {
+        Customer c1 = instance.getCustomers().get(0);
+        Customer c2 = instance.getCustomers().get(1);
+        Satellite s1 = instance.getSatellites().get(0);
+        Satellite s2 = instance.getSatellites().get(1);
+        List<AssignmentSecond> route = List.of(new AssignmentSecond(c1, s1), new AssignmentSecond(c1), new AssignmentSecond(c2, s2), new AssignmentSecond(c2));
+
+        PackedRouteSecond packedRoute = PackedRouteSecond.fromAssignments(route);
+        assertEquals(4, packedRoute.size());
+        assertEquals(1, packedRoute.getSatellite(2));
+        assertEquals(1, packedRoute.getCustomer(3));
+        assertEquals(-1, packedRoute.getSatellite(3));
+        assertEquals(route, packedRoute.toAssignments(instance));
+        assertEquals(route.toString(), packedRoute.toString());
+        assertEquals(List.of(route), PackedRouteSecond.toPermutations(PackedRouteSecond.fromPermutations(List.of(route)), instance));
+    }
+
+    @Test
+    void TestFirstEchelonConversionRoundTrip() {
+        Satellite s1 = instance.getSatellites().get(0);
+        Satellite s2 = instance.getSatellites().get(1);
+        Depot d2 = instance.getDepots().get(1);
+        List<AssignmentFirst> route = List.of(new AssignmentFirst(s1, d2), new AssignmentFirst(s2, d2), new AssignmentFirst(s1), new AssignmentFirst(s2));
+
+        PackedRouteFirst packedRoute = PackedRouteFirst.fromAssignments(route);
+        assertEquals(1, packedRoute.getDepot(0));
+        assertEquals(1, packedRoute.getSatellite(1));
+        assertEquals(-1, packedRoute.getDepot(2));
+        assertEquals(route, packedRoute.toAssignments(instance));
+        assertEquals(route.toString(), packedRoute.toString());
+        packedRoute.removeSite(0);
+        assertEquals(List.of(new AssignmentFirst(s2, d2), new AssignmentFirst(s2)), packedRoute.toAssignments(instance));
+    }
+
+    @Test
+    void TestRouteModifications() {
+        PackedRouteSecond route = new PackedRouteSecond(1);
+        route.addLoad(0, 0);
+        route.addDelivery(0);
+        PackedRouteSecond other = new PackedRouteSecond(route);
+        route.add(1, PackedRoute.encodeLoad(1, 0));
+        route.addDelivery(1);
+        assertEquals(4, route.size());
+        assertEquals(1, route.indexOf(PackedRoute.encodeLoad(1, 0)));
+        assertNotEquals(route, other);
+        route.remove(3);
+        route.remove(1);
+        assertEquals(route, other);
+        assertEquals(route.hashCode(), other.hashCode());
+        route.addAll(other);
+        assertArrayEquals(new int[]{other.get(0), other.get(1), other.get(0), other.get(1)}, route.toArray());
+        assertThrows(IndexOutOfBoundsException.class, () -> route.get(4));
+    }
+}
@@ -0,0 +1,62 @@
+package model;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Classe de test JUnit pour la classe SpatialIndex. <br>
+ * Les résultats sont comparés à un parcours complet des sites.
+ *
+ * @author LASTENNET Dorian
+ */
+class SpatialIndexTest {
+
+    private List<Customer> customers;
+    private SpatialIndex<Customer> index;
+
+    @BeforeEach
+    void setUp() {
+        Random random = new Random(42);
+        customers = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            customers.add(new Customer(i + 1, i, random.nextInt(101) - 50, random.nextInt(101) - 50, 10, 0, 100, 10));
+        }
+        index = new SpatialIndex<>(customers);
+    }
+
+    @Test
+    void TestRangeQueryMatchesFullScan() {
+        for (Customer center : customers.subList(0, 20)) {
+            List<Customer> expected = new ArrayList<>();
+            for (Customer c : customers) {
+                if (center.computeDistance(c) <= 15.0) {
+                    expected.add(c);
+                }
+            }
+            assertEquals(expected, index.rangeQuery(center, 15.0));
+        }
+    }
+
+    @Test
+    void TestNearestMatchesFullScan() {
+        for (Customer center : customers.subList(0, 20)) {
+            List<Customer> expected = new ArrayList<>(customers);
+            expected.remove(center);
+            expected.sort((Customer a, Customer b) -> Double.compare(center.computeDistance(a), center.computeDistance(b)));
+            assertEquals(expected.subList(0, 10), index.nearest(center, 10));
+            assertEquals(expected.get(0), index.nearest(center));
+        }
+    }
+
+    @Test
+    void TestNearestOnEmptyIndex() {
+        SpatialIndex<Depot> emptyIndex = new SpatialIndex<>(new ArrayList<>());
+        assertNull(emptyIndex.nearest(customers.get(0)));
+        assertEquals(0, emptyIndex.rangeQuery(0, 0, 100.0).length);
+    }
+}
@@ -0,0 +1,84 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.util.List;
+import model.Instance;
+import model.Solution;
+import utils.FileManager;
+import utils.FileManagerException;
+
+/**
+ * Classe de test JUnit pour le portefeuille de variantes de Clarke &amp;
+ * Wright.
+ *
+ * @author LASTENNET Dorian
+ */
+class ClarkeWrightPortfolioTest {
+
+    @Test
+    void TestFirstVariantKeepsParameters() {
+        ClarkeWrightParameters parameters = new ClarkeWrightParameters();
+        parameters.setNeighbourhoodSize(5);
+        parameters.setParallelism(4);
+        parameters.setSeed(9);
+        List<ClarkeWrightParameters> variants = ClarkeWrightPortfolio.createVariants(parameters, 6);
+        assertEquals(6, variants.size());
+        assertEquals(1.0, variants.get(0).getRouteShape());
+        assertEquals(0.0, variants.get(0).getPerturbation());
+        assertTrue(variants.get(0).isRefillAllowed());
+        for (ClarkeWrightParameters variant : variants) {
+            assertEquals(5, variant.getNeighbourhoodSize());
+            assertEquals(1, variant.getParallelism());
+        }
+        //le tirage ne dépend que de la graine
+        assertEquals(variants.get(5).toString(), ClarkeWrightPortfolio.createVariants(parameters, 6).get(5).toString());
+    }
+
+    @Test
+    void TestPerturbationIsBoundedAndReproducible() {
+        ClarkeWrightParameters parameters = new ClarkeWrightParameters();
+        assertEquals(10.0, parameters.perturb(10.0, 0, 1, 2, 3));
+        parameters.setPerturbation(0.1);
+        parameters.setSeed(42);
+        for (int site = 0; site < 100; site++) {
+            double value = parameters.perturb(10.0, 0, 1, site, 3);
+            assertTrue(value >= 9.0 && value <= 11.0);
+            assertEquals(value, parameters.perturb(10.0, 0, 1, site, 3));
+        }
+        assertNotEquals(parameters.perturb(10.0, 0, 1, 2, 3), parameters.perturb(10.0, 0, 1, 3, 2));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt'"
+    })
+    void TestPortfolioIsNotWorseAndDoesNotDependOnParallelism(String testFilename) throws FileManagerException, IOException {
+        Instance instance = new FileManager(testFilename).readInstance();
+        Solver solver = new Solver(instance, true);
+        solver.solveInstance(new ClarkeWrightSecond(solver));
+        solver.solveInstance(new ClarkeWrightFirst(solver));
+        double objective = solver.evaluateSolution(solver.getSolution());
+        boolean doable = solver.isSolutionDoable(solver.getSolution());
+
+        ClarkeWrightParameters parameters = new ClarkeWrightParameters();
+        ClarkeWrightPortfolio portfolio = new ClarkeWrightPortfolio(solver, parameters, 12, 0);
+        Solution solution = portfolio.solve();
+        assertEquals(12, portfolio.getSolvedVariantNumber());
+        assertEquals(solver.evaluateSolution(solution), portfolio.getBestObjective());
+        assertTrue(portfolio.isBestDoable() || !doable);
+        if (portfolio.isBestDoable() == doable) {
+            assertTrue(portfolio.getBestObjective() <= objective);
+        }
+
+        parameters.setParallelism(3);
+        ClarkeWrightPortfolio parallelPortfolio = new ClarkeWrightPortfolio(solver, parameters, 12, 0);
+        assertEquals(solution.toString(), parallelPortfolio.solve().toString());
+        assertEquals(portfolio.getBestVariant(), parallelPortfolio.getBestVariant());
+    }
+}
@@ -0,0 +1,88 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import model.Instance;
+import model.PackedRoute;
+import model.PackedRouteSecond;
+import utils.FileManager;
+import utils.FileManagerException;
+
+/**
+ * Classe de test JUnit pour la réinsertion des clients.
+ *
+ * @author LASTENNET Dorian
+ */
+class InsertionRepairTest {
+
+    private static RouteSecond route(Solver solver, int satellite, int... customers) {
+        PackedRouteSecond route = new PackedRouteSecond();
+        for (int c : customers) {
+            route.addLoad(c, satellite);
+        }
+        for (int c : customers) {
+            route.addDelivery(c);
+        }
+        return new RouteSecond(route, solver);
+    }
+
+    private static List<PackedRouteSecond> packedRoutes(List<RouteSecond> routes) {
+        List<PackedRouteSecond> packedRoutes = new ArrayList<>();
+        for (RouteSecond route : routes) {
+            packedRoutes.add(route.getRoute());
+        }
+        return packedRoutes;
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1", "2", "3"})
+    void TestInsertedRoutesAreFeasibleAndNotWorseThanANewTour(int regret) throws FileManagerException, IOException {
+        Instance instance = new FileManager("src/test/java/Instances/testInstanceValid-2,2,3.txt").readInstance();
+        Solver solver = new Solver(instance, true);
+        List<RouteSecond> routes = new ArrayList<>(List.of(route(solver, 0, 0), route(solver, 1, 1)));
+        double cost = solver.evaluateSecondEchelon(packedRoutes(routes));
+        //une nouvelle tournée en fin de route fait partie des insertions considérées
+        double newTourCost = Double.POSITIVE_INFINITY;
+        for (int r = 0; r < routes.size(); r++) {
+            List<PackedRouteSecond> candidate = packedRoutes(routes);
+            PackedRouteSecond route = new PackedRouteSecond(candidate.get(r));
+            route.addLoad(2, 0);
+            route.addDelivery(2);
+            candidate.set(r, route);
+            if (solver.isSecondEchelonPermutationCapacitiesRespected(route) && solver.isSecondEchelonPermutationTimeWindowsRespected(route)) {
+                newTourCost = Math.min(newTourCost, solver.evaluateSecondEchelon(candidate));
+            }
+        }
+        InsertionRepair repair = new InsertionRepair(solver, regret, null);
+        assertTrue(repair.insertAll(routes, new int[]{PackedRoute.encodeLoad(2, 0)}));
+        int delivered = 0;
+        for (RouteSecond route : routes) {
+            assertTrue(solver.isSecondEchelonPermutationCapacitiesRespected(route.getRoute()));
+            assertTrue(solver.isSecondEchelonPermutationTimeWindowsRespected(route.getRoute()));
+            delivered += route.size() / 2;
+        }
+        assertEquals(3, delivered);
+        double insertedCost = solver.evaluateSecondEchelon(packedRoutes(routes));
+        assertTrue(insertedCost > cost);
+        assertTrue(insertedCost <= newTourCost + 1e-9);
+    }
+
+    @ParameterizedTest
+    @CsvSource({"1", "2"})
+    void TestFailedRepairLeavesRoutesUnchanged(int regret) throws FileManagerException, IOException {
+        Instance instance = new FileManager("src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt").readInstance();
+        Solver solver = new Solver(instance, true);
+        List<RouteSecond> routes = new ArrayList<>(List.of(route(solver, 0, 0)));
+        List<RouteSecond> initialRoutes = new ArrayList<>(routes);
+        InsertionRepair repair = new InsertionRepair(solver, regret, null);
+        //la demande du client 2 dépasse à elle seule la capacité des véhicules
+        assertFalse(repair.insertAll(routes, new int[]{PackedRoute.encodeLoad(2, 0)}));
+        assertEquals(initialRoutes, routes);
+        assertThrows(IllegalArgumentException.class, () -> new InsertionRepair(solver, 0, null));
+    }
+}
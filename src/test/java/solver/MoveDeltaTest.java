@@ -0,0 +1,138 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import model.Instance;
+import model.PackedRoute;
+import model.PackedRouteSecond;
+import utils.FileManager;
+import utils.FileManagerException;
+
+/**
+ * Classe de test JUnit pour l'évaluation des mouvements sans les appliquer.
+ *
+ * @author LASTENNET Dorian
+ */
+class MoveDeltaTest {
+
+    private Solver solver;
+
+    private static int load(int customer, int satellite) {
+        return PackedRoute.encodeLoad(customer, satellite);
+    }
+
+    private static int delivery(int customer) {
+        return PackedRoute.encodeDelivery(customer);
+    }
+
+    private static PackedRouteSecond packed(int... elements) {
+        PackedRouteSecond route = new PackedRouteSecond();
+        for (int element : elements) {
+            route.add(element);
+        }
+        return route;
+    }
+
+    private RouteSecond route(int... elements) {
+        return new RouteSecond(packed(elements), solver);
+    }
+
+    /**
+     * Compare le mouvement évalué à l'évaluation complète des routes
+     * modifiées construites à la main.
+     */
+    private void assertMove(MoveDelta move, List<RouteSecond> before, PackedRouteSecond... after) {
+        List<PackedRouteSecond> beforeRoutes = new ArrayList<>();
+        for (RouteSecond route : before) {
+            beforeRoutes.add(route.getRoute());
+        }
+        boolean feasible = true;
+        for (PackedRouteSecond route : after) {
+            feasible = feasible && solver.isSecondEchelonPermutationCapacitiesRespected(route) && solver.isSecondEchelonPermutationTimeWindowsRespected(route);
+        }
+        double expectedDelta = solver.evaluateSecondEchelon(List.of(after)) - solver.evaluateSecondEchelon(beforeRoutes);
+        assertEquals(expectedDelta, move.getCostDelta(), 1e-6);
+        assertEquals(feasible, move.isFeasible());
+    }
+
+    void setUpTestData(String testFilename, boolean allowWaitingTime) throws FileManagerException, IOException {
+        Instance instance = new FileManager(testFilename).readInstance();
+        solver = new Solver(instance, allowWaitingTime);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt', true",
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt', false",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt', true",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt', false",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt', true"
+    })
+    void TestMovesGiveSameResultsAsFullEvaluation(String testFilename, boolean allowWaitingTime) throws FileManagerException, IOException {
+        setUpTestData(testFilename, allowWaitingTime);
+        RouteSecond a = route(load(0, 0), load(1, 0), delivery(0), delivery(1));
+        RouteSecond b = route(load(2, 1), delivery(2));
+        List<RouteSecond> routes = List.of(a, b);
+
+        assertMove(solver.evaluateRelocate(a, 2, b, 2), routes,
+                packed(load(1, 0), delivery(1)), packed(load(2, 1), load(0, 1), delivery(2), delivery(0)));
+        assertMove(solver.evaluateRelocate(a, 2, a, 4), List.of(a),
+                packed(load(1, 0), load(0, 0), delivery(1), delivery(0)));
+        //la route vidée libère son véhicule
+        assertMove(solver.evaluateRelocate(b, 1, a, 3), routes,
+                packed(load(0, 0), load(1, 0), load(2, 0), delivery(0), delivery(2), delivery(1)));
+        assertMove(solver.evaluateSwap(a, 3, b, 1), routes,
+                packed(load(0, 0), load(2, 0), delivery(0), delivery(2)), packed(load(1, 1), delivery(1)));
+        assertMove(solver.evaluateSwap(a, 2, a, 3), List.of(a),
+                packed(load(1, 0), load(0, 0), delivery(1), delivery(0)));
+        assertMove(solver.evaluateTwoOpt(a, 2, 3), List.of(a),
+                packed(load(0, 0), load(1, 0), delivery(1), delivery(0)));
+        assertMove(solver.evaluateTwoOptStar(a, 3, b, 1), routes,
+                packed(load(0, 0), load(2, 0), delivery(0), delivery(2)), packed(load(1, 1), delivery(1)));
+        assertMove(solver.evaluateTwoOptStar(a, 2, b, 2), routes,
+                packed(load(2, 1), load(0, 1), load(1, 1), delivery(2), delivery(0), delivery(1)));
+        assertMove(solver.evaluateCrossExchange(a, 2, 4, b, 1, 2), routes,
+                packed(load(2, 0), delivery(2)), packed(load(0, 1), load(1, 1), delivery(0), delivery(1)));
+        assertMove(solver.evaluateCrossExchange(a, 3, 3, b, 1, 2), routes,
+                packed(load(0, 0), load(1, 0), load(2, 0), delivery(0), delivery(2), delivery(1)));
+        assertMove(solver.evaluateSatelliteChange(a, 2, 1), List.of(a),
+                packed(load(0, 1), load(1, 0), delivery(0), delivery(1)));
+
+        //route de deux tournées depuis deux satellites
+        RouteSecond c = route(load(0, 0), delivery(0), load(1, 1), delivery(1));
+        RouteSecond d = route(load(2, 0), delivery(2));
+        routes = List.of(c, d);
+        assertMove(solver.evaluateRelocate(d, 1, c, 4), routes,
+                packed(load(0, 0), delivery(0), load(1, 1), load(2, 1), delivery(1), delivery(2)));
+        assertMove(solver.evaluateRelocate(c, 1, c, 4), List.of(c),
+                packed(load(1, 1), load(0, 1), delivery(1), delivery(0)));
+        assertMove(solver.evaluateTwoOptStar(c, 2, d, 1), routes,
+                packed(load(0, 0), load(2, 0), delivery(0), delivery(2)), packed(load(1, 1), delivery(1)));
+        assertMove(solver.evaluateSwap(c, 1, c, 3), List.of(c),
+                packed(load(1, 0), delivery(1), load(0, 1), delivery(0)));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"'src/test/java/Instances/testInstanceValid-2,2,3.txt'"})
+    void TestInvalidMovesAreRejected(String testFilename) throws FileManagerException, IOException {
+        setUpTestData(testFilename, true);
+        RouteSecond a = route(load(0, 0), load(1, 0), delivery(0), delivery(1));
+        RouteSecond b = route(load(2, 1), delivery(2));
+        //un chargement n'est pas une livraison
+        assertThrows(IllegalArgumentException.class, () -> solver.evaluateRelocate(a, 0, b, 1));
+        //insertion entre deux chargements
+        assertThrows(IllegalArgumentException.class, () -> solver.evaluateRelocate(b, 1, a, 1));
+        assertThrows(IllegalArgumentException.class, () -> solver.evaluateTwoOpt(a, 3, 4));
+        assertThrows(IllegalArgumentException.class, () -> solver.evaluateTwoOptStar(a, 2, a, 3));
+        assertThrows(IllegalArgumentException.class, () -> solver.evaluateCrossExchange(a, 2, 5, b, 1, 2));
+        assertThrows(IllegalArgumentException.class, () -> solver.evaluateSatelliteChange(a, 2, 2));
+        MoveDelta move = solver.evaluateRelocate(a, 2, a, 2);
+        assertEquals(0.0, move.getCostDelta(), 1e-9);
+        assertFalse(move.isImproving());
+    }
+}
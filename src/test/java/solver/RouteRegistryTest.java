@@ -0,0 +1,52 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import model.PackedRoute;
+import model.PackedRouteFirst;
+
+/**
+ * Classe de test JUnit pour le registre des routes.
+ *
+ * @author LASTENNET Dorian
+ */
+class RouteRegistryTest {
+
+    private static PackedRouteFirst route(int depot, int... satellites) {
+        PackedRouteFirst route = new PackedRouteFirst();
+        for (int s : satellites) {
+            route.addLoad(s, depot);
+        }
+        for (int s : satellites) {
+            route.addDelivery(s);
+        }
+        return route;
+    }
+
+    @Test
+    void TestRoutesAreFoundByTheirEnds() {
+        PackedRouteFirst merged = route(0, 1, 2, 3);
+        RouteRegistry<PackedRouteFirst> registry = new RouteRegistry<>(List.of(route(1, 0), merged), route -> route);
+        assertSame(merged, registry.findRouteFirst(PackedRoute.encodeLoad(1, 0)));
+        assertSame(merged, registry.findRouteLast(PackedRoute.encodeLoad(3, 0)));
+        assertNull(registry.findRouteFirst(PackedRoute.encodeLoad(3, 0)));
+        assertNull(registry.findRouteLast(PackedRoute.encodeLoad(3, 1)));
+    }
+
+    @Test
+    void TestRemovalKeepsInsertionOrder() {
+        PackedRouteFirst first = route(0, 0);
+        PackedRouteFirst second = route(1, 0);
+        PackedRouteFirst third = route(0, 1);
+        PackedRouteFirst fourth = route(1, 1);
+        RouteRegistry<PackedRouteFirst> registry = new RouteRegistry<>(List.of(first, second, third, fourth), route -> route);
+        registry.remove(first);
+        registry.removeOtherOrigins(1, 0, 2);
+        registry.add(first);
+        assertEquals(List.of(second, third, first), registry.getRoutes());
+        assertEquals(3, registry.size());
+        assertNull(registry.findRouteLast(PackedRoute.encodeLoad(1, 1)));
+    }
+}
@@ -0,0 +1,234 @@
+package solver;
+
+import static org.junit.jupiter.api.Assertions.*;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import model.DistanceMatrix;
+import model.Instance;
+import utils.ArtifactCache;
+import utils.FileManager;
+import utils.FileManagerException;
+
+/**
+ * Classe de test JUnit pour la liste primitive des savings.
+ *
+ * @author LASTENNET Dorian
+ */
+class SavingsListTest {
+
+    @Test
+    void TestIndexesArePacked() {
+        SavingsList savings = new SavingsList();
+        savings.add(SavingsList.MAX_ORIGINS - 1, 3, SavingsList.MAX_SITES - 1, 7, -2.5);
+        assertEquals(SavingsList.MAX_ORIGINS - 1, savings.getiOrigin(0));
+        assertEquals(3, savings.getjOrigin(0));
+        assertEquals(SavingsList.MAX_SITES - 1, savings.getiSite(0));
+        assertEquals(7, savings.getjSite(0));
+        assertEquals(-2.5, savings.getValue(0));
+        assertThrows(IllegalArgumentException.class, () -> savings.add(0, 0, SavingsList.MAX_SITES, 0, 0.0));
+        assertThrows(IndexOutOfBoundsException.class, () -> savings.getValue(1));
+    }
+
+    @Test
+    void TestSortIsStableAndDescending() {
+        Random random = new Random(42);
+        SavingsList savings = new SavingsList(1);
+        List<double[]> expected = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            //peu de valeurs distinctes pour avoir des égalités, dont zéro signé et négatifs
+            double value = i % 97 == 0 ? -0.0 : (random.nextInt(50) - 25) / 4.0;
+            savings.add(i % 5, i % 3, i, 2000 - i, value);
+            expected.add(new double[]{value, i});
+        }
+        Collections.sort(expected, Collections.reverseOrder(Comparator.comparingDouble((double[] saving) -> saving[0])));
+        int[] order = savings.descendingOrder();
+        savings.sortDescending();
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(Double.doubleToLongBits(expected.get(i)[0]), Double.doubleToLongBits(savings.getValue(i)));
+            assertEquals((int) expected.get(i)[1], savings.getiSite(i));
+            assertEquals((int) expected.get(i)[1], order[i]);
+        }
+    }
+
+    @Test
+    void TestBoundedListKeepsBestSavings() {
+        Random random = new Random(7);
+        SavingsList savings = new SavingsList(16);
+        SavingsList bestSavings = new SavingsList(16, 100);
+        for (int i = 0; i < 1000; i++) {
+            double value = random.nextInt(40) / 2.0;
+            savings.add(0, 1, i, i, value);
+            bestSavings.add(0, 1, i, i, value);
+        }
+        assertEquals(100, bestSavings.size());
+        assertEquals(1000, bestSavings.getAddedNumber());
+        savings.sortDescending();
+        bestSavings.sortDescending();
+        for (int i = 0; i < bestSavings.size(); i++) {
+            assertEquals(savings.getValue(i), bestSavings.getValue(i));
+            assertEquals(savings.getiSite(i), bestSavings.getiSite(i));
+        }
+        assertThrows(IllegalStateException.class, () -> bestSavings.add(0, 0, 0, 0, 100.0));
+    }
+
+    @Test
+    void TestParallelSortGivesSameOrder() {
+        Random random = new Random(3);
+        SavingsList first = new SavingsList();
+        for (int i = 0; i < 200000; i++) {
+            double value = random.nextInt(1000) - 500.0;
+            first.add(i % 7, i % 5, i % SavingsList.MAX_SITES, 0, value);
+        }
+        SavingsList second = SavingsList.concatenate(List.of(first), 0);
+        first.sortDescending();
+        second.sortDescending(3);
+        for (int i = 0; i < first.size(); i++) {
+            assertEquals(first.getValue(i), second.getValue(i));
+            assertEquals(first.getiSite(i), second.getiSite(i));
+            assertEquals(first.getiOrigin(i), second.getiOrigin(i));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 0", "0, 5", "2, 0"})
+    void TestParallelSavingsAreIdentical(int neighbourhoodSize, int maxSavingsNumber) throws FileManagerException, IOException {
+        Instance instance = new FileManager("src/test/java/Instances/testInstanceValid-2,2,3.txt").readInstance();
+        Solver solver = new Solver(instance, true);
+        ClarkeWrightParameters parameters = new ClarkeWrightParameters();
+        parameters.setNeighbourhoodSize(neighbourhoodSize);
+        parameters.setMaxSavingsNumber(maxSavingsNumber);
+        SavingsList savings = new ClarkeWrightSecond(solver, parameters).computeSavings(instance);
+        parameters.setParallelism(4);
+        SavingsList parallelSavings = new ClarkeWrightSecond(solver, parameters).computeSavings(instance);
+        assertEquals(savings.size(), parallelSavings.size());
+        for (int i = 0; i < savings.size(); i++) {
+            assertEquals(savings.getValue(i), parallelSavings.getValue(i));
+            assertEquals(savings.getiOrigin(i), parallelSavings.getiOrigin(i));
+            assertEquals(savings.getjOrigin(i), parallelSavings.getjOrigin(i));
+            assertEquals(savings.getiSite(i), parallelSavings.getiSite(i));
+            assertEquals(savings.getjSite(i), parallelSavings.getjSite(i));
+        }
+    }
+
+    @Test
+    void TestCorruptedCachedOrderIsIgnored(@TempDir Path directory) throws FileManagerException {
+        Instance instance = new FileManager("src/test/java/Instances/testInstanceValid-2,2,3.txt").readInstance();
+        ArtifactCache cache = new ArtifactCache(directory.toString());
+        SavingsList savings = new SavingsList();
+        SavingsList expected = new SavingsList();
+        for (int i = 0; i < 4; i++) {
+            savings.add(0, 1, i, i, i);
+            expected.add(0, 1, i, i, i);
+        }
+        expected.sortDescending();
+        //indices dans les bornes mais dupliqués
+        cache.storeInts(instance.getFingerprint(), "order", new int[]{3, 3, 1, 0});
+        SavingsOrder.sortDescending(savings, instance, cache, "order");
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.getiSite(i), savings.getiSite(i));
+        }
+        assertArrayEquals(new int[]{3, 2, 1, 0}, cache.loadInts(instance.getFingerprint(), "order"));
+    }
+
+    @Test
+    void TestFixedPointOrderIsCachedSeparately(@TempDir Path directory) throws FileManagerException {
+        String filename = "src/test/java/Instances/testInstanceValid-2,2,3.txt";
+        Instance instance = new FileManager(filename).readInstance();
+        Instance fixedPointInstance = new FileManager(filename).readInstance(DistanceMatrix.Type.FIXED_POINT);
+        assertEquals(instance.getFingerprint(), fixedPointInstance.getFingerprint());
+        ArtifactCache cache = new ArtifactCache(directory.toString());
+        SavingsList savings = new SavingsList();
+        SavingsList fixedPointSavings = new SavingsList();
+        for (int i = 0; i < 4; i++) {
+            savings.add(0, 1, i, i, i);
+            fixedPointSavings.add(0, 1, i, i, -i);
+        }
+        SavingsOrder.sortDescending(savings, instance, cache, "order");
+        SavingsOrder.sortDescending(fixedPointSavings, fixedPointInstance, cache, "order");
+        for (int i = 0; i < 4; i++) {
+            assertEquals(3 - i, savings.getiSite(i));
+            assertEquals(i, fixedPointSavings.getiSite(i));
+        }
+    }
+
+    @Test
+    void TestSpillKeepsGenerationError() {
+        ClarkeWrightParameters parameters = new ClarkeWrightParameters();
+        parameters.setMaxSavingsInMemory(2);
+        IllegalStateException error = new IllegalStateException("génération interrompue");
+        //deux suites écrites avant l'erreur
+        IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> SavingsBuilder.spill(1, 10, parameters, (i, j, kStart, kEnd, savings) -> {
+            if (kStart == 5) {
+                throw error;
+            }
+            savings.add(i, j, kStart, kStart, kStart);
+        }));
+        assertSame(error, thrown);
+        assertEquals(0, thrown.getSuppressed().length);
+    }
+
+    @Test
+    void TestSpilledSavingsKeepSortedOrder() {
+        Random random = new Random(11);
+        SavingsList savings = new SavingsList();
+        try ( SpilledSavings spilled = new SpilledSavings()) {
+            SavingsList chunk = new SavingsList();
+            for (int i = 0; i < 5000; i++) {
+                double value = (random.nextInt(30) - 10) / 2.0;
+                savings.add(i % 3, i % 2, i, i % 17, value);
+                chunk.add(i % 3, i % 2, i, i % 17, value);
+                if (chunk.size() == 700) {
+                    spilled.addRun(chunk, 1);
+                    chunk = new SavingsList();
+                }
+            }
+            spilled.addRun(chunk, 1);
+            assertEquals(8, spilled.getRunNumber());
+            assertEquals(savings.size(), spilled.size());
+            savings.sortDescending();
+            try ( SpilledSavings.Cursor cursor = spilled.cursor()) {
+                for (int i = 0; i < savings.size(); i++) {
+                    assertTrue(cursor.next());
+                    assertEquals(savings.getValue(i), cursor.getValue());
+                    assertEquals(savings.getiOrigin(i), cursor.getiOrigin());
+                    assertEquals(savings.getjOrigin(i), cursor.getjOrigin());
+                    assertEquals(savings.getiSite(i), cursor.getiSite());
+                    assertEquals(savings.getjSite(i), cursor.getjSite());
+                }
+                assertFalse(cursor.next());
+            }
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({"0, 1", "0, 4", "2, 3"})
+    void TestSpilledSavingsAreIdentical(int neighbourhoodSize, int maxSavingsInMemory) throws FileManagerException, IOException {
+        Instance instance = new FileManager("src/test/java/Instances/testInstanceValid-2,2,3.txt").readInstance();
+        Solver solver = new Solver(instance, true);
+        ClarkeWrightParameters parameters = new ClarkeWrightParameters();
+        parameters.setNeighbourhoodSize(neighbourhoodSize);
+        parameters.setMaxSavingsInMemory(maxSavingsInMemory);
+        ClarkeWrightSecond heuristic = new ClarkeWrightSecond(solver, parameters);
+        SavingsList savings = heuristic.computeSavings(instance);
+        try ( SpilledSavings spilled = heuristic.spillSavings(instance);  SpilledSavings.Cursor cursor = spilled.cursor()) {
+            assertEquals(savings.size(), spilled.size());
+            for (int i = 0; i < savings.size(); i++) {
+                assertTrue(cursor.next());
+                assertEquals(savings.getValue(i), cursor.getValue());
+                assertEquals(savings.getiSite(i), cursor.getiSite());
+                assertEquals(savings.getjSite(i), cursor.getjSite());
+            }
+        }
+        assertEquals(new ClarkeWrightSecond(solver).solve().toString(), heuristic.solve().toString());
+    }
+}
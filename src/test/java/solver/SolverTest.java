@@ -1,8 +1,21 @@
 package solver;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import model.AssignmentSecond;
+import model.Customer;
+import model.Depot;
+import model.Fleet;
 import model.Instance;
+import model.RouteEvaluation;
+import model.Satellite;
+import model.PackedRoute;
+import model.PackedRouteFirst;
+import model.PackedRouteSecond;
 import model.Solution;
+import model.SolutionReport;
 import utils.FileManager;
 import utils.FileManagerException;
 
@@ -101,6 +114,138 @@ class SolverTest {
         assertEquals(expectedValue, secondEchelonValue);
     }
 
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt', true, true",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt', true, false",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt', true, true",
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt', false, true",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt', false, false",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt', false, true"
+    })
+    void TestIsSecondEchelonTimeWindowsRespectedWithTightenedWindows(String testFilename, boolean allowWaitingTime, boolean expectedValue) throws FileManagerException, IOException {
+        setUpTestData(testFilename);
+        Solver originalSolver = new Solver(instance, solution, allowWaitingTime, false);
+        Solver tightenedSolver = new Solver(instance, solution, allowWaitingTime, true);
+        assertEquals(expectedValue, originalSolver.isSecondEchelonTimeWindowsRespected(solution));
+        assertEquals(expectedValue, tightenedSolver.isSecondEchelonTimeWindowsRespected(solution));
+    }
+
+    @ParameterizedTest
+    @CsvSource({"true", "false"})
+    void TestTightenedWindowsKeepIntegerEarliestArrivalsFeasible(boolean allowWaitingTime) {
+        //arrivées au plus tôt entières : 5 de service au satellite puis 10 et 10 de trajet
+        List<Customer> customers = List.of(new Customer(1, 0, 10, 10, 0, 0, 100, 5), new Customer(2, 1, 10, 20, 0, 0, 100, 5));
+        List<Satellite> satellites = List.of(new Satellite(1, 2, 10, 0, 5));
+        List<Depot> depots = List.of(new Depot(1, 3, 0, 0, 0));
+        Instance integerInstance = new Instance(depots, satellites, customers, new Fleet(0, 1, 100, 10), new Fleet(1, 1, 100, 10));
+        PackedRouteSecond route = new PackedRouteSecond();
+        route.add(PackedRoute.encodeLoad(0, 0));
+        route.add(PackedRoute.encodeLoad(1, 0));
+        route.add(PackedRoute.encodeDelivery(0));
+        route.add(PackedRoute.encodeDelivery(1));
+        assertTrue(new Solver(integerInstance, allowWaitingTime, false).isSecondEchelonPermutationTimeWindowsRespected(route));
+        assertTrue(new Solver(integerInstance, allowWaitingTime, true).isSecondEchelonPermutationTimeWindowsRespected(route));
+        assertTrue(integerInstance.getTightenedSiteTable().getTimeWindowStart(0) < 15);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt'"
+    })
+    void TestPackedSecondEchelonRoutesGiveSameResults(String testFilename) throws FileManagerException, IOException {
+        setUpTestData(testFilename);
+        List<PackedRouteSecond> routes = PackedRouteSecond.fromPermutations(solution.getSecondEchelonPermutations());
+        assertEquals(solver.evaluateSecondEchelon(solution), solver.evaluateSecondEchelon(routes));
+        for (int i = 0; i < routes.size(); i++) {
+            List<AssignmentSecond> route = solution.getSecondEchelonPermutations().get(i);
+            assertEquals(solver.isSecondEchelonPermutationTimeWindowsRespected(route), solver.isSecondEchelonPermutationTimeWindowsRespected(routes.get(i)));
+            assertEquals(solver.isSecondEchelonPermutationCapacitiesRespected(route), solver.isSecondEchelonPermutationCapacitiesRespected(routes.get(i)));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt'"
+    })
+    void TestRouteSegmentsGiveSameResults(String testFilename) throws FileManagerException, IOException {
+        setUpTestData(testFilename);
+        List<PackedRouteSecond> routes = PackedRouteSecond.fromPermutations(solution.getSecondEchelonPermutations());
+        double cost = routes.size() * instance.getSecondEchelonFleet().getVehiclesCost();
+        for (PackedRouteSecond route : routes) {
+            RouteSecond aggregatedRoute = new RouteSecond(route, solver);
+            boolean timeWindowsRespected = solver.isSecondEchelonPermutationTimeWindowsRespected(route);
+            boolean capacitiesRespected = solver.isSecondEchelonPermutationCapacitiesRespected(route);
+            //toute découpe en un préfixe et un suffixe donne la route entière
+            for (int k = 1; k < route.size(); k++) {
+                RouteSegment segment = solver.concatenate(aggregatedRoute.getPrefix(k), aggregatedRoute.getSuffix(k));
+                assertTrue(segment.isExact());
+                assertEquals(timeWindowsRespected, segment.isTimeWindowsRespected());
+                assertEquals(capacitiesRespected, solver.isSecondEchelonSegmentCapacitiesRespected(segment));
+            }
+            cost += solver.evaluateSecondEchelonSegment(aggregatedRoute.getSegment());
+        }
+        assertEquals(solver.evaluateSecondEchelon(solution), cost, 1e-9);
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt'"
+    })
+    void TestPackedFirstEchelonRoutesGiveSameResults(String testFilename) throws FileManagerException, IOException {
+        setUpTestData(testFilename);
+        List<PackedRouteFirst> routes = PackedRouteFirst.fromPermutations(solution.getFirstEchelonPermutations());
+        assertEquals(solver.evaluateFirstEchelon(solution), solver.evaluateFirstEchelon(routes));
+        for (int i = 0; i < routes.size(); i++) {
+            assertEquals(solution.getFirstEchelonPermutations().get(i), routes.get(i).toAssignments(solver.getInstance()));
+        }
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt'"
+    })
+    void TestRouteFirstPeakLoadsGiveSameResults(String testFilename) throws FileManagerException, IOException {
+        setUpTestData(testFilename);
+        int capacity = instance.getFirstEchelonFleet().getVehiclesCapacity();
+        List<Integer> satellitesDemand = solution.getSecondEchelonCapacity();
+        PackedRouteFirst first = new PackedRouteFirst();
+        first.addLoad(0, 0);
+        first.addDelivery(0);
+        PackedRouteFirst second = new PackedRouteFirst();
+        second.addLoad(1, 0);
+        second.addDelivery(1);
+        second.addLoad(0, 1);
+        second.addDelivery(0);
+        RouteFirst firstRoute = new RouteFirst(first, solver);
+        RouteFirst secondRoute = new RouteFirst(second, solver);
+        assertEquals(satellitesDemand.get(0), firstRoute.getPeakLoad());
+        assertEquals(satellitesDemand.get(1), secondRoute.getFirstLoad());
+        assertEquals(satellitesDemand.get(0), secondRoute.getLastLoad());
+        assertEquals(satellitesDemand.get(0) + satellitesDemand.get(1), secondRoute.getDemand());
+        //fusion classique : les chargements de la première tournée de j rejoignent la dernière tournée de i
+        PackedRouteFirst classic = new PackedRouteFirst();
+        classic.addLoad(0, 0);
+        classic.addLoad(1, 0);
+        classic.addDelivery(0);
+        classic.addDelivery(1);
+        classic.addLoad(0, 1);
+        classic.addDelivery(0);
+        assertEquals(new RouteFirst(classic, solver).getPeakLoad(), firstRoute.getClassicMergePeakLoad(secondRoute));
+        assertEquals(solver.isFirstEchelonPermutationCapacitiesRespected(classic), firstRoute.getClassicMergePeakLoad(secondRoute) <= capacity);
+        //fusion avec rechargement : les routes se suivent
+        PackedRouteFirst refill = new PackedRouteFirst(first);
+        refill.addAll(second);
+        assertEquals(new RouteFirst(refill, solver).getPeakLoad(), firstRoute.getRefillMergePeakLoad(secondRoute));
+        assertEquals(solver.isFirstEchelonPermutationCapacitiesRespected(refill), firstRoute.getRefillMergePeakLoad(secondRoute) <= capacity);
+    }
+
     @ParameterizedTest
     @CsvSource({
         "'src/test/java/Instances/testInstanceValid-2,2,3.txt', true",
@@ -132,4 +277,114 @@ class SolverTest {
         boolean solutionValue = solver.isSolutionDoable(solution);
         assertEquals(expectedValue, solutionValue);
     }
-}
\ No newline at end of file
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt'"
+    })
+    void TestSolutionReportGivesSameResults(String testFilename) throws FileManagerException, IOException {
+        setUpTestData(testFilename);
+        for (boolean allowWaitingTime : new boolean[]{true, false}) {
+            Solver reportSolver = new Solver(instance, solution, allowWaitingTime);
+            SolutionReport report = reportSolver.getSolutionReport(solution);
+            assertEquals(reportSolver.evaluateFirstEchelon(PackedRouteFirst.fromPermutations(solution.getFirstEchelonPermutations())), report.getFirstEchelonCost());
+            assertEquals(reportSolver.evaluateSecondEchelon(PackedRouteSecond.fromPermutations(solution.getSecondEchelonPermutations())), report.getSecondEchelonCost());
+            assertEquals(reportSolver.isFirstEchelonCapacitiesRespected(solution), report.isFirstEchelonCapacitiesRespected());
+            assertEquals(reportSolver.isFirstEchelonVehiclesNumberRespected(solution), report.isFirstEchelonVehiclesNumberRespected());
+            assertEquals(reportSolver.isSecondEchelonTimeWindowsRespected(solution), report.isSecondEchelonTimeWindowsRespected());
+            assertEquals(reportSolver.isSecondEchelonCapacitiesRespected(solution), report.isSecondEchelonCapacitiesRespected());
+            assertEquals(reportSolver.isSecondEchelonVehiclesNumberRespected(solution), report.isSecondEchelonVehiclesNumberRespected());
+            assertEquals(reportSolver.areAllCustomersDelivered(solution), report.areAllCustomersDelivered());
+            assertEquals(report.isSecondEchelonTimeWindowsRespected(), report.getSecondEchelonTimeWindowsViolation() == 0.0);
+            //le bilan est conservé tant que la solution et les options sont inchangées
+            assertSame(report, reportSolver.getSolutionReport(solution));
+        }
+        SolutionReport report = solver.getSolutionReport(solution);
+        assertSame(report, solver.getSolutionReport(solution));
+        solution.setSecondEchelonPermutations(solution.getSecondEchelonPermutations());
+        assertNotSame(report, solver.getSolutionReport(solution));
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt'"
+    })
+    void TestSolutionWithoutSatellitesDemandIsEvaluated(String testFilename) throws FileManagerException, IOException {
+        setUpTestData(testFilename);
+        Solution copy = new Solution(new ArrayList<>(solution.getFirstEchelonPermutations()), new ArrayList<>(solution.getSecondEchelonPermutations()));
+        assertEquals(solver.evaluateFirstEchelon(PackedRouteFirst.fromPermutations(solution.getFirstEchelonPermutations())), solver.evaluateFirstEchelon(copy));
+        assertEquals(solver.evaluateSecondEchelon(PackedRouteSecond.fromPermutations(solution.getSecondEchelonPermutations())), solver.evaluateSecondEchelon(copy));
+        assertEquals(solver.evaluateSolution(solution), solver.evaluateSolution(copy));
+        //sans demande des satellites le dépassement des capacités du premier niveau est inconnu
+        SolutionReport report = solver.getSolutionReport(copy);
+        assertFalse(report.isFirstEchelonCapacityExcessKnown());
+        assertFalse(report.isFirstEchelonCapacitiesRespected());
+        assertFalse(solver.isSolutionDoable(copy));
+        copy.setSolutionSatellitesDemand(instance);
+        report = solver.getSolutionReport(copy);
+        assertTrue(report.isFirstEchelonCapacityExcessKnown());
+        assertEquals(solver.isFirstEchelonCapacitiesRespected(solution), report.isFirstEchelonCapacitiesRespected());
+    }
+
+    /**
+     * Bilan d'une copie de la solution, dont toutes les routes sont évaluées.
+     */
+    private SolutionReport getFreshReport() {
+        Solution copy = new Solution(new ArrayList<>(solution.getFirstEchelonPermutations()), new ArrayList<>(solution.getSecondEchelonPermutations()));
+        copy.setSecondEchelonCapacity(solution.getSecondEchelonCapacity());
+        return solver.getSolutionReport(copy);
+    }
+
+    private static void assertSameResults(SolutionReport expected, SolutionReport report) {
+        assertEquals(expected.getObjective(), report.getObjective());
+        assertEquals(expected.getSecondEchelonTimeWindowsViolation(), report.getSecondEchelonTimeWindowsViolation());
+        assertEquals(expected.getSecondEchelonCapacityExcess(), report.getSecondEchelonCapacityExcess());
+        assertEquals(expected.getFirstEchelonCapacityExcess(), report.getFirstEchelonCapacityExcess());
+        assertEquals(expected.getUndeliveredCustomerNumber(), report.getUndeliveredCustomerNumber());
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+        "'src/test/java/Instances/testInstanceValid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceTimeInvalid-2,2,3.txt'",
+        "'src/test/java/Instances/testInstanceCapacityInvalid-2,2,3.txt'"
+    })
+    void TestOnlyModifiedRoutesAreEvaluatedAgain(String testFilename) throws FileManagerException, IOException {
+        setUpTestData(testFilename);
+        SolutionReport report = solver.getSolutionReport(solution);
+        RouteEvaluation firstEchelonEvaluation = solution.getFirstEchelonEvaluation(0);
+        RouteEvaluation secondEchelonEvaluation = solution.getSecondEchelonEvaluation(0);
+
+        //client 0 chargé une seconde fois, à un autre satellite
+        List<AssignmentSecond> route = new ArrayList<>();
+        route.add(new AssignmentSecond(instance.getCustomers().get(0), instance.getSatellites().get(1)));
+        route.add(new AssignmentSecond(instance.getCustomers().get(0)));
+        solution.addSecondEchelonRoute(route);
+        SolutionReport addedReport = solver.getSolutionReport(solution);
+        assertSame(firstEchelonEvaluation, solution.getFirstEchelonEvaluation(0));
+        assertSame(secondEchelonEvaluation, solution.getSecondEchelonEvaluation(0));
+        assertSameResults(getFreshReport(), addedReport);
+        assertEquals(solver.areAllCustomersDelivered(solution), addedReport.areAllCustomersDelivered());
+        assertEquals(-1, addedReport.getUndeliveredCustomerNumber());
+
+        solution.removeSecondEchelonRoute(1);
+        assertSameResults(report, solver.getSolutionReport(solution));
+
+        //modification directe de la route suivie de son invalidation
+        List<AssignmentSecond> firstRoute = solution.getSecondEchelonPermutations().get(0);
+        Collections.swap(firstRoute, firstRoute.size() - 1, firstRoute.size() - 2);
+        solution.invalidateSecondEchelonRoute(0);
+        SolutionReport modifiedReport = solver.getSolutionReport(solution);
+        assertNotSame(secondEchelonEvaluation, solution.getSecondEchelonEvaluation(0));
+        assertSame(firstEchelonEvaluation, solution.getFirstEchelonEvaluation(0));
+        assertSameResults(getFreshReport(), modifiedReport);
+
+        //un changement d'options réévalue les fenêtres de temps
+        Solver noWaitingSolver = new Solver(instance, solution, false);
+        assertEquals(noWaitingSolver.isSecondEchelonTimeWindowsRespected(solution), noWaitingSolver.getSolutionReport(solution).isSecondEchelonTimeWindowsRespected());
+        assertEquals(solver.isSecondEchelonTimeWindowsRespected(solution), solver.getSolutionReport(solution).isSecondEchelonTimeWindowsRespected());
+    }
+}
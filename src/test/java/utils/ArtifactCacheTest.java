@@ -0,0 +1,131 @@
+package utils;
+
+import model.Instance;
+import model.Neighbourhood;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.stream.Stream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Classe de test JUnit pour le cache disque des données précalculées.
+ *
+ * @author LASTENNET Dorian
+ */
+class ArtifactCacheTest {
+
+    private static final String INSTANCE_FILE = "src/test/java/Instances/testInstanceValid-2,2,3.txt";
+
+    @TempDir
+    Path directory;
+
+    private ArtifactCache cache;
+    private Instance instance;
+
+    @BeforeEach
+    void setUp() throws FileManagerException {
+        cache = new ArtifactCache(directory.toString());
+        instance = new FileManager(INSTANCE_FILE).readInstance();
+    }
+
+    @Test
+    void TestDistanceMatrixIsReadFromCache() throws FileManagerException {
+        Instance firstRead = new FileManager(INSTANCE_FILE).readInstance(cache);
+        assertNotNull(cache.loadDistanceMatrix(firstRead.getFingerprint(), firstRead.getSiteNumber()));
+        Instance cachedRead = new FileManager(INSTANCE_FILE).readInstance(cache);
+        assertEquals(instance.getFingerprint(), cachedRead.getFingerprint());
+        for (int i = 0; i < instance.getSiteNumber(); i++) {
+            for (int j = 0; j < instance.getSiteNumber(); j++) {
+                assertEquals(instance.getDistance(i, j), cachedRead.getDistance(i, j));
+            }
+        }
+    }
+
+    @Test
+    void TestIntsAndRowsRoundTrip() {
+        String fingerprint = instance.getFingerprint();
+        cache.storeInts(fingerprint, "order", new int[]{3, 1, 2, 0});
+        assertArrayEquals(new int[]{3, 1, 2, 0}, cache.loadInts(fingerprint, "order"));
+        int[][] rows = {{1, 2}, {}, {0}};
+        cache.storeIntRows(fingerprint, "rows", rows);
+        assertArrayEquals(rows, cache.loadIntRows(fingerprint, "rows"));
+        assertNull(cache.loadInts(fingerprint, "absent"));
+        //une entrée d'un autre type est ignorée
+        assertNull(cache.loadInts(fingerprint, "rows"));
+    }
+
+    @Test
+    void TestEntryWithOtherFingerprintIsIgnored() throws IOException {
+        String fingerprint = instance.getFingerprint();
+        String otherFingerprint = fingerprint.replace(fingerprint.charAt(0), fingerprint.charAt(0) == '0' ? '1' : '0');
+        cache.storeInts(fingerprint, "order", new int[]{0, 1});
+        Files.move(directory.resolve(fingerprint + "-order.cache"), directory.resolve(otherFingerprint + "-order.cache"));
+        assertNull(cache.loadInts(otherFingerprint, "order"));
+    }
+
+    @Test
+    void TestNeighbourhoodIsReadFromCache() throws FileManagerException {
+        Neighbourhood computed = cache.getNeighbourhood(instance, 2);
+        Instance otherInstance = new FileManager(INSTANCE_FILE).readInstance();
+        Neighbourhood cached = cache.getNeighbourhood(otherInstance, 2);
+        assertSame(cached, otherInstance.getNeighbourhood(2));
+        assertEquals(computed.getSize(), cached.getSize());
+        for (int c = 0; c < instance.getCustomers().size(); c++) {
+            assertArrayEquals(computed.getNearestCustomers(c), cached.getNearestCustomers(c));
+            assertArrayEquals(computed.getNearestSatellites(c), cached.getNearestSatellites(c));
+            assertArrayEquals(computed.getCandidatePartners(c), cached.getCandidatePartners(c));
+        }
+    }
+
+    @Test
+    void TestOversizedDistanceMatrixIsNotStored() throws IOException {
+        ArtifactCache smallCache = new ArtifactCache(directory.toString(), 100);
+        smallCache.storeDistanceMatrix(instance);
+        assertNull(smallCache.loadDistanceMatrix(instance.getFingerprint(), instance.getSiteNumber()));
+        try ( Stream<Path> entries = Files.list(directory)) {
+            assertEquals(0, entries.count());
+        }
+    }
+
+    @Test
+    void TestFailedStoreLeavesNoTemporaryFile() throws IOException {
+        String fingerprint = instance.getFingerprint();
+        //un répertoire non vide occupe la place de l'entrée, le renommage échoue
+        Path entry = Files.createDirectory(directory.resolve(fingerprint + "-order.cache"));
+        Files.createFile(entry.resolve("file"));
+        cache.storeInts(fingerprint, "order", new int[]{0, 1});
+        assertNull(cache.loadInts(fingerprint, "order"));
+        try ( Stream<Path> entries = Files.list(directory)) {
+            assertEquals(1, entries.count());
+        }
+    }
+
+    @Test
+    void TestLeastRecentlyUsedEntriesAreEvicted() throws IOException {
+        //chaque entrée occupe 80 octets d'en-tête et 40 octets de données
+        ArtifactCache smallCache = new ArtifactCache(directory.toString(), 250);
+        String fingerprint = instance.getFingerprint();
+        int[] values = new int[10];
+        smallCache.storeInts(fingerprint, "first", values);
+        smallCache.storeInts(fingerprint, "second", values);
+        long now = System.currentTimeMillis();
+        Files.setLastModifiedTime(directory.resolve(fingerprint + "-first.cache"), FileTime.fromMillis(now - 20000));
+        Files.setLastModifiedTime(directory.resolve(fingerprint + "-second.cache"), FileTime.fromMillis(now - 10000));
+        //la première entrée devient la plus récemment utilisée
+        assertNotNull(smallCache.loadInts(fingerprint, "first"));
+        smallCache.storeInts(fingerprint, "third", values);
+        assertNotNull(smallCache.loadInts(fingerprint, "first"));
+        assertNull(smallCache.loadInts(fingerprint, "second"));
+        assertNotNull(smallCache.loadInts(fingerprint, "third"));
+        try ( Stream<Path> entries = Files.list(directory)) {
+            assertEquals(2, entries.count());
+        }
+    }
+}
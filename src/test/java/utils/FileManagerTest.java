@@ -8,10 +8,14 @@ import solver.Solver;
 
 import java.io.IOException;
 import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import static org.junit.jupiter.api.Assertions.*;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.CsvSource;
@@ -62,6 +66,36 @@ class FileManagerTest {
         assertEquals(expectedMessage, exception.getMessage());
     }
 
+    @ParameterizedTest
+    @CsvSource({
+        "1, 'Mauvais nombre de paramètres pour les clients.'",
+        "4, 'Mauvais nombre de paramètres pour les satellites.'",
+        "8, 'Mauvais nombre de paramètres pour les véhicules.'"
+    })
+    void TestBlankLineBetweenEntitiesShouldThrowException(int blankLine, String expectedMessage, @TempDir Path directory) throws IOException {
+        List<String> lines = new ArrayList<>(Files.readAllLines(Path.of("src/test/java/Instances/testInstanceValid-2,2,3.txt")));
+        lines.add(blankLine, "   ");
+        Path file = directory.resolve("testInstanceBlankLine-2,2,3.txt");
+        Files.write(file, lines);
+        FileManager fm = new FileManager(file.toString());
+        Exception exception = assertThrows(FileManagerException.class, () -> {
+            fm.readInstance();
+        });
+        assertEquals(expectedMessage, exception.getMessage());
+    }
+
+    @Test
+    void TestTrailingBlankLinesAreIgnored(@TempDir Path directory) throws IOException, FileManagerException {
+        List<String> lines = new ArrayList<>(Files.readAllLines(Path.of("src/test/java/Instances/testInstanceValid-2,2,3.txt")));
+        lines.add("");
+        lines.add("  ");
+        Path file = directory.resolve("testInstanceBlankLine-2,2,3.txt");
+        Files.write(file, lines);
+        Instance instance = new FileManager(file.toString()).readInstance();
+        assertEquals(3, instance.getCustomers().size());
+        assertEquals(2, instance.getDepots().size());
+    }
+
     @Test
     void TestWriteInstanceSolutionToFile() throws FileManagerException, IOException {
         String filename = "src/test/java/Instances/testInstanceValid-2,2,3.txt";
@@ -87,4 +121,48 @@ class FileManagerTest {
         assertTrue(file.exists());
         file.delete();
     }
+
+    @ParameterizedTest
+    @CsvSource({"true", "false"})
+    void TestBinaryInstanceRoundTrip(boolean withDistances) throws FileManagerException, IOException {
+        String filename = "src/test/java/Instances/testInstanceValid-2,2,3.txt";
+        Instance instance = new FileManager(filename).readInstance();
+        String binaryFilename = filename + BinaryInstanceFile.EXTENSION;
+        BinaryInstanceFile.convert(filename, binaryFilename, withDistances);
+        Instance binaryInstance = new FileManager(binaryFilename).readInstance();
+        new File(binaryFilename).delete();
+
+        assertEquals(instance.getDepots(), binaryInstance.getDepots());
+        assertEquals(instance.getSatellites(), binaryInstance.getSatellites());
+        assertEquals(instance.getCustomers(), binaryInstance.getCustomers());
+        assertEquals(instance.getSecondEchelonFleet().getVehiclesCapacity(), binaryInstance.getSecondEchelonFleet().getVehiclesCapacity());
+        for (int i = 0; i < instance.getSiteNumber(); i++) {
+            assertEquals(instance.getSiteTable().getTimeWindowEnd(i), binaryInstance.getSiteTable().getTimeWindowEnd(i));
+            for (int j = 0; j < instance.getSiteNumber(); j++) {
+                assertEquals(instance.getDistance(i, j), binaryInstance.getDistance(i, j));
+            }
+        }
+    }
+
+    @Test
+    void TestTooLargeBinaryInstanceShouldThrowException(@TempDir Path directory) throws IOException {
+        //fichier creux, au-delà de ce qu'une projection en mémoire peut contenir
+        Path file = directory.resolve("testInstanceTooLarge-2,2,3.txt" + BinaryInstanceFile.EXTENSION);
+        try ( RandomAccessFile raf = new RandomAccessFile(file.toFile(), "rw")) {
+            raf.setLength(Integer.MAX_VALUE + 1L);
+        }
+        Exception exception = assertThrows(FileManagerException.class, () -> {
+            BinaryInstanceFile.read(file.toString());
+        });
+        assertEquals("Fichier binaire trop volumineux, convertir l'instance sans la matrice de distance.", exception.getMessage());
+    }
+
+    @Test
+    void TestInvalidBinaryInstanceShouldThrowException() {
+        FileManager fm = new FileManager("src/test/java/Instances/testInstanceValid-2,2,3.txt");
+        Exception exception = assertThrows(FileManagerException.class, () -> {
+            BinaryInstanceFile.read(fm.getInstanceFilename());
+        });
+        assertEquals("Format binaire non conforme.", exception.getMessage());
+    }
 }